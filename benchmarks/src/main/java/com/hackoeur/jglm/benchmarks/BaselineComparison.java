@@ -0,0 +1,244 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Compares two JMH JSON result files benchmark by benchmark.  Each score
+ * comes with JMH's 99.9% confidence interval, and the change is the range of
+ * ratios the two intervals allow, so a change counts only where the
+ * intervals say so and not where the means happen to differ.
+ * <p>
+ * A benchmark regresses when even the most favourable reading of the
+ * intervals is slower than the baseline by more than its threshold.
+ * Thresholds are percentages keyed by benchmark name without the package,
+ * or by a prefix of it ending before a '.', e.g. {@code MatBenchmark};
+ * the longest key wins and {@code default} applies otherwise.
+ */
+final class BaselineComparison {
+	/** Threshold in percent when no key matches. */
+	static final double DEFAULT_THRESHOLD = 5.0;
+
+	private static final String PACKAGE_PREFIX = BaselineComparison.class.getPackage().getName() + ".";
+
+	/** One benchmark in one mode with one set of parameters. */
+	static final class Score {
+		final String name;
+		final String mode;
+		final double score;
+		final double low;
+		final double high;
+		final String unit;
+
+		Score(final String name, final String mode, final double score, final double low, final double high, final String unit) {
+			this.name = name;
+			this.mode = mode;
+			this.score = score;
+			this.low = low;
+			this.high = high;
+			this.unit = unit;
+		}
+
+		/**
+		 * @return whether a larger score is better, as for throughput
+		 */
+		boolean isHigherBetter() {
+			return "thrpt".equals(mode);
+		}
+
+		/**
+		 * @return whether JMH measured enough iterations for an interval, and
+		 * the interval lies above zero so that ratios of its bounds are
+		 * meaningful
+		 */
+		boolean hasInterval() {
+			// Comparisons with NaN are false.
+			return low > 0.0 && high >= low && !Double.isInfinite(high);
+		}
+
+		String key() {
+			return name + " " + mode;
+		}
+	}
+
+	private final Map<String, Double> thresholds = new LinkedHashMap<String, Double>();
+	private double defaultThreshold = DEFAULT_THRESHOLD;
+
+	/**
+	 * Sets thresholds from properties; see the class comment for keys.
+	 *
+	 * @throws IllegalArgumentException if a value is not a number
+	 */
+	void setThresholds(final Properties properties) {
+		for (final String key : properties.stringPropertyNames()) {
+			final double value;
+			try {
+				value = Double.parseDouble(properties.getProperty(key).trim());
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Threshold of " + key + " is not a number: " + properties.getProperty(key));
+			}
+			if ("default".equals(key)) {
+				defaultThreshold = value;
+			} else {
+				thresholds.put(key, value);
+			}
+		}
+	}
+
+	/**
+	 * @return the threshold in percent for a benchmark name without the package
+	 */
+	double getThreshold(final String name) {
+		String bestKey = null;
+		for (final String key : thresholds.keySet()) {
+			final boolean matches = name.equals(key)
+					|| (name.startsWith(key) && ".( ".indexOf(name.charAt(key.length())) >= 0);
+			if (matches && (bestKey == null || key.length() > bestKey.length())) {
+				bestKey = key;
+			}
+		}
+		return bestKey == null ? defaultThreshold : thresholds.get(bestKey);
+	}
+
+	/**
+	 * Reads a JMH result file written with {@code -rf json}.
+	 *
+	 * @return scores by {@link Score#key()}, in file order
+	 */
+	static Map<String, Score> read(final File file) throws IOException {
+		final Object root;
+		try {
+			root = Json.parse(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+		} catch (IllegalArgumentException e) {
+			throw new IOException(file + ": " + e.getMessage(), e);
+		}
+		if (!(root instanceof List)) {
+			throw new IOException(file + ": not a JMH JSON result file");
+		}
+
+		final Map<String, Score> result = new LinkedHashMap<String, Score>();
+		for (final Object element : (List<?>) root) {
+			final Map<?, ?> run = (Map<?, ?>) element;
+			final Map<?, ?> metric = (Map<?, ?>) run.get("primaryMetric");
+
+			String name = (String) run.get("benchmark");
+			if (name.startsWith(PACKAGE_PREFIX)) {
+				name = name.substring(PACKAGE_PREFIX.length());
+			}
+			final Map<?, ?> params = (Map<?, ?>) run.get("params");
+			if (params != null && !params.isEmpty()) {
+				name += params.toString().replace('{', '(').replace('}', ')').replace(", ", ",");
+			}
+
+			final List<?> confidence = (List<?>) metric.get("scoreConfidence");
+			final Score score = new Score(name, (String) run.get("mode"),
+					Json.toDouble(metric.get("score")),
+					confidence == null ? Double.NaN : Json.toDouble(confidence.get(0)),
+					confidence == null ? Double.NaN : Json.toDouble(confidence.get(1)),
+					(String) metric.get("scoreUnit"));
+			result.put(score.key(), score);
+		}
+		return result;
+	}
+
+	/**
+	 * Prints a line per benchmark in either file.
+	 *
+	 * @return the number of regressions
+	 */
+	int compare(final Map<String, Score> baseline, final Map<String, Score> current, final PrintStream out) {
+		final List<String> keys = new ArrayList<String>(baseline.keySet());
+		for (final String key : current.keySet()) {
+			if (!baseline.containsKey(key)) {
+				keys.add(key);
+			}
+		}
+
+		int nameWidth = "Benchmark".length();
+		for (final String key : keys) {
+			nameWidth = Math.max(nameWidth, key.length());
+		}
+		final String format = "%-" + nameWidth + "s  %22s  %22s  %-10s  %-20s  %6s  %s%n";
+		out.printf(Locale.ROOT, format, "Benchmark", "Baseline", "Current", "Units", "Slowdown (99.9%)", "Limit", "Verdict");
+
+		int regressions = 0;
+		for (final String key : keys) {
+			final Score base = baseline.get(key);
+			final Score cur = current.get(key);
+			final Score any = base != null ? base : cur;
+			final double threshold = getThreshold(any.name);
+
+			String slowdown = "";
+			final String verdict;
+			if (base == null) {
+				verdict = "new";
+			} else if (cur == null) {
+				verdict = "missing";
+			} else if (!base.hasInterval() || !cur.hasInterval()) {
+				verdict = "no interval";
+			} else {
+				final double[] range = slowdown(base, cur);
+				slowdown = String.format(Locale.ROOT, "%+.1f%% .. %+.1f%%", 100.0 * range[0], 100.0 * range[1]);
+				if (100.0 * range[0] > threshold) {
+					verdict = "REGRESSION";
+					regressions++;
+				} else if (range[0] > 0.0) {
+					verdict = "slower, within limit";
+				} else if (range[1] < 0.0) {
+					verdict = "faster";
+				} else {
+					verdict = "no change";
+				}
+			}
+
+			out.printf(Locale.ROOT, format, key, format(base), format(cur),
+					any.unit, slowdown, String.format(Locale.ROOT, "%.1f%%", threshold), verdict);
+		}
+		return regressions;
+	}
+
+	/**
+	 * @return least and greatest fractional slowdown the two intervals allow;
+	 * positive is slower
+	 */
+	static double[] slowdown(final Score base, final Score cur) {
+		if (base.isHigherBetter()) {
+			// Time per operation is the reciprocal of throughput.
+			return new double[] { base.low / cur.high - 1.0, base.high / cur.low - 1.0 };
+		}
+		return new double[] { cur.low / base.high - 1.0, cur.high / base.low - 1.0 };
+	}
+
+	private static String format(final Score score) {
+		if (score == null) {
+			return "-";
+		}
+		if (!score.hasInterval()) {
+			return String.format(Locale.ROOT, "%.3f", score.score);
+		}
+		return String.format(Locale.ROOT, "%.3f \u00b1 %.3f", score.score, (score.high - score.low) / 2.0);
+	}
+}
@@ -0,0 +1,138 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.benchmarks;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Properties;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Records benchmark baselines and compares runs with them.  Baselines are
+ * JMH JSON result files in the {@code baselines} directory, one per jglm
+ * version, and are committed.  Run from the benchmarks directory:
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.hackoeur.jglm.benchmarks.Baselines record jglm-1.0.1 [JMH options]
+ * java -cp target/benchmarks.jar com.hackoeur.jglm.benchmarks.Baselines check jglm-1.0.1 [JMH options]
+ * java -cp target/benchmarks.jar com.hackoeur.jglm.benchmarks.Baselines compare jglm-1.0.1 current.json
+ * </pre>
+ *
+ * {@code record} runs the benchmarks and stores the result as a baseline;
+ * {@code check} runs them and compares with a baseline; {@code compare}
+ * compares two result files, each a path or a baseline name.  The exit status
+ * is 1 if any benchmark regressed beyond its threshold in
+ * {@code baselines/thresholds.properties}; see {@link BaselineComparison}.
+ * The directory can be changed with {@code -Djglm.baselines=dir}.
+ */
+public final class Baselines {
+	private static final File DIRECTORY = new File(System.getProperty("jglm.baselines", "baselines"));
+	private static final File THRESHOLDS = new File(DIRECTORY, "thresholds.properties");
+	private static final File CURRENT = new File("target", "current.json");
+
+	private Baselines() {
+	}
+
+	public static void main(final String[] args) throws IOException, RunnerException {
+		if (args.length < 2) {
+			usage();
+			return;
+		}
+
+		final String command = args[0];
+		final String[] rest = Arrays.copyOfRange(args, 2, args.length);
+		if ("record".equals(command)) {
+			final File baseline = new File(DIRECTORY, args[1] + ".json");
+			DIRECTORY.mkdirs();
+			run(baseline, rest);
+			System.out.println("Recorded " + baseline);
+		} else if ("check".equals(command)) {
+			final File baseline = resolve(args[1]);
+			CURRENT.getParentFile().mkdirs();
+			run(CURRENT, rest);
+			System.exit(compare(baseline, CURRENT));
+		} else if ("compare".equals(command) && rest.length == 1) {
+			System.exit(compare(resolve(args[1]), resolve(rest[0])));
+		} else {
+			usage();
+		}
+	}
+
+	private static void run(final File result, final String[] jmhArgs) throws RunnerException {
+		final CommandLineOptions options;
+		try {
+			options = new CommandLineOptions(jmhArgs);
+		} catch (CommandLineOptionException e) {
+			System.err.println(e.getMessage());
+			System.exit(2);
+			return;
+		}
+
+		new Runner(new OptionsBuilder()
+				.parent(options)
+				.result(result.getPath())
+				.resultFormat(ResultFormatType.JSON)
+				.build()).run();
+	}
+
+	/**
+	 * @return the exit status: 1 if anything regressed, else 0
+	 */
+	private static int compare(final File baseline, final File current) throws IOException {
+		final BaselineComparison comparison = new BaselineComparison();
+		if (THRESHOLDS.isFile()) {
+			final Properties properties = new Properties();
+			final InputStream in = new FileInputStream(THRESHOLDS);
+			try {
+				properties.load(in);
+			} finally {
+				in.close();
+			}
+			comparison.setThresholds(properties);
+		}
+
+		final Map<String, BaselineComparison.Score> base = BaselineComparison.read(baseline);
+		final Map<String, BaselineComparison.Score> cur = BaselineComparison.read(current);
+		System.out.println("Baseline " + baseline + ", current " + current);
+		final int regressions = comparison.compare(base, cur, System.out);
+		System.out.println(regressions == 0 ? "No regressions." : regressions + " regression(s).");
+		return regressions == 0 ? 0 : 1;
+	}
+
+	/**
+	 * @return name as a path if it names a file, else the baseline of that name
+	 */
+	private static File resolve(final String name) {
+		final File file = new File(name);
+		return file.isFile() ? file : new File(DIRECTORY, name + ".json");
+	}
+
+	private static void usage() {
+		System.err.println("Usage: Baselines record <name> [JMH options]");
+		System.err.println("       Baselines check <baseline> [JMH options]");
+		System.err.println("       Baselines compare <baseline> <current>");
+		System.exit(2);
+	}
+}
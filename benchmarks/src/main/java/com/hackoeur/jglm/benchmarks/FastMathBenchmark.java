@@ -0,0 +1,191 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hackoeur.jglm.support.FastMath;
+
+/**
+ * {@link FastMath} against {@link Math}.  Each call takes the next of 1024
+ * random arguments, so that neither branch prediction nor constant folding
+ * sees a single value; the indexing costs the same on both sides.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class FastMathBenchmark {
+	private static final int MASK = 1023;
+
+	/** In [-10, 10]. */
+	private final double[] args = new double[MASK + 1];
+	/** In (0, 100]. */
+	private final double[] positiveArgs = new double[MASK + 1];
+	private final float[] floatArgs = new float[MASK + 1];
+	private final float[] positiveFloatArgs = new float[MASK + 1];
+	private int index;
+
+	@Setup
+	public void setUp() {
+		final Random random = new Random(41L);
+		for (int i = 0; i <= MASK; i++) {
+			args[i] = (random.nextDouble() - 0.5) * 20.0;
+			positiveArgs[i] = 100.0 - random.nextDouble() * 100.0;
+			floatArgs[i] = (float) args[i];
+			positiveFloatArgs[i] = (float) positiveArgs[i];
+		}
+	}
+
+	private double arg() {
+		return args[index++ & MASK];
+	}
+
+	private double positiveArg() {
+		return positiveArgs[index++ & MASK];
+	}
+
+	private float floatArg() {
+		return floatArgs[index++ & MASK];
+	}
+
+	private float positiveFloatArg() {
+		return positiveFloatArgs[index++ & MASK];
+	}
+
+	@Benchmark
+	public double fastMathSin() {
+		return FastMath.sin(arg());
+	}
+
+	@Benchmark
+	public double mathSin() {
+		return Math.sin(arg());
+	}
+
+	@Benchmark
+	public float fastMathSinf() {
+		return FastMath.sinf(floatArg());
+	}
+
+	@Benchmark
+	public float mathSinf() {
+		return (float) Math.sin(floatArg());
+	}
+
+	@Benchmark
+	public double fastMathCos() {
+		return FastMath.cos(arg());
+	}
+
+	@Benchmark
+	public double mathCos() {
+		return Math.cos(arg());
+	}
+
+	@Benchmark
+	public double fastMathTan() {
+		return FastMath.tan(arg());
+	}
+
+	@Benchmark
+	public double mathTan() {
+		return Math.tan(arg());
+	}
+
+	@Benchmark
+	public double fastMathAtan2() {
+		return FastMath.atan2(arg(), arg());
+	}
+
+	@Benchmark
+	public double mathAtan2() {
+		return Math.atan2(arg(), arg());
+	}
+
+	@Benchmark
+	public double fastMathExp() {
+		return FastMath.exp(arg());
+	}
+
+	@Benchmark
+	public double mathExp() {
+		return Math.exp(arg());
+	}
+
+	@Benchmark
+	public double fastMathLog() {
+		return FastMath.log(positiveArg());
+	}
+
+	@Benchmark
+	public double mathLog() {
+		return Math.log(positiveArg());
+	}
+
+	@Benchmark
+	public double fastMathPow() {
+		return FastMath.pow(positiveArg(), arg());
+	}
+
+	@Benchmark
+	public double mathPow() {
+		return Math.pow(positiveArg(), arg());
+	}
+
+	@Benchmark
+	public double fastMathSqrt() {
+		return FastMath.sqrt(positiveArg());
+	}
+
+	@Benchmark
+	public double mathSqrt() {
+		return Math.sqrt(positiveArg());
+	}
+
+	@Benchmark
+	public float fastMathInvSqrtFast() {
+		return FastMath.invSqrtFast(positiveFloatArg());
+	}
+
+	@Benchmark
+	public float mathInvSqrt() {
+		return (float) (1.0 / Math.sqrt(positiveFloatArg()));
+	}
+
+	@Benchmark
+	public double fastMathFloor() {
+		return FastMath.floor(arg());
+	}
+
+	@Benchmark
+	public double mathFloor() {
+		return Math.floor(arg());
+	}
+}
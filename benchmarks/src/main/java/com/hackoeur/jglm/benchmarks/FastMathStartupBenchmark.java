@@ -0,0 +1,63 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hackoeur.jglm.support.FastMath;
+
+/**
+ * Time from a cold {@link FastMath} to the first {@code exp} and {@code log},
+ * which includes class initialization and loading the tables, for each
+ * {@code jglm.fastMathTables} source.  Each fork is a fresh JVM that makes
+ * a single call, so the score is the mean over forks.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class FastMathStartupBenchmark {
+	private static final int FORKS = 20;
+
+	@Benchmark
+	@Fork(value = FORKS, jvmArgsAppend = "-Djglm.fastMathTables=binary")
+	public double binary() {
+		return firstCalls();
+	}
+
+	@Benchmark
+	@Fork(value = FORKS, jvmArgsAppend = "-Djglm.fastMathTables=literal")
+	public double literal() {
+		return firstCalls();
+	}
+
+	@Benchmark
+	@Fork(value = FORKS, jvmArgsAppend = "-Djglm.fastMathTables=compute")
+	public double compute() {
+		return firstCalls();
+	}
+
+	private static double firstCalls() {
+		return FastMath.exp(1.5) + FastMath.log(3.5);
+	}
+}
@@ -0,0 +1,114 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hackoeur.jglm.Mat4;
+import com.hackoeur.jglm.Vec3;
+import com.hackoeur.jglm.Vec4;
+import com.hackoeur.jglm.support.Fma;
+
+/**
+ * {@link Fma} kernels and the operations built on them, in forks with fused
+ * multiply-adds forced on and off through {@code jglm.useFma}.  The fused
+ * forms need Java 9 or later; on Java 8 both run the same code.  Forcing
+ * them on where the VM has no FMA instruction shows the cost of the
+ * {@code Math.fma} fallback.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class FmaBenchmark {
+	private static final String ON = "-Djglm.useFma=true";
+	private static final String OFF = "-Djglm.useFma=false";
+
+	// Fields rather than constants, so that the JIT cannot fold the operations.
+	private float a0 = 1.5f, a1 = -2.25f, a2 = 3.125f, a3 = 1f;
+	private float b0 = -0.5f, b1 = 4f, b2 = 0.75f, b3 = 0.25f;
+	private Vec3 a = new Vec3(1.5f, -2.25f, 3.125f);
+	private Vec3 b = new Vec3(-0.5f, 4f, 0.75f);
+	private Mat4 left = new Mat4(
+			1f, 2f, 3f, 0.5f,
+			4f, 5f, 6f, 0.25f,
+			7f, 8f, 10f, 0.125f,
+			1f, 2f, 3f, 1f);
+	private Mat4 right = new Mat4(
+			0.5f, -1f, 0f, 0f,
+			1f, 0.5f, 0f, 0f,
+			0f, 0f, 2f, 0.5f,
+			3f, -2f, 1f, 1f);
+	private Vec4 vector = new Vec4(1.5f, -2.25f, 3.125f, 1f);
+
+	@Benchmark
+	@Fork(value = 2, jvmArgsAppend = ON)
+	public float dot4Fused() {
+		return Fma.dot4(a0, a1, a2, a3, b0, b1, b2, b3);
+	}
+
+	@Benchmark
+	@Fork(value = 2, jvmArgsAppend = OFF)
+	public float dot4Unfused() {
+		return Fma.dot4(a0, a1, a2, a3, b0, b1, b2, b3);
+	}
+
+	@Benchmark
+	@Fork(value = 2, jvmArgsAppend = ON)
+	public float vec3DotFused() {
+		return a.dot(b);
+	}
+
+	@Benchmark
+	@Fork(value = 2, jvmArgsAppend = OFF)
+	public float vec3DotUnfused() {
+		return a.dot(b);
+	}
+
+	@Benchmark
+	@Fork(value = 2, jvmArgsAppend = ON)
+	public Mat4 mat4MultiplyFused() {
+		return left.multiply(right);
+	}
+
+	@Benchmark
+	@Fork(value = 2, jvmArgsAppend = OFF)
+	public Mat4 mat4MultiplyUnfused() {
+		return left.multiply(right);
+	}
+
+	@Benchmark
+	@Fork(value = 2, jvmArgsAppend = ON)
+	public Vec4 mat4MultiplyVec4Fused() {
+		return left.multiply(vector);
+	}
+
+	@Benchmark
+	@Fork(value = 2, jvmArgsAppend = OFF)
+	public Vec4 mat4MultiplyVec4Unfused() {
+		return left.multiply(vector);
+	}
+}
@@ -0,0 +1,228 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.benchmarks;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough of a JSON reader for JMH result files.  Objects become maps,
+ * arrays lists and numbers doubles.
+ */
+final class Json {
+	private final String text;
+	private int pos;
+
+	private Json(final String text) {
+		this.text = text;
+	}
+
+	/**
+	 * @throws IllegalArgumentException if text is not a single JSON value
+	 */
+	static Object parse(final String text) {
+		final Json json = new Json(text);
+		final Object value = json.value();
+		json.skipWhitespace();
+		if (json.pos != text.length()) {
+			throw json.error("trailing characters");
+		}
+		return value;
+	}
+
+	/**
+	 * @return a as a double; JMH writes NaN and infinities as strings
+	 */
+	static double toDouble(final Object a) {
+		if (a instanceof Number) {
+			return ((Number) a).doubleValue();
+		}
+		if (a instanceof String) {
+			return Double.parseDouble((String) a);
+		}
+		return Double.NaN;
+	}
+
+	private Object value() {
+		skipWhitespace();
+		if (pos >= text.length()) {
+			throw error("unexpected end");
+		}
+
+		final char c = text.charAt(pos);
+		switch (c) {
+		case '{':
+			return object();
+		case '[':
+			return array();
+		case '"':
+			return string();
+		case 't':
+			return literal("true", Boolean.TRUE);
+		case 'f':
+			return literal("false", Boolean.FALSE);
+		case 'n':
+			return literal("null", null);
+		default:
+			return number();
+		}
+	}
+
+	private Map<String, Object> object() {
+		final Map<String, Object> result = new LinkedHashMap<String, Object>();
+		pos++;
+		skipWhitespace();
+		if (peek() == '}') {
+			pos++;
+			return result;
+		}
+
+		while (true) {
+			skipWhitespace();
+			if (peek() != '"') {
+				throw error("expected a name");
+			}
+			final String name = string();
+			skipWhitespace();
+			expect(':');
+			result.put(name, value());
+			skipWhitespace();
+			if (peek() == ',') {
+				pos++;
+			} else {
+				expect('}');
+				return result;
+			}
+		}
+	}
+
+	private List<Object> array() {
+		final List<Object> result = new ArrayList<Object>();
+		pos++;
+		skipWhitespace();
+		if (peek() == ']') {
+			pos++;
+			return result;
+		}
+
+		while (true) {
+			result.add(value());
+			skipWhitespace();
+			if (peek() == ',') {
+				pos++;
+			} else {
+				expect(']');
+				return result;
+			}
+		}
+	}
+
+	private String string() {
+		final StringBuilder result = new StringBuilder();
+		pos++;
+		while (true) {
+			if (pos >= text.length()) {
+				throw error("unterminated string");
+			}
+			final char c = text.charAt(pos++);
+			if (c == '"') {
+				return result.toString();
+			}
+			if (c != '\\') {
+				result.append(c);
+				continue;
+			}
+
+			final char escaped = pos < text.length() ? text.charAt(pos++) : '\0';
+			switch (escaped) {
+			case 'b':
+				result.append('\b');
+				break;
+			case 'f':
+				result.append('\f');
+				break;
+			case 'n':
+				result.append('\n');
+				break;
+			case 'r':
+				result.append('\r');
+				break;
+			case 't':
+				result.append('\t');
+				break;
+			case 'u':
+				if (pos + 4 > text.length()) {
+					throw error("bad escape");
+				}
+				result.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+				pos += 4;
+				break;
+			case '"':
+			case '\\':
+			case '/':
+				result.append(escaped);
+				break;
+			default:
+				throw error("bad escape");
+			}
+		}
+	}
+
+	private Double number() {
+		final int start = pos;
+		while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+			pos++;
+		}
+		if (start == pos) {
+			throw error("unexpected character");
+		}
+		try {
+			return Double.valueOf(text.substring(start, pos));
+		} catch (NumberFormatException e) {
+			throw error("bad number");
+		}
+	}
+
+	private Object literal(final String word, final Object value) {
+		if (!text.startsWith(word, pos)) {
+			throw error("unexpected character");
+		}
+		pos += word.length();
+		return value;
+	}
+
+	private char peek() {
+		return pos < text.length() ? text.charAt(pos) : '\0';
+	}
+
+	private void expect(final char c) {
+		if (peek() != c) {
+			throw error("expected '" + c + "'");
+		}
+		pos++;
+	}
+
+	private void skipWhitespace() {
+		while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+			pos++;
+		}
+	}
+
+	private IllegalArgumentException error(final String message) {
+		return new IllegalArgumentException(message + " at offset " + pos);
+	}
+}
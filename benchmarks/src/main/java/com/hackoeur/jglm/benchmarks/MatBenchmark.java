@@ -0,0 +1,147 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.benchmarks;
+
+import java.nio.FloatBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hackoeur.jglm.Mat3;
+import com.hackoeur.jglm.Mat4;
+import com.hackoeur.jglm.Matrices;
+import com.hackoeur.jglm.Vec3;
+import com.hackoeur.jglm.Vec4;
+
+/**
+ * {@link Mat3} and {@link Mat4} operations.  Matrices cache their transpose,
+ * so the {@code Fresh} benchmarks transpose a new copy each time; subtract
+ * the {@code copy} benchmarks to get the cost of the transpose alone.  Copies
+ * keep the classification, so the {@code Fresh} multiplications build their
+ * operands from elements instead; subtract {@code mat4FromElements} twice.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class MatBenchmark {
+	private Mat4 general4 = Matrices.perspective(60f, 1.5f, 0.1f, 100f);
+	private Mat4 rigid4 = Matrices.lookAt(new Vec3(1f, 2f, 3f), new Vec3(0f, 0f, 0f), new Vec3(0f, 1f, 0f));
+	private Mat4 translation4 = Mat4.MAT4_IDENTITY.translate(new Vec3(1f, 2f, 3f));
+	private float[] general4Elements = elements(general4);
+	private float[] rigid4Elements = elements(rigid4);
+	private Vec4 vec4 = new Vec4(1.5f, -2.25f, 3.125f, 1f);
+	private Mat3 general3 = new Mat3(
+			1f, 2f, 3f,
+			4f, 5f, 6f,
+			7f, 8f, 10f);
+	private Vec3 vec3 = new Vec3(1.5f, -2.25f, 3.125f);
+
+	@Benchmark
+	public Mat4 mat4MultiplyGeneral() {
+		return general4.multiply(rigid4);
+	}
+
+	@Benchmark
+	public Mat4 mat4MultiplyAffine() {
+		return rigid4.multiply(rigid4);
+	}
+
+	@Benchmark
+	public Mat4 mat4MultiplyGeneralFresh() {
+		return new Mat4(general4Elements).multiply(new Mat4(rigid4Elements));
+	}
+
+	@Benchmark
+	public Mat4 mat4MultiplyAffineFresh() {
+		return new Mat4(rigid4Elements).multiply(new Mat4(rigid4Elements));
+	}
+
+	@Benchmark
+	public Mat4 mat4MultiplyTranslation() {
+		return translation4.multiply(translation4);
+	}
+
+	@Benchmark
+	public Vec4 mat4MultiplyVec4() {
+		return general4.multiply(vec4);
+	}
+
+	@Benchmark
+	public Mat4 mat4Copy() {
+		return new Mat4(general4);
+	}
+
+	@Benchmark
+	public Mat4 mat4FromElements() {
+		return new Mat4(general4Elements);
+	}
+
+	@Benchmark
+	public Mat4 mat4TransposeFresh() {
+		return new Mat4(general4).transpose();
+	}
+
+	@Benchmark
+	public Mat4 mat4TransposeCached() {
+		return general4.transpose();
+	}
+
+	@Benchmark
+	public FloatBuffer mat4GetBuffer() {
+		return general4.getBuffer();
+	}
+
+	@Benchmark
+	public Mat3 mat3Multiply() {
+		return general3.multiply(general3);
+	}
+
+	@Benchmark
+	public Vec3 mat3MultiplyVec3() {
+		return general3.multiply(vec3);
+	}
+
+	@Benchmark
+	public Mat3 mat3Copy() {
+		return new Mat3(general3);
+	}
+
+	@Benchmark
+	public Mat3 mat3TransposeFresh() {
+		return new Mat3(general3).transpose();
+	}
+
+	@Benchmark
+	public FloatBuffer mat3GetBuffer() {
+		return general3.getBuffer();
+	}
+
+	private static float[] elements(final Mat4 matrix) {
+		final float[] elements = new float[16];
+		matrix.getBuffer().get(elements);
+		return elements;
+	}
+}
@@ -0,0 +1,117 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hackoeur.jglm.Mat3;
+import com.hackoeur.jglm.Mat4;
+import com.hackoeur.jglm.Matrices;
+import com.hackoeur.jglm.MatrixCache;
+import com.hackoeur.jglm.Vec3;
+
+/**
+ * {@link Matrices} functions.  Matrices cache their inverse, so the invert
+ * benchmarks invert a new copy each time, except {@link #invertCached()}.
+ * The {@code Cached} construction benchmarks hit a {@link MatrixCache}.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class MatricesBenchmark {
+	private Mat4 general = Matrices.perspective(60f, 1.5f, 0.1f, 100f);
+	private Mat4 affine = new Mat4(
+			1f, 2f, 3f, 0f,
+			4f, 5f, 6f, 0f,
+			7f, 8f, 10f, 0f,
+			1f, 2f, 3f, 1f);
+	private Mat4 rigid = Matrices.lookAt(new Vec3(1f, 2f, 3f), new Vec3(0f, 0f, 0f), new Vec3(0f, 1f, 0f));
+	private Mat3 general3 = new Mat3(
+			1f, 2f, 3f,
+			4f, 5f, 6f,
+			7f, 8f, 10f);
+
+	private float fovy = 60f;
+	private float aspect = 1.5f;
+	private Vec3 eye = new Vec3(1f, 2f, 3f);
+	private Vec3 center = new Vec3(0f, 0.5f, 0f);
+	private Vec3 up = new Vec3(0f, 1f, 0f);
+	private float angle = 0.75f;
+	private Vec3 axis = new Vec3(0f, 0.6f, 0.8f);
+	private MatrixCache cache = new MatrixCache(64);
+
+	@Benchmark
+	public Mat4 invertGeneral() {
+		return Matrices.invert(new Mat4(general));
+	}
+
+	@Benchmark
+	public Mat4 invertAffine() {
+		return Matrices.invert(new Mat4(affine));
+	}
+
+	@Benchmark
+	public Mat4 invertRigid() {
+		return Matrices.invert(new Mat4(rigid));
+	}
+
+	@Benchmark
+	public Mat4 invertCached() {
+		return Matrices.invert(general);
+	}
+
+	@Benchmark
+	public Mat3 invertMat3() {
+		return Matrices.invert(new Mat3(general3));
+	}
+
+	@Benchmark
+	public Mat4 perspective() {
+		return Matrices.perspective(fovy, aspect, 0.1f, 100f);
+	}
+
+	@Benchmark
+	public Mat4 lookAt() {
+		return Matrices.lookAt(eye, center, up);
+	}
+
+	@Benchmark
+	public Mat4 perspectiveCached() {
+		return cache.perspective(fovy, aspect, 0.1f, 100f);
+	}
+
+	@Benchmark
+	public Mat4 lookAtCached() {
+		return cache.lookAt(eye, center, up);
+	}
+
+	@Benchmark
+	public Mat4 rotate() {
+		return Matrices.rotate(angle, axis);
+	}
+}
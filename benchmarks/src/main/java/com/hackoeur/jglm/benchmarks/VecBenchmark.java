@@ -0,0 +1,124 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hackoeur.jglm.Mat3;
+import com.hackoeur.jglm.Vec3;
+import com.hackoeur.jglm.Vec4;
+
+/**
+ * {@link Vec3} and {@link Vec4} arithmetic.  Every operation allocates its
+ * result, which {@code -prof gc} reports.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class VecBenchmark {
+	// Fields rather than constants, so that the JIT cannot fold the operations.
+	private Vec3 a3 = new Vec3(1.5f, -2.25f, 3.125f);
+	private Vec3 b3 = new Vec3(-0.5f, 4f, 0.75f);
+	private Vec4 a4 = new Vec4(1.5f, -2.25f, 3.125f, 1f);
+	private Vec4 b4 = new Vec4(-0.5f, 4f, 0.75f, 0f);
+	private Mat3 mat3 = new Mat3(
+			1f, 2f, 3f,
+			4f, 5f, 6f,
+			7f, 8f, 10f);
+	private float scalar = 1.75f;
+
+	@Benchmark
+	public Vec3 vec3Add() {
+		return a3.add(b3);
+	}
+
+	@Benchmark
+	public Vec3 vec3Subtract() {
+		return a3.subtract(b3);
+	}
+
+	@Benchmark
+	public Vec3 vec3Scale() {
+		return a3.scale(scalar);
+	}
+
+	@Benchmark
+	public float vec3Dot() {
+		return a3.dot(b3);
+	}
+
+	@Benchmark
+	public Vec3 vec3Cross() {
+		return a3.cross(b3);
+	}
+
+	@Benchmark
+	public float vec3Length() {
+		return a3.getLength();
+	}
+
+	@Benchmark
+	public Vec3 vec3UnitVector() {
+		return a3.getUnitVector();
+	}
+
+	@Benchmark
+	public Vec3 vec3Lerp() {
+		return a3.lerp(b3, 0.25f);
+	}
+
+	@Benchmark
+	public Vec3 vec3MultiplyMat3() {
+		return a3.multiply(mat3);
+	}
+
+	@Benchmark
+	public Vec4 vec4Add() {
+		return a4.add(b4);
+	}
+
+	@Benchmark
+	public Vec4 vec4Subtract() {
+		return a4.subtract(b4);
+	}
+
+	@Benchmark
+	public Vec4 vec4Scale() {
+		return a4.scale(scalar);
+	}
+
+	@Benchmark
+	public float vec4Dot() {
+		return a4.dot(b4);
+	}
+
+	@Benchmark
+	public Vec4 vec4UnitVector() {
+		return a4.getUnitVector();
+	}
+}
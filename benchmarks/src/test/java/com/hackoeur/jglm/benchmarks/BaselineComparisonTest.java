@@ -0,0 +1,98 @@
+package com.hackoeur.jglm.benchmarks;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BaselineComparisonTest {
+	private static final double TOL = 1e-12;
+
+	@Test
+	public void testRead() throws Exception {
+		final Map<String, BaselineComparison.Score> scores = BaselineComparison.read(
+				new File(getClass().getResource("results.json").toURI()));
+
+		Assert.assertEquals(Arrays.asList("MatBenchmark.mat4Multiply thrpt", "MatBenchmark.mat4Multiply avgt",
+				"VecBenchmark.normalize(policy=EXACT,size=1024) avgt"), Arrays.asList(scores.keySet().toArray()));
+
+		final BaselineComparison.Score throughput = scores.get("MatBenchmark.mat4Multiply thrpt");
+		Assert.assertEquals("MatBenchmark.mat4Multiply", throughput.name);
+		Assert.assertEquals(40.5, throughput.score, TOL);
+		Assert.assertEquals(39.0, throughput.low, TOL);
+		Assert.assertEquals(42.0, throughput.high, TOL);
+		Assert.assertEquals("ops/us", throughput.unit);
+		Assert.assertTrue(throughput.isHigherBetter());
+		Assert.assertFalse(scores.get("MatBenchmark.mat4Multiply avgt").isHigherBetter());
+
+		// A single iteration has no interval; JMH writes NaN as a string.
+		final BaselineComparison.Score single = scores.get("VecBenchmark.normalize(policy=EXACT,size=1024) avgt");
+		Assert.assertEquals(3.25, single.score, TOL);
+		Assert.assertTrue(Double.isNaN(single.low));
+		Assert.assertFalse(single.hasInterval());
+	}
+
+	@Test
+	public void testSlowdown() {
+		// Throughput: fewer operations per unit of time is slower.
+		final BaselineComparison.Score baseThroughput = new BaselineComparison.Score("a", "thrpt", 100.0, 90.0, 110.0, "ops/us");
+		final BaselineComparison.Score curThroughput = new BaselineComparison.Score("a", "thrpt", 50.0, 45.0, 55.0, "ops/us");
+		Assert.assertArrayEquals(new double[] { 90.0 / 55.0 - 1.0, 110.0 / 45.0 - 1.0 },
+				BaselineComparison.slowdown(baseThroughput, curThroughput), TOL);
+
+		// Average time: more time per operation is slower.
+		final BaselineComparison.Score baseTime = new BaselineComparison.Score("a", "avgt", 10.0, 9.0, 11.0, "ns/op");
+		final BaselineComparison.Score curTime = new BaselineComparison.Score("a", "avgt", 20.0, 18.0, 22.0, "ns/op");
+		Assert.assertArrayEquals(new double[] { 18.0 / 11.0 - 1.0, 22.0 / 9.0 - 1.0 },
+				BaselineComparison.slowdown(baseTime, curTime), TOL);
+
+		// Overlapping intervals allow both a slowdown and a speed-up.
+		final double[] range = BaselineComparison.slowdown(baseTime, new BaselineComparison.Score("a", "avgt", 10.5, 9.5, 11.5, "ns/op"));
+		Assert.assertTrue(range[0] < 0.0);
+		Assert.assertTrue(range[1] > 0.0);
+	}
+
+	@Test
+	public void testHasInterval() {
+		Assert.assertTrue(score(1.0, 2.0).hasInterval());
+		Assert.assertTrue(score(2.0, 2.0).hasInterval());
+		Assert.assertFalse(score(Double.NaN, Double.NaN).hasInterval());
+		Assert.assertFalse(score(0.0, 2.0).hasInterval());
+		Assert.assertFalse(score(-1.0, 2.0).hasInterval());
+		Assert.assertFalse(score(2.0, 1.0).hasInterval());
+		Assert.assertFalse(score(1.0, Double.POSITIVE_INFINITY).hasInterval());
+	}
+
+	@Test
+	public void testThresholdLongestPrefix() {
+		final Properties properties = new Properties();
+		properties.setProperty("default", "3");
+		properties.setProperty("MatBenchmark", "10");
+		properties.setProperty("MatBenchmark.mat4Multiply", "20");
+		properties.setProperty("VecBenchmark.normalize", "15");
+		final BaselineComparison comparison = new BaselineComparison();
+		comparison.setThresholds(properties);
+
+		Assert.assertEquals(20.0, comparison.getThreshold("MatBenchmark.mat4Multiply"), TOL);
+		Assert.assertEquals(10.0, comparison.getThreshold("MatBenchmark.mat4Inverse"), TOL);
+		// A key only matches up to a '.', '(' or ' ', not within a name.
+		Assert.assertEquals(10.0, comparison.getThreshold("MatBenchmark.mat4MultiplyVec4"), TOL);
+		Assert.assertEquals(3.0, comparison.getThreshold("MatBenchmarks.mat4Multiply"), TOL);
+		Assert.assertEquals(15.0, comparison.getThreshold("VecBenchmark.normalize(policy=EXACT,size=1024)"), TOL);
+		Assert.assertEquals(3.0, comparison.getThreshold("FastMathBenchmark.sin"), TOL);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testThresholdMustBeNumber() {
+		final Properties properties = new Properties();
+		properties.setProperty("MatBenchmark", "ten");
+		new BaselineComparison().setThresholds(properties);
+	}
+
+	private static BaselineComparison.Score score(final double low, final double high) {
+		return new BaselineComparison.Score("a", "avgt", (low + high) / 2.0, low, high, "ns/op");
+	}
+}
@@ -0,0 +1,42 @@
+package com.hackoeur.jglm.benchmarks;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class JsonTest {
+	@Test
+	public void testParse() {
+		final Map<?, ?> object = (Map<?, ?>) Json.parse(" { \"a\" : [1, -2.5e1, \"x\\\"\\u0041\"], \"b\" : {}, \"c\" : true, \"d\" : null } ");
+
+		Assert.assertEquals(Arrays.asList("a", "b", "c", "d"), Arrays.asList(object.keySet().toArray()));
+		Assert.assertEquals(Arrays.<Object> asList(1.0, -25.0, "x\"A"), object.get("a"));
+		Assert.assertTrue(((Map<?, ?>) object.get("b")).isEmpty());
+		Assert.assertEquals(Boolean.TRUE, object.get("c"));
+		Assert.assertNull(object.get("d"));
+		Assert.assertTrue(((List<?>) Json.parse("[]")).isEmpty());
+	}
+
+	@Test
+	public void testToDouble() {
+		Assert.assertEquals(1.5, Json.toDouble(1.5), 0.0);
+		Assert.assertTrue(Double.isNaN(Json.toDouble("NaN")));
+		Assert.assertEquals(Double.POSITIVE_INFINITY, Json.toDouble("Infinity"), 0.0);
+		Assert.assertTrue(Double.isNaN(Json.toDouble(null)));
+	}
+
+	@Test
+	public void testRejectsMalformedText() {
+		for (final String text : new String[] { "", "[1,", "{\"a\" 1}", "[1] 2", "\"open", "tru", "[\"\\q\"]" }) {
+			try {
+				Json.parse(text);
+				Assert.fail(text);
+			} catch (IllegalArgumentException e) {
+				// Expected.
+			}
+		}
+	}
+}
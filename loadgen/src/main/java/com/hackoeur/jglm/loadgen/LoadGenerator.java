@@ -0,0 +1,218 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.loadgen;
+
+import java.lang.management.ManagementFactory;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.hackoeur.jglm.Frustum;
+import com.hackoeur.jglm.Mat4;
+import com.hackoeur.jglm.Matrices;
+import com.hackoeur.jglm.Vec3;
+import com.hackoeur.jglm.buffer.BufferAllocatorFactory;
+import com.hackoeur.jglm.support.FastMath;
+import com.hackoeur.jglm.support.LatencyHistogram;
+
+/**
+ * Runs a synthetic scene frame after frame with 1, 2, 4, ... threads up to
+ * the given maximum, and prints frame time percentiles, allocation rate of
+ * the workers and the coordinating thread together, and speed-up over one
+ * thread for each thread count.  Each frame updates every
+ * entity, composes the hierarchy, culls against a turning camera and packs
+ * visible transforms into buffers; see {@link Scene}.  Each thread count
+ * starts from the same scene.
+ *
+ * <pre>
+ * java -jar target/loadgen.jar [--entities 100000] [--threads N] [--frames 600] [--warmup 200] [--seed 42]
+ * </pre>
+ */
+public final class LoadGenerator {
+	private static final float DT = 1f / 60f;
+
+	private final int entities;
+	private final int frames;
+	private final int warmup;
+	private final long seed;
+
+	private LoadGenerator(final int entities, final int frames, final int warmup, final long seed) {
+		this.entities = entities;
+		this.frames = frames;
+		this.warmup = warmup;
+		this.seed = seed;
+	}
+
+	public static void main(final String[] args) throws InterruptedException, ExecutionException {
+		int entities = 100000;
+		int maxThreads = Runtime.getRuntime().availableProcessors();
+		int frames = 600;
+		int warmup = 200;
+		long seed = 42L;
+
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			final String value = args[i + 1];
+			if ("--entities".equals(args[i])) {
+				entities = Integer.parseInt(value);
+			} else if ("--threads".equals(args[i])) {
+				maxThreads = Integer.parseInt(value);
+			} else if ("--frames".equals(args[i])) {
+				frames = Integer.parseInt(value);
+			} else if ("--warmup".equals(args[i])) {
+				warmup = Integer.parseInt(value);
+			} else if ("--seed".equals(args[i])) {
+				seed = Long.parseLong(value);
+			} else {
+				throw new IllegalArgumentException("Unknown option " + args[i]);
+			}
+		}
+		if (args.length % 2 != 0) {
+			throw new IllegalArgumentException("Missing value for " + args[args.length - 1]);
+		}
+
+		final LoadGenerator generator = new LoadGenerator(entities, frames, warmup, seed);
+		System.out.printf(Locale.ROOT, "%d entities, %d frames after %d warm-up frames, up to %d threads%n",
+				entities, frames, warmup, maxThreads);
+		System.out.printf(Locale.ROOT, "%7s  %9s  %8s  %8s  %8s  %8s  %10s  %7s  %10s%n",
+				"threads", "frames/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "alloc MB/s", "speedup", "visible");
+
+		double baseline = 0.0;
+		for (final int threads : threadCounts(maxThreads)) {
+			final Result result = generator.run(threads);
+			if (threads == 1) {
+				baseline = result.framesPerSecond;
+			}
+			final LatencyHistogram.Snapshot t = result.frameTimes;
+			System.out.printf(Locale.ROOT, "%7d  %9.1f  %8.3f  %8.3f  %8.3f  %8.3f  %10.1f  %7.2f  %10d%n",
+					threads, result.framesPerSecond,
+					t.getValueAtPercentile(50.0) / 1e6, t.getValueAtPercentile(99.0) / 1e6,
+					t.getValueAtPercentile(99.9) / 1e6, t.getMax() / 1e6,
+					result.allocatedBytesPerSecond / 1e6, result.framesPerSecond / baseline,
+					result.visiblePerFrame);
+		}
+	}
+
+	/**
+	 * @return 1, 2, 4, ... below max, then max
+	 */
+	private static List<Integer> threadCounts(final int max) {
+		final List<Integer> result = new ArrayList<Integer>();
+		for (int threads = 1; threads < max; threads *= 2) {
+			result.add(threads);
+		}
+		result.add(max);
+		return result;
+	}
+
+	/** Measurements of one thread count. */
+	private static final class Result {
+		LatencyHistogram.Snapshot frameTimes;
+		double framesPerSecond;
+		double allocatedBytesPerSecond;
+		long visiblePerFrame;
+	}
+
+	private Result run(final int threads) throws InterruptedException, ExecutionException {
+		final Scene scene = new Scene(entities, seed);
+		final int clusters = scene.clusterCount();
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final LatencyHistogram frameTimes = new LatencyHistogram();
+		final AtomicLong allocated = new AtomicLong();
+		final AtomicLong visible = new AtomicLong();
+		final Mat4 projection = Matrices.perspective(60f, 16f / 9f, 0.1f, 1000f);
+
+		// One task and one pack buffer per contiguous range of clusters.
+		final List<FloatBuffer> packs = new ArrayList<FloatBuffer>();
+		final int[] bounds = new int[threads + 1];
+		for (int t = 0; t < threads; t++) {
+			bounds[t + 1] = (int) ((long) clusters * (t + 1) / threads);
+			packs.add(BufferAllocatorFactory.getInstance().allocateFloatBuffer(
+					16 * (bounds[t + 1] - bounds[t]) * Scene.CLUSTER_SIZE));
+		}
+
+		try {
+			long measuredNanos = 0L;
+			for (int frame = 0; frame < warmup + frames; frame++) {
+				final boolean measured = frame >= warmup;
+				// The coordinating thread allocates too: the camera, the frustum, the tasks and their futures.
+				final long coordinatorBefore = measured ? allocatedBytes() : 0L;
+
+				final long yawSincos = FastMath.sincos(frame * DT * 0.5f);
+				final Vec3 eye = new Vec3(0f, 50f, 0f);
+				final Vec3 center = eye.add(new Vec3(FastMath.sinOf(yawSincos), -0.1f, FastMath.cosOf(yawSincos)));
+				final Frustum frustum = new Frustum(projection.multiply(Matrices.lookAt(eye, center, new Vec3(0f, 1f, 0f))));
+
+				final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(threads);
+				for (int t = 0; t < threads; t++) {
+					final int from = bounds[t];
+					final int to = bounds[t + 1];
+					final FloatBuffer pack = packs.get(t);
+					tasks.add(new Callable<Void>() {
+						@Override
+						public Void call() {
+							final long before = measured ? allocatedBytes() : 0L;
+							final int count = scene.frame(from, to, DT, frustum, pack);
+							if (measured) {
+								allocated.addAndGet(allocatedBytes() - before);
+								visible.addAndGet(count);
+							}
+							return null;
+						}
+					});
+				}
+
+				final long start = System.nanoTime();
+				for (final Future<Void> future : executor.invokeAll(tasks)) {
+					future.get();
+				}
+				final long elapsed = System.nanoTime() - start;
+
+				if (measured) {
+					frameTimes.record(elapsed);
+					measuredNanos += elapsed;
+					allocated.addAndGet(allocatedBytes() - coordinatorBefore);
+				}
+			}
+
+			final Result result = new Result();
+			result.frameTimes = frameTimes.snapshot();
+			result.framesPerSecond = frames / (measuredNanos / 1e9);
+			result.allocatedBytesPerSecond = allocated.get() / (measuredNanos / 1e9);
+			result.visiblePerFrame = visible.get() / frames;
+			return result;
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * @return bytes allocated by the current thread, or 0 where the JVM cannot
+	 * tell
+	 */
+	private static long allocatedBytes() {
+		final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return 0L;
+	}
+}
@@ -0,0 +1,171 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.loadgen;
+
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+import com.hackoeur.jglm.AABB;
+import com.hackoeur.jglm.Frustum;
+import com.hackoeur.jglm.Mat4;
+import com.hackoeur.jglm.Matrices;
+import com.hackoeur.jglm.Vec3;
+import com.hackoeur.jglm.Vec4;
+import com.hackoeur.jglm.support.FastMath;
+
+/**
+ * Entities with a local transform, bounds and velocity, grouped in clusters
+ * of {@value #CLUSTER_SIZE}.  The first entity of a cluster is a root in the
+ * world; each other entity's parent is an earlier entity of the same
+ * cluster, so clusters are independent and can be updated in parallel.
+ */
+final class Scene {
+	static final int CLUSTER_SIZE = 16;
+
+	private static final float WORLD_HALF_SIZE = 500f;
+	private static final float CHILD_HALF_SIZE = 5f;
+
+	private final int size;
+	private final int[] parents;
+	private final Vec3[] positions;
+	private final Vec3[] velocities;
+	private final Vec3[] axes;
+	private final float[] angles;
+	private final float[] spins;
+	private final Vec3[] halfExtents;
+	private final Mat4[] worlds;
+
+	/**
+	 * Creates the same scene for the same seed.
+	 */
+	Scene(final int entities, final long seed) {
+		final Random random = new Random(seed);
+		size = entities;
+		parents = new int[entities];
+		positions = new Vec3[entities];
+		velocities = new Vec3[entities];
+		axes = new Vec3[entities];
+		angles = new float[entities];
+		spins = new float[entities];
+		halfExtents = new Vec3[entities];
+		worlds = new Mat4[entities];
+
+		for (int i = 0; i < entities; i++) {
+			final int clusterStart = i - i % CLUSTER_SIZE;
+			final boolean root = i == clusterStart;
+			final float range = root ? WORLD_HALF_SIZE : CHILD_HALF_SIZE;
+			final float speed = root ? 20f : 1f;
+
+			parents[i] = root ? -1 : clusterStart + random.nextInt(i - clusterStart);
+			positions[i] = randomVec3(random, range);
+			velocities[i] = randomVec3(random, speed);
+			axes[i] = randomVec3(random, 1f).add(new Vec3(0f, 0f, 0.01f)).getUnitVector();
+			angles[i] = random.nextFloat() * 2f * (float) Math.PI;
+			spins[i] = (random.nextFloat() - 0.5f) * 2f;
+			halfExtents[i] = new Vec3(0.5f + random.nextFloat(), 0.5f + random.nextFloat(), 0.5f + random.nextFloat());
+			worlds[i] = Mat4.MAT4_IDENTITY;
+		}
+	}
+
+	int size() {
+		return size;
+	}
+
+	int clusterCount() {
+		return (size + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+	}
+
+	/**
+	 * Runs one frame for a range of clusters: moves and spins each entity,
+	 * composes world transforms down the hierarchy, culls world bounds
+	 * against the frustum and packs the world transforms of visible
+	 * entities into the buffer.
+	 *
+	 * @param pack must hold 16 floats per entity in the range
+	 * @return the number of visible entities
+	 */
+	int frame(final int fromCluster, final int toCluster, final float dt, final Frustum frustum, final FloatBuffer pack) {
+		final int from = fromCluster * CLUSTER_SIZE;
+		final int to = Math.min(size, toCluster * CLUSTER_SIZE);
+		int visible = 0;
+
+		pack.clear();
+		for (int i = from; i < to; i++) {
+			// Update.
+			final boolean root = parents[i] < 0;
+			positions[i] = bounce(i, positions[i].add(velocities[i].scale(dt)), root ? WORLD_HALF_SIZE : CHILD_HALF_SIZE);
+			angles[i] += spins[i] * dt;
+			final Mat4 local = Mat4.MAT4_IDENTITY.translate(positions[i]).multiply(Matrices.rotate(angles[i], axes[i]));
+
+			// Compose; parents come first in their cluster.
+			final Mat4 world = root ? local : worlds[parents[i]].multiply(local);
+			worlds[i] = world;
+
+			// Cull.
+			if (frustum.intersects(worldBounds(world, halfExtents[i]))) {
+				// Pack.
+				pack.put(world.getBuffer());
+				visible++;
+			}
+		}
+		pack.flip();
+
+		return visible;
+	}
+
+	/**
+	 * Reverses the velocity of entity i on any axis where p has left the cube
+	 * of the given half size and is still moving away from it, so that an
+	 * entity that overshoots flips once rather than every frame.
+	 */
+	private Vec3 bounce(final int i, final Vec3 p, final float halfSize) {
+		final Vec3 v = velocities[i];
+		final float vx = leaving(p.getX(), v.getX(), halfSize) ? -v.getX() : v.getX();
+		final float vy = leaving(p.getY(), v.getY(), halfSize) ? -v.getY() : v.getY();
+		final float vz = leaving(p.getZ(), v.getZ(), halfSize) ? -v.getZ() : v.getZ();
+		if (vx != v.getX() || vy != v.getY() || vz != v.getZ()) {
+			velocities[i] = new Vec3(vx, vy, vz);
+		}
+		return p;
+	}
+
+	private static boolean leaving(final float p, final float v, final float halfSize) {
+		return FastMath.abs(p) > halfSize && p * v > 0f;
+	}
+
+	/**
+	 * @return the box around a local box centred on the origin after the
+	 * transform
+	 */
+	private static AABB worldBounds(final Mat4 world, final Vec3 half) {
+		final Vec4 c0 = world.getColumn(0);
+		final Vec4 c1 = world.getColumn(1);
+		final Vec4 c2 = world.getColumn(2);
+		final Vec4 c3 = world.getColumn(3);
+
+		final Vec3 extents = new Vec3(
+				FastMath.abs(c0.getX()) * half.getX() + FastMath.abs(c1.getX()) * half.getY() + FastMath.abs(c2.getX()) * half.getZ(),
+				FastMath.abs(c0.getY()) * half.getX() + FastMath.abs(c1.getY()) * half.getY() + FastMath.abs(c2.getY()) * half.getZ(),
+				FastMath.abs(c0.getZ()) * half.getX() + FastMath.abs(c1.getZ()) * half.getY() + FastMath.abs(c2.getZ()) * half.getZ());
+		return AABB.fromCenter(new Vec3(c3.getX(), c3.getY(), c3.getZ()), extents);
+	}
+
+	private static Vec3 randomVec3(final Random random, final float range) {
+		return new Vec3(
+				(random.nextFloat() * 2f - 1f) * range,
+				(random.nextFloat() * 2f - 1f) * range,
+				(random.nextFloat() * 2f - 1f) * range);
+	}
+}
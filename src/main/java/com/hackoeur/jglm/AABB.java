@@ -0,0 +1,219 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm;
+
+import com.hackoeur.jglm.support.Compare;
+
+/**
+ * An axis-aligned bounding box, described by its minimum and maximum corners.
+ */
+public final class AABB {
+	final float minX, minY, minZ;
+	final float maxX, maxY, maxZ;
+
+	/**
+	 * Creates a box from its corners.  The corners do not need to be ordered;
+	 * each component is sorted so that {@link #getMin()} is always less than
+	 * or equal to {@link #getMax()}.
+	 *
+	 * @param corner1 one corner of the box
+	 * @param corner2 the opposite corner
+	 */
+	public AABB(final Vec3 corner1, final Vec3 corner2) {
+		this(corner1.x, corner1.y, corner1.z, corner2.x, corner2.y, corner2.z);
+	}
+
+	public AABB(final float x1, final float y1, final float z1, final float x2, final float y2, final float z2) {
+		this.minX = Math.min(x1, x2);
+		this.minY = Math.min(y1, y2);
+		this.minZ = Math.min(z1, z2);
+		this.maxX = Math.max(x1, x2);
+		this.maxY = Math.max(y1, y2);
+		this.maxZ = Math.max(z1, z2);
+	}
+
+	public AABB(final AABB box) {
+		this.minX = box.minX;
+		this.minY = box.minY;
+		this.minZ = box.minZ;
+		this.maxX = box.maxX;
+		this.maxY = box.maxY;
+		this.maxZ = box.maxZ;
+	}
+
+	/**
+	 * @param center center of the box
+	 * @param halfExtents distance from the center to each face
+	 * @return a box centered on {@code center}
+	 */
+	public static AABB fromCenter(final Vec3 center, final Vec3 halfExtents) {
+		return new AABB(
+				center.x - halfExtents.x, center.y - halfExtents.y, center.z - halfExtents.z,
+				center.x + halfExtents.x, center.y + halfExtents.y, center.z + halfExtents.z
+		);
+	}
+
+	public Vec3 getMin() {
+		return new Vec3(minX, minY, minZ);
+	}
+
+	public Vec3 getMax() {
+		return new Vec3(maxX, maxY, maxZ);
+	}
+
+	public Vec3 getCenter() {
+		return new Vec3(
+				(minX + maxX) * 0.5f,
+				(minY + maxY) * 0.5f,
+				(minZ + maxZ) * 0.5f
+		);
+	}
+
+	/**
+	 * @return the half-size of the box along each axis
+	 */
+	public Vec3 getExtents() {
+		return new Vec3(
+				(maxX - minX) * 0.5f,
+				(maxY - minY) * 0.5f,
+				(maxZ - minZ) * 0.5f
+		);
+	}
+
+	public float getMinX() {
+		return minX;
+	}
+
+	public float getMinY() {
+		return minY;
+	}
+
+	public float getMinZ() {
+		return minZ;
+	}
+
+	public float getMaxX() {
+		return maxX;
+	}
+
+	public float getMaxY() {
+		return maxY;
+	}
+
+	public float getMaxZ() {
+		return maxZ;
+	}
+
+	public boolean contains(final Vec3 point) {
+		return point.x >= minX && point.x <= maxX
+				&& point.y >= minY && point.y <= maxY
+				&& point.z >= minZ && point.z <= maxZ;
+	}
+
+	/**
+	 * @return {@code true} if the given box lies entirely within this one
+	 */
+	public boolean contains(final AABB box) {
+		return box.minX >= minX && box.maxX <= maxX
+				&& box.minY >= minY && box.maxY <= maxY
+				&& box.minZ >= minZ && box.maxZ <= maxZ;
+	}
+
+	public boolean intersects(final AABB box) {
+		return box.minX <= maxX && box.maxX >= minX
+				&& box.minY <= maxY && box.maxY >= minY
+				&& box.minZ <= maxZ && box.maxZ >= minZ;
+	}
+
+	/**
+	 * @return the smallest box enclosing both this box and the given one
+	 */
+	public AABB union(final AABB box) {
+		return new AABB(
+				Math.min(minX, box.minX), Math.min(minY, box.minY), Math.min(minZ, box.minZ),
+				Math.max(maxX, box.maxX), Math.max(maxY, box.maxY), Math.max(maxZ, box.maxZ)
+		);
+	}
+
+	public AABB translate(final Vec3 translation) {
+		return new AABB(
+				minX + translation.x, minY + translation.y, minZ + translation.z,
+				maxX + translation.x, maxY + translation.y, maxZ + translation.z
+		);
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + Float.floatToIntBits(minX);
+		result = prime * result + Float.floatToIntBits(minY);
+		result = prime * result + Float.floatToIntBits(minZ);
+		result = prime * result + Float.floatToIntBits(maxX);
+		result = prime * result + Float.floatToIntBits(maxY);
+		result = prime * result + Float.floatToIntBits(maxZ);
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (!(obj instanceof AABB)) {
+			return false;
+		}
+
+		final AABB other = (AABB) obj;
+		return Float.floatToIntBits(minX) == Float.floatToIntBits(other.minX)
+				&& Float.floatToIntBits(minY) == Float.floatToIntBits(other.minY)
+				&& Float.floatToIntBits(minZ) == Float.floatToIntBits(other.minZ)
+				&& Float.floatToIntBits(maxX) == Float.floatToIntBits(other.maxX)
+				&& Float.floatToIntBits(maxY) == Float.floatToIntBits(other.maxY)
+				&& Float.floatToIntBits(maxZ) == Float.floatToIntBits(other.maxZ);
+	}
+
+	public boolean equalsWithEpsilon(final AABB other, final float epsilon) {
+		if (this == other) {
+			return true;
+		}
+
+		if (other == null) {
+			return false;
+		}
+
+		return Compare.equals(minX, other.minX, epsilon)
+				&& Compare.equals(minY, other.minY, epsilon)
+				&& Compare.equals(minZ, other.minZ, epsilon)
+				&& Compare.equals(maxX, other.maxX, epsilon)
+				&& Compare.equals(maxY, other.maxY, epsilon)
+				&& Compare.equals(maxZ, other.maxZ, epsilon);
+	}
+
+	@Override
+	public String toString() {
+		return new StringBuilder()
+			.append(getClass().getSimpleName())
+			.append("{")
+			.append(String.format("%8.5f %8.5f %8.5f", minX, minY, minZ))
+			.append(" -> ")
+			.append(String.format("%8.5f %8.5f %8.5f", maxX, maxY, maxZ))
+			.append("}")
+			.toString();
+	}
+}
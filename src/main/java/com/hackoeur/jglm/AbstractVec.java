@@ -19,7 +19,7 @@ import java.nio.FloatBuffer;
 import com.hackoeur.jglm.buffer.BufferAllocator;
 import com.hackoeur.jglm.buffer.BufferAllocatorFactory;
 import com.hackoeur.jglm.support.Compare;
-import com.hackoeur.jglm.support.FastMath;
+import com.hackoeur.jglm.support.PrecisionPolicy;
 
 /**
  * @author James Royalty 
@@ -34,7 +34,14 @@ abstract class AbstractVec implements Vec {
 	
 	@Override
 	public final float getLength() {
-		return (float) FastMath.sqrtFast( getLengthSquared() );
+		return getLength( PrecisionPolicy.getDefault() );
+	}
+	
+	/**
+	 * @return the length, computed with the given policy
+	 */
+	public final float getLength(final PrecisionPolicy precision) {
+		return precision.sqrt( getLengthSquared() );
 	}
 	
 	protected FloatBuffer allocateFloatBuffer() {
@@ -0,0 +1,285 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm;
+
+/**
+ * A camera: an eye point, a target and an up direction, as for
+ * {@link Matrices#lookAt(Vec3, Vec3, Vec3)}, and a perspective or
+ * orthographic projection.  The view and projection matrices, their product,
+ * the inverses and the {@link Frustum} are built on first use and kept until
+ * a change affects them: moving the camera keeps the projection, and
+ * changing the projection keeps the view.  Setting a value equal to the
+ * current one changes nothing.
+ * 
+ * <p>A camera is not thread-safe, but the matrices and frustum it returns
+ * are immutable and may be shared.
+ */
+public final class Camera {
+	/* Bits of the values that are up to date. */
+	private static final int VIEW = 1;
+	private static final int PROJECTION = 1 << 1;
+	private static final int VIEW_PROJECTION = 1 << 2;
+	private static final int INVERSE_VIEW_PROJECTION = 1 << 3;
+	private static final int FRUSTUM = 1 << 4;
+	
+	private static final int DERIVED = VIEW_PROJECTION | INVERSE_VIEW_PROJECTION | FRUSTUM;
+	
+	private final MatrixCache cache;
+	
+	private Vec3 eye = new Vec3(0f, 0f, 1f);
+	private Vec3 target = Vec3.VEC3_ZERO;
+	private Vec3 up = new Vec3(0f, 1f, 0f);
+	
+	private boolean orthographic;
+	private float fovy = 45f;
+	private float aspect = 1f;
+	private float left, right, bottom, top;
+	private float zNear = 0.1f;
+	private float zFar = 100f;
+	
+	private int valid;
+	private Mat4 view;
+	private Mat4 projection;
+	private Mat4 viewProjection;
+	private Mat4 inverseViewProjection;
+	private Frustum frustum;
+	
+	/**
+	 * Creates a camera at {@code (0, 0, 1)} looking at the origin with
+	 * {@code +y} up, and a perspective projection with a field of view of 45
+	 * degrees, an aspect ratio of 1 and depth range [0.1, 100].
+	 */
+	public Camera() {
+		this(null);
+	}
+	
+	/**
+	 * Creates a camera as {@link #Camera()} that builds its view and
+	 * projection matrices through a cache, so that cameras with the same
+	 * settings share them.
+	 * 
+	 * @param cache cache to use, or {@code null} to build matrices directly
+	 */
+	public Camera(final MatrixCache cache) {
+		this.cache = cache;
+	}
+	
+	/* ::-------------------------------------------------------------------------::
+	 * View
+	 */
+	
+	public Vec3 getEye() {
+		return eye;
+	}
+	
+	public Vec3 getTarget() {
+		return target;
+	}
+	
+	public Vec3 getUp() {
+		return up;
+	}
+	
+	public Camera setEye(final Vec3 eye) {
+		return setLookAt(eye, target, up);
+	}
+	
+	public Camera setTarget(final Vec3 target) {
+		return setLookAt(eye, target, up);
+	}
+	
+	public Camera setUp(final Vec3 up) {
+		return setLookAt(eye, target, up);
+	}
+	
+	/**
+	 * @return this, to chain calls
+	 */
+	public Camera setLookAt(final Vec3 eye, final Vec3 target, final Vec3 up) {
+		if (!eye.equals(this.eye) || !target.equals(this.target) || !up.equals(this.up)) {
+			this.eye = eye;
+			this.target = target;
+			this.up = up;
+			valid &= ~(VIEW | DERIVED);
+		}
+		return this;
+	}
+	
+	/* ::-------------------------------------------------------------------------::
+	 * Projection
+	 */
+	
+	/**
+	 * @return {@code true} for an orthographic projection, {@code false} for
+	 * a perspective one
+	 */
+	public boolean isOrthographic() {
+		return orthographic;
+	}
+	
+	/**
+	 * @return field of view in degrees in the {@code y} direction; used by
+	 * perspective projections only
+	 */
+	public float getFovy() {
+		return fovy;
+	}
+	
+	/**
+	 * @return ratio of width to height; used by perspective projections only
+	 */
+	public float getAspect() {
+		return aspect;
+	}
+	
+	public float getZNear() {
+		return zNear;
+	}
+	
+	public float getZFar() {
+		return zFar;
+	}
+	
+	/**
+	 * Selects a perspective projection, as
+	 * {@link Matrices#perspective(float, float, float, float)}.
+	 * 
+	 * @return this, to chain calls
+	 */
+	public Camera setPerspective(final float fovy, final float aspect, final float zNear, final float zFar) {
+		if (orthographic || !same(fovy, this.fovy) || !same(aspect, this.aspect)
+				|| !same(zNear, this.zNear) || !same(zFar, this.zFar)) {
+			this.orthographic = false;
+			this.fovy = fovy;
+			this.aspect = aspect;
+			this.zNear = zNear;
+			this.zFar = zFar;
+			valid &= ~(PROJECTION | DERIVED);
+		}
+		return this;
+	}
+	
+	/**
+	 * Changes the aspect ratio, such as when a window is resized, and keeps
+	 * the other perspective parameters.  Selects a perspective projection.
+	 * 
+	 * @return this, to chain calls
+	 */
+	public Camera setAspect(final float aspect) {
+		return setPerspective(fovy, aspect, zNear, zFar);
+	}
+	
+	/**
+	 * Selects an orthographic projection, as
+	 * {@link Matrices#ortho(float, float, float, float, float, float)}.
+	 * 
+	 * @return this, to chain calls
+	 */
+	public Camera setOrtho(final float left, final float right, final float bottom, final float top, final float zNear, final float zFar) {
+		if (!orthographic || !same(left, this.left) || !same(right, this.right)
+				|| !same(bottom, this.bottom) || !same(top, this.top)
+				|| !same(zNear, this.zNear) || !same(zFar, this.zFar)) {
+			this.orthographic = true;
+			this.left = left;
+			this.right = right;
+			this.bottom = bottom;
+			this.top = top;
+			this.zNear = zNear;
+			this.zFar = zFar;
+			valid &= ~(PROJECTION | DERIVED);
+		}
+		return this;
+	}
+	
+	/* ::-------------------------------------------------------------------------::
+	 * Derived values
+	 */
+	
+	public Mat4 getView() {
+		if ((valid & VIEW) == 0) {
+			view = cache == null ? Matrices.lookAt(eye, target, up) : cache.lookAt(eye, target, up);
+			valid |= VIEW;
+		}
+		return view;
+	}
+	
+	public Mat4 getProjection() {
+		if ((valid & PROJECTION) == 0) {
+			if (orthographic) {
+				projection = cache == null
+						? Matrices.ortho(left, right, bottom, top, zNear, zFar)
+						: cache.ortho(left, right, bottom, top, zNear, zFar);
+			} else {
+				projection = cache == null
+						? Matrices.perspective(fovy, aspect, zNear, zFar)
+						: cache.perspective(fovy, aspect, zNear, zFar);
+			}
+			valid |= PROJECTION;
+		}
+		return projection;
+	}
+	
+	/**
+	 * @return <em>projection * view</em>
+	 */
+	public Mat4 getViewProjection() {
+		if ((valid & VIEW_PROJECTION) == 0) {
+			viewProjection = getProjection().multiply(getView());
+			valid |= VIEW_PROJECTION;
+		}
+		return viewProjection;
+	}
+	
+	/**
+	 * @return the inverse of the view matrix, which is cached by the matrix
+	 * itself
+	 */
+	public Mat4 getInverseView() {
+		return getView().getInverse();
+	}
+	
+	/**
+	 * @return the inverse of the projection matrix, which is cached by the
+	 * matrix itself
+	 */
+	public Mat4 getInverseProjection() {
+		return getProjection().getInverse();
+	}
+	
+	/**
+	 * @return the inverse of {@link #getViewProjection()}, computed as the
+	 * product of the two inverses, which is cheaper than inverting the
+	 * product
+	 */
+	public Mat4 getInverseViewProjection() {
+		if ((valid & INVERSE_VIEW_PROJECTION) == 0) {
+			inverseViewProjection = getInverseView().multiply(getInverseProjection());
+			valid |= INVERSE_VIEW_PROJECTION;
+		}
+		return inverseViewProjection;
+	}
+	
+	public Frustum getFrustum() {
+		if ((valid & FRUSTUM) == 0) {
+			frustum = new Frustum(getViewProjection());
+			valid |= FRUSTUM;
+		}
+		return frustum;
+	}
+	
+	private static boolean same(final float a, final float b) {
+		return Float.floatToIntBits(a) == Float.floatToIntBits(b);
+	}
+}
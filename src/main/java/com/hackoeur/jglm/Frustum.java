@@ -0,0 +1,209 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm;
+
+import com.hackoeur.jglm.compute.ComputeBackendFactory;
+import com.hackoeur.jglm.support.FastMath;
+import com.hackoeur.jglm.support.Telemetry;
+
+/**
+ * A view frustum described by six inward-facing planes.  The planes are
+ * extracted from a combined <em>projection * view</em> matrix, as built by
+ * {@link Matrices#perspective(float, float, float, float)} and
+ * {@link Matrices#lookAt(Vec3, Vec3, Vec3)}, so anything that survives
+ * OpenGL clipping is inside the frustum.
+ */
+public final class Frustum {
+	/**
+	 * Result of testing a volume against the frustum.
+	 */
+	public enum Containment {
+		/** The volume is completely outside of at least one plane. */
+		OUTSIDE,
+		/** The volume straddles at least one plane. */
+		INTERSECTING,
+		/** The volume is completely inside all planes. */
+		INSIDE
+	}
+
+	public static final int LEFT = 0;
+	public static final int RIGHT = 1;
+	public static final int BOTTOM = 2;
+	public static final int TOP = 3;
+	public static final int NEAR = 4;
+	public static final int FAR = 5;
+
+	private static final int NUM_PLANES = 6;
+
+	/* Successive (a, b, c, d) tuples, normalized, for: left, right, bottom, top, near, far. */
+	private final float[] planes = new float[NUM_PLANES * 4];
+	private final Plane[] planeObjects = new Plane[NUM_PLANES];
+
+	/**
+	 * Extracts the frustum planes from the given matrix.
+	 *
+	 * @param viewProjection the combined <em>projection * view</em> matrix
+	 */
+	public Frustum(final Mat4 viewProjection) {
+		final Mat4 m = viewProjection;
+
+		// Row 3 +/- rows 0, 1 and 2 (Gribb & Hartmann).
+		setPlane(LEFT,   m.m03 + m.m00, m.m13 + m.m10, m.m23 + m.m20, m.m33 + m.m30);
+		setPlane(RIGHT,  m.m03 - m.m00, m.m13 - m.m10, m.m23 - m.m20, m.m33 - m.m30);
+		setPlane(BOTTOM, m.m03 + m.m01, m.m13 + m.m11, m.m23 + m.m21, m.m33 + m.m31);
+		setPlane(TOP,    m.m03 - m.m01, m.m13 - m.m11, m.m23 - m.m21, m.m33 - m.m31);
+		setPlane(NEAR,   m.m03 + m.m02, m.m13 + m.m12, m.m23 + m.m22, m.m33 + m.m32);
+		setPlane(FAR,    m.m03 - m.m02, m.m13 - m.m12, m.m23 - m.m22, m.m33 - m.m32);
+	}
+
+	private void setPlane(final int plane, final float a, final float b, final float c, final float d) {
+		final float invLength = (float) (1.0 / FastMath.sqrt(a * a + b * b + c * c));
+		final int i = plane * 4;
+
+		planes[i] = a * invLength;
+		planes[i + 1] = b * invLength;
+		planes[i + 2] = c * invLength;
+		planes[i + 3] = d * invLength;
+
+		planeObjects[plane] = new Plane(planes[i], planes[i + 1], planes[i + 2], planes[i + 3]);
+	}
+
+	/**
+	 * @param point point to test
+	 * @return {@code true} if the point is inside or on the frustum
+	 */
+	public boolean contains(final Vec3 point) {
+		for (int i = 0; i < planes.length; i += 4) {
+			if (planes[i] * point.x + planes[i + 1] * point.y + planes[i + 2] * point.z + planes[i + 3] < 0f) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return {@code true} if any part of the sphere may be visible
+	 */
+	public boolean intersects(final Sphere sphere) {
+		for (int i = 0; i < planes.length; i += 4) {
+			if (planes[i] * sphere.x + planes[i + 1] * sphere.y + planes[i + 2] * sphere.z + planes[i + 3] < -sphere.radius) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Tests many points at once.  Bit {@code p} of each output mask is set when
+	 * the point is outside plane {@code p} (see {@link #LEFT} and friends), so
+	 * points with a mask of zero are inside the frustum.
+	 *
+	 * <p>Runs on the {@link ComputeBackendFactory#getInstance() selected backend}.
+	 *
+	 * @see Plane#classify(Plane[], float[], float[], float[], int[], int)
+	 * @return the number of points inside the frustum
+	 */
+	public int contains(final float[] xs, final float[] ys, final float[] zs, final int[] outMasks, final int count) {
+		final Telemetry.Span span = Telemetry.begin(Telemetry.Kind.CULLING, "Frustum.contains");
+		final int inside = ComputeBackendFactory.getInstance().classify(planes, xs, ys, zs, outMasks, count);
+		span.end(count);
+		return inside;
+	}
+
+	/**
+	 * @return {@code true} if any part of the box may be visible
+	 */
+	public boolean intersects(final AABB box) {
+		return classify(box.minX, box.minY, box.minZ, box.maxX, box.maxY, box.maxZ) != Containment.OUTSIDE;
+	}
+
+	public Containment classify(final AABB box) {
+		return classify(box.minX, box.minY, box.minZ, box.maxX, box.maxY, box.maxZ);
+	}
+
+	/**
+	 * Classifies the box given by its corners.  This is conservative: a box
+	 * near a corner of the frustum may be reported as {@link Containment#INTERSECTING}
+	 * even though it is actually outside.
+	 */
+	public Containment classify(
+			final float minX, final float minY, final float minZ,
+			final float maxX, final float maxY, final float maxZ) {
+		boolean straddles = false;
+
+		for (int i = 0; i < planes.length; i += 4) {
+			final float a = planes[i];
+			final float b = planes[i + 1];
+			final float c = planes[i + 2];
+			final float d = planes[i + 3];
+
+			// The corner furthest along the plane normal...
+			final float px = a >= 0f ? maxX : minX;
+			final float py = b >= 0f ? maxY : minY;
+			final float pz = c >= 0f ? maxZ : minZ;
+
+			if (a * px + b * py + c * pz + d < 0f) {
+				return Containment.OUTSIDE;
+			}
+
+			// ...and the one furthest against it.
+			final float nx = a >= 0f ? minX : maxX;
+			final float ny = b >= 0f ? minY : maxY;
+			final float nz = c >= 0f ? minZ : maxZ;
+
+			if (a * nx + b * ny + c * nz + d < 0f) {
+				straddles = true;
+			}
+		}
+
+		return straddles ? Containment.INTERSECTING : Containment.INSIDE;
+	}
+
+	/**
+	 * @param plane one of {@link #LEFT}, {@link #RIGHT}, {@link #BOTTOM},
+	 * {@link #TOP}, {@link #NEAR} or {@link #FAR}
+	 * @return the plane as a vector {@code <a, b, c, d>} where {@code <a, b, c>}
+	 * is the unit normal pointing into the frustum
+	 */
+	public Vec4 getPlane(final int plane) {
+		assert plane >= 0 && plane < NUM_PLANES : "Invalid plane = " + plane;
+
+		final int i = plane * 4;
+		return new Vec4(planes[i], planes[i + 1], planes[i + 2], planes[i + 3]);
+	}
+
+	/**
+	 * @return the six planes, indexed by {@link #LEFT} and friends; each has a
+	 * unit normal pointing into the frustum
+	 */
+	public Plane[] getPlanes() {
+		return planeObjects.clone();
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder sb = new StringBuilder()
+			.append(getClass().getSimpleName())
+			.append("{");
+
+		for (int i = 0; i < planes.length; i += 4) {
+			sb.append("\n ").append(String.format("%8.5f %8.5f %8.5f %8.5f", planes[i], planes[i + 1], planes[i + 2], planes[i + 3]));
+		}
+
+		return sb.append("\n}").toString();
+	}
+}
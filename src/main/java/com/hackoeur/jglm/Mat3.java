@@ -41,6 +41,27 @@ public final class Mat3 extends AbstractMat {
 	final float m01, m11, m21;
 	final float m02, m12, m22;
 	
+	/*
+	 * Derived values, computed on first use and zero or null until then.
+	 * Each is read once into a local and, if unset, computed and stored
+	 * without locking.  Threads that race compute equal values, and the
+	 * cached objects have only final state, so a thread that sees a
+	 * reference sees the whole object.
+	 */
+	
+	/**
+	 * {@link MatrixFlags}, with {@link MatrixFlags#CLASSIFIED} set once
+	 * computed and {@link MatrixFlags#RIGID_CLASSIFIED} once
+	 * {@link MatrixFlags#RIGID} is.  A racing thread may store the flags
+	 * without the latter, which are then computed again.
+	 */
+	private int flags;
+	
+	private int hash;
+	private Float determinant;
+	private Mat3 inverse;
+	private Mat3 transpose;
+	
 	/**
 	 * Creates a matrix with all elements equal to ZERO.
 	 */
@@ -217,6 +238,8 @@ public final class Mat3 extends AbstractMat {
 		this.m20 = mat.m20;
 		this.m21 = mat.m21;
 		this.m22 = mat.m22;
+		
+		this.flags = mat.flags;
 	}
 	
 	@Override
@@ -283,35 +306,75 @@ public final class Mat3 extends AbstractMat {
 		return buffer;
 	}
 
+	/**
+	 * @return the {@link MatrixFlags} classifying this matrix
+	 */
+	public int getFlags() {
+		int f = getShapeFlags();
+		if ((f & MatrixFlags.RIGID_CLASSIFIED) == 0) {
+			f |= MatrixFlags.RIGID_CLASSIFIED;
+			if (MatrixFlags.isOrthonormal3(
+					m00, m01, m02,
+					m10, m11, m12,
+					m20, m21, m22)) {
+				f |= MatrixFlags.RIGID;
+			}
+			flags = f;
+		}
+		return f & ~(MatrixFlags.CLASSIFIED | MatrixFlags.RIGID_CLASSIFIED);
+	}
+	
+	/**
+	 * @return the flags found by exact comparisons, which may lack
+	 * {@link MatrixFlags#RIGID}; enough for multiplication
+	 */
+	private int getShapeFlags() {
+		int f = flags;
+		if (f == 0) {
+			f = MatrixFlags.CLASSIFIED | MatrixFlags.classifyShape3(
+					m00, m01, m02,
+					m10, m11, m12,
+					m20, m21, m22);
+			flags = f;
+		}
+		return f;
+	}
+	
 	@Override
 	public boolean isIdentity() {
+		// Only a matrix already classified is checked by its flags; a scan is
+		// cheaper than classifying.
+		if ((flags & MatrixFlags.IDENTITY) != 0) {
+			return true;
+		}
+		
 		return Compare.equals(m00, 1f, Compare.MAT_EPSILON)
-				&& Compare.equals(m11, 1f, Compare.MAT_EPSILON)
-				&& Compare.equals(m22, 1f, Compare.MAT_EPSILON)
+				& Compare.equals(m11, 1f, Compare.MAT_EPSILON)
+				& Compare.equals(m22, 1f, Compare.MAT_EPSILON)
 				
 				&& Compare.equalsZero(m01)
-				&& Compare.equalsZero(m02)
+				& Compare.equalsZero(m02)
 				
 				&& Compare.equalsZero(m10)
-				&& Compare.equalsZero(m12)
+				& Compare.equalsZero(m12)
 				
 				&& Compare.equalsZero(m20)
-				&& Compare.equalsZero(m21);
+				& Compare.equalsZero(m21);
 	}
 
 	@Override
 	public boolean isZero() {
 		return Compare.equalsZero(m00)
-				&& Compare.equalsZero(m01)
-				&& Compare.equalsZero(m02)
+				& Compare.equalsZero(m01)
+				& Compare.equalsZero(m02)
 				
 				&& Compare.equalsZero(m10)
-				&& Compare.equalsZero(m11)
-				&& Compare.equalsZero(m12)
+				& Compare.equalsZero(m11)
+				& Compare.equalsZero(m12)
 				
 				&& Compare.equalsZero(m20)
-				&& Compare.equalsZero(m21)
-				&& Compare.equalsZero(m22);
+				& Compare.equalsZero(m21)
+				& Compare.equalsZero(m22);
 	}
 	
 	public Mat3 multiply(final float a) {
@@ -322,7 +385,25 @@ public final class Mat3 extends AbstractMat {
 		);
 	}
 	
+	/**
+	 * Multiplies this matrix with another.  Identity and uniform scale
+	 * operands take shorter paths; an identity operand returns the other
+	 * operand itself.
+	 */
 	public Mat3 multiply(final Mat3 mat) {
+		final int leftFlags = getShapeFlags();
+		final int rightFlags = mat.getShapeFlags();
+		
+		if ((leftFlags & MatrixFlags.IDENTITY) != 0) {
+			return mat;
+		}
+		if ((rightFlags & MatrixFlags.IDENTITY) != 0) {
+			return this;
+		}
+		if ((leftFlags & rightFlags & MatrixFlags.UNIFORM_SCALE) != 0) {
+			return new Mat3(this.m00 * mat.m00);
+		}
+		
 		return new Mat3(
 				this.m00 * mat.m00 + this.m10 * mat.m01 + this.m20 * mat.m02, // m00
 				this.m01 * mat.m00 + this.m11 * mat.m01 + this.m21 * mat.m02, // m01
@@ -346,7 +427,20 @@ public final class Mat3 extends AbstractMat {
 	 * @param vec
 	 * @return
 	 */
+	/**
+	 * Transforms a vector.  Identity and uniform scale matrices take shorter
+	 * paths; the identity returns the vector itself.
+	 */
 	public Vec3 multiply(final Vec3 vec) {
+		final int f = getShapeFlags();
+		
+		if ((f & MatrixFlags.IDENTITY) != 0) {
+			return vec;
+		}
+		if ((f & MatrixFlags.UNIFORM_SCALE) != 0) {
+			return new Vec3(m00 * vec.x, m00 * vec.y, m00 * vec.z);
+		}
+		
 		return new Vec3(
 				m00 * vec.x + m10 * vec.y + m20 * vec.z,
 				m01 * vec.x + m11 * vec.y + m21 * vec.z,
@@ -354,20 +448,64 @@ public final class Mat3 extends AbstractMat {
 		);
 	}
 	
+	/**
+	 * @return the transpose of this matrix; computed once
+	 */
 	public Mat3 transpose() {
-		return new Mat3(
-				m00, m10, m20,
-				m01, m11, m21,
-				m02, m12, m22
-		);
+		Mat3 result = transpose;
+		if (result == null) {
+			result = new Mat3(
+					m00, m10, m20,
+					m01, m11, m21,
+					m02, m12, m22
+			);
+			result.transpose = this;
+			transpose = result;
+		}
+		return result;
 	}
 	
+	/**
+	 * @return the inverse of this matrix, as {@link Matrices#invert(Mat3)};
+	 * computed once
+	 */
+	public Mat3 getInverse() {
+		Mat3 result = inverse;
+		if (result == null) {
+			result = Matrices.computeInverse(this);
+			result.inverse = this;
+			inverse = result;
+		}
+		return result;
+	}
+	
+	/**
+	 * @return the determinant of this matrix; computed once
+	 */
 	public float determinant() {
+		Float result = determinant;
+		if (result == null) {
+			result = Float.valueOf(computeDeterminant());
+			determinant = result;
+		}
+		return result.floatValue();
+	}
+	
+	private float computeDeterminant() {
 		return m00 * (m11 * m22 - m12 * m21) - m01 * (m10 * m22 - m12 * m20) + m02 * (m10 * m21 - m11 * m20);
 	}
 	
 	@Override
 	public int hashCode() {
+		int h = hash;
+		if (h == 0) {
+			h = computeHashCode();
+			hash = h;
+		}
+		return h;
+	}
+	
+	private int computeHashCode() {
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + Float.floatToIntBits(m00);
@@ -441,16 +579,16 @@ public final class Mat3 extends AbstractMat {
 		final Mat3 other = (Mat3) obj;
 		
 		return Compare.equals(m00, other.m00, epsilon)
-				&& Compare.equals(m01, other.m01, epsilon)
-				&& Compare.equals(m02, other.m02, epsilon)
+				& Compare.equals(m01, other.m01, epsilon)
+				& Compare.equals(m02, other.m02, epsilon)
 				
 				&& Compare.equals(m10, other.m10, epsilon)
-				&& Compare.equals(m11, other.m11, epsilon)
-				&& Compare.equals(m12, other.m12, epsilon)
+				& Compare.equals(m11, other.m11, epsilon)
+				& Compare.equals(m12, other.m12, epsilon)
 				
 				&& Compare.equals(m20, other.m20, epsilon)
-				&& Compare.equals(m21, other.m21, epsilon)
-				&& Compare.equals(m22, other.m22, epsilon);
+				& Compare.equals(m21, other.m21, epsilon)
+				& Compare.equals(m22, other.m22, epsilon);
 	}
 
 	public String toString() {
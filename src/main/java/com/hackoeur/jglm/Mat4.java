@@ -18,7 +18,10 @@ import java.nio.FloatBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.hackoeur.jglm.compute.ComputeBackendFactory;
 import com.hackoeur.jglm.support.Compare;
+import com.hackoeur.jglm.support.Fma;
+import com.hackoeur.jglm.support.Telemetry;
 
 /**
  * A 4x4 matrix.
@@ -43,6 +46,32 @@ public final class Mat4 extends AbstractMat {
 	final float m02, m12, m22, m32;
 	final float m03, m13, m23, m33;
 	
+	/*
+	 * Derived values, computed on first use and zero or null until then.
+	 * Each is read once into a local and, if unset, computed and stored
+	 * without locking.  Threads that race compute equal values, and the
+	 * cached objects have only final state, so a thread that sees a
+	 * reference sees the whole object.
+	 */
+	
+	/**
+	 * {@link MatrixFlags}, with {@link MatrixFlags#CLASSIFIED} set once
+	 * computed and {@link MatrixFlags#RIGID_CLASSIFIED} once
+	 * {@link MatrixFlags#RIGID} is.  A racing thread may store the flags
+	 * without the latter, which are then computed again.
+	 */
+	private int flags;
+	
+	/** Flags of a product of translations, known without classifying it. */
+	private static final int TRANSLATION_FLAGS = MatrixFlags.CLASSIFIED | MatrixFlags.RIGID_CLASSIFIED
+			| MatrixFlags.TRANSLATION | MatrixFlags.UNIFORM_SCALE | MatrixFlags.RIGID | MatrixFlags.AFFINE;
+	
+	private int hash;
+	private Float determinant;
+	private Mat4 inverse;
+	private Mat4 transpose;
+	private Mat3 normalMatrix;
+	
 	/**
 	 * Creates a matrix with all elements equal to ZERO.
 	 */
@@ -246,6 +275,8 @@ public final class Mat4 extends AbstractMat {
 		this.m31 = mat.m31;
 		this.m32 = mat.m32;
 		this.m33 = mat.m33;
+		
+		this.flags = mat.flags;
 	}
 	
 	@Override
@@ -324,74 +355,157 @@ public final class Mat4 extends AbstractMat {
 		return buffer;
 	}
 	
+	/**
+	 * @return the {@link MatrixFlags} classifying this matrix
+	 */
+	public int getFlags() {
+		int f = getShapeFlags();
+		if ((f & MatrixFlags.RIGID_CLASSIFIED) == 0) {
+			f |= MatrixFlags.RIGID_CLASSIFIED;
+			if (MatrixFlags.isOrthonormal3(
+					m00, m01, m02,
+					m10, m11, m12,
+					m20, m21, m22)) {
+				f |= MatrixFlags.RIGID;
+			}
+			flags = f;
+		}
+		return f & ~(MatrixFlags.CLASSIFIED | MatrixFlags.RIGID_CLASSIFIED);
+	}
+	
+	/**
+	 * @return the flags found by exact comparisons, which may lack
+	 * {@link MatrixFlags#RIGID}; enough for multiplication
+	 */
+	private int getShapeFlags() {
+		int f = flags;
+		if (f == 0) {
+			f = classifyShape();
+			flags = f;
+		}
+		return f;
+	}
+	
+	private int classifyShape() {
+		if (!(m03 == 0f & m13 == 0f & m23 == 0f & m33 == 1f)) {
+			return MatrixFlags.CLASSIFIED | MatrixFlags.RIGID_CLASSIFIED | MatrixFlags.GENERAL;
+		}
+		
+		int f = MatrixFlags.CLASSIFIED | MatrixFlags.classifyShape3(
+				m00, m01, m02,
+				m10, m11, m12,
+				m20, m21, m22);
+		
+		if ((f & MatrixFlags.IDENTITY) != 0) {
+			f |= MatrixFlags.TRANSLATION;
+			if (!(m30 == 0f & m31 == 0f & m32 == 0f)) {
+				f &= ~MatrixFlags.IDENTITY;
+			}
+		}
+		return f;
+	}
+	
 	@Override
 	public boolean isIdentity() {
+		// Only a matrix already classified is checked by its flags; a scan is
+		// cheaper than classifying.
+		if ((flags & MatrixFlags.IDENTITY) != 0) {
+			return true;
+		}
+		
 		return Compare.equals(m00, 1f, Compare.MAT_EPSILON)
-				&& Compare.equals(m11, 1f, Compare.MAT_EPSILON)
-				&& Compare.equals(m22, 1f, Compare.MAT_EPSILON)
-				&& Compare.equals(m33, 1f, Compare.MAT_EPSILON)
+				& Compare.equals(m11, 1f, Compare.MAT_EPSILON)
+				& Compare.equals(m22, 1f, Compare.MAT_EPSILON)
+				& Compare.equals(m33, 1f, Compare.MAT_EPSILON)
 				
 				&& Compare.equalsZero(m01)
-				&& Compare.equalsZero(m02)
-				&& Compare.equalsZero(m03)
+				& Compare.equalsZero(m02)
+				& Compare.equalsZero(m03)
 				
 				&& Compare.equalsZero(m10)
-				&& Compare.equalsZero(m12)
-				&& Compare.equalsZero(m13)
+				& Compare.equalsZero(m12)
+				& Compare.equalsZero(m13)
 				
 				&& Compare.equalsZero(m20)
-				&& Compare.equalsZero(m21)
-				&& Compare.equalsZero(m23)
+				& Compare.equalsZero(m21)
+				& Compare.equalsZero(m23)
 		
 				&& Compare.equalsZero(m30)
-				&& Compare.equalsZero(m31)
-				&& Compare.equalsZero(m32);
+				& Compare.equalsZero(m31)
+				& Compare.equalsZero(m32);
 	}
 	
 	@Override
 	public boolean isZero() {
 		return Compare.equalsZero(m00)
-				&& Compare.equalsZero(m01)
-				&& Compare.equalsZero(m02)
-				&& Compare.equalsZero(m03)
+				& Compare.equalsZero(m01)
+				& Compare.equalsZero(m02)
+				& Compare.equalsZero(m03)
 				
 				&& Compare.equalsZero(m10)
-				&& Compare.equalsZero(m11)
-				&& Compare.equalsZero(m12)
-				&& Compare.equalsZero(m13)
+				& Compare.equalsZero(m11)
+				& Compare.equalsZero(m12)
+				& Compare.equalsZero(m13)
 				
 				&& Compare.equalsZero(m20)
-				&& Compare.equalsZero(m21)
-				&& Compare.equalsZero(m22)
-				&& Compare.equalsZero(m23)
+				& Compare.equalsZero(m21)
+				& Compare.equalsZero(m22)
+				& Compare.equalsZero(m23)
 		
 				&& Compare.equalsZero(m30)
-				&& Compare.equalsZero(m31)
-				&& Compare.equalsZero(m32)
-				&& Compare.equalsZero(m33);
+				& Compare.equalsZero(m31)
+				& Compare.equalsZero(m32)
+				& Compare.equalsZero(m33);
 	}
         
         /**
-         * Multiply this matrix with another and return the result.
+         * Multiply this matrix with another and return the result.  Identity,
+         * translation and affine operands take shorter paths; an identity
+         * operand returns the other operand itself.
          * @param other
          */
-        public Mat4 multiply(final Mat4 right) {            
-            float nm00 = this.m00 * right.m00 + this.m10 * right.m01 + this.m20 * right.m02 + this.m30 * right.m03;
-            float nm01 = this.m01 * right.m00 + this.m11 * right.m01 + this.m21 * right.m02 + this.m31 * right.m03;
-            float nm02 = this.m02 * right.m00 + this.m12 * right.m01 + this.m22 * right.m02 + this.m32 * right.m03;
-            float nm03 = this.m03 * right.m00 + this.m13 * right.m01 + this.m23 * right.m02 + this.m33 * right.m03;
-            float nm10 = this.m00 * right.m10 + this.m10 * right.m11 + this.m20 * right.m12 + this.m30 * right.m13;
-            float nm11 = this.m01 * right.m10 + this.m11 * right.m11 + this.m21 * right.m12 + this.m31 * right.m13;
-            float nm12 = this.m02 * right.m10 + this.m12 * right.m11 + this.m22 * right.m12 + this.m32 * right.m13;
-            float nm13 = this.m03 * right.m10 + this.m13 * right.m11 + this.m23 * right.m12 + this.m33 * right.m13;
-            float nm20 = this.m00 * right.m20 + this.m10 * right.m21 + this.m20 * right.m22 + this.m30 * right.m23;
-            float nm21 = this.m01 * right.m20 + this.m11 * right.m21 + this.m21 * right.m22 + this.m31 * right.m23;
-            float nm22 = this.m02 * right.m20 + this.m12 * right.m21 + this.m22 * right.m22 + this.m32 * right.m23;
-            float nm23 = this.m03 * right.m20 + this.m13 * right.m21 + this.m23 * right.m22 + this.m33 * right.m23;
-            float nm30 = this.m00 * right.m30 + this.m10 * right.m31 + this.m20 * right.m32 + this.m30 * right.m33;
-            float nm31 = this.m01 * right.m30 + this.m11 * right.m31 + this.m21 * right.m32 + this.m31 * right.m33;
-            float nm32 = this.m02 * right.m30 + this.m12 * right.m31 + this.m22 * right.m32 + this.m32 * right.m33;
-            float nm33 = this.m03 * right.m30 + this.m13 * right.m31 + this.m23 * right.m32 + this.m33 * right.m33;
+        public Mat4 multiply(final Mat4 right) {
+            final int leftFlags = getShapeFlags();
+            final int rightFlags = right.getShapeFlags();
+            
+            if ((leftFlags & MatrixFlags.IDENTITY) != 0) {
+                return right;
+            }
+            if ((rightFlags & MatrixFlags.IDENTITY) != 0) {
+                return this;
+            }
+            if ((leftFlags & rightFlags & MatrixFlags.TRANSLATION) != 0) {
+                final Mat4 product = new Mat4(
+                                1f, 0f, 0f, 0f,
+                                0f, 1f, 0f, 0f,
+                                0f, 0f, 1f, 0f,
+                                this.m30 + right.m30, this.m31 + right.m31, this.m32 + right.m32, 1f
+                );
+                product.flags = product.m30 == 0f & product.m31 == 0f & product.m32 == 0f
+                                ? TRANSLATION_FLAGS | MatrixFlags.IDENTITY
+                                : TRANSLATION_FLAGS;
+                return product;
+            }
+            if ((leftFlags & rightFlags & MatrixFlags.AFFINE) != 0) {
+                return multiplyAffine(right);
+            }
+            
+            float nm00 = Fma.dot4(this.m00, this.m10, this.m20, this.m30, right.m00, right.m01, right.m02, right.m03);
+            float nm01 = Fma.dot4(this.m01, this.m11, this.m21, this.m31, right.m00, right.m01, right.m02, right.m03);
+            float nm02 = Fma.dot4(this.m02, this.m12, this.m22, this.m32, right.m00, right.m01, right.m02, right.m03);
+            float nm03 = Fma.dot4(this.m03, this.m13, this.m23, this.m33, right.m00, right.m01, right.m02, right.m03);
+            float nm10 = Fma.dot4(this.m00, this.m10, this.m20, this.m30, right.m10, right.m11, right.m12, right.m13);
+            float nm11 = Fma.dot4(this.m01, this.m11, this.m21, this.m31, right.m10, right.m11, right.m12, right.m13);
+            float nm12 = Fma.dot4(this.m02, this.m12, this.m22, this.m32, right.m10, right.m11, right.m12, right.m13);
+            float nm13 = Fma.dot4(this.m03, this.m13, this.m23, this.m33, right.m10, right.m11, right.m12, right.m13);
+            float nm20 = Fma.dot4(this.m00, this.m10, this.m20, this.m30, right.m20, right.m21, right.m22, right.m23);
+            float nm21 = Fma.dot4(this.m01, this.m11, this.m21, this.m31, right.m20, right.m21, right.m22, right.m23);
+            float nm22 = Fma.dot4(this.m02, this.m12, this.m22, this.m32, right.m20, right.m21, right.m22, right.m23);
+            float nm23 = Fma.dot4(this.m03, this.m13, this.m23, this.m33, right.m20, right.m21, right.m22, right.m23);
+            float nm30 = Fma.dot4(this.m00, this.m10, this.m20, this.m30, right.m30, right.m31, right.m32, right.m33);
+            float nm31 = Fma.dot4(this.m01, this.m11, this.m21, this.m31, right.m30, right.m31, right.m32, right.m33);
+            float nm32 = Fma.dot4(this.m02, this.m12, this.m22, this.m32, right.m30, right.m31, right.m32, right.m33);
+            float nm33 = Fma.dot4(this.m03, this.m13, this.m23, this.m33, right.m30, right.m31, right.m32, right.m33);
             
             return new Mat4(
                             nm00, nm01, nm02, nm03,
@@ -427,11 +541,95 @@ public final class Mat4 extends AbstractMat {
             );
         }
 
+        /**
+         * Multiplies two affine matrices: the last row of the product is
+         * (0, 0, 0, 1) and the other elements are computed as in the general
+         * case, less the terms that are multiplied by zero.
+         */
+        private Mat4 multiplyAffine(final Mat4 right) {
+            return new Mat4(
+                            Fma.dot3(this.m00, this.m10, this.m20, right.m00, right.m01, right.m02),
+                            Fma.dot3(this.m01, this.m11, this.m21, right.m00, right.m01, right.m02),
+                            Fma.dot3(this.m02, this.m12, this.m22, right.m00, right.m01, right.m02),
+                            0f,
+                            Fma.dot3(this.m00, this.m10, this.m20, right.m10, right.m11, right.m12),
+                            Fma.dot3(this.m01, this.m11, this.m21, right.m10, right.m11, right.m12),
+                            Fma.dot3(this.m02, this.m12, this.m22, right.m10, right.m11, right.m12),
+                            0f,
+                            Fma.dot3(this.m00, this.m10, this.m20, right.m20, right.m21, right.m22),
+                            Fma.dot3(this.m01, this.m11, this.m21, right.m20, right.m21, right.m22),
+                            Fma.dot3(this.m02, this.m12, this.m22, right.m20, right.m21, right.m22),
+                            0f,
+                            Fma.dot4(this.m00, this.m10, this.m20, this.m30, right.m30, right.m31, right.m32, 1f),
+                            Fma.dot4(this.m01, this.m11, this.m21, this.m31, right.m30, right.m31, right.m32, 1f),
+                            Fma.dot4(this.m02, this.m12, this.m22, this.m32, right.m30, right.m31, right.m32, 1f),
+                            1f
+            );
+        }
+
+	/**
+	 * Transforms a vector.  Identity, translation and affine matrices take
+	 * shorter paths; the identity returns the vector itself.
+	 */
 	public Vec4 multiply(final Vec4 right) {
-		return new Vec4(this.m00 * right.x + this.m10 * right.y + this.m20 * right.z + this.m30 * right.w,
-				this.m01 * right.x + this.m11 * right.y + this.m21 * right.z + this.m31 * right.w,
-				this.m02 * right.x + this.m12 * right.y + this.m22 * right.z + this.m32 * right.w,
-				this.m03 * right.x + this.m13 * right.y + this.m23 * right.z + this.m33 * right.w);
+		final int f = getShapeFlags();
+		
+		if ((f & MatrixFlags.IDENTITY) != 0) {
+			return right;
+		}
+		if ((f & MatrixFlags.TRANSLATION) != 0) {
+			return new Vec4(Fma.fma(this.m30, right.w, right.x),
+					Fma.fma(this.m31, right.w, right.y),
+					Fma.fma(this.m32, right.w, right.z),
+					right.w);
+		}
+		if ((f & MatrixFlags.AFFINE) != 0) {
+			return new Vec4(Fma.dot4(this.m00, this.m10, this.m20, this.m30, right.x, right.y, right.z, right.w),
+					Fma.dot4(this.m01, this.m11, this.m21, this.m31, right.x, right.y, right.z, right.w),
+					Fma.dot4(this.m02, this.m12, this.m22, this.m32, right.x, right.y, right.z, right.w),
+					right.w);
+		}
+		
+		return new Vec4(Fma.dot4(this.m00, this.m10, this.m20, this.m30, right.x, right.y, right.z, right.w),
+				Fma.dot4(this.m01, this.m11, this.m21, this.m31, right.x, right.y, right.z, right.w),
+				Fma.dot4(this.m02, this.m12, this.m22, this.m32, right.x, right.y, right.z, right.w),
+				Fma.dot4(this.m03, this.m13, this.m23, this.m33, right.x, right.y, right.z, right.w));
+	}
+	
+	/**
+	 * Transforms many points at once, as {@link #multiply(Vec4)} with
+	 * {@code w = 1}; the resulting {@code w} is dropped, so this suits affine
+	 * matrices.  Runs on the {@link ComputeBackendFactory#getInstance() selected backend}.
+	 * The output arrays may be the input arrays.
+	 * 
+	 * @param count number of points; every array must hold at least this many elements
+	 */
+	public void transformPoints(final float[] xs, final float[] ys, final float[] zs,
+			final float[] outXs, final float[] outYs, final float[] outZs, final int count) {
+		final Telemetry.Span span = Telemetry.begin(Telemetry.Kind.BULK_TRANSFORM, "Mat4.transformPoints");
+		final float[] matrix = new float[] {
+				m00, m01, m02, m03,
+				m10, m11, m12, m13,
+				m20, m21, m22, m23,
+				m30, m31, m32, m33
+		};
+		ComputeBackendFactory.getInstance().transformPoints(matrix, xs, ys, zs, outXs, outYs, outZs, count);
+		span.end(count);
+	}
+	
+	/**
+	 * Multiplies many pairs of matrices at once, as {@link #multiply(Mat4)}:
+	 * {@code out[i] = left[i] * right[i]}, each matrix stored as 16 elements
+	 * column by column as in {@link #Mat4(float[])}.  Runs on the
+	 * {@link ComputeBackendFactory#getInstance() selected backend}.  The output
+	 * must not overlap either input.
+	 * 
+	 * @param count number of matrices; every array must hold at least 16 times this many elements
+	 */
+	public static void multiply(final float[] left, final float[] right, final float[] out, final int count) {
+		final Telemetry.Span span = Telemetry.begin(Telemetry.Kind.BULK_TRANSFORM, "Mat4.multiply");
+		ComputeBackendFactory.getInstance().multiply(left, right, out, count);
+		span.end(count);
 	}
 	
 	public Mat4 translate(final Vec3 translation) {
@@ -450,17 +648,99 @@ public final class Mat4 extends AbstractMat {
 		);
 	}
 	
+	/**
+	 * @return the transpose of this matrix; computed once
+	 */
 	public Mat4 transpose() {
-		return new Mat4(
-				m00, m10, m20, m30,
-				m01, m11, m21, m31,
-				m02, m12, m22, m32,
-				m03, m13, m23, m33
-		);
+		Mat4 result = transpose;
+		if (result == null) {
+			result = new Mat4(
+					m00, m10, m20, m30,
+					m01, m11, m21, m31,
+					m02, m12, m22, m32,
+					m03, m13, m23, m33
+			);
+			result.transpose = this;
+			transpose = result;
+		}
+		return result;
+	}
+	
+	/**
+	 * @return the inverse of this matrix, as {@link Matrices#invert(Mat4)};
+	 * computed once
+	 */
+	public Mat4 getInverse() {
+		Mat4 result = inverse;
+		if (result == null) {
+			result = Matrices.computeInverse(this);
+			result.inverse = this;
+			inverse = result;
+		}
+		return result;
+	}
+	
+	/**
+	 * @return the transpose of the inverse of the upper 3x3, which transforms
+	 * normals; computed once
+	 */
+	public Mat3 getNormalMatrix() {
+		Mat3 result = normalMatrix;
+		if (result == null) {
+			final Mat3 upper = new Mat3(
+					m00, m01, m02,
+					m10, m11, m12,
+					m20, m21, m22
+			);
+			// For a rotation this is the upper 3x3 itself, as the inverse is
+			// computed as the transpose and transposes are linked both ways.
+			result = Matrices.invert(upper).transpose();
+			normalMatrix = result;
+		}
+		return result;
+	}
+	
+	/**
+	 * @return the determinant of this matrix; computed once
+	 */
+	public float determinant() {
+		Float result = determinant;
+		if (result == null) {
+			result = Float.valueOf(computeDeterminant());
+			determinant = result;
+		}
+		return result.floatValue();
+	}
+	
+	private float computeDeterminant() {
+		if ((getShapeFlags() & MatrixFlags.AFFINE) != 0) {
+			return m00 * (m11 * m22 - m12 * m21) - m01 * (m10 * m22 - m12 * m20) + m02 * (m10 * m21 - m11 * m20);
+		}
+		
+		final float s0 = m22 * m33 - m32 * m23;
+		final float s1 = m21 * m33 - m31 * m23;
+		final float s2 = m21 * m32 - m31 * m22;
+		final float s3 = m20 * m33 - m30 * m23;
+		final float s4 = m20 * m32 - m30 * m22;
+		final float s5 = m20 * m31 - m30 * m21;
+		
+		return m00 * (m11 * s0 - m12 * s1 + m13 * s2)
+				- m01 * (m10 * s0 - m12 * s3 + m13 * s4)
+				+ m02 * (m10 * s1 - m11 * s3 + m13 * s5)
+				- m03 * (m10 * s2 - m11 * s4 + m12 * s5);
 	}
 
 	@Override
 	public int hashCode() {
+		int h = hash;
+		if (h == 0) {
+			h = computeHashCode();
+			hash = h;
+		}
+		return h;
+	}
+	
+	private int computeHashCode() {
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + Float.floatToIntBits(m00);
@@ -562,24 +842,24 @@ public final class Mat4 extends AbstractMat {
 		final Mat4 other = (Mat4) obj;
 		
 		return Compare.equals(m00, other.m00, epsilon)
-				&& Compare.equals(m01, other.m01, epsilon)
-				&& Compare.equals(m02, other.m02, epsilon)
-				&& Compare.equals(m03, other.m03, epsilon)
+				& Compare.equals(m01, other.m01, epsilon)
+				& Compare.equals(m02, other.m02, epsilon)
+				& Compare.equals(m03, other.m03, epsilon)
 				
 				&& Compare.equals(m10, other.m10, epsilon)
-				&& Compare.equals(m11, other.m11, epsilon)
-				&& Compare.equals(m12, other.m12, epsilon)
-				&& Compare.equals(m13, other.m13, epsilon)
+				& Compare.equals(m11, other.m11, epsilon)
+				& Compare.equals(m12, other.m12, epsilon)
+				& Compare.equals(m13, other.m13, epsilon)
 				
 				&& Compare.equals(m20, other.m20, epsilon)
-				&& Compare.equals(m21, other.m21, epsilon)
-				&& Compare.equals(m22, other.m22, epsilon)
-				&& Compare.equals(m23, other.m23, epsilon)
+				& Compare.equals(m21, other.m21, epsilon)
+				& Compare.equals(m22, other.m22, epsilon)
+				& Compare.equals(m23, other.m23, epsilon)
 				
 				&& Compare.equals(m30, other.m30, epsilon)
-				&& Compare.equals(m31, other.m31, epsilon)
-				&& Compare.equals(m32, other.m32, epsilon)
-				&& Compare.equals(m33, other.m33, epsilon);
+				& Compare.equals(m31, other.m31, epsilon)
+				& Compare.equals(m32, other.m32, epsilon)
+				& Compare.equals(m33, other.m33, epsilon);
 	}
 
 	public String toString() {
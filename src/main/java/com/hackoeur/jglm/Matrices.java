@@ -38,7 +38,7 @@ public final class Matrices {
 	 */
 	public static final Mat4 perspective(final float fovy, final float aspect, final float zNear, final float zFar) {
 		final float halfFovyRadians = (float) FastMath.toRadians( (fovy / 2.0f) );
-		final float range = (float) FastMath.tan(halfFovyRadians) * zNear;
+		final float range = FastMath.tanf(halfFovyRadians) * zNear;
 		final float left = -range * aspect;
 		final float right = range * aspect;
 		final float bottom = -range;
@@ -167,19 +167,74 @@ public final class Matrices {
 	 * @return This matrix, rotated around the given axis.
 	 */
 	public static Mat4 rotate(final float phi, final Vec3 axis) {
-		double rcos = FastMath.cos(phi);
-		double rsin = FastMath.sin(phi);
+		final long sincos = FastMath.sincos(phi);
+		double rsin = FastMath.sinOf(sincos);
+		double rcos = FastMath.cosOf(sincos);
 		float x = axis.x;
 		float y = axis.y;
 		float z = axis.z;
-		Vec4 v1 = new Vec4((float) (rcos + x * x * (1 - rcos)), (float) (z * rsin + y * x * (1 - rcos)), (float) (-y * rsin + z * x * (1 - rcos)), 0);
-		Vec4 v2 = new Vec4((float) (-z * rsin + x * y * (1 - rcos)), (float) (rcos + y * y * (1 - rcos)), (float) (x * rsin + z * y * (1 - rcos)), 0);
-		Vec4 v3 = new Vec4((float) (y * rsin + x * z * (1 - rcos)), (float) (-x * rsin + y * z * (1 - rcos)), (float) (rcos + z * z * (1 - rcos)), 0);
-		Vec4 v4 = new Vec4(0, 0, 0, 1);
-		return new Mat4(v1, v2, v3, v4);
+		return new Mat4(
+				(float) (rcos + x * x * (1 - rcos)), (float) (z * rsin + y * x * (1 - rcos)), (float) (-y * rsin + z * x * (1 - rcos)), 0f,
+				(float) (-z * rsin + x * y * (1 - rcos)), (float) (rcos + y * y * (1 - rcos)), (float) (x * rsin + z * y * (1 - rcos)), 0f,
+				(float) (y * rsin + x * z * (1 - rcos)), (float) (-x * rsin + y * z * (1 - rcos)), (float) (rcos + z * z * (1 - rcos)), 0f,
+				0f, 0f, 0f, 1f
+		);
 	}
 
+	/**
+	 * Inverts a matrix.  Identity, translation, uniform scale, rigid and
+	 * affine matrices, as classified by {@link Mat4#getFlags()}, are inverted
+	 * directly; other matrices by Gaussian elimination.  The identity returns
+	 * the matrix itself.  The inverse is computed once per matrix; see
+	 * {@link Mat4#getInverse()}.
+	 *
+	 * @param matrix matrix to invert
+	 * @return the inverse
+	 */
 	public static Mat4 invert(final Mat4 matrix){
+		return matrix.getInverse();
+	}
+
+	static Mat4 computeInverse(final Mat4 matrix){
+		final int flags = matrix.getFlags();
+		if ((flags & MatrixFlags.IDENTITY) != 0) {
+			return matrix;
+		}
+		if ((flags & MatrixFlags.TRANSLATION) != 0) {
+			return new Mat4(1f, 0f, 0f, 0f,
+					0f, 1f, 0f, 0f,
+					0f, 0f, 1f, 0f,
+					-matrix.m30, -matrix.m31, -matrix.m32, 1f);
+		}
+		if ((flags & MatrixFlags.UNIFORM_SCALE) != 0) {
+			final float s = 1f / matrix.m00;
+			return new Mat4(s, 0f, 0f, 0f,
+					0f, s, 0f, 0f,
+					0f, 0f, s, 0f,
+					-matrix.m30 * s, -matrix.m31 * s, -matrix.m32 * s, 1f);
+		}
+		if ((flags & MatrixFlags.RIGID) != 0) {
+			return invertAffine(matrix,
+					matrix.m00, matrix.m10, matrix.m20,
+					matrix.m01, matrix.m11, matrix.m21,
+					matrix.m02, matrix.m12, matrix.m22);
+		}
+		if ((flags & MatrixFlags.AFFINE) != 0) {
+			final float c00 = matrix.m11 * matrix.m22 - matrix.m12 * matrix.m21;
+			final float c01 = matrix.m12 * matrix.m20 - matrix.m10 * matrix.m22;
+			final float c02 = matrix.m10 * matrix.m21 - matrix.m11 * matrix.m20;
+			final float invDet = 1f / (matrix.m00 * c00 + matrix.m01 * c01 + matrix.m02 * c02);
+			return invertAffine(matrix,
+					c00 * invDet,
+					(matrix.m02 * matrix.m21 - matrix.m01 * matrix.m22) * invDet,
+					(matrix.m01 * matrix.m12 - matrix.m02 * matrix.m11) * invDet,
+					c01 * invDet,
+					(matrix.m00 * matrix.m22 - matrix.m02 * matrix.m20) * invDet,
+					(matrix.m02 * matrix.m10 - matrix.m00 * matrix.m12) * invDet,
+					c02 * invDet,
+					(matrix.m01 * matrix.m20 - matrix.m00 * matrix.m21) * invDet,
+					(matrix.m00 * matrix.m11 - matrix.m01 * matrix.m10) * invDet);
+		}
 
 		final float a[][] = new float[][]{{matrix.m00, matrix.m10, matrix.m20, matrix.m30},
 				{matrix.m01, matrix.m11, matrix.m21, matrix.m31},
@@ -194,7 +249,31 @@ public final class Matrices {
 				inverted[0][3], inverted[1][3], inverted[2][3], inverted[3][3]);
 	}
 
+	/**
+	 * Inverts a matrix.  Identity, uniform scale and rigid matrices, as
+	 * classified by {@link Mat3#getFlags()}, are inverted directly; other
+	 * matrices by Gaussian elimination.  The identity returns the matrix
+	 * itself.  The inverse is computed once per matrix; see
+	 * {@link Mat3#getInverse()}.
+	 *
+	 * @param matrix matrix to invert
+	 * @return the inverse
+	 */
 	public static Mat3 invert(final Mat3 matrix){
+		return matrix.getInverse();
+	}
+
+	static Mat3 computeInverse(final Mat3 matrix){
+		final int flags = matrix.getFlags();
+		if ((flags & MatrixFlags.IDENTITY) != 0) {
+			return matrix;
+		}
+		if ((flags & MatrixFlags.UNIFORM_SCALE) != 0) {
+			return new Mat3(1f / matrix.m00);
+		}
+		if ((flags & MatrixFlags.RIGID) != 0) {
+			return matrix.transpose();
+		}
 
 		final float a[][] = new float[][]{{matrix.m00, matrix.m10, matrix.m20},
 				{matrix.m01, matrix.m11, matrix.m21},
@@ -207,6 +286,27 @@ public final class Matrices {
 				inverted[0][2], inverted[1][2], inverted[2][2]);
 	}
 
+	/**
+	 * Completes the inverse of an affine matrix given the inverse of its upper
+	 * 3x3, by columns: the translation is that inverse applied to the negated
+	 * translation.
+	 */
+	private static Mat4 invertAffine(final Mat4 matrix,
+	                                 final float i00, final float i01, final float i02,
+	                                 final float i10, final float i11, final float i12,
+	                                 final float i20, final float i21, final float i22){
+		final float tx = matrix.m30;
+		final float ty = matrix.m31;
+		final float tz = matrix.m32;
+		return new Mat4(i00, i01, i02, 0f,
+				i10, i11, i12, 0f,
+				i20, i21, i22, 0f,
+				-(i00 * tx + i10 * ty + i20 * tz),
+				-(i01 * tx + i11 * ty + i21 * tz),
+				-(i02 * tx + i12 * ty + i22 * tz),
+				1f);
+	}
+
 	private static float[][] invert(final float[][] a,
 	                                final int n){
 		float x[][] = new float[n][n];
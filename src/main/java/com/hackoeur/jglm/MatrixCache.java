@@ -0,0 +1,279 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded cache of the matrices built by {@link Matrices#perspective(float, float, float, float)},
+ * {@link Matrices#ortho(float, float, float, float, float, float)} and
+ * {@link Matrices#lookAt(Vec3, Vec3, Vec3)}, for callers that build the same
+ * few matrices over and over.  Matrices are immutable, so every caller with
+ * the same arguments shares one instance.
+ * 
+ * <p>Arguments are compared by their bit patterns, so {@code 0f} and
+ * {@code -0f} are different keys.  Entries are kept in sets of
+ * {@value #WAYS}; a miss replaces the least recently used entry of its set.
+ * Lookups take no locks and do not allocate.  Races between threads may
+ * drop an entry or cache one twice, but never return a wrong matrix.
+ */
+public final class MatrixCache {
+	/** Entries per set. */
+	static final int WAYS = 4;
+	
+	private static final int PERSPECTIVE = 1;
+	private static final int ORTHO = 2;
+	private static final int LOOK_AT = 3;
+	
+	private static final class Entry {
+		final int kind;
+		final int k0, k1, k2, k3, k4, k5, k6, k7, k8;
+		final Mat4 matrix;
+		
+		/** Lookup number of the last hit; written without synchronization, as eviction is approximate. */
+		long lastUsed;
+		
+		Entry(final int kind,
+				final int k0, final int k1, final int k2, final int k3, final int k4,
+				final int k5, final int k6, final int k7, final int k8,
+				final Mat4 matrix, final long lastUsed) {
+			this.kind = kind;
+			this.k0 = k0;
+			this.k1 = k1;
+			this.k2 = k2;
+			this.k3 = k3;
+			this.k4 = k4;
+			this.k5 = k5;
+			this.k6 = k6;
+			this.k7 = k7;
+			this.k8 = k8;
+			this.matrix = matrix;
+			this.lastUsed = lastUsed;
+		}
+		
+		boolean matches(final int kind,
+				final int k0, final int k1, final int k2, final int k3, final int k4,
+				final int k5, final int k6, final int k7, final int k8) {
+			return this.kind == kind
+					& this.k0 == k0 & this.k1 == k1 & this.k2 == k2
+					& this.k3 == k3 & this.k4 == k4 & this.k5 == k5
+					& this.k6 == k6 & this.k7 == k7 & this.k8 == k8;
+		}
+	}
+	
+	private final AtomicReferenceArray<Entry> entries;
+	private final int setMask;
+	
+	/** Counts lookups and serves as the clock for eviction. */
+	private final AtomicLong lookups = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	
+	/**
+	 * @param capacity most matrices to keep; rounded up to a power of two
+	 * of at least {@value #WAYS}
+	 */
+	public MatrixCache(final int capacity) {
+		if (capacity < 1 || capacity > 1 << 30) {
+			throw new IllegalArgumentException("Capacity must be between 1 and 2^30, got " + capacity);
+		}
+		
+		int size = WAYS;
+		while (size < capacity) {
+			size <<= 1;
+		}
+		
+		this.entries = new AtomicReferenceArray<Entry>(size);
+		this.setMask = size / WAYS - 1;
+	}
+	
+	/**
+	 * @return the same as {@link Matrices#perspective(float, float, float, float)}
+	 */
+	public Mat4 perspective(final float fovy, final float aspect, final float zNear, final float zFar) {
+		final int k0 = Float.floatToIntBits(fovy);
+		final int k1 = Float.floatToIntBits(aspect);
+		final int k2 = Float.floatToIntBits(zNear);
+		final int k3 = Float.floatToIntBits(zFar);
+		
+		final long now = lookups.incrementAndGet();
+		final int set = set(PERSPECTIVE, k0, k1, k2, k3, 0, 0, 0, 0, 0);
+		final Mat4 cached = find(set, now, PERSPECTIVE, k0, k1, k2, k3, 0, 0, 0, 0, 0);
+		if (cached != null) {
+			return cached;
+		}
+		
+		final Mat4 matrix = Matrices.perspective(fovy, aspect, zNear, zFar);
+		store(set, new Entry(PERSPECTIVE, k0, k1, k2, k3, 0, 0, 0, 0, 0, matrix, now));
+		return matrix;
+	}
+	
+	/**
+	 * @return the same as {@link Matrices#ortho(float, float, float, float, float, float)}
+	 */
+	public Mat4 ortho(final float left, final float right, final float bottom, final float top, final float zNear, final float zFar) {
+		final int k0 = Float.floatToIntBits(left);
+		final int k1 = Float.floatToIntBits(right);
+		final int k2 = Float.floatToIntBits(bottom);
+		final int k3 = Float.floatToIntBits(top);
+		final int k4 = Float.floatToIntBits(zNear);
+		final int k5 = Float.floatToIntBits(zFar);
+		
+		final long now = lookups.incrementAndGet();
+		final int set = set(ORTHO, k0, k1, k2, k3, k4, k5, 0, 0, 0);
+		final Mat4 cached = find(set, now, ORTHO, k0, k1, k2, k3, k4, k5, 0, 0, 0);
+		if (cached != null) {
+			return cached;
+		}
+		
+		final Mat4 matrix = Matrices.ortho(left, right, bottom, top, zNear, zFar);
+		store(set, new Entry(ORTHO, k0, k1, k2, k3, k4, k5, 0, 0, 0, matrix, now));
+		return matrix;
+	}
+	
+	/**
+	 * @return the same as {@link Matrices#lookAt(Vec3, Vec3, Vec3)}
+	 */
+	public Mat4 lookAt(final Vec3 eye, final Vec3 center, final Vec3 up) {
+		final int k0 = Float.floatToIntBits(eye.x);
+		final int k1 = Float.floatToIntBits(eye.y);
+		final int k2 = Float.floatToIntBits(eye.z);
+		final int k3 = Float.floatToIntBits(center.x);
+		final int k4 = Float.floatToIntBits(center.y);
+		final int k5 = Float.floatToIntBits(center.z);
+		final int k6 = Float.floatToIntBits(up.x);
+		final int k7 = Float.floatToIntBits(up.y);
+		final int k8 = Float.floatToIntBits(up.z);
+		
+		final long now = lookups.incrementAndGet();
+		final int set = set(LOOK_AT, k0, k1, k2, k3, k4, k5, k6, k7, k8);
+		final Mat4 cached = find(set, now, LOOK_AT, k0, k1, k2, k3, k4, k5, k6, k7, k8);
+		if (cached != null) {
+			return cached;
+		}
+		
+		final Mat4 matrix = Matrices.lookAt(eye, center, up);
+		store(set, new Entry(LOOK_AT, k0, k1, k2, k3, k4, k5, k6, k7, k8, matrix, now));
+		return matrix;
+	}
+	
+	/**
+	 * @return most matrices kept
+	 */
+	public int getCapacity() {
+		return entries.length();
+	}
+	
+	/**
+	 * @return matrices currently kept
+	 */
+	public int getSize() {
+		int size = 0;
+		for (int i = 0; i < entries.length(); i++) {
+			size += entries.get(i) == null ? 0 : 1;
+		}
+		return size;
+	}
+	
+	public long getHits() {
+		// Misses first, as they are counted after lookups.
+		final long missCount = misses.get();
+		return lookups.get() - missCount;
+	}
+	
+	public long getMisses() {
+		return misses.get();
+	}
+	
+	/**
+	 * @return hits over lookups, or NaN before the first lookup
+	 */
+	public double getHitRate() {
+		final long missCount = misses.get();
+		final long lookupCount = lookups.get();
+		return lookupCount == 0L ? Double.NaN : (double) (lookupCount - missCount) / lookupCount;
+	}
+	
+	/**
+	 * Removes every matrix; the counts are kept.
+	 */
+	public void clear() {
+		for (int i = 0; i < entries.length(); i++) {
+			entries.set(i, null);
+		}
+	}
+	
+	/**
+	 * @return index of the first entry of the set for the key
+	 */
+	private int set(final int kind,
+			final int k0, final int k1, final int k2, final int k3, final int k4,
+			final int k5, final int k6, final int k7, final int k8) {
+		int h = kind;
+		h = 31 * h + k0;
+		h = 31 * h + k1;
+		h = 31 * h + k2;
+		h = 31 * h + k3;
+		h = 31 * h + k4;
+		h = 31 * h + k5;
+		h = 31 * h + k6;
+		h = 31 * h + k7;
+		h = 31 * h + k8;
+		
+		// Mix the high bits into the low ones, which pick the set.
+		h *= 0x9E3779B9;
+		h ^= h >>> 16;
+		
+		return (h & setMask) * WAYS;
+	}
+	
+	private Mat4 find(final int set, final long now, final int kind,
+			final int k0, final int k1, final int k2, final int k3, final int k4,
+			final int k5, final int k6, final int k7, final int k8) {
+		for (int i = set; i < set + WAYS; i++) {
+			final Entry entry = entries.get(i);
+			if (entry != null && entry.matches(kind, k0, k1, k2, k3, k4, k5, k6, k7, k8)) {
+				entry.lastUsed = now;
+				return entry.matrix;
+			}
+		}
+		
+		misses.incrementAndGet();
+		return null;
+	}
+	
+	/**
+	 * Replaces an empty entry of the set or, failing that, the least recently
+	 * used one.
+	 */
+	private void store(final int set, final Entry entry) {
+		int victim = set;
+		long oldest = Long.MAX_VALUE;
+		
+		for (int i = set; i < set + WAYS; i++) {
+			final Entry existing = entries.get(i);
+			if (existing == null) {
+				victim = i;
+				break;
+			}
+			if (existing.lastUsed < oldest) {
+				oldest = existing.lastUsed;
+				victim = i;
+			}
+		}
+		
+		entries.set(victim, entry);
+	}
+}
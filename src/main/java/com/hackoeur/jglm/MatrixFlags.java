@@ -0,0 +1,115 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm;
+
+import com.hackoeur.jglm.support.Compare;
+import com.hackoeur.jglm.support.FastMath;
+
+/**
+ * Classification bits returned by {@link Mat4#getFlags()} and
+ * {@link Mat3#getFlags()}.  Multiplication and inversion use them to skip work
+ * for simple matrices.
+ * <p>
+ * Elements are compared exactly with 0 and 1, so specialised paths give the
+ * same results as the general ones for finite elements.  The exception is
+ * {@link #RIGID}, whose columns need only be orthonormal within
+ * {@link Compare#MAT_EPSILON}.  Testing that takes dot products, so it is
+ * left until {@code getFlags()} or inversion needs it; multiplication uses
+ * only the exact comparisons.
+ * <p>
+ * For a {@link Mat3}, the "upper 3x3" below is the whole matrix and
+ * {@link #TRANSLATION} is never set.
+ */
+public final class MatrixFlags {
+	/** No flags: a general matrix. */
+	public static final int GENERAL = 0;
+
+	/** The identity matrix.  Implies every other flag the matrix type can have. */
+	public static final int IDENTITY = 1;
+
+	/**
+	 * The upper 3x3 is the identity and the last row is (0, 0, 0, 1).  Implies
+	 * {@link #UNIFORM_SCALE}, {@link #RIGID} and {@link #AFFINE}.
+	 */
+	public static final int TRANSLATION = 1 << 1;
+
+	/**
+	 * The upper 3x3 is a non-zero multiple of the identity.  Implies
+	 * {@link #AFFINE}.
+	 */
+	public static final int UNIFORM_SCALE = 1 << 2;
+
+	/**
+	 * The upper 3x3 is orthonormal: a rotation, possibly with a reflection.
+	 * Implies {@link #AFFINE}.
+	 */
+	public static final int RIGID = 1 << 3;
+
+	/** The last row is (0, 0, 0, 1).  Always set for a {@link Mat3}. */
+	public static final int AFFINE = 1 << 4;
+
+	/** Marks flags as computed; never returned by {@code getFlags()}. */
+	static final int CLASSIFIED = 1 << 31;
+
+	/** Marks {@link #RIGID} as computed; never returned by {@code getFlags()}. */
+	static final int RIGID_CLASSIFIED = 1 << 30;
+
+	private MatrixFlags() {
+	}
+
+	/**
+	 * Classifies a 3x3 matrix given by columns, by exact comparisons only.
+	 *
+	 * @return {@link #AFFINE} with any of {@link #IDENTITY} and
+	 * {@link #UNIFORM_SCALE}; for a diagonal matrix also {@link #RIGID} when
+	 * it applies, and {@link #RIGID_CLASSIFIED}
+	 */
+	static int classifyShape3(
+			final float m00, final float m01, final float m02,
+			final float m10, final float m11, final float m12,
+			final float m20, final float m21, final float m22) {
+		final boolean diagonal = m01 == 0f & m02 == 0f
+				& m10 == 0f & m12 == 0f
+				& m20 == 0f & m21 == 0f;
+
+		if (diagonal && m00 == m11 && m11 == m22 && m00 != 0f) {
+			if (m00 == 1f) {
+				return IDENTITY | UNIFORM_SCALE | RIGID | AFFINE | RIGID_CLASSIFIED;
+			}
+			if (m00 == -1f) {
+				return UNIFORM_SCALE | RIGID | AFFINE | RIGID_CLASSIFIED;
+			}
+			return UNIFORM_SCALE | AFFINE | RIGID_CLASSIFIED;
+		}
+		return AFFINE;
+	}
+
+	/**
+	 * @return whether the columns of a 3x3 matrix are orthonormal within
+	 * {@link Compare#MAT_EPSILON}
+	 */
+	static boolean isOrthonormal3(
+			final float m00, final float m01, final float m02,
+			final float m10, final float m11, final float m12,
+			final float m20, final float m21, final float m22) {
+		final float epsilon = Compare.MAT_EPSILON;
+		return FastMath.abs(m00 * m00 + m01 * m01 + m02 * m02 - 1f) <= epsilon
+				& FastMath.abs(m10 * m10 + m11 * m11 + m12 * m12 - 1f) <= epsilon
+				& FastMath.abs(m20 * m20 + m21 * m21 + m22 * m22 - 1f) <= epsilon
+				& FastMath.abs(m00 * m10 + m01 * m11 + m02 * m12) <= epsilon
+				& FastMath.abs(m00 * m20 + m01 * m21 + m02 * m22) <= epsilon
+				& FastMath.abs(m10 * m20 + m11 * m21 + m12 * m22) <= epsilon;
+	}
+}
@@ -0,0 +1,308 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm;
+
+import com.hackoeur.jglm.compute.ComputeBackendFactory;
+import com.hackoeur.jglm.support.Compare;
+import com.hackoeur.jglm.support.FastMath;
+import com.hackoeur.jglm.support.Telemetry;
+
+/**
+ * A plane, stored as the coefficients of <code>a*x + b*y + c*z + d = 0</code>.
+ * The vector {@code <a, b, c>} is the plane's normal; points on the side it
+ * points towards have a positive signed distance.
+ *
+ * <p>Distances are only true Euclidean distances when the normal has unit
+ * length.  Planes built with {@link #fromPoints(Vec3, Vec3, Vec3)} and
+ * {@link #fromPointNormal(Vec3, Vec3)} are always normalized; see
+ * {@link #getNormalized()} for the others.
+ *
+ * <p>The bulk methods work on points stored as separate {@code x}, {@code y}
+ * and {@code z} arrays and write one result per point into a caller-owned
+ * output array.
+ */
+public final class Plane {
+	/** Result of {@link #classify(Vec3, float)}: the point is behind the plane. */
+	public static final int BEHIND = -1;
+	/** Result of {@link #classify(Vec3, float)}: the point is on the plane. */
+	public static final int ON_PLANE = 0;
+	/** Result of {@link #classify(Vec3, float)}: the point is in front of the plane. */
+	public static final int IN_FRONT = 1;
+
+	final float a, b, c, d;
+
+	public Plane(final float a, final float b, final float c, final float d) {
+		this.a = a;
+		this.b = b;
+		this.c = c;
+		this.d = d;
+	}
+
+	/**
+	 * @param normal plane normal; not normalized by this constructor
+	 * @param d plane constant, i.e. the negated distance from the origin along
+	 * a unit normal
+	 */
+	public Plane(final Vec3 normal, final float d) {
+		this(normal.x, normal.y, normal.z, d);
+	}
+
+	/**
+	 * Creates the plane through three points.  The normal follows the
+	 * right-hand rule, so it faces the viewer when the points appear
+	 * counter-clockwise.
+	 *
+	 * @throws IllegalArgumentException if the points are collinear or coincident
+	 */
+	public static Plane fromPoints(final Vec3 p0, final Vec3 p1, final Vec3 p2) {
+		final Vec3 normal = p1.subtract(p0).cross(p2.subtract(p0));
+		if (!(normal.getLengthSquared() > 0f)) {
+			throw new IllegalArgumentException("Points are collinear: " + p0 + ", " + p1 + ", " + p2);
+		}
+		return fromPointNormal(p0, normal);
+	}
+
+	/**
+	 * Creates the plane through {@code point} with the given normal.  The
+	 * normal need not be unit length.
+	 *
+	 * @throws IllegalArgumentException if the normal is zero, or so short that
+	 * its squared length is
+	 */
+	public static Plane fromPointNormal(final Vec3 point, final Vec3 normal) {
+		final float lengthSquared = normal.getLengthSquared();
+		if (!(lengthSquared > 0f)) {
+			throw new IllegalArgumentException("Normal has zero length: " + normal);
+		}
+
+		final float invLength = (float) (1.0 / FastMath.sqrt(lengthSquared));
+		final float a = normal.x * invLength;
+		final float b = normal.y * invLength;
+		final float c = normal.z * invLength;
+
+		return new Plane(a, b, c, -(a * point.x + b * point.y + c * point.z));
+	}
+
+	/**
+	 * @return this plane scaled so that its normal has unit length
+	 */
+	public Plane getNormalized() {
+		final float invLength = (float) (1.0 / FastMath.sqrt(a * a + b * b + c * c));
+		return new Plane(a * invLength, b * invLength, c * invLength, d * invLength);
+	}
+
+	/**
+	 * @return the same plane with the normal pointing the other way
+	 */
+	public Plane getFlipped() {
+		return new Plane(-a, -b, -c, -d);
+	}
+
+	public Vec3 getNormal() {
+		return new Vec3(a, b, c);
+	}
+
+	public float getA() {
+		return a;
+	}
+
+	public float getB() {
+		return b;
+	}
+
+	public float getC() {
+		return c;
+	}
+
+	public float getD() {
+		return d;
+	}
+
+	public float signedDistance(final Vec3 point) {
+		return a * point.x + b * point.y + c * point.z + d;
+	}
+
+	public float signedDistance(final float x, final float y, final float z) {
+		return a * x + b * y + c * z + d;
+	}
+
+	/**
+	 * @param epsilon points closer to the plane than this are considered on it
+	 * @return {@link #IN_FRONT}, {@link #BEHIND} or {@link #ON_PLANE}
+	 */
+	public int classify(final Vec3 point, final float epsilon) {
+		final float dist = signedDistance(point);
+		if (dist > epsilon) {
+			return IN_FRONT;
+		} else if (dist < -epsilon) {
+			return BEHIND;
+		} else {
+			return ON_PLANE;
+		}
+	}
+
+	/**
+	 * @return the point on the plane closest to the given point, assuming the
+	 * plane is normalized
+	 */
+	public Vec3 project(final Vec3 point) {
+		final float dist = signedDistance(point);
+		return new Vec3(point.x - a * dist, point.y - b * dist, point.z - c * dist);
+	}
+
+	/* ::-------------------------------------------------------------------------::
+	 * Bulk kernels
+	 */
+
+	/**
+	 * Computes the signed distance of each point to this plane.
+	 *
+	 * <p>This and the other bulk methods run on the
+	 * {@link ComputeBackendFactory#getInstance() selected backend}.
+	 *
+	 * @param count number of points; every array must hold at least this many elements
+	 */
+	public void signedDistances(final float[] xs, final float[] ys, final float[] zs, final float[] out, final int count) {
+		final Telemetry.Span span = Telemetry.begin(Telemetry.Kind.BULK_TRANSFORM, "Plane.signedDistances");
+		ComputeBackendFactory.getInstance().signedDistances(toArray(), xs, ys, zs, out, count);
+		span.end(count);
+	}
+
+	/**
+	 * Classifies each point against this plane.  The results are the same as
+	 * {@link #classify(Vec3, float)}.
+	 *
+	 * @param count number of points; every array must hold at least this many elements
+	 * @return the number of points that are not {@link #BEHIND} the plane
+	 */
+	public int classify(final float[] xs, final float[] ys, final float[] zs, final int[] out, final int count, final float epsilon) {
+		final Telemetry.Span span = Telemetry.begin(Telemetry.Kind.BULK_TRANSFORM, "Plane.classify");
+		final int notBehind = ComputeBackendFactory.getInstance().classify(toArray(), xs, ys, zs, out, count, epsilon);
+		span.end(count);
+		return notBehind;
+	}
+
+	/**
+	 * Classifies each point against a set of planes, typically the faces of a
+	 * convex volume such as a {@link Frustum}.  Bit {@code p} of each output
+	 * mask is set when the point is behind {@code planes[p]}, so a mask of zero
+	 * means the point is inside the volume.
+	 *
+	 * @param planes at most 32 planes
+	 * @param count number of points; every array must hold at least this many elements
+	 * @return the number of points that are in front of or on every plane
+	 */
+	public static int classify(final Plane[] planes, final float[] xs, final float[] ys, final float[] zs, final int[] outMasks, final int count) {
+		if (planes.length > 32) {
+			throw new IllegalArgumentException("At most 32 planes are supported, got " + planes.length);
+		}
+
+		final Telemetry.Span span = Telemetry.begin(Telemetry.Kind.CULLING, "Plane.classify(Plane[])");
+		final int inside = ComputeBackendFactory.getInstance().classify(toArray(planes), xs, ys, zs, outMasks, count);
+		span.end(count);
+		return inside;
+	}
+
+	/**
+	 * Computes, for each point, the smallest signed distance to any of the
+	 * given planes.  For the inward-facing planes of a convex volume this is
+	 * positive inside the volume, negative outside it, and its magnitude is the
+	 * distance to the nearest face for points inside.
+	 *
+	 * @param count number of points; every array must hold at least this many elements
+	 */
+	public static void minSignedDistances(final Plane[] planes, final float[] xs, final float[] ys, final float[] zs, final float[] out, final int count) {
+		if (planes.length == 0) {
+			throw new IllegalArgumentException("At least one plane is required");
+		}
+
+		final Telemetry.Span span = Telemetry.begin(Telemetry.Kind.BULK_TRANSFORM, "Plane.minSignedDistances");
+		ComputeBackendFactory.getInstance().signedDistances(toArray(planes), xs, ys, zs, out, count);
+		span.end(count);
+	}
+
+	/**
+	 * @return the coefficients as one 4-tuple, the layout the backends use
+	 */
+	private float[] toArray() {
+		return new float[] { a, b, c, d };
+	}
+
+	private static float[] toArray(final Plane[] planes) {
+		final float[] result = new float[planes.length * 4];
+		for (int p = 0; p < planes.length; p++) {
+			result[p * 4] = planes[p].a;
+			result[p * 4 + 1] = planes[p].b;
+			result[p * 4 + 2] = planes[p].c;
+			result[p * 4 + 3] = planes[p].d;
+		}
+		return result;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + Float.floatToIntBits(a);
+		result = prime * result + Float.floatToIntBits(b);
+		result = prime * result + Float.floatToIntBits(c);
+		result = prime * result + Float.floatToIntBits(d);
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (!(obj instanceof Plane)) {
+			return false;
+		}
+
+		final Plane other = (Plane) obj;
+		return Float.floatToIntBits(a) == Float.floatToIntBits(other.a)
+				&& Float.floatToIntBits(b) == Float.floatToIntBits(other.b)
+				&& Float.floatToIntBits(c) == Float.floatToIntBits(other.c)
+				&& Float.floatToIntBits(d) == Float.floatToIntBits(other.d);
+	}
+
+	public boolean equalsWithEpsilon(final Plane other, final float epsilon) {
+		if (this == other) {
+			return true;
+		}
+
+		if (other == null) {
+			return false;
+		}
+
+		return Compare.equals(a, other.a, epsilon)
+				&& Compare.equals(b, other.b, epsilon)
+				&& Compare.equals(c, other.c, epsilon)
+				&& Compare.equals(d, other.d, epsilon);
+	}
+
+	@Override
+	public String toString() {
+		return new StringBuilder()
+			.append(getClass().getSimpleName())
+			.append("{")
+			.append(String.format("%8.5f %8.5f %8.5f %8.5f", a, b, c, d))
+			.append("}")
+			.toString();
+	}
+}
@@ -0,0 +1,162 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm;
+
+import com.hackoeur.jglm.support.Compare;
+import com.hackoeur.jglm.support.FastMath;
+import com.hackoeur.jglm.support.Telemetry;
+
+/**
+ * A sphere described by its center and radius.
+ */
+public final class Sphere {
+	final float x, y, z;
+	final float radius;
+
+	public Sphere(final Vec3 center, final float radius) {
+		this(center.x, center.y, center.z, radius);
+	}
+
+	public Sphere(final float x, final float y, final float z, final float radius) {
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		this.radius = radius;
+	}
+
+	public Vec3 getCenter() {
+		return new Vec3(x, y, z);
+	}
+
+	public float getRadius() {
+		return radius;
+	}
+
+	/**
+	 * @return distance from the surface of the sphere; negative inside it
+	 */
+	public float signedDistance(final Vec3 point) {
+		final float dx = point.x - x;
+		final float dy = point.y - y;
+		final float dz = point.z - z;
+		return (float) FastMath.sqrt(dx * dx + dy * dy + dz * dz) - radius;
+	}
+
+	public boolean contains(final Vec3 point) {
+		final float dx = point.x - x;
+		final float dy = point.y - y;
+		final float dz = point.z - z;
+		return dx * dx + dy * dy + dz * dz <= radius * radius;
+	}
+
+	public boolean intersects(final Sphere sphere) {
+		final float dx = sphere.x - x;
+		final float dy = sphere.y - y;
+		final float dz = sphere.z - z;
+		final float r = radius + sphere.radius;
+		return dx * dx + dy * dy + dz * dz <= r * r;
+	}
+
+	public boolean intersects(final AABB box) {
+		// Distance from the center to the closest point of the box.
+		final float dx = x < box.minX ? box.minX - x : (x > box.maxX ? x - box.maxX : 0f);
+		final float dy = y < box.minY ? box.minY - y : (y > box.maxY ? y - box.maxY : 0f);
+		final float dz = z < box.minZ ? box.minZ - z : (z > box.maxZ ? z - box.maxZ : 0f);
+		return dx * dx + dy * dy + dz * dz <= radius * radius;
+	}
+
+	/**
+	 * @return the smallest box enclosing the sphere
+	 */
+	public AABB getBounds() {
+		return new AABB(x - radius, y - radius, z - radius, x + radius, y + radius, z + radius);
+	}
+
+	/**
+	 * Computes the signed distance of each point to the surface of this sphere,
+	 * exactly as {@link #signedDistance(Vec3)} does.
+	 *
+	 * @param count number of points; every array must hold at least this many elements
+	 */
+	public void signedDistances(final float[] xs, final float[] ys, final float[] zs, final float[] out, final int count) {
+		final Telemetry.Span span = Telemetry.begin(Telemetry.Kind.BULK_TRANSFORM, "Sphere.signedDistances");
+		final float cx = x, cy = y, cz = z, r = radius;
+
+		for (int i = 0; i < count; i++) {
+			final float dx = xs[i] - cx;
+			final float dy = ys[i] - cy;
+			final float dz = zs[i] - cz;
+			out[i] = (float) FastMath.sqrt(dx * dx + dy * dy + dz * dz) - r;
+		}
+		span.end(count);
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + Float.floatToIntBits(x);
+		result = prime * result + Float.floatToIntBits(y);
+		result = prime * result + Float.floatToIntBits(z);
+		result = prime * result + Float.floatToIntBits(radius);
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (!(obj instanceof Sphere)) {
+			return false;
+		}
+
+		final Sphere other = (Sphere) obj;
+		return Float.floatToIntBits(x) == Float.floatToIntBits(other.x)
+				&& Float.floatToIntBits(y) == Float.floatToIntBits(other.y)
+				&& Float.floatToIntBits(z) == Float.floatToIntBits(other.z)
+				&& Float.floatToIntBits(radius) == Float.floatToIntBits(other.radius);
+	}
+
+	public boolean equalsWithEpsilon(final Sphere other, final float epsilon) {
+		if (this == other) {
+			return true;
+		}
+
+		if (other == null) {
+			return false;
+		}
+
+		return Compare.equals(x, other.x, epsilon)
+				&& Compare.equals(y, other.y, epsilon)
+				&& Compare.equals(z, other.z, epsilon)
+				&& Compare.equals(radius, other.radius, epsilon);
+	}
+
+	@Override
+	public String toString() {
+		return new StringBuilder()
+			.append(getClass().getSimpleName())
+			.append("{")
+			.append(String.format("%8.5f %8.5f %8.5f", x, y, z))
+			.append(" r=")
+			.append(String.format("%8.5f", radius))
+			.append("}")
+			.toString();
+	}
+}
@@ -16,6 +16,8 @@ package com.hackoeur.jglm;
 
 import java.nio.FloatBuffer;
 
+import com.hackoeur.jglm.support.PrecisionPolicy;
+
 /**
  * A single precision floating point vector.
  * 
@@ -24,6 +26,9 @@ import java.nio.FloatBuffer;
 public interface Vec {
 	int getDimensions();
 	
+	/**
+	 * @return the length, computed with {@link PrecisionPolicy#getDefault()}
+	 */
 	float getLength();
 
 	float getLengthSquared();
@@ -16,8 +16,12 @@ package com.hackoeur.jglm;
 
 import java.nio.FloatBuffer;
 
+import com.hackoeur.jglm.compute.ComputeBackendFactory;
 import com.hackoeur.jglm.support.Compare;
+import com.hackoeur.jglm.support.Fma;
 import com.hackoeur.jglm.support.FastMath;
+import com.hackoeur.jglm.support.PrecisionPolicy;
+import com.hackoeur.jglm.support.Telemetry;
 
 /**
  * @author James Royalty
@@ -55,13 +59,36 @@ public final class Vec3 extends AbstractVec {
 		return x * x + y * y + z * z;
 	}
 	
+	/**
+	 * @return this vector scaled to unit length, computed with
+	 * {@link PrecisionPolicy#getDefault()}
+	 */
 	public Vec3 getUnitVector() {
-		final float sqLength = getLengthSquared();
-		final float invLength = FastMath.invSqrtFast(sqLength);
+		return getUnitVector( PrecisionPolicy.getDefault() );
+	}
+	
+	public Vec3 getUnitVector(final PrecisionPolicy precision) {
+		// A zero vector stays zero whatever the policy.
+		final float lengthSquared = getLengthSquared();
+		final float invLength = lengthSquared > 0f ? precision.invSqrt( lengthSquared ) : 0f;
 		
 		return new Vec3(x * invLength, y * invLength, z * invLength);
 	}
 	
+	/**
+	 * Scales many vectors to unit length at once, on the
+	 * {@link ComputeBackendFactory#getInstance() selected backend}.  Zero
+	 * vectors stay zero.  The output arrays may be the input arrays.
+	 * 
+	 * @param count number of vectors; every array must hold at least this many elements
+	 */
+	public static void normalize(final float[] xs, final float[] ys, final float[] zs,
+			final float[] outXs, final float[] outYs, final float[] outZs, final int count) {
+		final Telemetry.Span span = Telemetry.begin(Telemetry.Kind.BULK_TRANSFORM, "Vec3.normalize");
+		ComputeBackendFactory.getInstance().normalize(xs, ys, zs, outXs, outYs, outZs, count);
+		span.end(count);
+	}
+	
 	public Vec3 getNegated() {
 		return new Vec3(-x, -y, -z);
 	}
@@ -103,7 +130,7 @@ public final class Vec3 extends AbstractVec {
 	}
 	
 	public float dot(final Vec3 vec) {
-		return this.x * vec.x + this.y * vec.y + this.z * vec.z;
+		return Fma.dot3(this.x, this.y, this.z, vec.x, vec.y, vec.z);
 	}
 	
 	public Vec3 cross(final Vec3 vec) {
@@ -120,8 +147,8 @@ public final class Vec3 extends AbstractVec {
 	 */
 	public float angleInRadians(final Vec3 vec) {
 		final float dot = dot(vec);
-		final float lenSq = FastMath.sqrtFast( getLengthSquared() * vec.getLengthSquared() );
-		return (float) FastMath.acos( dot / lenSq );
+		final float lenSq = PrecisionPolicy.getDefault().sqrt( getLengthSquared() * vec.getLengthSquared() );
+		return FastMath.acosf( dot / lenSq );
 	}
 	
 	public Vec3 lerp(final Vec3 vec, final float amount) {
@@ -17,7 +17,8 @@ package com.hackoeur.jglm;
 import java.nio.FloatBuffer;
 
 import com.hackoeur.jglm.support.Compare;
-import com.hackoeur.jglm.support.FastMath;
+import com.hackoeur.jglm.support.Fma;
+import com.hackoeur.jglm.support.PrecisionPolicy;
 
 /**
  * @author James Royalty
@@ -65,12 +66,20 @@ public final class Vec4 extends AbstractVec {
 		return x * x + y * y + z * z + w * w;
 	}
 	
+	/**
+	 * @return this vector scaled to unit length, computed with
+	 * {@link PrecisionPolicy#getDefault()}
+	 */
 	public Vec4 getUnitVector() {
-		final float sqLength = getLengthSquared();
-		final float invLength = FastMath.invSqrtFast(sqLength);
+		return getUnitVector( PrecisionPolicy.getDefault() );
+	}
+	
+	public Vec4 getUnitVector(final PrecisionPolicy precision) {
+		// A zero vector stays zero whatever the policy.
+		final float lengthSquared = getLengthSquared();
+		final float invLength = lengthSquared > 0f ? precision.invSqrt( lengthSquared ) : 0f;
 		
-		Vec4 normalVec = new Vec4(x * invLength, y * invLength, z * invLength, w * invLength);
-		return normalVec;
+		return new Vec4(x * invLength, y * invLength, z * invLength, w * invLength);
 	}
 	
 	public Vec4 getNegated() {
@@ -107,7 +116,7 @@ public final class Vec4 extends AbstractVec {
 	}
 	
 	public float dot(final Vec4 vec) {
-		return this.x * vec.x + this.y * vec.y + this.z * vec.z + this.w * vec.w;
+		return Fma.dot4(this.x, this.y, this.z, this.w, vec.x, vec.y, vec.z, vec.w);
 	}
 	
 	public float getX() {
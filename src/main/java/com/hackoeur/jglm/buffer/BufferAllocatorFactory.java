@@ -14,15 +14,27 @@
  */
 package com.hackoeur.jglm.buffer;
 
+import java.lang.management.ManagementFactory;
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 
+import javax.management.JMException;
+
 import com.hackoeur.jglm.support.JglmConfig;
+import com.hackoeur.jglm.support.Telemetry;
 
 /**
  * Gets an instance of a {@link BufferAllocator}.  There is a pre-configured
  * default, but users can provide their own by setting the
  * <code>jglm.BufferAllocatorClass</code> configuration property.
+ * When {@link Telemetry} counters, histograms or Flight Recorder events are
+ * turned on, the allocator is wrapped to record each allocation; by default
+ * it is not.
+ * 
+ * <p>Setting <code>jglm.BufferAllocatorMetrics</code> to {@code true} wraps
+ * the allocator in an {@link InstrumentedBufferAllocator}, registered as the
+ * MBean {@value InstrumentedBufferAllocator#OBJECT_NAME} and returned by
+ * {@link #getMetrics()}.
  * 
  * @author James Royalty
  */
@@ -43,14 +55,61 @@ public class BufferAllocatorFactory {
 		}
 	};
 	
+	/**
+	 * Records allocations of another allocator with {@link Telemetry}.
+	 */
+	private static class TelemetryBufferAllocator implements BufferAllocator {
+		private final BufferAllocator delegate;
+		
+		TelemetryBufferAllocator(final BufferAllocator delegate) {
+			this.delegate = delegate;
+		}
+		
+		@Override
+		public ByteBuffer allocateByteBuffer(int sizeInBytes) {
+			final Telemetry.Span span = Telemetry.begin(Telemetry.Kind.BUFFER_ALLOCATION, "allocateByteBuffer");
+			final ByteBuffer buffer = delegate.allocateByteBuffer(sizeInBytes);
+			span.end(sizeInBytes);
+			return buffer;
+		}
+		
+		@Override
+		public FloatBuffer allocateFloatBuffer(int sizeInFloats) {
+			final Telemetry.Span span = Telemetry.begin(Telemetry.Kind.BUFFER_ALLOCATION, "allocateFloatBuffer");
+			final FloatBuffer buffer = delegate.allocateFloatBuffer(sizeInFloats);
+			span.end(4 * sizeInFloats);
+			return buffer;
+		}
+	}
+	
 	private static final BufferAllocator DEFAULT_INSTANCE;
+	private static final InstrumentedBufferAllocator METRICS;
 	
 	static {
 		BufferAllocator inst = JglmConfig.getInstancePropertyOrNull("BufferAllocatorClass", BufferAllocator.class);
 			
 		// If we didn't find any providers then use our default instance.
 		if (inst == null) {
-			DEFAULT_INSTANCE = new DefaultBufferAllocator();
+			inst = new DefaultBufferAllocator();
+		}
+		
+		if (JglmConfig.getBooleanProperty("BufferAllocatorMetrics", false)) {
+			METRICS = new InstrumentedBufferAllocator(inst);
+			inst = METRICS;
+			
+			try {
+				METRICS.register(ManagementFactory.getPlatformMBeanServer(), InstrumentedBufferAllocator.OBJECT_NAME);
+			} catch (JMException e) {
+				// Another copy of JGLM got there first; polling still works.
+			} catch (SecurityException e) {
+				// Not allowed to register; polling still works.
+			}
+		} else {
+			METRICS = null;
+		}
+		
+		if (Telemetry.isEnabled()) {
+			DEFAULT_INSTANCE = new TelemetryBufferAllocator(inst);
 		} else {
 			DEFAULT_INSTANCE = inst;
 		}
@@ -62,4 +121,12 @@ public class BufferAllocatorFactory {
 	public static final BufferAllocator getInstance() {
 		return DEFAULT_INSTANCE;
 	}
+	
+	/**
+	 * @return counters of the allocator returned by {@link #getInstance()}, or
+	 * {@code null} unless <code>jglm.BufferAllocatorMetrics</code> is set
+	 */
+	public static final InstrumentedBufferAllocator getMetrics() {
+		return METRICS;
+	}
 }
@@ -0,0 +1,91 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.buffer;
+
+/**
+ * Management interface of {@link InstrumentedBufferAllocator}, registered as
+ * {@value InstrumentedBufferAllocator#OBJECT_NAME}.  Sizes are in bytes; a
+ * float buffer counts four bytes per float.
+ */
+public interface BufferAllocatorMXBean {
+	/**
+	 * @return class name of the allocator doing the allocating
+	 */
+	String getAllocatorClass();
+
+	/**
+	 * @return buffers allocated since startup
+	 */
+	long getBuffersAllocated();
+
+	/**
+	 * @return bytes allocated since startup
+	 */
+	long getBytesAllocated();
+
+	/**
+	 * @return direct buffers allocated since startup
+	 */
+	long getDirectBuffersAllocated();
+
+	/**
+	 * @return direct buffers not yet garbage collected
+	 */
+	long getLiveDirectBuffers();
+
+	/**
+	 * @return bytes of direct buffers not yet garbage collected
+	 */
+	long getLiveDirectBytes();
+
+	/**
+	 * @return most direct buffers live at once since startup or
+	 * {@link #resetPeaks()}
+	 */
+	long getPeakLiveDirectBuffers();
+
+	/**
+	 * @return most bytes of direct buffers live at once since startup or
+	 * {@link #resetPeaks()}
+	 */
+	long getPeakLiveDirectBytes();
+
+	/**
+	 * @return largest single allocation since startup or {@link #resetPeaks()}
+	 */
+	long getLargestAllocation();
+
+	/**
+	 * @return allocations served from a pool; zero unless the allocator is a
+	 * {@link PooledBufferAllocator}
+	 */
+	long getPoolHits();
+
+	/**
+	 * @return allocations that missed the pool; zero unless the allocator is a
+	 * {@link PooledBufferAllocator}
+	 */
+	long getPoolMisses();
+
+	/**
+	 * @return hits over all pool lookups, or NaN before the first lookup
+	 */
+	double getPoolHitRate();
+
+	/**
+	 * Sets the peaks to the current values.
+	 */
+	void resetPeaks();
+}
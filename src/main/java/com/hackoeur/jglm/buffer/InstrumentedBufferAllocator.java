@@ -0,0 +1,242 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.buffer;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counts what another allocator allocates.  Direct buffers are followed with
+ * weak references, so live counts drop once the collector has found a
+ * buffer unreachable, which may be well after it became so.  A direct buffer
+ * handed out again, as by a pool, counts as another allocation but stays one
+ * live buffer.
+ * <p>
+ * {@link BufferAllocatorFactory} wraps the configured allocator in one of
+ * these when {@code jglm.BufferAllocatorMetrics} is {@code true}, and
+ * registers it with the platform MBean server.  The getters may also be
+ * polled directly; see {@link BufferAllocatorFactory#getMetrics()}.
+ */
+public class InstrumentedBufferAllocator implements BufferAllocator, BufferAllocatorMXBean {
+	/** Name under which the factory registers its instance. */
+	public static final String OBJECT_NAME = "com.hackoeur.jglm:type=BufferAllocator";
+
+	/**
+	 * A direct buffer that is live until the queue says otherwise.  Equal to
+	 * another reference to the same buffer, by identity, until cleared.
+	 */
+	private static final class DirectBufferReference extends WeakReference<Buffer> {
+		final long bytes;
+		private final int hash;
+
+		DirectBufferReference(final Buffer buffer, final long bytes, final ReferenceQueue<Buffer> queue) {
+			super(buffer, queue);
+			this.bytes = bytes;
+			this.hash = System.identityHashCode(buffer);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof DirectBufferReference)) {
+				return false;
+			}
+
+			final Buffer buffer = get();
+			return buffer != null && buffer == ((DirectBufferReference) obj).get();
+		}
+	}
+
+	private final BufferAllocator delegate;
+
+	private final AtomicLong buffersAllocated = new AtomicLong();
+	private final AtomicLong bytesAllocated = new AtomicLong();
+	private final AtomicLong directBuffersAllocated = new AtomicLong();
+	private final AtomicLong liveDirectBuffers = new AtomicLong();
+	private final AtomicLong liveDirectBytes = new AtomicLong();
+	private final AtomicLong peakLiveDirectBuffers = new AtomicLong();
+	private final AtomicLong peakLiveDirectBytes = new AtomicLong();
+	private final AtomicLong largestAllocation = new AtomicLong();
+
+	private final ReferenceQueue<Buffer> collected = new ReferenceQueue<Buffer>();
+	private final ConcurrentMap<DirectBufferReference, Boolean> live =
+			new ConcurrentHashMap<DirectBufferReference, Boolean>();
+
+	public InstrumentedBufferAllocator(final BufferAllocator delegate) {
+		if (delegate == null) {
+			throw new NullPointerException("delegate");
+		}
+		this.delegate = delegate;
+	}
+
+	/**
+	 * @return the allocator being counted
+	 */
+	public BufferAllocator getDelegate() {
+		return delegate;
+	}
+
+	/**
+	 * Registers this allocator's counters with an MBean server.
+	 *
+	 * @throws JMException if the name is taken or the server refuses
+	 */
+	public void register(final MBeanServer server, final String name) throws JMException {
+		server.registerMBean(this, new ObjectName(name));
+	}
+
+	@Override
+	public ByteBuffer allocateByteBuffer(final int sizeInBytes) {
+		final ByteBuffer buffer = delegate.allocateByteBuffer(sizeInBytes);
+		allocated(buffer, sizeInBytes, buffer.isDirect());
+		return buffer;
+	}
+
+	@Override
+	public FloatBuffer allocateFloatBuffer(final int sizeInFloats) {
+		final FloatBuffer buffer = delegate.allocateFloatBuffer(sizeInFloats);
+		allocated(buffer, 4L * sizeInFloats, buffer.isDirect());
+		return buffer;
+	}
+
+	@Override
+	public String getAllocatorClass() {
+		return delegate.getClass().getName();
+	}
+
+	@Override
+	public long getBuffersAllocated() {
+		return buffersAllocated.get();
+	}
+
+	@Override
+	public long getBytesAllocated() {
+		return bytesAllocated.get();
+	}
+
+	@Override
+	public long getDirectBuffersAllocated() {
+		return directBuffersAllocated.get();
+	}
+
+	@Override
+	public long getLiveDirectBuffers() {
+		expungeCollected();
+		return liveDirectBuffers.get();
+	}
+
+	@Override
+	public long getLiveDirectBytes() {
+		expungeCollected();
+		return liveDirectBytes.get();
+	}
+
+	@Override
+	public long getPeakLiveDirectBuffers() {
+		return peakLiveDirectBuffers.get();
+	}
+
+	@Override
+	public long getPeakLiveDirectBytes() {
+		return peakLiveDirectBytes.get();
+	}
+
+	@Override
+	public long getLargestAllocation() {
+		return largestAllocation.get();
+	}
+
+	@Override
+	public long getPoolHits() {
+		return delegate instanceof PooledBufferAllocator ? ((PooledBufferAllocator) delegate).getPoolHits() : 0L;
+	}
+
+	@Override
+	public long getPoolMisses() {
+		return delegate instanceof PooledBufferAllocator ? ((PooledBufferAllocator) delegate).getPoolMisses() : 0L;
+	}
+
+	@Override
+	public double getPoolHitRate() {
+		final long hits = getPoolHits();
+		final long lookups = hits + getPoolMisses();
+		return lookups == 0L ? Double.NaN : (double) hits / lookups;
+	}
+
+	@Override
+	public void resetPeaks() {
+		expungeCollected();
+		peakLiveDirectBuffers.set(liveDirectBuffers.get());
+		peakLiveDirectBytes.set(liveDirectBytes.get());
+		largestAllocation.set(0L);
+	}
+
+	private void allocated(final Buffer buffer, final long bytes, final boolean direct) {
+		buffersAllocated.incrementAndGet();
+		bytesAllocated.addAndGet(bytes);
+		raise(largestAllocation, bytes);
+
+		expungeCollected();
+		if (direct) {
+			directBuffersAllocated.incrementAndGet();
+			final DirectBufferReference reference = new DirectBufferReference(buffer, bytes, collected);
+			if (live.putIfAbsent(reference, Boolean.TRUE) == null) {
+				raise(peakLiveDirectBuffers, liveDirectBuffers.incrementAndGet());
+				raise(peakLiveDirectBytes, liveDirectBytes.addAndGet(bytes));
+			} else {
+				// Already followed; a cleared reference is never queued.
+				reference.clear();
+			}
+		}
+	}
+
+	private void expungeCollected() {
+		Reference<? extends Buffer> reference;
+		while ((reference = collected.poll()) != null) {
+			final DirectBufferReference direct = (DirectBufferReference) reference;
+			if (live.remove(direct) != null) {
+				liveDirectBuffers.decrementAndGet();
+				liveDirectBytes.addAndGet(-direct.bytes);
+			}
+		}
+	}
+
+	private static void raise(final AtomicLong peak, final long value) {
+		long current;
+		while ((current = peak.get()) < value) {
+			if (peak.compareAndSet(current, value)) {
+				return;
+			}
+		}
+	}
+}
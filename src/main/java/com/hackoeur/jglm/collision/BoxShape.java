@@ -0,0 +1,74 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.collision;
+
+import com.hackoeur.jglm.Mat3;
+import com.hackoeur.jglm.Vec3;
+
+/**
+ * An oriented box for use with {@link Gjk} and {@link Epa}.
+ */
+public final class BoxShape implements ConvexShape {
+	private final float cx, cy, cz;
+	private final float hx, hy, hz;
+	/* Box axes in world space; the columns of the orientation matrix. */
+	private final float[] axes = new float[9];
+
+	/**
+	 * Creates an axis-aligned box.
+	 */
+	public BoxShape(final Vec3 center, final Vec3 halfExtents) {
+		this(center, halfExtents, Mat3.MAT3_IDENTITY);
+	}
+
+	/**
+	 * @param orientation rotation from box space to world space
+	 */
+	public BoxShape(final Vec3 center, final Vec3 halfExtents, final Mat3 orientation) {
+		this.cx = center.getX();
+		this.cy = center.getY();
+		this.cz = center.getZ();
+		this.hx = Math.abs(halfExtents.getX());
+		this.hy = Math.abs(halfExtents.getY());
+		this.hz = Math.abs(halfExtents.getZ());
+
+		for (int i = 0; i < 3; i++) {
+			final Vec3 axis = orientation.getColumn(i);
+			axes[i * 3] = axis.getX();
+			axes[i * 3 + 1] = axis.getY();
+			axes[i * 3 + 2] = axis.getZ();
+		}
+	}
+
+	@Override
+	public void support(final float dx, final float dy, final float dz, final float[] out) {
+		final float[] m = axes;
+		final float sx = m[0] * dx + m[1] * dy + m[2] * dz >= 0f ? hx : -hx;
+		final float sy = m[3] * dx + m[4] * dy + m[5] * dz >= 0f ? hy : -hy;
+		final float sz = m[6] * dx + m[7] * dy + m[8] * dz >= 0f ? hz : -hz;
+
+		out[0] = cx + m[0] * sx + m[3] * sy + m[6] * sz;
+		out[1] = cy + m[1] * sx + m[4] * sy + m[7] * sz;
+		out[2] = cz + m[2] * sx + m[5] * sy + m[8] * sz;
+	}
+
+	public Vec3 getCenter() {
+		return new Vec3(cx, cy, cz);
+	}
+
+	public Vec3 getHalfExtents() {
+		return new Vec3(hx, hy, hz);
+	}
+}
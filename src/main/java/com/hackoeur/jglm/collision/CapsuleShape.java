@@ -0,0 +1,69 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.collision;
+
+import com.hackoeur.jglm.Vec3;
+
+/**
+ * A capsule, i.e. the set of points within {@code radius} of the segment
+ * between two end points, for use with {@link Gjk} and {@link Epa}.
+ */
+public final class CapsuleShape implements ConvexShape {
+	private final float ax, ay, az;
+	private final float bx, by, bz;
+	private final float radius;
+
+	public CapsuleShape(final Vec3 a, final Vec3 b, final float radius) {
+		this.ax = a.getX();
+		this.ay = a.getY();
+		this.az = a.getZ();
+		this.bx = b.getX();
+		this.by = b.getY();
+		this.bz = b.getZ();
+		this.radius = radius;
+	}
+
+	@Override
+	public void support(final float dx, final float dy, final float dz, final float[] out) {
+		final boolean useB = bx * dx + by * dy + bz * dz > ax * dx + ay * dy + az * dz;
+		final float cx = useB ? bx : ax;
+		final float cy = useB ? by : ay;
+		final float cz = useB ? bz : az;
+
+		final float lengthSq = dx * dx + dy * dy + dz * dz;
+		if (lengthSq > 0f) {
+			final float scale = (float) (radius / Math.sqrt(lengthSq));
+			out[0] = cx + dx * scale;
+			out[1] = cy + dy * scale;
+			out[2] = cz + dz * scale;
+		} else {
+			out[0] = cx + radius;
+			out[1] = cy;
+			out[2] = cz;
+		}
+	}
+
+	public Vec3 getA() {
+		return new Vec3(ax, ay, az);
+	}
+
+	public Vec3 getB() {
+		return new Vec3(bx, by, bz);
+	}
+
+	public float getRadius() {
+		return radius;
+	}
+}
@@ -0,0 +1,105 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.collision;
+
+import com.hackoeur.jglm.Plane;
+import com.hackoeur.jglm.Vec3;
+
+/**
+ * A convex hull as an indexed triangle list, as built by {@link QuickHull}.
+ * Triangles are wound counter-clockwise when seen from outside the hull.
+ */
+public final class ConvexHull {
+	/* Successive (x, y, z) tuples. */
+	private final float[] vertices;
+	private final int[] originalIndices;
+	/* Three vertex indices per triangle. */
+	private final int[] indices;
+
+	ConvexHull(final float[] vertices, final int[] originalIndices, final int[] indices) {
+		this.vertices = vertices;
+		this.originalIndices = originalIndices;
+		this.indices = indices;
+	}
+
+	public int getVertexCount() {
+		return originalIndices.length;
+	}
+
+	public Vec3 getVertex(final int vertex) {
+		final int i = vertex * 3;
+		return new Vec3(vertices[i], vertices[i + 1], vertices[i + 2]);
+	}
+
+	/**
+	 * @return successive (x, y, z) tuples, one per hull vertex
+	 */
+	public float[] getVertices() {
+		return vertices.clone();
+	}
+
+	/**
+	 * @return for each hull vertex, the index of the input point it came from
+	 */
+	public int[] getOriginalIndices() {
+		return originalIndices.clone();
+	}
+
+	public int getTriangleCount() {
+		return indices.length / 3;
+	}
+
+	/**
+	 * @return three vertex indices per triangle
+	 */
+	public int[] getIndices() {
+		return indices.clone();
+	}
+
+	/**
+	 * @return the plane of the given triangle, with its normal pointing out of
+	 * the hull
+	 */
+	public Plane getPlane(final int triangle) {
+		final int i = triangle * 3;
+		return Plane.fromPoints(getVertex(indices[i]), getVertex(indices[i + 1]), getVertex(indices[i + 2]));
+	}
+
+	/**
+	 * @param epsilon points at most this far outside a face still count as inside
+	 * @return {@code true} if the point is inside or on the hull
+	 */
+	public boolean contains(final Vec3 point, final float epsilon) {
+		for (int t = 0; t < indices.length / 3; t++) {
+			if (getPlane(t).signedDistance(point) > epsilon) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return new StringBuilder()
+			.append(getClass().getSimpleName())
+			.append("{vertices=")
+			.append(getVertexCount())
+			.append(", triangles=")
+			.append(getTriangleCount())
+			.append("}")
+			.toString();
+	}
+}
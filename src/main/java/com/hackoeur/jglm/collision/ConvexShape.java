@@ -0,0 +1,33 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.collision;
+
+/**
+ * A convex shape described by its support mapping, as used by {@link Gjk}
+ * and {@link Epa}.  Shapes are defined in world space.
+ */
+public interface ConvexShape {
+	/**
+	 * Finds the point of the shape that lies furthest along a direction.
+	 * Implementations must not allocate.
+	 *
+	 * @param dx direction x; the direction need not be normalized and may be
+	 * zero, in which case any point of the shape may be returned
+	 * @param dy direction y
+	 * @param dz direction z
+	 * @param out receives the support point as (x, y, z)
+	 */
+	void support(float dx, float dy, float dz, float[] out);
+}
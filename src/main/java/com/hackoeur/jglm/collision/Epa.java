@@ -0,0 +1,350 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.collision;
+
+/**
+ * Penetration depth between overlapping {@link ConvexShape}s using the
+ * Expanding Polytope Algorithm, seeded with the simplex {@link Gjk} ends
+ * with.
+ *
+ * <p>Queries do not allocate: the polytope lives in a per-thread scratch
+ * object with fixed capacity.  If the capacity or iteration limit is reached
+ * the best result so far is returned, which for curved shapes is a slight
+ * underestimate of the depth.
+ */
+public final class Epa {
+	private static final int MAX_ITERATIONS = 64;
+	private static final int MAX_VERTICES = MAX_ITERATIONS + 4;
+	private static final int MAX_FACES = MAX_VERTICES * 2;
+	private static final int MAX_EDGES = MAX_FACES * 3;
+
+	/* Relative error allowed in the computed depth. */
+	private static final double REL_EPSILON = 1e-4;
+
+	private static final double[] AXES = { 1, 0, 0, -1, 0, 0, 0, 1, 0, 0, -1, 0, 0, 0, 1, 0, 0, -1 };
+
+	static final class Polytope {
+		final double[] vertices = new double[MAX_VERTICES * 3];
+		int numVertices;
+
+		/* Three vertex indices per face, wound counter-clockwise seen from outside. */
+		final int[] faces = new int[MAX_FACES * 3];
+		/* Outward unit normal and distance from the origin per face. */
+		final double[] planes = new double[MAX_FACES * 4];
+		int numFaces;
+
+		/* Horizon edges as (from, to) pairs. */
+		final int[] edges = new int[MAX_EDGES * 2];
+		int numEdges;
+	}
+
+	private static final ThreadLocal<Polytope> POLYTOPE = new ThreadLocal<Polytope>() {
+		@Override
+		protected Polytope initialValue() {
+			return new Polytope();
+		}
+	};
+
+	private Epa() {
+		// Prevent instantiation
+	}
+
+	/**
+	 * @see #penetration(ConvexShape, ConvexShape, float[], GjkCache)
+	 */
+	public static float penetration(final ConvexShape a, final ConvexShape b, final float[] outVector) {
+		return penetration(a, b, outVector, null);
+	}
+
+	/**
+	 * Computes how far the shapes overlap.
+	 *
+	 * @param outVector receives the smallest translation of {@code b} that
+	 * separates the shapes, i.e. the unit penetration normal pointing from
+	 * {@code a} towards {@code b} scaled by the depth; all zeros if the shapes
+	 * do not overlap
+	 * @param cache result of the previous query of this pair, updated on
+	 * return; may be {@code null}
+	 * @return the penetration depth, or zero if the shapes do not overlap
+	 */
+	public static float penetration(final ConvexShape a, final ConvexShape b, final float[] outVector, final GjkCache cache) {
+		outVector[0] = 0f;
+		outVector[1] = 0f;
+		outVector[2] = 0f;
+
+		final Gjk.Simplex s = Gjk.getSimplex();
+		if (Gjk.run(a, b, s, cache, true) != Gjk.INTERSECTING) {
+			return 0f;
+		}
+
+		if (!completeTetrahedron(a, b, s)) {
+			// The Minkowski difference is flat around the origin; the shapes only touch.
+			return 0f;
+		}
+
+		final Polytope p = POLYTOPE.get();
+		initialize(p, s);
+
+		// The closest face so far; kept outside the polytope, which a failed
+		// expansion leaves half-modified.
+		double nx = 0.0, ny = 0.0, nz = 0.0, dist = Double.POSITIVE_INFINITY;
+
+		int closest = findClosestFace(p);
+		for (int iteration = 0; iteration < MAX_ITERATIONS && closest >= 0; iteration++) {
+			final int plane = closest * 4;
+			nx = p.planes[plane];
+			ny = p.planes[plane + 1];
+			nz = p.planes[plane + 2];
+			dist = p.planes[plane + 3];
+
+			Gjk.computeSupport(a, b, s, nx, ny, nz, 0);
+			final double wx = s.w[0], wy = s.w[1], wz = s.w[2];
+			final double supportDist = nx * wx + ny * wy + nz * wz;
+
+			if (supportDist - dist <= REL_EPSILON * Math.max(supportDist, 1e-6)) {
+				break;
+			}
+
+			if (p.numVertices == MAX_VERTICES || !expand(p, wx, wy, wz)) {
+				break;
+			}
+
+			closest = findClosestFace(p);
+		}
+
+		if (dist == Double.POSITIVE_INFINITY) {
+			return 0f;
+		}
+
+		final double depth = Math.max(dist, 0.0);
+		outVector[0] = (float) (nx * depth);
+		outVector[1] = (float) (ny * depth);
+		outVector[2] = (float) (nz * depth);
+		return (float) depth;
+	}
+
+	/**
+	 * GJK may stop with fewer than four vertices when the origin lies on the
+	 * simplex.  Adds support points until the simplex is a proper
+	 * tetrahedron.
+	 *
+	 * @return {@code false} if no tetrahedron with volume can be built
+	 */
+	private static boolean completeTetrahedron(final ConvexShape a, final ConvexShape b, final Gjk.Simplex s) {
+		final double[] w = s.w;
+
+		if (s.size == 1) {
+			for (int i = 0; i < AXES.length && s.size == 1; i += 3) {
+				Gjk.computeSupport(a, b, s, AXES[i], AXES[i + 1], AXES[i + 2], 1);
+				if (distanceSquared(w, 0, 1) > 0.0) {
+					s.size = 2;
+				}
+			}
+		}
+
+		if (s.size == 2) {
+			final double dx = w[3] - w[0], dy = w[4] - w[1], dz = w[5] - w[2];
+
+			// Any vector perpendicular to the segment, then the one perpendicular to both.
+			final double ax = Math.abs(dx), ay = Math.abs(dy), az = Math.abs(dz);
+			double px, py, pz;
+			if (ax <= ay && ax <= az) {
+				px = 0.0;
+				py = -dz;
+				pz = dy;
+			} else if (ay <= az) {
+				px = dz;
+				py = 0.0;
+				pz = -dx;
+			} else {
+				px = -dy;
+				py = dx;
+				pz = 0.0;
+			}
+			final double qx = dy * pz - dz * py, qy = dz * px - dx * pz, qz = dx * py - dy * px;
+
+			for (int k = 0; k < 4 && s.size == 2; k++) {
+				final double sign = (k & 1) == 0 ? 1.0 : -1.0;
+				if (k < 2) {
+					Gjk.computeSupport(a, b, s, sign * px, sign * py, sign * pz, 2);
+				} else {
+					Gjk.computeSupport(a, b, s, sign * qx, sign * qy, sign * qz, 2);
+				}
+				if (triangleNormalLengthSquared(w, 0, 1, 2) > 0.0) {
+					s.size = 3;
+				}
+			}
+		}
+
+		if (s.size == 3) {
+			final double ux = w[3] - w[0], uy = w[4] - w[1], uz = w[5] - w[2];
+			final double vx = w[6] - w[0], vy = w[7] - w[1], vz = w[8] - w[2];
+			final double nx = uy * vz - uz * vy, ny = uz * vx - ux * vz, nz = ux * vy - uy * vx;
+
+			for (int sign = 1; sign >= -1 && s.size == 3; sign -= 2) {
+				Gjk.computeSupport(a, b, s, sign * nx, sign * ny, sign * nz, 3);
+				final double height = (w[9] - w[0]) * nx + (w[10] - w[1]) * ny + (w[11] - w[2]) * nz;
+				if (height != 0.0) {
+					s.size = 4;
+				}
+			}
+		}
+
+		return s.size == 4;
+	}
+
+	private static void initialize(final Polytope p, final Gjk.Simplex s) {
+		System.arraycopy(s.w, 0, p.vertices, 0, 12);
+		p.numVertices = 4;
+		p.numFaces = 0;
+
+		// Wind the base away from the fourth vertex, then close the tetrahedron.
+		final double[] v = p.vertices;
+		final double ux = v[3] - v[0], uy = v[4] - v[1], uz = v[5] - v[2];
+		final double wx = v[6] - v[0], wy = v[7] - v[1], wz = v[8] - v[2];
+		final double nx = uy * wz - uz * wy, ny = uz * wx - ux * wz, nz = ux * wy - uy * wx;
+		final boolean flip = (v[9] - v[0]) * nx + (v[10] - v[1]) * ny + (v[11] - v[2]) * nz > 0.0;
+		final int v1 = flip ? 2 : 1;
+		final int v2 = flip ? 1 : 2;
+
+		addFace(p, 0, v1, v2);
+		addFace(p, 0, 3, v1);
+		addFace(p, v1, 3, v2);
+		addFace(p, v2, 3, 0);
+	}
+
+	/**
+	 * Adds a vertex, replacing the faces it can see with a fan around it.
+	 *
+	 * @return {@code false} if the face capacity would be exceeded
+	 */
+	private static boolean expand(final Polytope p, final double x, final double y, final double z) {
+		final int vertex = p.numVertices;
+		p.vertices[vertex * 3] = x;
+		p.vertices[vertex * 3 + 1] = y;
+		p.vertices[vertex * 3 + 2] = z;
+
+		// Remove visible faces, keeping the edges that only one of them owns.
+		p.numEdges = 0;
+		int visible = 0;
+		for (int f = 0; f < p.numFaces; ) {
+			final int plane = f * 4;
+			final int a = p.faces[f * 3];
+			final double dist = p.planes[plane] * (x - p.vertices[a * 3])
+					+ p.planes[plane + 1] * (y - p.vertices[a * 3 + 1])
+					+ p.planes[plane + 2] * (z - p.vertices[a * 3 + 2]);
+
+			if (dist > 0.0) {
+				toggleEdge(p, p.faces[f * 3], p.faces[f * 3 + 1]);
+				toggleEdge(p, p.faces[f * 3 + 1], p.faces[f * 3 + 2]);
+				toggleEdge(p, p.faces[f * 3 + 2], p.faces[f * 3]);
+				removeFace(p, f);
+				visible++;
+			} else {
+				f++;
+			}
+		}
+
+		if (visible == 0 || p.numFaces + p.numEdges > MAX_FACES) {
+			return false;
+		}
+
+		p.numVertices++;
+		for (int e = 0; e < p.numEdges; e++) {
+			addFace(p, p.edges[e * 2], p.edges[e * 2 + 1], vertex);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Adds a horizon edge, or removes it if its reverse is already present,
+	 * meaning it was shared by two visible faces.
+	 */
+	private static void toggleEdge(final Polytope p, final int from, final int to) {
+		for (int e = 0; e < p.numEdges; e++) {
+			if (p.edges[e * 2] == to && p.edges[e * 2 + 1] == from) {
+				p.numEdges--;
+				p.edges[e * 2] = p.edges[p.numEdges * 2];
+				p.edges[e * 2 + 1] = p.edges[p.numEdges * 2 + 1];
+				return;
+			}
+		}
+
+		p.edges[p.numEdges * 2] = from;
+		p.edges[p.numEdges * 2 + 1] = to;
+		p.numEdges++;
+	}
+
+	private static void addFace(final Polytope p, final int a, final int b, final int c) {
+		final int f = p.numFaces++;
+		p.faces[f * 3] = a;
+		p.faces[f * 3 + 1] = b;
+		p.faces[f * 3 + 2] = c;
+
+		final double[] v = p.vertices;
+		final double ux = v[b * 3] - v[a * 3], uy = v[b * 3 + 1] - v[a * 3 + 1], uz = v[b * 3 + 2] - v[a * 3 + 2];
+		final double wx = v[c * 3] - v[a * 3], wy = v[c * 3 + 1] - v[a * 3 + 1], wz = v[c * 3 + 2] - v[a * 3 + 2];
+		final double nx = uy * wz - uz * wy, ny = uz * wx - ux * wz, nz = ux * wy - uy * wx;
+		final double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+
+		final int plane = f * 4;
+		if (length > 0.0) {
+			p.planes[plane] = nx / length;
+			p.planes[plane + 1] = ny / length;
+			p.planes[plane + 2] = nz / length;
+			p.planes[plane + 3] = (nx * v[a * 3] + ny * v[a * 3 + 1] + nz * v[a * 3 + 2]) / length;
+		} else {
+			// Degenerate; never the closest face.
+			p.planes[plane] = 0.0;
+			p.planes[plane + 1] = 0.0;
+			p.planes[plane + 2] = 0.0;
+			p.planes[plane + 3] = Double.POSITIVE_INFINITY;
+		}
+	}
+
+	private static void removeFace(final Polytope p, final int f) {
+		final int last = --p.numFaces;
+		System.arraycopy(p.faces, last * 3, p.faces, f * 3, 3);
+		System.arraycopy(p.planes, last * 4, p.planes, f * 4, 4);
+	}
+
+	private static int findClosestFace(final Polytope p) {
+		int closest = -1;
+		double best = Double.POSITIVE_INFINITY;
+
+		for (int f = 0; f < p.numFaces; f++) {
+			final double dist = p.planes[f * 4 + 3];
+			if (dist < best) {
+				best = dist;
+				closest = f;
+			}
+		}
+
+		return closest;
+	}
+
+	private static double distanceSquared(final double[] w, final int i, final int j) {
+		final double dx = w[j * 3] - w[i * 3], dy = w[j * 3 + 1] - w[i * 3 + 1], dz = w[j * 3 + 2] - w[i * 3 + 2];
+		return dx * dx + dy * dy + dz * dz;
+	}
+
+	private static double triangleNormalLengthSquared(final double[] w, final int i, final int j, final int k) {
+		final double ux = w[j * 3] - w[i * 3], uy = w[j * 3 + 1] - w[i * 3 + 1], uz = w[j * 3 + 2] - w[i * 3 + 2];
+		final double vx = w[k * 3] - w[i * 3], vy = w[k * 3 + 1] - w[i * 3 + 1], vz = w[k * 3 + 2] - w[i * 3 + 2];
+		final double nx = uy * vz - uz * vy, ny = uz * vx - ux * vz, nz = ux * vy - uy * vx;
+		return nx * nx + ny * ny + nz * nz;
+	}
+}
@@ -0,0 +1,519 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.collision;
+
+/**
+ * Overlap and distance queries between {@link ConvexShape}s using the
+ * Gilbert-Johnson-Keerthi algorithm.  The closest point on each simplex is
+ * found with the Voronoi-region tests from Ericson's <em>Real-Time Collision
+ * Detection</em>.
+ *
+ * <p>Queries do not allocate: the simplex lives in a per-thread scratch
+ * object.  All methods are thread-safe as long as the shapes and caches
+ * passed in are not shared between threads.
+ */
+public final class Gjk {
+	static final int MAX_ITERATIONS = 64;
+
+	/* Relative error allowed in the computed distance. */
+	private static final double REL_EPSILON = 1e-6;
+	/* Squared distances below this, relative to the simplex size, count as touching. */
+	private static final double ZERO_EPSILON = 1e-12;
+
+	static final int SEPARATED = 0;
+	static final int INTERSECTING = 1;
+
+	/**
+	 * Simplex and scratch storage for one query.  Vertex {@code i} of the
+	 * simplex occupies elements {@code 3i} to {@code 3i + 2} of {@code w}
+	 * (the point of the Minkowski difference), {@code a} and {@code b} (the
+	 * support points on each shape that produced it) and {@code d} (the
+	 * search direction they were found in).
+	 */
+	static final class Simplex {
+		int size;
+		final double[] w = new double[12];
+		final double[] a = new double[12];
+		final double[] b = new double[12];
+		final double[] d = new double[12];
+		final double[] lambda = new double[4];
+
+		/* Closest point of the simplex to the origin. */
+		double vx, vy, vz;
+
+		final float[] supportA = new float[3];
+		final float[] supportB = new float[3];
+
+		/* Result of the last sub-simplex search. */
+		final int[] bestIndices = new int[3];
+		final double[] bestLambda = new double[3];
+		int bestCount;
+
+		final int[] faceIndices = new int[3];
+		final double[] faceLambda = new double[3];
+		int faceCount;
+
+		final double[] tmp = new double[48];
+	}
+
+	private static final ThreadLocal<Simplex> SIMPLEX = new ThreadLocal<Simplex>() {
+		@Override
+		protected Simplex initialValue() {
+			return new Simplex();
+		}
+	};
+
+	private Gjk() {
+		// Prevent instantiation
+	}
+
+	/**
+	 * @return {@code true} if the shapes overlap or touch
+	 */
+	public static boolean intersects(final ConvexShape a, final ConvexShape b) {
+		return intersects(a, b, null);
+	}
+
+	/**
+	 * @param cache result of the previous query of this pair, updated on
+	 * return; may be {@code null}
+	 * @return {@code true} if the shapes overlap or touch
+	 */
+	public static boolean intersects(final ConvexShape a, final ConvexShape b, final GjkCache cache) {
+		return run(a, b, SIMPLEX.get(), cache, true) == INTERSECTING;
+	}
+
+	/**
+	 * @see #distance(ConvexShape, ConvexShape, float[], float[], GjkCache)
+	 */
+	public static float distance(final ConvexShape a, final ConvexShape b, final float[] outPointA, final float[] outPointB) {
+		return distance(a, b, outPointA, outPointB, null);
+	}
+
+	/**
+	 * Computes the distance between two shapes and, optionally, the closest
+	 * point on each.
+	 *
+	 * @param outPointA receives the point of {@code a} closest to {@code b};
+	 * may be {@code null}
+	 * @param outPointB receives the point of {@code b} closest to {@code a};
+	 * may be {@code null}
+	 * @param cache result of the previous query of this pair, updated on
+	 * return; may be {@code null}
+	 * @return the distance, or zero if the shapes overlap; the closest points
+	 * are meaningless in that case
+	 */
+	public static float distance(final ConvexShape a, final ConvexShape b, final float[] outPointA, final float[] outPointB, final GjkCache cache) {
+		final Simplex s = SIMPLEX.get();
+		if (run(a, b, s, cache, false) == INTERSECTING) {
+			return 0f;
+		}
+
+		double pax = 0.0, pay = 0.0, paz = 0.0;
+		double pbx = 0.0, pby = 0.0, pbz = 0.0;
+		for (int i = 0; i < s.size; i++) {
+			final double l = s.lambda[i];
+			pax += l * s.a[i * 3];
+			pay += l * s.a[i * 3 + 1];
+			paz += l * s.a[i * 3 + 2];
+			pbx += l * s.b[i * 3];
+			pby += l * s.b[i * 3 + 1];
+			pbz += l * s.b[i * 3 + 2];
+		}
+
+		if (outPointA != null) {
+			outPointA[0] = (float) pax;
+			outPointA[1] = (float) pay;
+			outPointA[2] = (float) paz;
+		}
+		if (outPointB != null) {
+			outPointB[0] = (float) pbx;
+			outPointB[1] = (float) pby;
+			outPointB[2] = (float) pbz;
+		}
+
+		return (float) Math.sqrt(s.vx * s.vx + s.vy * s.vy + s.vz * s.vz);
+	}
+
+	static Simplex getSimplex() {
+		return SIMPLEX.get();
+	}
+
+	/**
+	 * Runs GJK on the Minkowski difference {@code a - b}.  On return the
+	 * simplex holds the final vertices and {@code v} the closest point found.
+	 *
+	 * @param separationOnly stop as soon as a separating axis is found
+	 * @return {@link #SEPARATED} or {@link #INTERSECTING}
+	 */
+	static int run(final ConvexShape a, final ConvexShape b, final Simplex s, final GjkCache cache, final boolean separationOnly) {
+		s.size = 0;
+
+		final boolean hasAxis = cache != null && cache.hasAxis;
+		if (separationOnly && hasAxis) {
+			computeSupport(a, b, s, -cache.x, -cache.y, -cache.z, 0);
+			if (cache.x * s.w[0] + cache.y * s.w[1] + cache.z * s.w[2] > 0.0) {
+				// The previous axis still separates the shapes.
+				return SEPARATED;
+			}
+		}
+
+		if (cache != null && cache.size > 0) {
+			// Rebuild the previous final simplex from the same directions.  When
+			// the pair has moved only a little, it again encloses the origin or
+			// lies next to the closest point, so few iterations remain.
+			for (int k = 0; k < cache.size * 3; k += 3) {
+				final int slot = s.size;
+				computeSupport(a, b, s, cache.directions[k], cache.directions[k + 1], cache.directions[k + 2], slot);
+				if (!containsVertex(s, s.w[slot * 3], s.w[slot * 3 + 1], s.w[slot * 3 + 2])) {
+					s.size++;
+				}
+			}
+		} else {
+			// Start from a point of the Minkowski difference; with a cache, the
+			// one that lies furthest against the previous separating direction.
+			if (hasAxis) {
+				computeSupport(a, b, s, -cache.x, -cache.y, -cache.z, 0);
+			} else {
+				computeSupport(a, b, s, -1.0, 0.0, 0.0, 0);
+			}
+			s.size = 1;
+		}
+
+		int result = SEPARATED;
+		if (!closestPoint(s)) {
+			result = INTERSECTING;
+		}
+
+		for (int iteration = 0; result == SEPARATED && iteration < MAX_ITERATIONS; iteration++) {
+			final double vv = s.vx * s.vx + s.vy * s.vy + s.vz * s.vz;
+			if (vv <= ZERO_EPSILON * maxVertexLengthSquared(s)) {
+				// The origin is on the simplex: the shapes touch.
+				result = INTERSECTING;
+				break;
+			}
+
+			final int slot = s.size;
+			computeSupport(a, b, s, -s.vx, -s.vy, -s.vz, slot);
+			final double wx = s.w[slot * 3], wy = s.w[slot * 3 + 1], wz = s.w[slot * 3 + 2];
+			final double vw = s.vx * wx + s.vy * wy + s.vz * wz;
+
+			if (separationOnly && vw > 0.0) {
+				break;
+			}
+
+			if (vv - vw <= REL_EPSILON * vv || containsVertex(s, wx, wy, wz)) {
+				// No further progress is possible; v is the closest point.
+				break;
+			}
+
+			s.size++;
+			if (!closestPoint(s)) {
+				result = INTERSECTING;
+				break;
+			}
+		}
+
+		if (cache != null) {
+			cache.store(s);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Stores the support point of {@code a - b} in direction {@code d} in the
+	 * given simplex slot.
+	 */
+	static void computeSupport(final ConvexShape a, final ConvexShape b, final Simplex s,
+			final double dx, final double dy, final double dz, final int slot) {
+		a.support((float) dx, (float) dy, (float) dz, s.supportA);
+		b.support((float) -dx, (float) -dy, (float) -dz, s.supportB);
+
+		final int i = slot * 3;
+		for (int k = 0; k < 3; k++) {
+			s.a[i + k] = s.supportA[k];
+			s.b[i + k] = s.supportB[k];
+			s.w[i + k] = (double) s.supportA[k] - s.supportB[k];
+		}
+		s.d[i] = dx;
+		s.d[i + 1] = dy;
+		s.d[i + 2] = dz;
+	}
+
+	private static boolean containsVertex(final Simplex s, final double x, final double y, final double z) {
+		for (int i = 0; i < s.size; i++) {
+			if (s.w[i * 3] == x && s.w[i * 3 + 1] == y && s.w[i * 3 + 2] == z) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static double maxVertexLengthSquared(final Simplex s) {
+		double max = 0.0;
+		for (int i = 0; i < s.size; i++) {
+			final double x = s.w[i * 3], y = s.w[i * 3 + 1], z = s.w[i * 3 + 2];
+			max = Math.max(max, x * x + y * y + z * z);
+		}
+
+		return max;
+	}
+
+	/* ::-------------------------------------------------------------------------::
+	 * Closest point on a simplex
+	 */
+
+	/**
+	 * Finds the point of the simplex closest to the origin, sets {@code v} to
+	 * it and reduces the simplex to the vertices needed to express it.
+	 *
+	 * @return {@code false} if the origin is inside the tetrahedron
+	 */
+	private static boolean closestPoint(final Simplex s) {
+		switch (s.size) {
+		case 1:
+			s.bestCount = 1;
+			s.bestIndices[0] = 0;
+			s.bestLambda[0] = 1.0;
+			break;
+
+		case 2:
+			closestOnSegment(s, 0, 1);
+			break;
+
+		case 3:
+			closestOnTriangle(s, 0, 1, 2);
+			copyFaceToBest(s);
+			break;
+
+		default:
+			if (!closestOnTetrahedron(s)) {
+				for (int i = 0; i < 4; i++) {
+					s.lambda[i] = 0.25;
+				}
+				s.vx = 0.0;
+				s.vy = 0.0;
+				s.vz = 0.0;
+				return false;
+			}
+			break;
+		}
+
+		reduce(s);
+		return true;
+	}
+
+	private static void closestOnSegment(final Simplex s, final int i, final int j) {
+		final double[] w = s.w;
+		final double ax = w[i * 3], ay = w[i * 3 + 1], az = w[i * 3 + 2];
+		final double abx = w[j * 3] - ax, aby = w[j * 3 + 1] - ay, abz = w[j * 3 + 2] - az;
+		final double lengthSq = abx * abx + aby * aby + abz * abz;
+		final double t = lengthSq > 0.0 ? -(ax * abx + ay * aby + az * abz) / lengthSq : 0.0;
+
+		if (t <= 0.0) {
+			s.bestCount = 1;
+			s.bestIndices[0] = i;
+			s.bestLambda[0] = 1.0;
+		} else if (t >= 1.0) {
+			s.bestCount = 1;
+			s.bestIndices[0] = j;
+			s.bestLambda[0] = 1.0;
+		} else {
+			s.bestCount = 2;
+			s.bestIndices[0] = i;
+			s.bestIndices[1] = j;
+			s.bestLambda[0] = 1.0 - t;
+			s.bestLambda[1] = t;
+		}
+	}
+
+	/**
+	 * Ericson's ClosestPtPointTriangle with the query point at the origin.
+	 * The result goes into {@code faceIndices}/{@code faceLambda}.
+	 *
+	 * @return the squared distance from the origin
+	 */
+	private static double closestOnTriangle(final Simplex s, final int ia, final int ib, final int ic) {
+		final double[] w = s.w;
+		final double ax = w[ia * 3], ay = w[ia * 3 + 1], az = w[ia * 3 + 2];
+		final double bx = w[ib * 3], by = w[ib * 3 + 1], bz = w[ib * 3 + 2];
+		final double cx = w[ic * 3], cy = w[ic * 3 + 1], cz = w[ic * 3 + 2];
+		final double abx = bx - ax, aby = by - ay, abz = bz - az;
+		final double acx = cx - ax, acy = cy - ay, acz = cz - az;
+
+		final double d1 = -(abx * ax + aby * ay + abz * az);
+		final double d2 = -(acx * ax + acy * ay + acz * az);
+		if (d1 <= 0.0 && d2 <= 0.0) {
+			return setFace(s, ia, 1.0);
+		}
+
+		final double d3 = -(abx * bx + aby * by + abz * bz);
+		final double d4 = -(acx * bx + acy * by + acz * bz);
+		if (d3 >= 0.0 && d4 <= d3) {
+			return setFace(s, ib, 1.0);
+		}
+
+		final double vc = d1 * d4 - d3 * d2;
+		if (vc <= 0.0 && d1 >= 0.0 && d3 <= 0.0) {
+			final double t = d1 / (d1 - d3);
+			return setFace(s, ia, 1.0 - t, ib, t);
+		}
+
+		final double d5 = -(abx * cx + aby * cy + abz * cz);
+		final double d6 = -(acx * cx + acy * cy + acz * cz);
+		if (d6 >= 0.0 && d5 <= d6) {
+			return setFace(s, ic, 1.0);
+		}
+
+		final double vb = d5 * d2 - d1 * d6;
+		if (vb <= 0.0 && d2 >= 0.0 && d6 <= 0.0) {
+			final double t = d2 / (d2 - d6);
+			return setFace(s, ia, 1.0 - t, ic, t);
+		}
+
+		final double va = d3 * d6 - d5 * d4;
+		if (va <= 0.0 && d4 - d3 >= 0.0 && d5 - d6 >= 0.0) {
+			final double t = (d4 - d3) / ((d4 - d3) + (d5 - d6));
+			return setFace(s, ib, 1.0 - t, ic, t);
+		}
+
+		final double denom = 1.0 / (va + vb + vc);
+		final double v = vb * denom;
+		final double u = vc * denom;
+		s.faceCount = 3;
+		s.faceIndices[0] = ia;
+		s.faceIndices[1] = ib;
+		s.faceIndices[2] = ic;
+		s.faceLambda[0] = 1.0 - v - u;
+		s.faceLambda[1] = v;
+		s.faceLambda[2] = u;
+		return faceDistanceSquared(s);
+	}
+
+	private static double setFace(final Simplex s, final int i, final double li) {
+		s.faceCount = 1;
+		s.faceIndices[0] = i;
+		s.faceLambda[0] = li;
+		return faceDistanceSquared(s);
+	}
+
+	private static double setFace(final Simplex s, final int i, final double li, final int j, final double lj) {
+		s.faceCount = 2;
+		s.faceIndices[0] = i;
+		s.faceIndices[1] = j;
+		s.faceLambda[0] = li;
+		s.faceLambda[1] = lj;
+		return faceDistanceSquared(s);
+	}
+
+	private static double faceDistanceSquared(final Simplex s) {
+		double x = 0.0, y = 0.0, z = 0.0;
+		for (int k = 0; k < s.faceCount; k++) {
+			final int i = s.faceIndices[k] * 3;
+			x += s.faceLambda[k] * s.w[i];
+			y += s.faceLambda[k] * s.w[i + 1];
+			z += s.faceLambda[k] * s.w[i + 2];
+		}
+
+		return x * x + y * y + z * z;
+	}
+
+	private static void copyFaceToBest(final Simplex s) {
+		s.bestCount = s.faceCount;
+		for (int k = 0; k < s.faceCount; k++) {
+			s.bestIndices[k] = s.faceIndices[k];
+			s.bestLambda[k] = s.faceLambda[k];
+		}
+	}
+
+	/**
+	 * Tests the faces of the tetrahedron the origin lies in front of, keeping
+	 * the closest result.
+	 *
+	 * @return {@code false} if the origin is inside
+	 */
+	private static boolean closestOnTetrahedron(final Simplex s) {
+		double best = Double.POSITIVE_INFINITY;
+		best = testFace(s, 0, 1, 2, 3, best);
+		best = testFace(s, 0, 2, 3, 1, best);
+		best = testFace(s, 0, 3, 1, 2, best);
+		best = testFace(s, 1, 3, 2, 0, best);
+		return best != Double.POSITIVE_INFINITY;
+	}
+
+	private static double testFace(final Simplex s, final int ia, final int ib, final int ic, final int opposite, final double best) {
+		final double[] w = s.w;
+		final double ax = w[ia * 3], ay = w[ia * 3 + 1], az = w[ia * 3 + 2];
+		final double abx = w[ib * 3] - ax, aby = w[ib * 3 + 1] - ay, abz = w[ib * 3 + 2] - az;
+		final double acx = w[ic * 3] - ax, acy = w[ic * 3 + 1] - ay, acz = w[ic * 3 + 2] - az;
+		final double nx = aby * acz - abz * acy;
+		final double ny = abz * acx - abx * acz;
+		final double nz = abx * acy - aby * acx;
+
+		final double signOrigin = -(ax * nx + ay * ny + az * nz);
+		final double signOpposite = (w[opposite * 3] - ax) * nx + (w[opposite * 3 + 1] - ay) * ny + (w[opposite * 3 + 2] - az) * nz;
+
+		// A flat tetrahedron has no inside, so every face is a candidate.
+		if (signOrigin * signOpposite > 0.0) {
+			return best;
+		}
+
+		final double distSq = closestOnTriangle(s, ia, ib, ic);
+		if (distSq < best) {
+			copyFaceToBest(s);
+			return distSq;
+		}
+
+		return best;
+	}
+
+	/**
+	 * Compacts the simplex to the vertices in {@code bestIndices} and
+	 * recomputes {@code v} from their weights.
+	 */
+	private static void reduce(final Simplex s) {
+		final double[] tmp = s.tmp;
+		final int n = s.bestCount;
+
+		for (int k = 0; k < n; k++) {
+			final int i = s.bestIndices[k] * 3;
+			System.arraycopy(s.w, i, tmp, k * 3, 3);
+			System.arraycopy(s.a, i, tmp, 12 + k * 3, 3);
+			System.arraycopy(s.b, i, tmp, 24 + k * 3, 3);
+			System.arraycopy(s.d, i, tmp, 36 + k * 3, 3);
+		}
+
+		System.arraycopy(tmp, 0, s.w, 0, n * 3);
+		System.arraycopy(tmp, 12, s.a, 0, n * 3);
+		System.arraycopy(tmp, 24, s.b, 0, n * 3);
+		System.arraycopy(tmp, 36, s.d, 0, n * 3);
+
+		double x = 0.0, y = 0.0, z = 0.0;
+		for (int k = 0; k < n; k++) {
+			final double l = s.bestLambda[k];
+			s.lambda[k] = l;
+			x += l * s.w[k * 3];
+			y += l * s.w[k * 3 + 1];
+			z += l * s.w[k * 3 + 2];
+		}
+
+		s.size = n;
+		s.vx = x;
+		s.vy = y;
+		s.vz = z;
+	}
+}
@@ -0,0 +1,64 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.collision;
+
+/**
+ * Carries the end state of a {@link Gjk} query between frames: the last
+ * separating direction and the search directions that produced the final
+ * simplex.  Keep one cache per pair of shapes.  When the pair moves only a
+ * little, the direction usually proves separation with a single support
+ * query, and rebuilding the simplex from the same directions lets
+ * {@link Gjk#distance(ConvexShape, ConvexShape, float[], float[], GjkCache)}
+ * start next to the closest points.
+ *
+ * <p>Overlapping pairs gain little: proving overlap takes a tetrahedron, i.e.
+ * four support queries, with or without the cache, and {@link Epa} expands
+ * its polytope from scratch each time.
+ *
+ * <p>Instances are not thread-safe.
+ */
+public final class GjkCache {
+	double x, y, z;
+	boolean hasAxis;
+
+	/* Search directions of the final simplex, 3 elements each. */
+	final double[] directions = new double[12];
+	int size;
+
+	/**
+	 * Forgets the stored state, for instance after a teleport.
+	 */
+	public void reset() {
+		hasAxis = false;
+		size = 0;
+	}
+
+	public boolean isValid() {
+		return hasAxis || size > 0;
+	}
+
+	void store(final Gjk.Simplex s) {
+		// The closest point is zero when the shapes overlap; keep the old axis.
+		if (s.vx != 0.0 || s.vy != 0.0 || s.vz != 0.0) {
+			this.x = s.vx;
+			this.y = s.vy;
+			this.z = s.vz;
+			this.hasAxis = true;
+		}
+
+		System.arraycopy(s.d, 0, directions, 0, s.size * 3);
+		size = s.size;
+	}
+}
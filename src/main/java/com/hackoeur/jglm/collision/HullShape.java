@@ -0,0 +1,67 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.collision;
+
+import com.hackoeur.jglm.Vec3;
+
+/**
+ * The convex hull of a set of points, for use with {@link Gjk} and
+ * {@link Epa}.  Support queries scan every point, so reduce large point sets
+ * with {@link QuickHull} first.
+ */
+public final class HullShape implements ConvexShape {
+	/* Successive (x, y, z) tuples. */
+	private final float[] points;
+
+	public HullShape(final ConvexHull hull) {
+		this.points = hull.getVertices();
+	}
+
+	public HullShape(final Vec3[] points) {
+		if (points.length == 0) {
+			throw new IllegalArgumentException("At least one point is required");
+		}
+
+		this.points = new float[points.length * 3];
+		for (int i = 0; i < points.length; i++) {
+			this.points[i * 3] = points[i].getX();
+			this.points[i * 3 + 1] = points[i].getY();
+			this.points[i * 3 + 2] = points[i].getZ();
+		}
+	}
+
+	@Override
+	public void support(final float dx, final float dy, final float dz, final float[] out) {
+		final float[] p = points;
+		int best = 0;
+		float bestDot = p[0] * dx + p[1] * dy + p[2] * dz;
+
+		for (int i = 3; i < p.length; i += 3) {
+			final float dot = p[i] * dx + p[i + 1] * dy + p[i + 2] * dz;
+			if (dot > bestDot) {
+				bestDot = dot;
+				best = i;
+			}
+		}
+
+		out[0] = p[best];
+		out[1] = p[best + 1];
+		out[2] = p[best + 2];
+	}
+
+	public int getPointCount() {
+		return points.length / 3;
+	}
+}
@@ -0,0 +1,640 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.collision;
+
+import java.util.Arrays;
+
+import com.hackoeur.jglm.Vec3;
+import com.hackoeur.jglm.support.Compare;
+import com.hackoeur.jglm.support.Telemetry;
+
+/**
+ * Builds 3D convex hulls with the Quickhull algorithm (Barber, Dobkin &amp;
+ * Huhdanpaa).
+ *
+ * <p>Hull faces are triangles stored in pooled, index-based half-edge arrays:
+ * face {@code f} owns half-edges {@code 3f}, {@code 3f + 1} and {@code 3f + 2},
+ * so no objects are allocated per face or per edge.  The arrays are kept
+ * between builds, so reusing one instance for many hulls avoids most
+ * allocation.
+ *
+ * <p>A point is only treated as outside a face when it is further than a
+ * tolerance from it.  The tolerance is {@link Compare#ABS_EPSILON} scaled by
+ * the magnitude of the input coordinates, so coplanar and nearly coplanar
+ * points are absorbed into existing faces rather than producing slivers.
+ *
+ * <p>Instances are not thread-safe.
+ */
+public final class QuickHull {
+	private static final int NONE = -1;
+
+	private static final byte FREE = 0;
+	private static final byte ALIVE = 1;
+	private static final byte VISIBLE = 2;
+
+	private static final int INITIAL_FACES = 64;
+
+	/* Input points; either the caller's arrays or our copy of a Vec3[]. */
+	private float[] xs, ys, zs;
+	private int count;
+	private double epsilon;
+
+	/* Per-point linked lists of the points outside each face. */
+	private int[] pointNext = new int[0];
+
+	/* Face pool.  Free faces are chained through faceOutside. */
+	private int faceCapacity;
+	private int faceHighWater;
+	private int freeFace;
+	private byte[] faceState;
+	private double[] facePlanes;
+	private int[] faceOutside;
+	private double[] faceMaxDist;
+
+	/* Three half-edges per face: origin vertex and opposite half-edge. */
+	private int[] edgeVertex;
+	private int[] edgeTwin;
+
+	/* Scratch, grown on demand. */
+	private float[] vecXs = new float[0], vecYs = new float[0], vecZs = new float[0];
+	private int[] vertexScratch = new int[0];
+	private int[] unclaimed = new int[0];
+	private int unclaimedSize;
+	private int[] pending = new int[INITIAL_FACES];
+	private int pendingSize;
+	private int[] visible = new int[INITIAL_FACES];
+	private int visibleSize;
+	private int[] stackEdge = new int[INITIAL_FACES];
+	private int[] stackRemaining = new int[INITIAL_FACES];
+	private int[] horizon = new int[INITIAL_FACES];
+	private int[] horizonFrom = new int[INITIAL_FACES];
+	private int[] horizonTo = new int[INITIAL_FACES];
+	private int[] horizonTwin = new int[INITIAL_FACES];
+	private int[] newFaces = new int[INITIAL_FACES];
+	private int horizonSize;
+
+	public QuickHull() {
+		allocateFaces(INITIAL_FACES);
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the points are all coplanar
+	 */
+	public ConvexHull build(final Vec3[] points) {
+		final int n = points.length;
+		if (vecXs.length < n) {
+			vecXs = new float[n];
+			vecYs = new float[n];
+			vecZs = new float[n];
+		}
+
+		for (int i = 0; i < n; i++) {
+			vecXs[i] = points[i].getX();
+			vecYs[i] = points[i].getY();
+			vecZs[i] = points[i].getZ();
+		}
+
+		return build(vecXs, vecYs, vecZs, n);
+	}
+
+	/**
+	 * Builds the hull of the first {@code count} points of the given arrays.
+	 * The arrays are read but never modified or retained.
+	 *
+	 * @throws IllegalArgumentException if the points are all coplanar
+	 */
+	public ConvexHull build(final float[] xs, final float[] ys, final float[] zs, final int count) {
+		if (count < 4) {
+			throw new IllegalArgumentException("At least 4 points are required, got " + count);
+		}
+
+		final Telemetry.Span span = Telemetry.begin(Telemetry.Kind.SPATIAL_REBUILD, "QuickHull.build");
+		this.xs = xs;
+		this.ys = ys;
+		this.zs = zs;
+		this.count = count;
+
+		try {
+			reset();
+			computeEpsilon();
+			createInitialSimplex();
+
+			while (pendingSize > 0) {
+				final int face = pending[--pendingSize];
+				if (faceState[face] != ALIVE || faceOutside[face] == NONE) {
+					continue;
+				}
+
+				// The head of each outside list is the furthest point.
+				final int eye = faceOutside[face];
+				faceOutside[face] = pointNext[eye];
+				addPoint(eye, face);
+			}
+
+			final ConvexHull hull = createHull();
+			span.end(count);
+			return hull;
+		} finally {
+			this.xs = null;
+			this.ys = null;
+			this.zs = null;
+		}
+	}
+
+	/**
+	 * @return the tolerance used by the last build
+	 */
+	public double getEpsilon() {
+		return epsilon;
+	}
+
+	private void reset() {
+		if (pointNext.length < count) {
+			pointNext = new int[count];
+			unclaimed = new int[count];
+			vertexScratch = new int[count];
+		}
+
+		faceHighWater = 0;
+		freeFace = NONE;
+		pendingSize = 0;
+	}
+
+	private void computeEpsilon() {
+		float maxX = 0f, maxY = 0f, maxZ = 0f;
+
+		for (int i = 0; i < count; i++) {
+			maxX = Math.max(maxX, Math.abs(xs[i]));
+			maxY = Math.max(maxY, Math.abs(ys[i]));
+			maxZ = Math.max(maxZ, Math.abs(zs[i]));
+		}
+
+		// Roughly the error of a float plane evaluation at these magnitudes.
+		epsilon = 3.0 * Compare.ABS_EPSILON * ((double) maxX + maxY + maxZ);
+	}
+
+	/* ::-------------------------------------------------------------------------::
+	 * Initial simplex
+	 */
+
+	private void createInitialSimplex() {
+		// Extreme points along each axis; the most distant pair seeds the hull.
+		final int[] extremes = new int[6];
+		for (int i = 1; i < count; i++) {
+			updateExtremes(extremes, 0, xs, ys, zs, i);
+			updateExtremes(extremes, 2, ys, zs, xs, i);
+			updateExtremes(extremes, 4, zs, xs, ys, i);
+		}
+
+		int v0 = 0, v1 = 0;
+		double best = -1.0;
+		for (int axis = 0; axis < 3; axis++) {
+			final int lo = extremes[axis * 2];
+			final int hi = extremes[axis * 2 + 1];
+			final double dist = distanceSquared(lo, hi);
+			if (dist > best) {
+				best = dist;
+				v0 = lo;
+				v1 = hi;
+			}
+		}
+
+		if (Math.sqrt(best) <= epsilon) {
+			throw new IllegalArgumentException("Input points are coincident");
+		}
+
+		// The point furthest from the line v0-v1.
+		final double dx = xs[v1] - xs[v0], dy = ys[v1] - ys[v0], dz = zs[v1] - zs[v0];
+		final double lineLengthSq = dx * dx + dy * dy + dz * dz;
+		int v2 = NONE;
+		best = 0.0;
+		for (int i = 0; i < count; i++) {
+			final double px = xs[i] - xs[v0], py = ys[i] - ys[v0], pz = zs[i] - zs[v0];
+			final double cx = dy * pz - dz * py;
+			final double cy = dz * px - dx * pz;
+			final double cz = dx * py - dy * px;
+			final double dist = Math.sqrt((cx * cx + cy * cy + cz * cz) / lineLengthSq);
+			if (isFurther(i, dist, v2, best, v0)) {
+				best = dist;
+				v2 = i;
+			}
+		}
+
+		if (v2 == NONE || best <= epsilon) {
+			throw new IllegalArgumentException("Input points are collinear");
+		}
+
+		// The point furthest from the plane v0-v1-v2.
+		final int base = allocateFace(v0, v1, v2);
+		int v3 = NONE;
+		best = 0.0;
+		for (int i = 0; i < count; i++) {
+			final double dist = Math.abs(distance(base, i));
+			if (isFurther(i, dist, v3, best, v0)) {
+				best = dist;
+				v3 = i;
+			}
+		}
+
+		if (v3 == NONE || best <= epsilon) {
+			throw new IllegalArgumentException("Input points are coplanar");
+		}
+
+		// Wind the base so that v3 is behind it, then close the tetrahedron.
+		final int[] faces = new int[4];
+		if (distance(base, v3) > 0.0) {
+			setFace(base, v0, v2, v1);
+			faces[0] = base;
+			faces[1] = allocateFace(v0, v1, v3);
+			faces[2] = allocateFace(v1, v2, v3);
+			faces[3] = allocateFace(v2, v0, v3);
+		} else {
+			faces[0] = base;
+			faces[1] = allocateFace(v1, v0, v3);
+			faces[2] = allocateFace(v2, v1, v3);
+			faces[3] = allocateFace(v0, v2, v3);
+		}
+
+		// Pair up the twelve half-edges.
+		for (int e = 0; e < 12; e++) {
+			final int edge = faces[e / 3] * 3 + e % 3;
+			final int from = edgeVertex[edge];
+			final int to = edgeVertex[next(edge)];
+
+			for (int o = 0; o < 12; o++) {
+				final int other = faces[o / 3] * 3 + o % 3;
+				if (edgeVertex[other] == to && edgeVertex[next(other)] == from) {
+					edgeTwin[edge] = other;
+					break;
+				}
+			}
+		}
+
+		for (int i = 0; i < count; i++) {
+			if (i == v0 || i == v1 || i == v2 || i == v3) {
+				continue;
+			}
+
+			assignToFace(i, faces, 4);
+		}
+	}
+
+	/**
+	 * Tracks the lexicographically smallest and largest points, ordered by
+	 * {@code a} then {@code b} then {@code c}.  Unlike a plain minimum along
+	 * one axis, these are always vertices of the hull.
+	 */
+	private static void updateExtremes(final int[] extremes, final int slot, final float[] a, final float[] b, final float[] c, final int i) {
+		if (compare(a, b, c, i, extremes[slot]) < 0) {
+			extremes[slot] = i;
+		}
+		if (compare(a, b, c, i, extremes[slot + 1]) > 0) {
+			extremes[slot + 1] = i;
+		}
+	}
+
+	private static int compare(final float[] a, final float[] b, final float[] c, final int i, final int j) {
+		if (a[i] != a[j]) {
+			return a[i] < a[j] ? -1 : 1;
+		}
+		if (b[i] != b[j]) {
+			return b[i] < b[j] ? -1 : 1;
+		}
+		return c[i] < c[j] ? -1 : (c[i] > c[j] ? 1 : 0);
+	}
+
+	/**
+	 * Decides whether {@code point} should replace {@code best} as the point
+	 * furthest from some feature.  Distances within the tolerance of each
+	 * other are ties, and ties go to the point further from {@code anchor}.
+	 * Without this, a point in the middle of a flat face or straight edge of
+	 * the input could win, and it would then remain as a spurious hull vertex.
+	 */
+	private boolean isFurther(final int point, final double dist, final int best, final double bestDist, final int anchor) {
+		if (best == NONE || dist > bestDist + epsilon) {
+			return true;
+		}
+		if (dist < bestDist - epsilon) {
+			return false;
+		}
+		return distanceSquared(point, anchor) > distanceSquared(best, anchor);
+	}
+
+	/* ::-------------------------------------------------------------------------::
+	 * Hull growth
+	 */
+
+	private void addPoint(final int eye, final int face) {
+		computeHorizon(eye, face);
+
+		// Read the horizon before the visible faces are recycled.
+		for (int i = 0; i < horizonSize; i++) {
+			final int edge = horizon[i];
+			horizonFrom[i] = edgeVertex[edge];
+			horizonTo[i] = edgeVertex[next(edge)];
+			horizonTwin[i] = edgeTwin[edge];
+		}
+
+		for (int i = 0; i < visibleSize; i++) {
+			freeFace(visible[i]);
+		}
+
+		// One triangle per horizon edge, fanning out from the eye point.
+		final int[] faceByVertex = vertexScratch;
+		for (int i = 0; i < horizonSize; i++) {
+			final int f = allocateFace(horizonFrom[i], horizonTo[i], eye);
+			final int edge = f * 3;
+
+			edgeTwin[edge] = horizonTwin[i];
+			edgeTwin[horizonTwin[i]] = edge;
+			newFaces[i] = f;
+			faceByVertex[horizonFrom[i]] = f;
+		}
+
+		for (int i = 0; i < horizonSize; i++) {
+			final int f = newFaces[i];
+			final int neighbour = faceByVertex[horizonTo[i]];
+
+			edgeTwin[f * 3 + 1] = neighbour * 3 + 2;
+			edgeTwin[neighbour * 3 + 2] = f * 3 + 1;
+		}
+
+		for (int i = 0; i < unclaimedSize; i++) {
+			assignToFace(unclaimed[i], newFaces, horizonSize);
+		}
+	}
+
+	/**
+	 * Finds the faces visible from the eye point, including those it is
+	 * coplanar with, and the loop of edges that bounds them.  The search is
+	 * an iterative depth-first walk so that large visible regions cannot
+	 * overflow the stack.
+	 */
+	private void computeHorizon(final int eye, final int face) {
+		visibleSize = 0;
+		horizonSize = 0;
+		unclaimedSize = 0;
+
+		markVisible(face);
+		int sp = 0;
+		stackEdge[sp] = face * 3;
+		stackRemaining[sp] = 3;
+		sp++;
+
+		while (sp > 0) {
+			final int top = sp - 1;
+			if (stackRemaining[top] == 0) {
+				sp--;
+				continue;
+			}
+
+			final int edge = stackEdge[top];
+			stackEdge[top] = next(edge);
+			stackRemaining[top]--;
+
+			final int twin = edgeTwin[edge];
+			final int other = twin / 3;
+			if (faceState[other] != ALIVE) {
+				continue;
+			}
+
+			// Faces the eye lies on are replaced too, which removes vertices
+			// that would otherwise be left in the middle of a flat region.
+			if (distance(other, eye) >= -epsilon) {
+				markVisible(other);
+				if (sp == stackEdge.length) {
+					stackEdge = Arrays.copyOf(stackEdge, sp * 2);
+					stackRemaining = Arrays.copyOf(stackRemaining, sp * 2);
+				}
+
+				// Continue around the neighbour, starting after the shared edge.
+				stackEdge[sp] = next(twin);
+				stackRemaining[sp] = 2;
+				sp++;
+			} else {
+				if (horizonSize == horizon.length) {
+					final int capacity = horizonSize * 2;
+					horizon = Arrays.copyOf(horizon, capacity);
+					horizonFrom = Arrays.copyOf(horizonFrom, capacity);
+					horizonTo = Arrays.copyOf(horizonTo, capacity);
+					horizonTwin = Arrays.copyOf(horizonTwin, capacity);
+					newFaces = Arrays.copyOf(newFaces, capacity);
+				}
+				horizon[horizonSize++] = edge;
+			}
+		}
+	}
+
+	private void markVisible(final int face) {
+		faceState[face] = VISIBLE;
+
+		if (visibleSize == visible.length) {
+			visible = Arrays.copyOf(visible, visibleSize * 2);
+		}
+		visible[visibleSize++] = face;
+
+		for (int p = faceOutside[face]; p != NONE; p = pointNext[p]) {
+			unclaimed[unclaimedSize++] = p;
+		}
+		faceOutside[face] = NONE;
+	}
+
+	/**
+	 * Adds the point to the outside list of whichever candidate face it is
+	 * furthest in front of, or drops it if it is inside all of them.
+	 */
+	private void assignToFace(final int point, final int[] candidates, final int numCandidates) {
+		int bestFace = NONE;
+		double bestDist = epsilon;
+
+		for (int i = 0; i < numCandidates; i++) {
+			final double dist = distance(candidates[i], point);
+			if (dist > bestDist) {
+				bestDist = dist;
+				bestFace = candidates[i];
+			}
+		}
+
+		if (bestFace == NONE) {
+			return;
+		}
+
+		final int head = faceOutside[bestFace];
+		if (head == NONE) {
+			pointNext[point] = NONE;
+			faceOutside[bestFace] = point;
+			faceMaxDist[bestFace] = bestDist;
+			push(bestFace);
+		} else if (isFurther(point, bestDist, head, faceMaxDist[bestFace], edgeVertex[bestFace * 3])) {
+			pointNext[point] = head;
+			faceOutside[bestFace] = point;
+			faceMaxDist[bestFace] = bestDist;
+		} else {
+			pointNext[point] = pointNext[head];
+			pointNext[head] = point;
+		}
+	}
+
+	private void push(final int face) {
+		if (pendingSize == pending.length) {
+			pending = Arrays.copyOf(pending, pendingSize * 2);
+		}
+		pending[pendingSize++] = face;
+	}
+
+	/* ::-------------------------------------------------------------------------::
+	 * Output
+	 */
+
+	private ConvexHull createHull() {
+		final int[] remap = vertexScratch;
+		Arrays.fill(remap, 0, count, NONE);
+
+		int numTriangles = 0;
+		int numVertices = 0;
+		for (int f = 0; f < faceHighWater; f++) {
+			if (faceState[f] != ALIVE) {
+				continue;
+			}
+
+			numTriangles++;
+			for (int e = f * 3; e < f * 3 + 3; e++) {
+				if (remap[edgeVertex[e]] == NONE) {
+					remap[edgeVertex[e]] = numVertices++;
+				}
+			}
+		}
+
+		final float[] vertices = new float[numVertices * 3];
+		final int[] originalIndices = new int[numVertices];
+		final int[] indices = new int[numTriangles * 3];
+
+		int t = 0;
+		for (int f = 0; f < faceHighWater; f++) {
+			if (faceState[f] != ALIVE) {
+				continue;
+			}
+
+			for (int e = f * 3; e < f * 3 + 3; e++) {
+				final int original = edgeVertex[e];
+				final int vertex = remap[original];
+
+				indices[t++] = vertex;
+				originalIndices[vertex] = original;
+				vertices[vertex * 3] = xs[original];
+				vertices[vertex * 3 + 1] = ys[original];
+				vertices[vertex * 3 + 2] = zs[original];
+			}
+		}
+
+		return new ConvexHull(vertices, originalIndices, indices);
+	}
+
+	/* ::-------------------------------------------------------------------------::
+	 * Face pool
+	 */
+
+	private int allocateFace(final int v0, final int v1, final int v2) {
+		final int face;
+		if (freeFace != NONE) {
+			face = freeFace;
+			freeFace = faceOutside[face];
+		} else {
+			if (faceHighWater == faceCapacity) {
+				allocateFaces(faceCapacity * 2);
+			}
+			face = faceHighWater++;
+		}
+
+		faceState[face] = ALIVE;
+		faceOutside[face] = NONE;
+		setFace(face, v0, v1, v2);
+		return face;
+	}
+
+	private void freeFace(final int face) {
+		faceState[face] = FREE;
+		faceOutside[face] = freeFace;
+		freeFace = face;
+	}
+
+	private void allocateFaces(final int capacity) {
+		faceCapacity = capacity;
+		if (faceState == null) {
+			faceState = new byte[capacity];
+			facePlanes = new double[capacity * 4];
+			faceOutside = new int[capacity];
+			faceMaxDist = new double[capacity];
+			edgeVertex = new int[capacity * 3];
+			edgeTwin = new int[capacity * 3];
+		} else {
+			faceState = Arrays.copyOf(faceState, capacity);
+			facePlanes = Arrays.copyOf(facePlanes, capacity * 4);
+			faceOutside = Arrays.copyOf(faceOutside, capacity);
+			faceMaxDist = Arrays.copyOf(faceMaxDist, capacity);
+			edgeVertex = Arrays.copyOf(edgeVertex, capacity * 3);
+			edgeTwin = Arrays.copyOf(edgeTwin, capacity * 3);
+		}
+	}
+
+	/**
+	 * Sets the vertices of a face and computes its plane.  The plane is
+	 * anchored at the centroid, which keeps the offset accurate for thin
+	 * triangles.
+	 */
+	private void setFace(final int face, final int v0, final int v1, final int v2) {
+		final int edge = face * 3;
+		edgeVertex[edge] = v0;
+		edgeVertex[edge + 1] = v1;
+		edgeVertex[edge + 2] = v2;
+
+		final double ax = xs[v1] - xs[v0], ay = ys[v1] - ys[v0], az = zs[v1] - zs[v0];
+		final double bx = xs[v2] - xs[v0], by = ys[v2] - ys[v0], bz = zs[v2] - zs[v0];
+		double nx = ay * bz - az * by;
+		double ny = az * bx - ax * bz;
+		double nz = ax * by - ay * bx;
+
+		final double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+		if (length > 0.0) {
+			nx /= length;
+			ny /= length;
+			nz /= length;
+		}
+
+		final double cx = ((double) xs[v0] + xs[v1] + xs[v2]) / 3.0;
+		final double cy = ((double) ys[v0] + ys[v1] + ys[v2]) / 3.0;
+		final double cz = ((double) zs[v0] + zs[v1] + zs[v2]) / 3.0;
+
+		final int p = face * 4;
+		facePlanes[p] = nx;
+		facePlanes[p + 1] = ny;
+		facePlanes[p + 2] = nz;
+		facePlanes[p + 3] = -(nx * cx + ny * cy + nz * cz);
+	}
+
+	private double distance(final int face, final int point) {
+		final int p = face * 4;
+		return facePlanes[p] * xs[point] + facePlanes[p + 1] * ys[point] + facePlanes[p + 2] * zs[point] + facePlanes[p + 3];
+	}
+
+	private double distanceSquared(final int a, final int b) {
+		final double dx = xs[a] - xs[b], dy = ys[a] - ys[b], dz = zs[a] - zs[b];
+		return dx * dx + dy * dy + dz * dz;
+	}
+
+	private static int next(final int edge) {
+		return edge % 3 == 2 ? edge - 2 : edge + 1;
+	}
+}
@@ -0,0 +1,55 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.collision;
+
+import com.hackoeur.jglm.Vec3;
+
+/**
+ * A sphere for use with {@link Gjk} and {@link Epa}.
+ */
+public final class SphereShape implements ConvexShape {
+	private final float x, y, z;
+	private final float radius;
+
+	public SphereShape(final Vec3 center, final float radius) {
+		this.x = center.getX();
+		this.y = center.getY();
+		this.z = center.getZ();
+		this.radius = radius;
+	}
+
+	@Override
+	public void support(final float dx, final float dy, final float dz, final float[] out) {
+		final float lengthSq = dx * dx + dy * dy + dz * dz;
+		if (lengthSq > 0f) {
+			final float scale = (float) (radius / Math.sqrt(lengthSq));
+			out[0] = x + dx * scale;
+			out[1] = y + dy * scale;
+			out[2] = z + dz * scale;
+		} else {
+			out[0] = x + radius;
+			out[1] = y;
+			out[2] = z;
+		}
+	}
+
+	public Vec3 getCenter() {
+		return new Vec3(x, y, z);
+	}
+
+	public float getRadius() {
+		return radius;
+	}
+}
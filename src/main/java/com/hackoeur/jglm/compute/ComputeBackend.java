@@ -0,0 +1,99 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.compute;
+
+/**
+ * Implementation of the bulk kernels.  Points and vectors are stored as
+ * separate {@code x}, {@code y} and {@code z} arrays, matrices as successive
+ * 4-tuples of <em>columns</em> as in {@link com.hackoeur.jglm.Mat4#Mat4(float[])},
+ * and planes as successive {@code a, b, c, d} 4-tuples.  Every array must hold
+ * at least {@code count} elements, or {@code count} 4-tuples or matrices.
+ * 
+ * <p>{@link ComputeBackendFactory} chooses the backend, and only uses one
+ * that is {@link #isAvailable() available} and gives the same results as
+ * {@link ScalarComputeBackend} in {@link ComputeBackendFactory#selfTest(ComputeBackend)}.
+ * Implementations must be safe to use from several threads at once.
+ */
+public interface ComputeBackend {
+	/**
+	 * @return short name of the implementation, such as "scalar"
+	 */
+	String getName();
+	
+	/**
+	 * Capability probe, such as for the processor features or library the
+	 * implementation needs.
+	 * 
+	 * @return whether this backend can run, and is worth using, on this JVM
+	 */
+	boolean isAvailable();
+	
+	/**
+	 * Transforms points, as {@link com.hackoeur.jglm.Mat4#multiply(com.hackoeur.jglm.Vec4)}
+	 * with {@code w = 1}.  The resulting {@code w} is dropped, so this suits
+	 * affine matrices.  The output arrays may be the input arrays.
+	 * 
+	 * @param matrix 16 elements, column by column
+	 */
+	void transformPoints(float[] matrix, float[] xs, float[] ys, float[] zs,
+			float[] outXs, float[] outYs, float[] outZs, int count);
+	
+	/**
+	 * Scales vectors to unit length.  Zero vectors stay zero.  The output
+	 * arrays may be the input arrays.
+	 */
+	void normalize(float[] xs, float[] ys, float[] zs,
+			float[] outXs, float[] outYs, float[] outZs, int count);
+	
+	/**
+	 * Classifies points against planes, as
+	 * {@link com.hackoeur.jglm.Plane#classify(com.hackoeur.jglm.Plane[], float[], float[], float[], int[], int)}:
+	 * bit {@code p} of each mask is set when the point is behind plane {@code p}.
+	 * 
+	 * @param planes at most 32 planes, 4 elements each
+	 * @return the number of points with a mask of zero
+	 */
+	int classify(float[] planes, float[] xs, float[] ys, float[] zs, int[] outMasks, int count);
+	
+	/**
+	 * Classifies points against one plane, as
+	 * {@link com.hackoeur.jglm.Plane#classify(com.hackoeur.jglm.Vec3, float)}:
+	 * each result is {@code 1} in front of the plane, {@code -1} behind it and
+	 * {@code 0} within {@code epsilon} of it.
+	 * 
+	 * @param plane 4 elements
+	 * @return the number of points that are not behind the plane
+	 */
+	int classify(float[] plane, float[] xs, float[] ys, float[] zs, int[] out, int count, float epsilon);
+	
+	/**
+	 * Computes, for each point, the smallest signed distance to any of the
+	 * planes, as {@link com.hackoeur.jglm.Plane#minSignedDistances(com.hackoeur.jglm.Plane[], float[], float[], float[], float[], int)};
+	 * for a single plane, the signed distance to it.  The output must not
+	 * overlap the inputs.
+	 * 
+	 * @param planes at least one plane, 4 elements each
+	 */
+	void signedDistances(float[] planes, float[] xs, float[] ys, float[] zs, float[] out, int count);
+	
+	/**
+	 * Multiplies pairs of matrices, as {@link com.hackoeur.jglm.Mat4#multiply(com.hackoeur.jglm.Mat4)}:
+	 * {@code out[i] = left[i] * right[i]}.  The output must not overlap either
+	 * input.
+	 * 
+	 * @param count number of matrices, 16 elements each
+	 */
+	void multiply(float[] left, float[] right, float[] out, int count);
+}
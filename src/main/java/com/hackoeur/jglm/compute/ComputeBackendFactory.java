@@ -0,0 +1,282 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.compute;
+
+import java.util.Random;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+import com.hackoeur.jglm.support.Compare;
+import com.hackoeur.jglm.support.JglmConfig;
+
+/**
+ * Gets the {@link ComputeBackend} used by the bulk kernels.  The candidates
+ * are, in order:
+ * <ol>
+ * <li>the class named by the <code>jglm.ComputeBackendClass</code>
+ * configuration property;</li>
+ * <li>providers of {@link ComputeBackend} found by {@link ServiceLoader},
+ * i.e. listed in <code>META-INF/services/com.hackoeur.jglm.compute.ComputeBackend</code>.</li>
+ * </ol>
+ * The first candidate that is {@link ComputeBackend#isAvailable() available}
+ * and passes {@link #selfTest(ComputeBackend)} is used; otherwise the
+ * {@link ScalarComputeBackend}.
+ */
+public class ComputeBackendFactory {
+	/** Points per kernel in the self-test; enough to be split by a parallel backend. */
+	private static final int SELF_TEST_POINTS = 3 * ParallelComputeBackend.MIN_POINTS_PER_THREAD + 5;
+	private static final int SELF_TEST_MATRICES = 3 * ParallelComputeBackend.MIN_MATRICES_PER_THREAD + 5;
+	private static final int SELF_TEST_PLANES = 6;
+	
+	/*
+	 * Inputs are kept small, so these allow for a different order of
+	 * operations or a fused multiply-add but not for a wrong result.
+	 */
+	private static final int MAX_ULPS = 4;
+	private static final float ABSOLUTE_EPSILON = 1e-4f;
+	private static final float RELATIVE_EPSILON = 1e-5f;
+	
+	private static final ComputeBackend DEFAULT_INSTANCE;
+	
+	static {
+		DEFAULT_INSTANCE = select(
+				JglmConfig.getInstancePropertyOrNull("ComputeBackendClass", ComputeBackend.class),
+				ServiceLoader.load(ComputeBackend.class));
+	}
+	
+	/**
+	 * @return the selected backend, never {@code null}
+	 */
+	public static final ComputeBackend getInstance() {
+		return DEFAULT_INSTANCE;
+	}
+	
+	/**
+	 * Runs every kernel of a backend on fixed pseudo-random inputs and compares
+	 * the results with those of {@link ScalarComputeBackend}.  Results must
+	 * agree to within a few units in the last place; points very close to a
+	 * plane may be classified either way.
+	 * 
+	 * @return {@code true} if the backend passes; {@code false} if a result
+	 * differs or the backend throws
+	 */
+	public static boolean selfTest(final ComputeBackend backend) {
+		try {
+			return testTransformPoints(backend) && testNormalize(backend)
+					&& testClassify(backend) && testClassifyAgainstPlane(backend)
+					&& testSignedDistances(backend) && testMultiply(backend);
+		} catch (RuntimeException e) {
+			return false;
+		}
+	}
+	
+	/**
+	 * @param configured the configured backend, or {@code null}
+	 * @param discovered backends found by the service loader
+	 * @return the first candidate that is available and passes the self-test,
+	 * or the scalar backend
+	 */
+	static ComputeBackend select(final ComputeBackend configured, final Iterable<ComputeBackend> discovered) {
+		if (isUsable(configured)) {
+			return configured;
+		}
+		
+		try {
+			for (final ComputeBackend candidate : discovered) {
+				if (isUsable(candidate)) {
+					return candidate;
+				}
+			}
+		} catch (ServiceConfigurationError e) {
+			// A provider could not be loaded; fall back to the reference.
+		}
+		
+		return new ScalarComputeBackend();
+	}
+	
+	private static boolean isUsable(final ComputeBackend candidate) {
+		if (candidate == null) {
+			return false;
+		}
+		
+		try {
+			return candidate.isAvailable() && selfTest(candidate);
+		} catch (RuntimeException e) {
+			return false;
+		} catch (LinkageError e) {
+			// Such as a backend whose native library or incubator module is missing.
+			return false;
+		}
+	}
+	
+	private static boolean testTransformPoints(final ComputeBackend backend) {
+		final Random random = new Random(1);
+		final float[] matrix = randomFloats(random, 16, 1f);
+		final float[] xs = randomFloats(random, SELF_TEST_POINTS, 10f);
+		final float[] ys = randomFloats(random, SELF_TEST_POINTS, 10f);
+		final float[] zs = randomFloats(random, SELF_TEST_POINTS, 10f);
+		
+		final float[][] expected = new float[3][SELF_TEST_POINTS];
+		ScalarComputeBackend.transformPoints(matrix, xs, ys, zs, expected[0], expected[1], expected[2], 0, SELF_TEST_POINTS);
+		
+		final float[][] actual = new float[3][SELF_TEST_POINTS];
+		backend.transformPoints(matrix, xs, ys, zs, actual[0], actual[1], actual[2], SELF_TEST_POINTS);
+		
+		return matches(expected, actual);
+	}
+	
+	private static boolean testNormalize(final ComputeBackend backend) {
+		final Random random = new Random(2);
+		final float[][] vectors = {
+				randomFloats(random, SELF_TEST_POINTS, 10f),
+				randomFloats(random, SELF_TEST_POINTS, 10f),
+				randomFloats(random, SELF_TEST_POINTS, 10f)
+		};
+		// A zero vector and a tiny one.
+		vectors[0][0] = vectors[1][0] = vectors[2][0] = 0f;
+		vectors[0][1] = 1e-20f;
+		
+		final float[][] expected = new float[3][SELF_TEST_POINTS];
+		ScalarComputeBackend.normalize(vectors[0], vectors[1], vectors[2], expected[0], expected[1], expected[2], 0, SELF_TEST_POINTS);
+		
+		// In place, as callers may do.
+		backend.normalize(vectors[0], vectors[1], vectors[2], vectors[0], vectors[1], vectors[2], SELF_TEST_POINTS);
+		
+		return matches(expected, vectors);
+	}
+	
+	private static boolean testClassify(final ComputeBackend backend) {
+		final Random random = new Random(3);
+		final float[] planes = randomPlanes(random, SELF_TEST_PLANES);
+		final float[] xs = randomFloats(random, SELF_TEST_POINTS, 10f);
+		final float[] ys = randomFloats(random, SELF_TEST_POINTS, 10f);
+		final float[] zs = randomFloats(random, SELF_TEST_POINTS, 10f);
+		
+		final int[] expected = new int[SELF_TEST_POINTS];
+		ScalarComputeBackend.classify(planes, xs, ys, zs, expected, 0, SELF_TEST_POINTS);
+		
+		final int[] actual = new int[SELF_TEST_POINTS];
+		final int inside = backend.classify(planes, xs, ys, zs, actual, SELF_TEST_POINTS);
+		
+		int actualInside = 0;
+		for (int i = 0; i < SELF_TEST_POINTS; i++) {
+			actualInside += actual[i] == 0 ? 1 : 0;
+			
+			int eitherWay = 0;
+			for (int p = 0; p < planes.length; p += 4) {
+				final float dist = planes[p] * xs[i] + planes[p + 1] * ys[i] + planes[p + 2] * zs[i] + planes[p + 3];
+				eitherWay |= Math.abs(dist) <= ABSOLUTE_EPSILON ? 1 << (p >> 2) : 0;
+			}
+			
+			if (((expected[i] ^ actual[i]) & ~eitherWay) != 0) {
+				return false;
+			}
+		}
+		
+		return inside == actualInside;
+	}
+	
+	private static boolean testClassifyAgainstPlane(final ComputeBackend backend) {
+		final Random random = new Random(5);
+		final float[] plane = randomPlanes(random, 1);
+		final float epsilon = 0.5f;
+		final float[] xs = randomFloats(random, SELF_TEST_POINTS, 10f);
+		final float[] ys = randomFloats(random, SELF_TEST_POINTS, 10f);
+		final float[] zs = randomFloats(random, SELF_TEST_POINTS, 10f);
+		
+		final int[] expected = new int[SELF_TEST_POINTS];
+		ScalarComputeBackend.classify(plane, xs, ys, zs, expected, epsilon, 0, SELF_TEST_POINTS);
+		
+		final int[] actual = new int[SELF_TEST_POINTS];
+		final int notBehind = backend.classify(plane, xs, ys, zs, actual, SELF_TEST_POINTS, epsilon);
+		
+		int actualNotBehind = 0;
+		for (int i = 0; i < SELF_TEST_POINTS; i++) {
+			actualNotBehind += actual[i] >= 0 ? 1 : 0;
+			
+			final float dist = plane[0] * xs[i] + plane[1] * ys[i] + plane[2] * zs[i] + plane[3];
+			final boolean eitherWay = Math.abs(Math.abs(dist) - epsilon) <= ABSOLUTE_EPSILON;
+			if (expected[i] != actual[i] && !eitherWay) {
+				return false;
+			}
+		}
+		
+		return notBehind == actualNotBehind;
+	}
+	
+	private static boolean testSignedDistances(final ComputeBackend backend) {
+		final Random random = new Random(6);
+		final float[] planes = randomPlanes(random, SELF_TEST_PLANES);
+		final float[] xs = randomFloats(random, SELF_TEST_POINTS, 10f);
+		final float[] ys = randomFloats(random, SELF_TEST_POINTS, 10f);
+		final float[] zs = randomFloats(random, SELF_TEST_POINTS, 10f);
+		
+		final float[][] expected = { new float[SELF_TEST_POINTS] };
+		ScalarComputeBackend.signedDistances(planes, xs, ys, zs, expected[0], 0, SELF_TEST_POINTS);
+		
+		final float[][] actual = { new float[SELF_TEST_POINTS] };
+		backend.signedDistances(planes, xs, ys, zs, actual[0], SELF_TEST_POINTS);
+		
+		return matches(expected, actual);
+	}
+	
+	private static boolean testMultiply(final ComputeBackend backend) {
+		final Random random = new Random(4);
+		final float[] left = randomFloats(random, 16 * SELF_TEST_MATRICES, 1f);
+		final float[] right = randomFloats(random, 16 * SELF_TEST_MATRICES, 1f);
+		
+		final float[][] expected = { new float[16 * SELF_TEST_MATRICES] };
+		ScalarComputeBackend.multiply(left, right, expected[0], 0, SELF_TEST_MATRICES);
+		
+		final float[][] actual = { new float[16 * SELF_TEST_MATRICES] };
+		backend.multiply(left, right, actual[0], SELF_TEST_MATRICES);
+		
+		return matches(expected, actual);
+	}
+	
+	/**
+	 * @return unit-normal planes within 5 units of the origin
+	 */
+	private static float[] randomPlanes(final Random random, final int count) {
+		final float[] planes = new float[count * 4];
+		for (int p = 0; p < planes.length; p += 4) {
+			final float[] normal = randomFloats(random, 3, 1f);
+			final float invLength = (float) (1.0 / Math.sqrt(normal[0] * normal[0] + normal[1] * normal[1] + normal[2] * normal[2]));
+			planes[p] = normal[0] * invLength;
+			planes[p + 1] = normal[1] * invLength;
+			planes[p + 2] = normal[2] * invLength;
+			planes[p + 3] = 5f * (random.nextFloat() * 2f - 1f);
+		}
+		return planes;
+	}
+	
+	private static float[] randomFloats(final Random random, final int count, final float magnitude) {
+		final float[] result = new float[count];
+		for (int i = 0; i < count; i++) {
+			result[i] = magnitude * (random.nextFloat() * 2f - 1f);
+		}
+		return result;
+	}
+	
+	private static boolean matches(final float[][] expected, final float[][] actual) {
+		for (int i = 0; i < expected.length; i++) {
+			if (Compare.firstMismatch(expected[i], 0, actual[i], 0, expected[i].length,
+					MAX_ULPS, ABSOLUTE_EPSILON, RELATIVE_EPSILON) != -1) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
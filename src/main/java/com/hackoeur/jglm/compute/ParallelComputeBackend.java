@@ -0,0 +1,270 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.compute;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Splits large calls into contiguous ranges run by the scalar kernels on
+ * several threads, the calling thread among them; results are identical to
+ * {@link ScalarComputeBackend}.  Small calls run on the calling thread only.
+ * The worker threads are daemons and live as long as the backend.
+ * 
+ * <p>Select it with <code>jglm.ComputeBackendClass=com.hackoeur.jglm.compute.ParallelComputeBackend</code>.
+ * It is only {@link #isAvailable() available} with more than one thread.
+ */
+public class ParallelComputeBackend implements ComputeBackend {
+	/** Fewest points or vectors per thread; below this, splitting costs more than it saves. */
+	static final int MIN_POINTS_PER_THREAD = 4096;
+	
+	/** Fewest matrix products per thread. */
+	static final int MIN_MATRICES_PER_THREAD = 512;
+	
+	/** A kernel over the elements [from, to), returning a count to be summed. */
+	private static abstract class Kernel {
+		abstract int run(int from, int to);
+	}
+	
+	private static class Range implements Callable<Integer> {
+		private final Kernel kernel;
+		private final int from, to;
+		
+		Range(final Kernel kernel, final int from, final int to) {
+			this.kernel = kernel;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		public Integer call() {
+			return kernel.run(from, to);
+		}
+	}
+	
+	private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+	
+	private final int threads;
+	private final ExecutorService workers;
+	
+	/**
+	 * Uses one thread per available processor.
+	 */
+	public ParallelComputeBackend() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * @param threads number of threads per call, including the caller's
+	 */
+	public ParallelComputeBackend(final int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("At least one thread is required, got " + threads);
+		}
+		
+		this.threads = threads;
+		this.workers = threads == 1 ? null : Executors.newFixedThreadPool(threads - 1, new ThreadFactory() {
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				final Thread thread = new Thread(runnable, "jglm-compute-" + THREAD_NUMBER.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+	
+	@Override
+	public String getName() {
+		return "parallel";
+	}
+	
+	/**
+	 * @return {@code true} if calls can be split across more than one thread
+	 */
+	@Override
+	public boolean isAvailable() {
+		return threads > 1;
+	}
+	
+	public int getThreads() {
+		return threads;
+	}
+	
+	@Override
+	public void transformPoints(final float[] matrix, final float[] xs, final float[] ys, final float[] zs,
+			final float[] outXs, final float[] outYs, final float[] outZs, final int count) {
+		if (parts(count, MIN_POINTS_PER_THREAD) == 1) {
+			ScalarComputeBackend.transformPoints(matrix, xs, ys, zs, outXs, outYs, outZs, 0, count);
+			return;
+		}
+		
+		split(count, MIN_POINTS_PER_THREAD, new Kernel() {
+			@Override
+			int run(final int from, final int to) {
+				ScalarComputeBackend.transformPoints(matrix, xs, ys, zs, outXs, outYs, outZs, from, to);
+				return 0;
+			}
+		});
+	}
+	
+	@Override
+	public void normalize(final float[] xs, final float[] ys, final float[] zs,
+			final float[] outXs, final float[] outYs, final float[] outZs, final int count) {
+		if (parts(count, MIN_POINTS_PER_THREAD) == 1) {
+			ScalarComputeBackend.normalize(xs, ys, zs, outXs, outYs, outZs, 0, count);
+			return;
+		}
+		
+		split(count, MIN_POINTS_PER_THREAD, new Kernel() {
+			@Override
+			int run(final int from, final int to) {
+				ScalarComputeBackend.normalize(xs, ys, zs, outXs, outYs, outZs, from, to);
+				return 0;
+			}
+		});
+	}
+	
+	@Override
+	public int classify(final float[] planes, final float[] xs, final float[] ys, final float[] zs, final int[] outMasks, final int count) {
+		ScalarComputeBackend.checkPlanes(planes);
+		
+		if (parts(count, MIN_POINTS_PER_THREAD) == 1) {
+			return ScalarComputeBackend.classify(planes, xs, ys, zs, outMasks, 0, count);
+		}
+		
+		return split(count, MIN_POINTS_PER_THREAD, new Kernel() {
+			@Override
+			int run(final int from, final int to) {
+				return ScalarComputeBackend.classify(planes, xs, ys, zs, outMasks, from, to);
+			}
+		});
+	}
+	
+	@Override
+	public int classify(final float[] plane, final float[] xs, final float[] ys, final float[] zs, final int[] out,
+			final int count, final float epsilon) {
+		if (parts(count, MIN_POINTS_PER_THREAD) == 1) {
+			return ScalarComputeBackend.classify(plane, xs, ys, zs, out, epsilon, 0, count);
+		}
+		
+		return split(count, MIN_POINTS_PER_THREAD, new Kernel() {
+			@Override
+			int run(final int from, final int to) {
+				return ScalarComputeBackend.classify(plane, xs, ys, zs, out, epsilon, from, to);
+			}
+		});
+	}
+	
+	@Override
+	public void signedDistances(final float[] planes, final float[] xs, final float[] ys, final float[] zs, final float[] out, final int count) {
+		ScalarComputeBackend.checkDistancePlanes(planes);
+		
+		if (parts(count, MIN_POINTS_PER_THREAD) == 1) {
+			ScalarComputeBackend.signedDistances(planes, xs, ys, zs, out, 0, count);
+			return;
+		}
+		
+		split(count, MIN_POINTS_PER_THREAD, new Kernel() {
+			@Override
+			int run(final int from, final int to) {
+				ScalarComputeBackend.signedDistances(planes, xs, ys, zs, out, from, to);
+				return 0;
+			}
+		});
+	}
+	
+	@Override
+	public void multiply(final float[] left, final float[] right, final float[] out, final int count) {
+		if (parts(count, MIN_MATRICES_PER_THREAD) == 1) {
+			ScalarComputeBackend.multiply(left, right, out, 0, count);
+			return;
+		}
+		
+		split(count, MIN_MATRICES_PER_THREAD, new Kernel() {
+			@Override
+			int run(final int from, final int to) {
+				ScalarComputeBackend.multiply(left, right, out, from, to);
+				return 0;
+			}
+		});
+	}
+	
+	private int parts(final int count, final int minPerThread) {
+		return Math.max(1, Math.min(threads, count / minPerThread));
+	}
+	
+	/**
+	 * Runs the first range on the calling thread and the others on workers,
+	 * and returns once all have finished, so that no worker still writes to
+	 * the caller's arrays when a range fails or the caller is interrupted.
+	 * 
+	 * @return the sum of the ranges' results
+	 */
+	private int split(final int count, final int minPerThread, final Kernel kernel) {
+		final int parts = parts(count, minPerThread);
+		final List<Future<Integer>> others = new ArrayList<Future<Integer>>(parts - 1);
+		for (int part = 1; part < parts; part++) {
+			others.add(workers.submit(new Range(kernel, bound(count, parts, part), bound(count, parts, part + 1))));
+		}
+		
+		int result = 0;
+		Throwable failure = null;
+		try {
+			result = kernel.run(0, bound(count, parts, 1));
+		} catch (RuntimeException e) {
+			failure = e;
+		}
+		
+		boolean interrupted = false;
+		for (final Future<Integer> other : others) {
+			while (true) {
+				try {
+					result += other.get();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					if (failure == null) {
+						failure = e.getCause();
+					}
+					break;
+				}
+			}
+		}
+		
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		}
+		if (failure instanceof Error) {
+			throw (Error) failure;
+		}
+		
+		return result;
+	}
+	
+	private static int bound(final int count, final int parts, final int part) {
+		return (int) ((long) count * part / parts);
+	}
+}
@@ -0,0 +1,186 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.compute;
+
+import com.hackoeur.jglm.support.Fma;
+
+/**
+ * Plain loops on the calling thread; the reference that other backends are
+ * tested against, and the default.  Transforms and products use the same
+ * arithmetic as the general paths of {@link com.hackoeur.jglm.Mat4}.
+ */
+public class ScalarComputeBackend implements ComputeBackend {
+	@Override
+	public String getName() {
+		return "scalar";
+	}
+	
+	@Override
+	public boolean isAvailable() {
+		return true;
+	}
+	
+	@Override
+	public void transformPoints(final float[] matrix, final float[] xs, final float[] ys, final float[] zs,
+			final float[] outXs, final float[] outYs, final float[] outZs, final int count) {
+		transformPoints(matrix, xs, ys, zs, outXs, outYs, outZs, 0, count);
+	}
+	
+	@Override
+	public void normalize(final float[] xs, final float[] ys, final float[] zs,
+			final float[] outXs, final float[] outYs, final float[] outZs, final int count) {
+		normalize(xs, ys, zs, outXs, outYs, outZs, 0, count);
+	}
+	
+	@Override
+	public int classify(final float[] planes, final float[] xs, final float[] ys, final float[] zs, final int[] outMasks, final int count) {
+		checkPlanes(planes);
+		return classify(planes, xs, ys, zs, outMasks, 0, count);
+	}
+	
+	@Override
+	public int classify(final float[] plane, final float[] xs, final float[] ys, final float[] zs, final int[] out,
+			final int count, final float epsilon) {
+		return classify(plane, xs, ys, zs, out, epsilon, 0, count);
+	}
+	
+	@Override
+	public void signedDistances(final float[] planes, final float[] xs, final float[] ys, final float[] zs, final float[] out, final int count) {
+		checkDistancePlanes(planes);
+		signedDistances(planes, xs, ys, zs, out, 0, count);
+	}
+	
+	@Override
+	public void multiply(final float[] left, final float[] right, final float[] out, final int count) {
+		multiply(left, right, out, 0, count);
+	}
+	
+	/* ::-------------------------------------------------------------------------::
+	 * Kernels over the elements [from, to), for backends that split the work.
+	 */
+	
+	static void transformPoints(final float[] matrix, final float[] xs, final float[] ys, final float[] zs,
+			final float[] outXs, final float[] outYs, final float[] outZs, final int from, final int to) {
+		final float m00 = matrix[0], m01 = matrix[1], m02 = matrix[2];
+		final float m10 = matrix[4], m11 = matrix[5], m12 = matrix[6];
+		final float m20 = matrix[8], m21 = matrix[9], m22 = matrix[10];
+		final float m30 = matrix[12], m31 = matrix[13], m32 = matrix[14];
+		
+		for (int i = from; i < to; i++) {
+			final float x = xs[i], y = ys[i], z = zs[i];
+			outXs[i] = Fma.dot4(m00, m10, m20, m30, x, y, z, 1f);
+			outYs[i] = Fma.dot4(m01, m11, m21, m31, x, y, z, 1f);
+			outZs[i] = Fma.dot4(m02, m12, m22, m32, x, y, z, 1f);
+		}
+	}
+	
+	static void normalize(final float[] xs, final float[] ys, final float[] zs,
+			final float[] outXs, final float[] outYs, final float[] outZs, final int from, final int to) {
+		for (int i = from; i < to; i++) {
+			final float x = xs[i], y = ys[i], z = zs[i];
+			final float lengthSquared = x * x + y * y + z * z;
+			final float invLength = lengthSquared > 0f ? (float) (1.0 / Math.sqrt(lengthSquared)) : 0f;
+			
+			outXs[i] = x * invLength;
+			outYs[i] = y * invLength;
+			outZs[i] = z * invLength;
+		}
+	}
+	
+	static int classify(final float[] planes, final float[] xs, final float[] ys, final float[] zs, final int[] outMasks,
+			final int from, final int to) {
+		for (int i = from; i < to; i++) {
+			outMasks[i] = 0;
+		}
+		
+		// One pass per plane keeps the inner loop simple enough to vectorize.
+		for (int p = 0; p < planes.length; p += 4) {
+			final float a = planes[p], b = planes[p + 1], c = planes[p + 2], d = planes[p + 3];
+			final int bit = 1 << (p >> 2);
+			
+			for (int i = from; i < to; i++) {
+				final float dist = a * xs[i] + b * ys[i] + c * zs[i] + d;
+				outMasks[i] |= dist < 0f ? bit : 0;
+			}
+		}
+		
+		int inside = 0;
+		for (int i = from; i < to; i++) {
+			inside += outMasks[i] == 0 ? 1 : 0;
+		}
+		
+		return inside;
+	}
+	
+	static int classify(final float[] plane, final float[] xs, final float[] ys, final float[] zs, final int[] out,
+			final float epsilon, final int from, final int to) {
+		final float a = plane[0], b = plane[1], c = plane[2], d = plane[3];
+		int notBehind = 0;
+		
+		for (int i = from; i < to; i++) {
+			final float dist = a * xs[i] + b * ys[i] + c * zs[i] + d;
+			final int front = dist > epsilon ? 1 : 0;
+			final int behind = dist < -epsilon ? 1 : 0;
+			
+			out[i] = front - behind;
+			notBehind += 1 - behind;
+		}
+		
+		return notBehind;
+	}
+	
+	static void signedDistances(final float[] planes, final float[] xs, final float[] ys, final float[] zs, final float[] out,
+			final int from, final int to) {
+		final float a0 = planes[0], b0 = planes[1], c0 = planes[2], d0 = planes[3];
+		for (int i = from; i < to; i++) {
+			out[i] = a0 * xs[i] + b0 * ys[i] + c0 * zs[i] + d0;
+		}
+		
+		for (int p = 4; p < planes.length; p += 4) {
+			final float a = planes[p], b = planes[p + 1], c = planes[p + 2], d = planes[p + 3];
+			
+			for (int i = from; i < to; i++) {
+				final float dist = a * xs[i] + b * ys[i] + c * zs[i] + d;
+				out[i] = Math.min(out[i], dist);
+			}
+		}
+	}
+	
+	static void multiply(final float[] left, final float[] right, final float[] out, final int from, final int to) {
+		for (int m = from * 16; m < to * 16; m += 16) {
+			for (int column = 0; column < 16; column += 4) {
+				final float r0 = right[m + column], r1 = right[m + column + 1],
+						r2 = right[m + column + 2], r3 = right[m + column + 3];
+				
+				for (int row = 0; row < 4; row++) {
+					out[m + column + row] = Fma.dot4(left[m + row], left[m + 4 + row], left[m + 8 + row], left[m + 12 + row],
+							r0, r1, r2, r3);
+				}
+			}
+		}
+	}
+	
+	static void checkPlanes(final float[] planes) {
+		if (planes.length > 32 * 4 || planes.length % 4 != 0) {
+			throw new IllegalArgumentException("Expected up to 32 planes of 4 elements, got " + planes.length + " elements");
+		}
+	}
+	
+	static void checkDistancePlanes(final float[] planes) {
+		if (planes.length == 0 || planes.length % 4 != 0) {
+			throw new IllegalArgumentException("Expected at least one plane of 4 elements, got " + planes.length + " elements");
+		}
+	}
+}
@@ -0,0 +1,636 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.spatial;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.hackoeur.jglm.Vec3;
+import com.hackoeur.jglm.support.Telemetry;
+
+/**
+ * A static 3D k-d tree for nearest-neighbour queries over large point sets.
+ *
+ * <p>The tree has no node objects.  Points are reordered so that the node for
+ * any index range {@code [lo, hi)} is the point at {@code (lo + hi) / 2}, with
+ * its left and right subtrees in the ranges on either side.  The only extra
+ * storage is the split axis of each node and the original index of each point.
+ * Each split is placed at the exact median so the tree is balanced; the
+ * selection's pivots and the split axis are both taken from a small sample of
+ * the range, which keeps construction fast on large clouds.
+ *
+ * <p>Queries never allocate.  Results are written into caller-owned arrays and
+ * are reported as indices into the arrays the tree was built from, with
+ * <em>squared</em> distances.  Once built the tree is immutable, so any number
+ * of threads may query it at the same time.
+ */
+public final class KdTree {
+	/** Ranges this small are scanned linearly instead of being descended. */
+	private static final int LEAF_SIZE = 8;
+
+	/** Number of points sampled to choose an axis or a pivot. */
+	private static final int SAMPLE_SIZE = 15;
+
+	/** Minimum number of queries given to each task of a bulk query. */
+	private static final int MIN_CHUNK = 1024;
+
+	private final int size;
+	private final float[] xs;
+	private final float[] ys;
+	private final float[] zs;
+	private final int[] indices;
+	private final byte[] axes;
+
+	/**
+	 * Builds a tree over the first {@code count} points of the given arrays.
+	 * The arrays are copied and are not modified.
+	 */
+	public KdTree(final float[] xs, final float[] ys, final float[] zs, final int count) {
+		if (count < 0 || count > xs.length || count > ys.length || count > zs.length) {
+			throw new IllegalArgumentException("Invalid point count = " + count);
+		}
+
+		final Telemetry.Span span = Telemetry.begin(Telemetry.Kind.SPATIAL_REBUILD, "KdTree.build");
+		this.size = count;
+		this.xs = new float[count];
+		this.ys = new float[count];
+		this.zs = new float[count];
+		this.indices = new int[count];
+		this.axes = new byte[count];
+
+		System.arraycopy(xs, 0, this.xs, 0, count);
+		System.arraycopy(ys, 0, this.ys, 0, count);
+		System.arraycopy(zs, 0, this.zs, 0, count);
+		for (int i = 0; i < count; i++) {
+			indices[i] = i;
+		}
+
+		build(0, count, new float[SAMPLE_SIZE]);
+		span.end(count);
+	}
+
+	public KdTree(final Vec3[] points) {
+		this(xsOf(points), ysOf(points), zsOf(points), points.length);
+	}
+
+	/**
+	 * @return number of points in the tree
+	 */
+	public int size() {
+		return size;
+	}
+
+	/* ::-------------------------------------------------------------------------::
+	 * Nearest neighbour
+	 */
+
+	/**
+	 * @return the index of the point nearest to the query point, or {@code -1}
+	 * if the tree is empty
+	 */
+	public int nearest(final float x, final float y, final float z) {
+		if (size == 0) {
+			return -1;
+		}
+		return indices[nearest(0, size, x, y, z, -1, Float.POSITIVE_INFINITY)];
+	}
+
+	public int nearest(final Vec3 point) {
+		return nearest(point.getX(), point.getY(), point.getZ());
+	}
+
+	private int nearest(final int lo, final int hi, final float x, final float y, final float z,
+			int best, float bestDistSq) {
+		if (hi - lo <= LEAF_SIZE) {
+			for (int i = lo; i < hi; i++) {
+				final float d = distSq(i, x, y, z);
+				if (best < 0 || d < bestDistSq) {
+					bestDistSq = d;
+					best = i;
+				}
+			}
+			return best;
+		}
+
+		final int mid = (lo + hi) >>> 1;
+		// The first point visited is taken whatever its distance, which may be
+		// infinite or NaN for a far away or NaN query.
+		final float d = distSq(mid, x, y, z);
+		if (best < 0 || d < bestDistSq) {
+			bestDistSq = d;
+			best = mid;
+		}
+
+		final float diff = axisDelta(mid, x, y, z);
+		if (diff < 0f) {
+			best = nearest(lo, mid, x, y, z, best, bestDistSq);
+			bestDistSq = distSq(best, x, y, z);
+			if (diff * diff < bestDistSq) {
+				best = nearest(mid + 1, hi, x, y, z, best, bestDistSq);
+			}
+		} else {
+			best = nearest(mid + 1, hi, x, y, z, best, bestDistSq);
+			bestDistSq = distSq(best, x, y, z);
+			if (diff * diff < bestDistSq) {
+				best = nearest(lo, mid, x, y, z, best, bestDistSq);
+			}
+		}
+
+		return best;
+	}
+
+	/* ::-------------------------------------------------------------------------::
+	 * k nearest neighbours
+	 */
+
+	/**
+	 * Finds the {@code k} points nearest to the query point.
+	 *
+	 * @param outIndices receives point indices, nearest first; must hold at
+	 * least {@code k} elements
+	 * @param outDistSq receives squared distances matching {@code outIndices};
+	 * must hold at least {@code k} elements
+	 * @return the number of neighbours found, which is {@code min(k, size())}
+	 */
+	public int nearest(final float x, final float y, final float z, final int k,
+			final int[] outIndices, final float[] outDistSq) {
+		return nearest(x, y, z, k, outIndices, outDistSq, 0);
+	}
+
+	private int nearest(final float x, final float y, final float z, final int k,
+			final int[] outIndices, final float[] outDistSq, final int offset) {
+		if (k <= 0 || size == 0) {
+			return 0;
+		}
+
+		// The output arrays double as a max-heap of the best candidates.
+		final int found = kNearest(0, size, x, y, z, k, outIndices, outDistSq, offset, 0);
+
+		// Heap sort into ascending order, then map slots to original indices.
+		for (int n = found - 1; n > 0; n--) {
+			swap(outIndices, outDistSq, offset, offset + n);
+			siftDown(outIndices, outDistSq, offset, 0, n);
+		}
+		for (int i = offset; i < offset + found; i++) {
+			outIndices[i] = indices[outIndices[i]];
+		}
+
+		return found;
+	}
+
+	private int kNearest(final int lo, final int hi, final float x, final float y, final float z,
+			final int k, final int[] heap, final float[] heapDist, final int offset, int count) {
+		if (hi - lo <= LEAF_SIZE) {
+			for (int i = lo; i < hi; i++) {
+				count = offer(i, distSq(i, x, y, z), k, heap, heapDist, offset, count);
+			}
+			return count;
+		}
+
+		final int mid = (lo + hi) >>> 1;
+		count = offer(mid, distSq(mid, x, y, z), k, heap, heapDist, offset, count);
+
+		final float diff = axisDelta(mid, x, y, z);
+		final int nearLo = diff < 0f ? lo : mid + 1;
+		final int nearHi = diff < 0f ? mid : hi;
+		final int farLo = diff < 0f ? mid + 1 : lo;
+		final int farHi = diff < 0f ? hi : mid;
+
+		count = kNearest(nearLo, nearHi, x, y, z, k, heap, heapDist, offset, count);
+		if (count < k || diff * diff < heapDist[offset]) {
+			count = kNearest(farLo, farHi, x, y, z, k, heap, heapDist, offset, count);
+		}
+
+		return count;
+	}
+
+	private static int offer(final int slot, final float distSq, final int k,
+			final int[] heap, final float[] heapDist, final int offset, final int count) {
+		if (count < k) {
+			// Sift up.
+			int i = count;
+			while (i > 0) {
+				final int parent = (i - 1) >>> 1;
+				if (heapDist[offset + parent] >= distSq) {
+					break;
+				}
+				heap[offset + i] = heap[offset + parent];
+				heapDist[offset + i] = heapDist[offset + parent];
+				i = parent;
+			}
+			heap[offset + i] = slot;
+			heapDist[offset + i] = distSq;
+			return count + 1;
+		}
+
+		if (distSq < heapDist[offset]) {
+			heap[offset] = slot;
+			heapDist[offset] = distSq;
+			siftDown(heap, heapDist, offset, 0, count);
+		}
+		return count;
+	}
+
+	private static void siftDown(final int[] heap, final float[] heapDist, final int offset, int i, final int count) {
+		final int slot = heap[offset + i];
+		final float dist = heapDist[offset + i];
+
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= count) {
+				break;
+			}
+			if (child + 1 < count && heapDist[offset + child + 1] > heapDist[offset + child]) {
+				child++;
+			}
+			if (dist >= heapDist[offset + child]) {
+				break;
+			}
+			heap[offset + i] = heap[offset + child];
+			heapDist[offset + i] = heapDist[offset + child];
+			i = child;
+		}
+
+		heap[offset + i] = slot;
+		heapDist[offset + i] = dist;
+	}
+
+	private static void swap(final int[] heap, final float[] heapDist, final int a, final int b) {
+		final int slot = heap[a];
+		heap[a] = heap[b];
+		heap[b] = slot;
+
+		final float dist = heapDist[a];
+		heapDist[a] = heapDist[b];
+		heapDist[b] = dist;
+	}
+
+	/* ::-------------------------------------------------------------------------::
+	 * Radius search
+	 */
+
+	/**
+	 * Finds every point within {@code radius} of the query point, in no
+	 * particular order.
+	 *
+	 * @param outIndices receives point indices; if it is too small the extra
+	 * points are counted but not stored
+	 * @param outDistSq receives squared distances matching {@code outIndices},
+	 * or {@code null} if they are not needed
+	 * @return the total number of points within the radius, which may be more
+	 * than {@code outIndices.length}
+	 */
+	public int withinRadius(final float x, final float y, final float z, final float radius,
+			final int[] outIndices, final float[] outDistSq) {
+		if (size == 0) {
+			return 0;
+		}
+
+		final Telemetry.Span span = Telemetry.begin(Telemetry.Kind.SPATIAL_QUERY, "KdTree.withinRadius");
+		final int found = withinRadius(0, size, x, y, z, radius * radius, outIndices, outDistSq, 0);
+		span.end(found);
+		return found;
+	}
+
+	private int withinRadius(final int lo, final int hi, final float x, final float y, final float z,
+			final float radiusSq, final int[] out, final float[] outDist, int count) {
+		if (hi - lo <= LEAF_SIZE) {
+			for (int i = lo; i < hi; i++) {
+				count = collect(i, distSq(i, x, y, z), radiusSq, out, outDist, count);
+			}
+			return count;
+		}
+
+		final int mid = (lo + hi) >>> 1;
+		count = collect(mid, distSq(mid, x, y, z), radiusSq, out, outDist, count);
+
+		final float diff = axisDelta(mid, x, y, z);
+		final boolean nearIsLeft = diff < 0f;
+		final boolean visitFar = diff * diff <= radiusSq;
+
+		if (nearIsLeft || visitFar) {
+			count = withinRadius(lo, mid, x, y, z, radiusSq, out, outDist, count);
+		}
+		if (!nearIsLeft || visitFar) {
+			count = withinRadius(mid + 1, hi, x, y, z, radiusSq, out, outDist, count);
+		}
+
+		return count;
+	}
+
+	private int collect(final int slot, final float distSq, final float radiusSq,
+			final int[] out, final float[] outDist, final int count) {
+		if (distSq > radiusSq) {
+			return count;
+		}
+
+		if (count < out.length) {
+			out[count] = indices[slot];
+			if (outDist != null) {
+				outDist[count] = distSq;
+			}
+		}
+		return count + 1;
+	}
+
+	/* ::-------------------------------------------------------------------------::
+	 * Bulk queries
+	 */
+
+	/**
+	 * Finds the nearest point for each of {@code count} query points.
+	 *
+	 * @param executor runs the queries in parallel chunks; if {@code null} the
+	 * queries run on the calling thread
+	 * @param outDistSq receives squared distances, or {@code null} if they are
+	 * not needed
+	 */
+	public void nearest(final float[] qx, final float[] qy, final float[] qz, final int count,
+			final int[] outIndices, final float[] outDistSq, final ExecutorService executor) {
+		final Telemetry.Span span = Telemetry.begin(Telemetry.Kind.SPATIAL_QUERY, "KdTree.nearest(float[])");
+		forEachChunk(count, executor, new Chunk() {
+			@Override
+			public void run(final int from, final int to) {
+				for (int i = from; i < to; i++) {
+					if (size == 0) {
+						outIndices[i] = -1;
+						if (outDistSq != null) {
+							outDistSq[i] = Float.POSITIVE_INFINITY;
+						}
+						continue;
+					}
+
+					final int slot = nearest(0, size, qx[i], qy[i], qz[i], -1, Float.POSITIVE_INFINITY);
+					outIndices[i] = indices[slot];
+					if (outDistSq != null) {
+						outDistSq[i] = distSq(slot, qx[i], qy[i], qz[i]);
+					}
+				}
+			}
+		});
+		span.end(count);
+	}
+
+	/**
+	 * Finds the {@code k} nearest points for each of {@code count} query
+	 * points.  Results for query {@code i} are written, nearest first, to
+	 * elements {@code [i * k, i * k + k)} of the output arrays; if the tree
+	 * has fewer than {@code k} points the remaining indices are {@code -1}.
+	 *
+	 * @param executor runs the queries in parallel chunks; if {@code null} the
+	 * queries run on the calling thread
+	 */
+	public void nearest(final float[] qx, final float[] qy, final float[] qz, final int count, final int k,
+			final int[] outIndices, final float[] outDistSq, final ExecutorService executor) {
+		final Telemetry.Span span = Telemetry.begin(Telemetry.Kind.SPATIAL_QUERY, "KdTree.nearest(float[], k)");
+		forEachChunk(count, executor, new Chunk() {
+			@Override
+			public void run(final int from, final int to) {
+				for (int i = from; i < to; i++) {
+					final int offset = i * k;
+					final int found = nearest(qx[i], qy[i], qz[i], k, outIndices, outDistSq, offset);
+					for (int j = found; j < k; j++) {
+						outIndices[offset + j] = -1;
+						outDistSq[offset + j] = Float.POSITIVE_INFINITY;
+					}
+				}
+			}
+		});
+		span.end(count);
+	}
+
+	private interface Chunk {
+		void run(int from, int to);
+	}
+
+	private static void forEachChunk(final int count, final ExecutorService executor, final Chunk chunk) {
+		if (executor == null || count <= MIN_CHUNK) {
+			chunk.run(0, count);
+			return;
+		}
+
+		final int tasks = Math.min(Runtime.getRuntime().availableProcessors() * 4, (count + MIN_CHUNK - 1) / MIN_CHUNK);
+		final int chunkSize = (count + tasks - 1) / tasks;
+		final List<Future<?>> futures = new ArrayList<Future<?>>(tasks);
+
+		for (int from = 0; from < count; from += chunkSize) {
+			final int start = from;
+			final int end = Math.min(count, from + chunkSize);
+
+			futures.add(executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() {
+					chunk.run(start, end);
+					return null;
+				}
+			}));
+		}
+
+		try {
+			for (final Future<?> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for bulk query", e);
+		} catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IllegalStateException("Bulk query failed", cause);
+		}
+	}
+
+	/* ::-------------------------------------------------------------------------::
+	 * Construction
+	 */
+
+	private void build(final int lo, final int hi, final float[] sample) {
+		if (hi - lo <= LEAF_SIZE) {
+			return;
+		}
+
+		final int mid = (lo + hi) >>> 1;
+		final int axis = chooseAxis(lo, hi);
+
+		axes[mid] = (byte) axis;
+		select(lo, hi, mid, axis, sample);
+
+		build(lo, mid, sample);
+		build(mid + 1, hi, sample);
+	}
+
+	/**
+	 * @return the axis with the largest spread over a sample of the range
+	 */
+	private int chooseAxis(final int lo, final int hi) {
+		final int step = Math.max(1, (hi - lo) / SAMPLE_SIZE);
+
+		float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+		float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+
+		for (int i = lo; i < hi; i += step) {
+			minX = Math.min(minX, xs[i]);
+			maxX = Math.max(maxX, xs[i]);
+			minY = Math.min(minY, ys[i]);
+			maxY = Math.max(maxY, ys[i]);
+			minZ = Math.min(minZ, zs[i]);
+			maxZ = Math.max(maxZ, zs[i]);
+		}
+
+		final float spreadX = maxX - minX;
+		final float spreadY = maxY - minY;
+		final float spreadZ = maxZ - minZ;
+
+		if (spreadX >= spreadY && spreadX >= spreadZ) {
+			return 0;
+		}
+		return spreadY >= spreadZ ? 1 : 2;
+	}
+
+	/**
+	 * Quickselect: reorders {@code [lo, hi)} so that {@code nth} holds the
+	 * value it would have if the range were sorted along {@code axis}, with
+	 * smaller-or-equal values before it and greater-or-equal values after it.
+	 */
+	private void select(int lo, int hi, final int nth, final int axis, final float[] sample) {
+		final float[] keys = axis == 0 ? xs : (axis == 1 ? ys : zs);
+
+		while (hi - lo > 1) {
+			final float pivot = samplePivot(keys, lo, hi, sample);
+
+			// Hoare partition around the pivot value.
+			int i = lo;
+			int j = hi - 1;
+			while (i <= j) {
+				while (keys[i] < pivot) {
+					i++;
+				}
+				while (keys[j] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					swapPoints(i, j);
+					i++;
+					j--;
+				}
+			}
+
+			// Now [lo, j] <= pivot <= [i, hi) and anything in between equals the pivot.
+			if (nth <= j) {
+				hi = j + 1;
+			} else if (nth >= i) {
+				lo = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * @return the median of an evenly spaced sample of the range
+	 */
+	private static float samplePivot(final float[] keys, final int lo, final int hi, final float[] sample) {
+		final int n = Math.min(SAMPLE_SIZE, hi - lo);
+		final int step = (hi - lo) / n;
+
+		for (int s = 0; s < n; s++) {
+			final float v = keys[lo + s * step];
+
+			// Insertion sort, the sample is tiny.
+			int k = s;
+			while (k > 0 && sample[k - 1] > v) {
+				sample[k] = sample[k - 1];
+				k--;
+			}
+			sample[k] = v;
+		}
+
+		return sample[n / 2];
+	}
+
+	private void swapPoints(final int a, final int b) {
+		float t = xs[a];
+		xs[a] = xs[b];
+		xs[b] = t;
+
+		t = ys[a];
+		ys[a] = ys[b];
+		ys[b] = t;
+
+		t = zs[a];
+		zs[a] = zs[b];
+		zs[b] = t;
+
+		final int index = indices[a];
+		indices[a] = indices[b];
+		indices[b] = index;
+	}
+
+	/* ::-------------------------------------------------------------------------::
+	 * Helpers
+	 */
+
+	private float distSq(final int slot, final float x, final float y, final float z) {
+		final float dx = xs[slot] - x;
+		final float dy = ys[slot] - y;
+		final float dz = zs[slot] - z;
+		return dx * dx + dy * dy + dz * dz;
+	}
+
+	/**
+	 * @return the query's coordinate minus the node's split coordinate, along
+	 * the node's axis; negative means the query is on the left of the split
+	 */
+	private float axisDelta(final int slot, final float x, final float y, final float z) {
+		switch (axes[slot]) {
+		case 0:
+			return x - xs[slot];
+		case 1:
+			return y - ys[slot];
+		default:
+			return z - zs[slot];
+		}
+	}
+
+	private static float[] xsOf(final Vec3[] points) {
+		final float[] out = new float[points.length];
+		for (int i = 0; i < points.length; i++) {
+			out[i] = points[i].getX();
+		}
+		return out;
+	}
+
+	private static float[] ysOf(final Vec3[] points) {
+		final float[] out = new float[points.length];
+		for (int i = 0; i < points.length; i++) {
+			out[i] = points[i].getY();
+		}
+		return out;
+	}
+
+	private static float[] zsOf(final Vec3[] points) {
+		final float[] out = new float[points.length];
+		for (int i = 0; i < points.length; i++) {
+			out[i] = points[i].getZ();
+		}
+		return out;
+	}
+}
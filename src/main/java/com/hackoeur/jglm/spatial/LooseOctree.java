@@ -0,0 +1,893 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.spatial;
+
+import java.util.Arrays;
+
+import com.hackoeur.jglm.AABB;
+import com.hackoeur.jglm.Frustum;
+import com.hackoeur.jglm.Vec3;
+import com.hackoeur.jglm.support.Telemetry;
+
+/**
+ * A loose octree of objects bounded by {@link AABB}s.
+ *
+ * <p>Each node's <em>loose</em> bounds are its regular (tight) cell scaled by
+ * the looseness factor about its center.  An object is stored in the deepest
+ * node whose tight cell contains the object's center and whose loose bounds
+ * are still large enough to hold the whole object.  This means an object is
+ * only ever stored in one node and moving it rarely requires more than
+ * rewriting its bounds.  Objects that don't fit in the root's loose bounds are
+ * kept in the root and tested individually.
+ *
+ * <p>Nodes and objects live in flat, index-based pools that are recycled
+ * through free lists, so steady-state insert/remove/update does not allocate.
+ * {@link #insert(Object, AABB)} returns an integer handle that identifies the
+ * object until it is removed.
+ *
+ * <p>This class is <em>not</em> thread-safe.  Queries reuse internal scratch
+ * space, so even concurrent queries need external synchronization.
+ */
+public final class LooseOctree<T> {
+	/**
+	 * Receives objects found by a volume query.
+	 */
+	public interface Visitor<T> {
+		/**
+		 * @return {@code true} to continue the query, {@code false} to stop it
+		 */
+		boolean visit(T object);
+	}
+
+	/**
+	 * Receives objects found by a ray query, nearest first.
+	 */
+	public interface RayVisitor<T> {
+		/**
+		 * @param object the object that was hit
+		 * @param distance where the ray enters the object's bounds, in multiples
+		 * of the ray direction
+		 * @return {@code true} to continue the query, {@code false} to stop it
+		 */
+		boolean visit(T object, float distance);
+	}
+
+	public static final float DEFAULT_LOOSENESS = 2f;
+
+	private static final int NONE = -1;
+	private static final int ROOT = 0;
+	private static final int MAX_DEPTH_LIMIT = 20;
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final float looseness;
+	private final int maxDepth;
+
+	/* ::-------------------------------------------------------------------------::
+	 * NODE POOL: Successive (cx, cy, cz, halfSize) tuples in nodeCells, where
+	 * halfSize is the half-width of the node's tight cell.  nodeChildren holds
+	 * eight slots per node, indexed by octant.  Free nodes are chained
+	 * through nodeParent.
+	 */
+	private float[] nodeCells;
+	private int[] nodeChildren;
+	private int[] nodeParent;
+	private byte[] nodeDepth;
+	private int[] nodeChildCount;
+	private int[] nodeFirstItem;
+	private int[] nodeItemCount;
+	private int nodeHighWater;
+	private int freeNodeHead = NONE;
+	private int nodeCount;
+
+	/* ::-------------------------------------------------------------------------::
+	 * ITEM POOL: Items form a doubly linked list per node.  Bounds are
+	 * successive (minX, minY, minZ, maxX, maxY, maxZ) tuples.  Free items
+	 * have itemNode == NONE and are chained through itemNext.
+	 */
+	private Object[] itemObjects;
+	private float[] itemBounds;
+	private int[] itemNode;
+	private int[] itemNext;
+	private int[] itemPrev;
+	private int itemHighWater;
+	private int freeItemHead = NONE;
+	private int itemCount;
+
+	/* Query scratch. */
+	private int[] stack = new int[INITIAL_CAPACITY];
+	private float[] heapKeys = new float[INITIAL_CAPACITY];
+	private int[] heapValues = new int[INITIAL_CAPACITY];
+
+	/**
+	 * Creates an octree with the {@link #DEFAULT_LOOSENESS default looseness}.
+	 *
+	 * @param worldBounds region to subdivide; the root cell is the smallest
+	 * cube, centered on this box, that encloses it
+	 * @param maxDepth deepest level of subdivision (the root is depth zero)
+	 */
+	public LooseOctree(final AABB worldBounds, final int maxDepth) {
+		this(worldBounds, maxDepth, DEFAULT_LOOSENESS);
+	}
+
+	/**
+	 * @param worldBounds region to subdivide; the root cell is the smallest
+	 * cube, centered on this box, that encloses it
+	 * @param maxDepth deepest level of subdivision (the root is depth zero)
+	 * @param looseness factor by which each node's bounds are enlarged; must
+	 * be greater than one
+	 */
+	public LooseOctree(final AABB worldBounds, final int maxDepth, final float looseness) {
+		if (maxDepth < 0 || maxDepth > MAX_DEPTH_LIMIT) {
+			throw new IllegalArgumentException("Invalid max depth = " + maxDepth);
+		}
+		if (!(looseness > 1f)) {
+			throw new IllegalArgumentException("Looseness must be greater than one, got " + looseness);
+		}
+
+		this.maxDepth = maxDepth;
+		this.looseness = looseness;
+
+		allocateNodePool(INITIAL_CAPACITY);
+		allocateItemPool(INITIAL_CAPACITY);
+
+		final Vec3 center = worldBounds.getCenter();
+		final Vec3 extents = worldBounds.getExtents();
+		final float half = Math.max(extents.getX(), Math.max(extents.getY(), extents.getZ()));
+
+		final int root = allocateNode(NONE, 0);
+		setCell(root, center.getX(), center.getY(), center.getZ(), half);
+	}
+
+	/**
+	 * Adds an object to the tree.
+	 *
+	 * @return a handle for the object, valid until it is removed
+	 */
+	public int insert(final T object, final AABB bounds) {
+		return insert(object, bounds.getMinX(), bounds.getMinY(), bounds.getMinZ(),
+				bounds.getMaxX(), bounds.getMaxY(), bounds.getMaxZ());
+	}
+
+	public int insert(final T object,
+			final float minX, final float minY, final float minZ,
+			final float maxX, final float maxY, final float maxZ) {
+		final int item = allocateItem();
+
+		itemObjects[item] = object;
+		setBounds(item, minX, minY, minZ, maxX, maxY, maxZ);
+		link(item, findOrCreateNode(item));
+
+		return item;
+	}
+
+	/**
+	 * Removes an object from the tree.  Nodes left empty are returned to the pool.
+	 *
+	 * @param handle handle returned by {@link #insert(Object, AABB)}
+	 * @return the object that was removed
+	 */
+	@SuppressWarnings("unchecked")
+	public T remove(final int handle) {
+		checkHandle(handle);
+
+		final T object = (T) itemObjects[handle];
+		final int node = itemNode[handle];
+
+		unlink(handle);
+		prune(node);
+		freeItem(handle);
+
+		return object;
+	}
+
+	/**
+	 * Changes the bounds of an object.  If the object still belongs in the same
+	 * node this only overwrites its bounds; otherwise it is moved.  The handle
+	 * stays the same either way.
+	 */
+	public void update(final int handle, final AABB bounds) {
+		update(handle, bounds.getMinX(), bounds.getMinY(), bounds.getMinZ(),
+				bounds.getMaxX(), bounds.getMaxY(), bounds.getMaxZ());
+	}
+
+	public void update(final int handle,
+			final float minX, final float minY, final float minZ,
+			final float maxX, final float maxY, final float maxZ) {
+		checkHandle(handle);
+
+		setBounds(handle, minX, minY, minZ, maxX, maxY, maxZ);
+
+		final int node = itemNode[handle];
+		if (targetDepth(handle) == nodeDepth[node] && (node == ROOT || centerInCell(handle, node))) {
+			return;
+		}
+
+		unlink(handle);
+		prune(node);
+		link(handle, findOrCreateNode(handle));
+	}
+
+	@SuppressWarnings("unchecked")
+	public T get(final int handle) {
+		checkHandle(handle);
+		return (T) itemObjects[handle];
+	}
+
+	public AABB getBounds(final int handle) {
+		checkHandle(handle);
+
+		final int b = handle * 6;
+		return new AABB(itemBounds[b], itemBounds[b + 1], itemBounds[b + 2],
+				itemBounds[b + 3], itemBounds[b + 4], itemBounds[b + 5]);
+	}
+
+	/**
+	 * Removes all objects and returns every node but the root to the pool.
+	 * Pool capacity is retained.
+	 */
+	public void clear() {
+		final float cx = nodeCells[0];
+		final float cy = nodeCells[1];
+		final float cz = nodeCells[2];
+		final float half = nodeCells[3];
+
+		Arrays.fill(itemObjects, 0, itemHighWater, null);
+		itemHighWater = 0;
+		freeItemHead = NONE;
+		itemCount = 0;
+
+		nodeHighWater = 0;
+		freeNodeHead = NONE;
+		nodeCount = 0;
+
+		final int root = allocateNode(NONE, 0);
+		setCell(root, cx, cy, cz, half);
+	}
+
+	/**
+	 * Visits every object whose bounds intersect the frustum.  Subtrees that
+	 * are entirely inside the frustum are reported without testing their
+	 * objects individually.
+	 *
+	 * @return the number of objects visited
+	 */
+	public int query(final Frustum frustum, final Visitor<? super T> visitor) {
+		final Telemetry.Span span = Telemetry.begin(Telemetry.Kind.CULLING, "LooseOctree.query(Frustum)");
+		final int visited = queryFrustum(frustum, visitor);
+		span.end(visited);
+		return visited;
+	}
+
+	private int queryFrustum(final Frustum frustum, final Visitor<? super T> visitor) {
+		int visited = 0;
+		int sp = 0;
+
+		stack[sp++] = ROOT << 1;
+
+		while (sp > 0) {
+			final int entry = stack[--sp];
+			final int node = entry >>> 1;
+			final boolean inside = (entry & 1) != 0;
+
+			boolean testObjects = !inside;
+			boolean childrenInside = inside;
+			boolean descend = true;
+
+			if (!inside) {
+				final int c = node * 4;
+				final float loose = nodeCells[c + 3] * looseness;
+				final Frustum.Containment containment = frustum.classify(
+						nodeCells[c] - loose, nodeCells[c + 1] - loose, nodeCells[c + 2] - loose,
+						nodeCells[c] + loose, nodeCells[c + 1] + loose, nodeCells[c + 2] + loose);
+
+				if (containment == Frustum.Containment.OUTSIDE) {
+					if (node != ROOT) {
+						continue;
+					}
+					descend = false;
+				}
+
+				childrenInside = containment == Frustum.Containment.INSIDE;
+
+				// The root may hold objects that stick out of its bounds, so
+				// they are always tested individually.
+				testObjects = node == ROOT || !childrenInside;
+			}
+
+			for (int item = nodeFirstItem[node]; item != NONE; item = itemNext[item]) {
+				if (testObjects) {
+					final int b = item * 6;
+					if (frustum.classify(itemBounds[b], itemBounds[b + 1], itemBounds[b + 2],
+							itemBounds[b + 3], itemBounds[b + 4], itemBounds[b + 5]) == Frustum.Containment.OUTSIDE) {
+						continue;
+					}
+				}
+
+				visited++;
+				if (!visitor.visit(objectAt(item))) {
+					return visited;
+				}
+			}
+
+			if (descend) {
+				sp = pushChildren(node, sp, childrenInside);
+			}
+		}
+
+		return visited;
+	}
+
+	/**
+	 * Visits every object whose bounds intersect the given box.
+	 *
+	 * @return the number of objects visited
+	 */
+	public int query(final AABB box, final Visitor<? super T> visitor) {
+		final Telemetry.Span span = Telemetry.begin(Telemetry.Kind.SPATIAL_QUERY, "LooseOctree.query(AABB)");
+		final int visited = queryBox(box, visitor);
+		span.end(visited);
+		return visited;
+	}
+
+	private int queryBox(final AABB box, final Visitor<? super T> visitor) {
+		final float minX = box.getMinX();
+		final float minY = box.getMinY();
+		final float minZ = box.getMinZ();
+		final float maxX = box.getMaxX();
+		final float maxY = box.getMaxY();
+		final float maxZ = box.getMaxZ();
+
+		int visited = 0;
+		int sp = 0;
+
+		stack[sp++] = ROOT;
+
+		while (sp > 0) {
+			final int node = stack[--sp];
+
+			if (node != ROOT) {
+				final int c = node * 4;
+				final float loose = nodeCells[c + 3] * looseness;
+
+				if (nodeCells[c] - loose > maxX || nodeCells[c] + loose < minX
+						|| nodeCells[c + 1] - loose > maxY || nodeCells[c + 1] + loose < minY
+						|| nodeCells[c + 2] - loose > maxZ || nodeCells[c + 2] + loose < minZ) {
+					continue;
+				}
+			}
+
+			for (int item = nodeFirstItem[node]; item != NONE; item = itemNext[item]) {
+				final int b = item * 6;
+
+				if (itemBounds[b] <= maxX && itemBounds[b + 3] >= minX
+						&& itemBounds[b + 1] <= maxY && itemBounds[b + 4] >= minY
+						&& itemBounds[b + 2] <= maxZ && itemBounds[b + 5] >= minZ) {
+					visited++;
+					if (!visitor.visit(objectAt(item))) {
+						return visited;
+					}
+				}
+			}
+
+			for (int i = 0; i < 8; i++) {
+				final int child = nodeChildren[node * 8 + i];
+				if (child != NONE) {
+					stack = ensureCapacity(stack, sp + 1);
+					stack[sp++] = child;
+				}
+			}
+		}
+
+		return visited;
+	}
+
+	/**
+	 * Visits objects whose bounds are hit by the ray, in front-to-back order
+	 * of where the ray enters each object's bounds.
+	 *
+	 * @param origin start of the ray
+	 * @param direction direction of the ray; need not be unit length
+	 * @param maxDistance how far to follow the ray, in multiples of {@code direction}
+	 * @return the number of objects visited
+	 */
+	public int raycast(final Vec3 origin, final Vec3 direction, final float maxDistance, final RayVisitor<? super T> visitor) {
+		final Telemetry.Span span = Telemetry.begin(Telemetry.Kind.SPATIAL_QUERY, "LooseOctree.raycast");
+		final int visited = castRay(origin, direction, maxDistance, visitor);
+		span.end(visited);
+		return visited;
+	}
+
+	private int castRay(final Vec3 origin, final Vec3 direction, final float maxDistance, final RayVisitor<? super T> visitor) {
+		final float ox = origin.getX();
+		final float oy = origin.getY();
+		final float oz = origin.getZ();
+		final float invDx = 1f / direction.getX();
+		final float invDy = 1f / direction.getY();
+		final float invDz = 1f / direction.getZ();
+
+		int visited = 0;
+		int heapSize = 0;
+
+		// The root may hold objects outside of its bounds so it is always opened.
+		heapSize = heapPush(heapSize, 0f, ROOT);
+
+		while (heapSize > 0) {
+			final float t = heapKeys[0];
+			final int value = heapValues[0];
+			heapSize = heapPop(heapSize);
+
+			if (value < 0) {
+				visited++;
+				if (!visitor.visit(objectAt(~value), t)) {
+					return visited;
+				}
+				continue;
+			}
+
+			final int node = value;
+
+			for (int item = nodeFirstItem[node]; item != NONE; item = itemNext[item]) {
+				final int b = item * 6;
+				final float tItem = slab(ox, oy, oz, invDx, invDy, invDz, maxDistance,
+						itemBounds[b], itemBounds[b + 1], itemBounds[b + 2],
+						itemBounds[b + 3], itemBounds[b + 4], itemBounds[b + 5]);
+
+				if (tItem >= 0f) {
+					heapSize = heapPush(heapSize, tItem, ~item);
+				}
+			}
+
+			for (int i = 0; i < 8; i++) {
+				final int child = nodeChildren[node * 8 + i];
+				if (child == NONE) {
+					continue;
+				}
+
+				final int c = child * 4;
+				final float loose = nodeCells[c + 3] * looseness;
+				final float tChild = slab(ox, oy, oz, invDx, invDy, invDz, maxDistance,
+						nodeCells[c] - loose, nodeCells[c + 1] - loose, nodeCells[c + 2] - loose,
+						nodeCells[c] + loose, nodeCells[c + 1] + loose, nodeCells[c + 2] + loose);
+
+				if (tChild >= 0f) {
+					heapSize = heapPush(heapSize, tChild, child);
+				}
+			}
+		}
+
+		return visited;
+	}
+
+	/**
+	 * @return number of objects in the tree
+	 */
+	public int size() {
+		return itemCount;
+	}
+
+	/**
+	 * @return number of live nodes, including the root
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * @return number of nodes the pool can hold before it has to grow
+	 */
+	public int getNodeCapacity() {
+		return nodeParent.length;
+	}
+
+	/**
+	 * @return number of objects the pool can hold before it has to grow
+	 */
+	public int getItemCapacity() {
+		return itemNode.length;
+	}
+
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	public float getLooseness() {
+		return looseness;
+	}
+
+	/**
+	 * Estimates the memory held by the pools and query scratch space, in bytes.
+	 * Object headers are ignored and references are counted as four bytes, so
+	 * treat this as a tuning aid rather than an exact figure.
+	 */
+	public long getMemoryFootprint() {
+		final long nodeCapacity = nodeParent.length;
+		final long itemCapacity = itemNode.length;
+
+		final long nodeBytes = nodeCapacity * (4 * 4 + 8 * 4 + 4 + 1 + 4 + 4 + 4);
+		final long itemBytes = itemCapacity * (4 + 6 * 4 + 4 + 4 + 4);
+		final long scratchBytes = stack.length * 4L + heapKeys.length * 4L + heapValues.length * 4L;
+
+		return nodeBytes + itemBytes + scratchBytes;
+	}
+
+	/* ::-------------------------------------------------------------------------::
+	 * Placement
+	 */
+
+	private int findOrCreateNode(final int item) {
+		final int depth = targetDepth(item);
+		final int b = item * 6;
+		final float cx = (itemBounds[b] + itemBounds[b + 3]) * 0.5f;
+		final float cy = (itemBounds[b + 1] + itemBounds[b + 4]) * 0.5f;
+		final float cz = (itemBounds[b + 2] + itemBounds[b + 5]) * 0.5f;
+
+		int node = ROOT;
+		for (int d = 1; d <= depth; d++) {
+			final int c = node * 4;
+			final int octant = (cx >= nodeCells[c] ? 1 : 0)
+					| (cy >= nodeCells[c + 1] ? 2 : 0)
+					| (cz >= nodeCells[c + 2] ? 4 : 0);
+
+			int child = nodeChildren[node * 8 + octant];
+			if (child == NONE) {
+				final float half = nodeCells[c + 3] * 0.5f;
+				child = allocateNode(node, d);
+				setCell(child,
+						nodeCells[c] + ((octant & 1) != 0 ? half : -half),
+						nodeCells[c + 1] + ((octant & 2) != 0 ? half : -half),
+						nodeCells[c + 2] + ((octant & 4) != 0 ? half : -half),
+						half);
+				nodeChildren[node * 8 + octant] = child;
+				nodeChildCount[node]++;
+			}
+
+			node = child;
+		}
+
+		return node;
+	}
+
+	/**
+	 * @return the depth of the node an item belongs in, based only on its bounds
+	 */
+	private int targetDepth(final int item) {
+		if (!centerInCell(item, ROOT)) {
+			return 0;
+		}
+
+		final int b = item * 6;
+		final float radius = Math.max(itemBounds[b + 3] - itemBounds[b],
+				Math.max(itemBounds[b + 4] - itemBounds[b + 1], itemBounds[b + 5] - itemBounds[b + 2])) * 0.5f;
+		final float slack = looseness - 1f;
+
+		int depth = 0;
+		float half = nodeCells[3];
+		while (depth < maxDepth && slack * half * 0.5f >= radius) {
+			half *= 0.5f;
+			depth++;
+		}
+
+		return depth;
+	}
+
+	private boolean centerInCell(final int item, final int node) {
+		final int b = item * 6;
+		final int c = node * 4;
+		final float half = nodeCells[c + 3];
+
+		return Math.abs((itemBounds[b] + itemBounds[b + 3]) * 0.5f - nodeCells[c]) <= half
+				&& Math.abs((itemBounds[b + 1] + itemBounds[b + 4]) * 0.5f - nodeCells[c + 1]) <= half
+				&& Math.abs((itemBounds[b + 2] + itemBounds[b + 5]) * 0.5f - nodeCells[c + 2]) <= half;
+	}
+
+	private int pushChildren(final int node, int sp, final boolean inside) {
+		stack = ensureCapacity(stack, sp + 8);
+
+		for (int i = 0; i < 8; i++) {
+			final int child = nodeChildren[node * 8 + i];
+			if (child != NONE) {
+				stack[sp++] = (child << 1) | (inside ? 1 : 0);
+			}
+		}
+
+		return sp;
+	}
+
+	/**
+	 * Slab test.
+	 *
+	 * @return where the ray enters the box, clamped to zero, or {@code -1} on a miss
+	 */
+	private static float slab(
+			final float ox, final float oy, final float oz,
+			final float invDx, final float invDy, final float invDz,
+			final float maxDistance,
+			final float minX, final float minY, final float minZ,
+			final float maxX, final float maxY, final float maxZ) {
+		float tMin = 0f;
+		float tMax = maxDistance;
+
+		// Comparisons are written so that NaNs (a zero direction component on a
+		// slab boundary) leave the interval unchanged.
+		float t1 = (minX - ox) * invDx;
+		float t2 = (maxX - ox) * invDx;
+		if (t1 > t2) { final float tmp = t1; t1 = t2; t2 = tmp; }
+		if (t1 > tMin) { tMin = t1; }
+		if (t2 < tMax) { tMax = t2; }
+
+		t1 = (minY - oy) * invDy;
+		t2 = (maxY - oy) * invDy;
+		if (t1 > t2) { final float tmp = t1; t1 = t2; t2 = tmp; }
+		if (t1 > tMin) { tMin = t1; }
+		if (t2 < tMax) { tMax = t2; }
+
+		t1 = (minZ - oz) * invDz;
+		t2 = (maxZ - oz) * invDz;
+		if (t1 > t2) { final float tmp = t1; t1 = t2; t2 = tmp; }
+		if (t1 > tMin) { tMin = t1; }
+		if (t2 < tMax) { tMax = t2; }
+
+		return tMin <= tMax ? tMin : -1f;
+	}
+
+	/* ::-------------------------------------------------------------------------::
+	 * Min-heap used to order the ray traversal.  Values >= 0 are nodes,
+	 * negative values are complemented item indices.
+	 */
+
+	private int heapPush(int size, final float key, final int value) {
+		if (size == heapKeys.length) {
+			heapKeys = Arrays.copyOf(heapKeys, size * 2);
+			heapValues = Arrays.copyOf(heapValues, size * 2);
+		}
+
+		int i = size++;
+		while (i > 0) {
+			final int parent = (i - 1) >>> 1;
+			if (heapKeys[parent] <= key) {
+				break;
+			}
+			heapKeys[i] = heapKeys[parent];
+			heapValues[i] = heapValues[parent];
+			i = parent;
+		}
+
+		heapKeys[i] = key;
+		heapValues[i] = value;
+
+		return size;
+	}
+
+	private int heapPop(int size) {
+		size--;
+
+		final float key = heapKeys[size];
+		final int value = heapValues[size];
+
+		int i = 0;
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && heapKeys[child + 1] < heapKeys[child]) {
+				child++;
+			}
+			if (key <= heapKeys[child]) {
+				break;
+			}
+			heapKeys[i] = heapKeys[child];
+			heapValues[i] = heapValues[child];
+			i = child;
+		}
+
+		if (size > 0) {
+			heapKeys[i] = key;
+			heapValues[i] = value;
+		}
+
+		return size;
+	}
+
+	/* ::-------------------------------------------------------------------------::
+	 * Item pool
+	 */
+
+	@SuppressWarnings("unchecked")
+	private T objectAt(final int item) {
+		return (T) itemObjects[item];
+	}
+
+	private void checkHandle(final int handle) {
+		if (handle < 0 || handle >= itemHighWater || itemNode[handle] == NONE) {
+			throw new IllegalArgumentException("Invalid handle = " + handle);
+		}
+	}
+
+	private void setBounds(final int item,
+			final float minX, final float minY, final float minZ,
+			final float maxX, final float maxY, final float maxZ) {
+		final int b = item * 6;
+		itemBounds[b] = Math.min(minX, maxX);
+		itemBounds[b + 1] = Math.min(minY, maxY);
+		itemBounds[b + 2] = Math.min(minZ, maxZ);
+		itemBounds[b + 3] = Math.max(minX, maxX);
+		itemBounds[b + 4] = Math.max(minY, maxY);
+		itemBounds[b + 5] = Math.max(minZ, maxZ);
+	}
+
+	private void link(final int item, final int node) {
+		final int first = nodeFirstItem[node];
+
+		itemPrev[item] = NONE;
+		itemNext[item] = first;
+		if (first != NONE) {
+			itemPrev[first] = item;
+		}
+
+		nodeFirstItem[node] = item;
+		nodeItemCount[node]++;
+		itemNode[item] = node;
+	}
+
+	/**
+	 * Detaches an item from its node.  The item keeps a reference to the node
+	 * so callers can {@link #prune(int)} it afterwards.
+	 */
+	private void unlink(final int item) {
+		final int node = itemNode[item];
+		final int prev = itemPrev[item];
+		final int next = itemNext[item];
+
+		if (prev != NONE) {
+			itemNext[prev] = next;
+		} else {
+			nodeFirstItem[node] = next;
+		}
+		if (next != NONE) {
+			itemPrev[next] = prev;
+		}
+
+		nodeItemCount[node]--;
+	}
+
+	private int allocateItem() {
+		int item;
+
+		if (freeItemHead != NONE) {
+			item = freeItemHead;
+			freeItemHead = itemNext[item];
+		} else {
+			if (itemHighWater == itemNode.length) {
+				allocateItemPool(itemNode.length * 2);
+			}
+			item = itemHighWater++;
+		}
+
+		itemCount++;
+		return item;
+	}
+
+	private void freeItem(final int item) {
+		itemObjects[item] = null;
+		itemNode[item] = NONE;
+		itemPrev[item] = NONE;
+		itemNext[item] = freeItemHead;
+		freeItemHead = item;
+		itemCount--;
+	}
+
+	private void allocateItemPool(final int capacity) {
+		if (itemNode == null) {
+			itemObjects = new Object[capacity];
+			itemBounds = new float[capacity * 6];
+			itemNode = new int[capacity];
+			itemNext = new int[capacity];
+			itemPrev = new int[capacity];
+		} else {
+			itemObjects = Arrays.copyOf(itemObjects, capacity);
+			itemBounds = Arrays.copyOf(itemBounds, capacity * 6);
+			itemNode = Arrays.copyOf(itemNode, capacity);
+			itemNext = Arrays.copyOf(itemNext, capacity);
+			itemPrev = Arrays.copyOf(itemPrev, capacity);
+		}
+	}
+
+	/* ::-------------------------------------------------------------------------::
+	 * Node pool
+	 */
+
+	private int allocateNode(final int parent, final int depth) {
+		int node;
+
+		if (freeNodeHead != NONE) {
+			node = freeNodeHead;
+			freeNodeHead = nodeParent[node];
+		} else {
+			if (nodeHighWater == nodeParent.length) {
+				allocateNodePool(nodeParent.length * 2);
+			}
+			node = nodeHighWater++;
+		}
+
+		nodeParent[node] = parent;
+		nodeDepth[node] = (byte) depth;
+		nodeChildCount[node] = 0;
+		nodeFirstItem[node] = NONE;
+		nodeItemCount[node] = 0;
+		Arrays.fill(nodeChildren, node * 8, node * 8 + 8, NONE);
+
+		nodeCount++;
+		return node;
+	}
+
+	/**
+	 * Returns empty nodes to the pool, walking up from the given node.
+	 */
+	private void prune(int node) {
+		while (node != ROOT && nodeItemCount[node] == 0 && nodeChildCount[node] == 0) {
+			final int parent = nodeParent[node];
+
+			for (int i = parent * 8; i < parent * 8 + 8; i++) {
+				if (nodeChildren[i] == node) {
+					nodeChildren[i] = NONE;
+					break;
+				}
+			}
+			nodeChildCount[parent]--;
+
+			nodeParent[node] = freeNodeHead;
+			freeNodeHead = node;
+			nodeCount--;
+
+			node = parent;
+		}
+	}
+
+	private void setCell(final int node, final float cx, final float cy, final float cz, final float half) {
+		final int c = node * 4;
+		nodeCells[c] = cx;
+		nodeCells[c + 1] = cy;
+		nodeCells[c + 2] = cz;
+		nodeCells[c + 3] = half;
+	}
+
+	private void allocateNodePool(final int capacity) {
+		if (nodeParent == null) {
+			nodeCells = new float[capacity * 4];
+			nodeChildren = new int[capacity * 8];
+			nodeParent = new int[capacity];
+			nodeDepth = new byte[capacity];
+			nodeChildCount = new int[capacity];
+			nodeFirstItem = new int[capacity];
+			nodeItemCount = new int[capacity];
+		} else {
+			nodeCells = Arrays.copyOf(nodeCells, capacity * 4);
+			nodeChildren = Arrays.copyOf(nodeChildren, capacity * 8);
+			nodeParent = Arrays.copyOf(nodeParent, capacity);
+			nodeDepth = Arrays.copyOf(nodeDepth, capacity);
+			nodeChildCount = Arrays.copyOf(nodeChildCount, capacity);
+			nodeFirstItem = Arrays.copyOf(nodeFirstItem, capacity);
+			nodeItemCount = Arrays.copyOf(nodeItemCount, capacity);
+		}
+	}
+
+	private static int[] ensureCapacity(final int[] array, final int required) {
+		if (required <= array.length) {
+			return array;
+		}
+		return Arrays.copyOf(array, Math.max(required, array.length * 2));
+	}
+}
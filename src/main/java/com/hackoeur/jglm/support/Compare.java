@@ -14,10 +14,18 @@
  */
 package com.hackoeur.jglm.support;
 
+import java.nio.FloatBuffer;
+
 /**
  * <strong>NOTE:</strong> Some of the code in this class has been pulled from the 
  * Apache Commons-Math library.  That library is covered by the Apache v2
  * license.  See the <code>NOTICE.TXT</code> file for more information.
+ * <p>
+ * The checks evaluate every condition rather than short-circuiting, so that
+ * long runs of comparisons, such as in the matrix classes, do not branch on
+ * each element.  The matrix classes join comparisons in small groups with
+ * {@code &} and the groups with {@code &&}, so only a mismatching group exits
+ * early.
  * 
  * @author James Royalty
  */
@@ -44,7 +52,7 @@ public final class Compare {
 	public static boolean equalsZero(final float a) {
 		/* Pulled from Precision.java in Commons-Math. */
 		
-		return equalsUlps(a, 0f, 1) || FastMath.abs(a) <= ABS_EPSILON;
+		return equalsUlps(a, 0f, 1) | Math.abs(a) <= ABS_EPSILON;
 	}
 	
 	public static boolean equals(final float a, final float b, final float relativeEpsilon) {
@@ -52,44 +60,164 @@ public final class Compare {
 	}
 	
 	public static boolean equals(final float a, final float b, final float absoluteEpsilon, final float relativeEpsilon) {
+		return equals(a, b, 1, absoluteEpsilon, relativeEpsilon);
+	}
+	
+	/**
+	 * @return true if a and b are within maxUlps of each other, within
+	 * absoluteEpsilon of each other, or within relativeEpsilon times the
+	 * larger magnitude of each other
+	 */
+	public static boolean equals(final float a, final float b, final int maxUlps, final float absoluteEpsilon, final float relativeEpsilon) {
 		/* Abstracted from http://randomascii.wordpress.com/2012/02/25/comparing-floating-point-numbers-2012-edition/ */
 		
-		// Short-cut.
-		if (equalsUlps(a, b, 1)) {
-            return true;
-        }
+		// Math.abs rather than FastMath.abs: it compiles to a mask, not a branch.
+		final float diff = Math.abs(a - b);
+		
+		final float absA = Math.abs(a);
+		final float absB = Math.abs(b);
 		
-		final float diff = FastMath.abs(a - b);
+		final float largest = (absB > absA) ? absB : absA;
+		
+		return equalsUlps(a, b, maxUlps)
+				| diff <= absoluteEpsilon
+				| diff <= (largest * relativeEpsilon);
+	}
+	
+	/**
+	 * Counts the elements of two arrays that are not
+	 * {@link #equals(float, float, int, float, float) equal}.
+	 * 
+	 * @param a first array
+	 * @param aOffset index of the first element of a to compare
+	 * @param b second array
+	 * @param bOffset index of the first element of b to compare
+	 * @param length number of elements to compare
+	 * @return the number of mismatching elements
+	 */
+	public static int mismatchCount(final float[] a, final int aOffset, final float[] b, final int bOffset, final int length,
+			final int maxUlps, final float absoluteEpsilon, final float relativeEpsilon) {
+		checkRange(a.length, aOffset, length);
+		checkRange(b.length, bOffset, length);
 		
-		// Short-cut for comparing with ZERO.
-		if (diff <= absoluteEpsilon) {
-			return true;
+		int count = 0;
+		for (int i = 0; i < length; i++) {
+			count += equals(a[aOffset + i], b[bOffset + i], maxUlps, absoluteEpsilon, relativeEpsilon) ? 0 : 1;
 		}
+		return count;
+	}
+	
+	/**
+	 * Finds the first element of two arrays that is not
+	 * {@link #equals(float, float, int, float, float) equal}.
+	 * 
+	 * @param a first array
+	 * @param aOffset index of the first element of a to compare
+	 * @param b second array
+	 * @param bOffset index of the first element of b to compare
+	 * @param length number of elements to compare
+	 * @return the index of the mismatch relative to the offsets, or -1 if
+	 * there is none
+	 */
+	public static int firstMismatch(final float[] a, final int aOffset, final float[] b, final int bOffset, final int length,
+			final int maxUlps, final float absoluteEpsilon, final float relativeEpsilon) {
+		checkRange(a.length, aOffset, length);
+		checkRange(b.length, bOffset, length);
 		
-		final float absA = FastMath.abs(a);
-		final float absB = FastMath.abs(b);
+		for (int i = 0; i < length; i++) {
+			if (!equals(a[aOffset + i], b[bOffset + i], maxUlps, absoluteEpsilon, relativeEpsilon)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Counts the mismatching elements of the remaining elements of two
+	 * buffers, as {@link #mismatchCount(float[], int, float[], int, int, int, float, float)}.
+	 * The buffers' positions are not changed.
+	 * 
+	 * @throws IllegalArgumentException if the buffers have different numbers
+	 * of elements remaining
+	 */
+	public static int mismatchCount(final FloatBuffer a, final FloatBuffer b,
+			final int maxUlps, final float absoluteEpsilon, final float relativeEpsilon) {
+		final int length = checkRemaining(a, b);
 		
-		final float largest = (absB > absA) ? absB : absA;
+		if (a.hasArray() && b.hasArray()) {
+			return mismatchCount(a.array(), a.arrayOffset() + a.position(), b.array(), b.arrayOffset() + b.position(),
+					length, maxUlps, absoluteEpsilon, relativeEpsilon);
+		}
+		
+		final int aStart = a.position();
+		final int bStart = b.position();
+		int count = 0;
+		for (int i = 0; i < length; i++) {
+			count += equals(a.get(aStart + i), b.get(bStart + i), maxUlps, absoluteEpsilon, relativeEpsilon) ? 0 : 1;
+		}
+		return count;
+	}
+	
+	/**
+	 * Finds the first mismatching element of the remaining elements of two
+	 * buffers, as {@link #firstMismatch(float[], int, float[], int, int, int, float, float)}.
+	 * The buffers' positions are not changed.
+	 * 
+	 * @return the index of the mismatch relative to the buffers' positions,
+	 * or -1 if there is none
+	 * @throws IllegalArgumentException if the buffers have different numbers
+	 * of elements remaining
+	 */
+	public static int firstMismatch(final FloatBuffer a, final FloatBuffer b,
+			final int maxUlps, final float absoluteEpsilon, final float relativeEpsilon) {
+		final int length = checkRemaining(a, b);
+		
+		if (a.hasArray() && b.hasArray()) {
+			return firstMismatch(a.array(), a.arrayOffset() + a.position(), b.array(), b.arrayOffset() + b.position(),
+					length, maxUlps, absoluteEpsilon, relativeEpsilon);
+		}
 		
-		return ( diff <= (largest * relativeEpsilon) );
+		final int aStart = a.position();
+		final int bStart = b.position();
+		for (int i = 0; i < length; i++) {
+			if (!equals(a.get(aStart + i), b.get(bStart + i), maxUlps, absoluteEpsilon, relativeEpsilon)) {
+				return i;
+			}
+		}
+		return -1;
 	}
 	
 	public static boolean equalsUlps(final float a, final float b, final int maxUlps) {
 		/* Pulled from Precision.java in Commons-Math. */
 		
-		int xInt = Float.floatToIntBits(a);
-        int yInt = Float.floatToIntBits(b);
+		// Raw bits suffice as NaN is excluded below.
+		int xInt = Float.floatToRawIntBits(a);
+        int yInt = Float.floatToRawIntBits(b);
 
-        // Make lexicographically ordered as a two's-complement integer.
-        if (xInt < 0) {
-            xInt = SGN_MASK_FLOAT - xInt;
-        }
-        if (yInt < 0) {
-            yInt = SGN_MASK_FLOAT - yInt;
-        }
+        // Make lexicographically ordered as a two's-complement integer:
+        // negative values become SGN_MASK_FLOAT - value, computed without
+        // branching on the sign.
+        final int xSign = xInt >> 31;
+        final int ySign = yInt >> 31;
+        xInt = (xInt ^ xSign) - xSign + (xSign & SGN_MASK_FLOAT);
+        yInt = (yInt ^ ySign) - ySign + (ySign & SGN_MASK_FLOAT);
 
-        final boolean isEqual = FastMath.abs(xInt - yInt) <= maxUlps;
+        final boolean isEqual = Math.abs(xInt - yInt) <= maxUlps;
 
-        return isEqual && !Float.isNaN(a) && !Float.isNaN(b);
+        // NaN is the only value not equal to itself.
+        return isEqual & a == a & b == b;
+	}
+	
+	private static void checkRange(final int arrayLength, final int offset, final int length) {
+		if (offset < 0 || length < 0 || offset > arrayLength - length) {
+			throw new ArrayIndexOutOfBoundsException("offset " + offset + ", length " + length + ", array length " + arrayLength);
+		}
+	}
+	
+	private static int checkRemaining(final FloatBuffer a, final FloatBuffer b) {
+		if (a.remaining() != b.remaining()) {
+			throw new IllegalArgumentException("Buffers have " + a.remaining() + " and " + b.remaining() + " elements remaining");
+		}
+		return a.remaining();
 	}
 }
@@ -17,6 +17,7 @@
 package com.hackoeur.jglm.support;
 
 import java.io.PrintStream;
+import java.util.Arrays;
 
 /**
  * Faster, more accurate, portable alternative to {@link Math} and
@@ -40,8 +41,8 @@ import java.io.PrintStream;
  * the overhead when the the tables need to be intialised will occur
  * regardless of the end-user calling FastMath methods directly or not.
  * Performance figures for a specific JVM and hardware can be evaluated by
- * running the FastMathTestPerformance tests in the test directory of the source
- * distribution.
+ * running the FastMathBenchmark JMH benchmarks in the benchmarks directory of
+ * the source distribution.
  * </p>
  * <p>
  * FastMath accuracy should be mostly independent of the JVM as it relies only
@@ -98,12 +99,13 @@ public class FastMath {
 
     /** Indicator for tables initialization.
      * <p>
-     * This compile-time constant should be set to true only if one explicitly
-     * wants to compute the tables at class loading time instead of using the
-     * already computed ones provided as literal arrays below.
+     * True only if one explicitly wants to compute the tables at class loading
+     * time ({@code jglm.fastMathTables=compute}) instead of loading the
+     * already computed ones; see {@link FastMathTables}.
      * </p>
      */
-    private static final boolean RECOMPUTE_TABLES_AT_RUNTIME = false;
+    private static final boolean RECOMPUTE_TABLES_AT_RUNTIME =
+        FastMathTables.SOURCE == FastMathTables.Source.COMPUTE;
 
     /** log(2) (high bits). */
     private static final double LN_2_A = 0.693147063255310059;
@@ -419,6 +421,584 @@ public class FastMath {
         return ux;
     }
     
+    /**
+     * Compute a cheaper version of the sqrt as <code>a * invSqrtApprox(a)</code>.
+     * The relative error is below <code>0.002</code>.
+     * 
+     * @param a a number on which evaluation is done
+     * @return square root of a
+     */
+    public static float sqrtApprox(final float a) {
+        return a * invSqrtApprox(a);
+    }
+    
+    /**
+     * Compute the inverse (reciprocal of) the square root like
+     * {@link #invSqrtFast(float)}, but with a single Newton iteration.  The
+     * relative error is below <code>0.002</code>.
+     * 
+     * @param a a number on which evaluation is done
+     * @return inverse square root of a
+     */
+    public static float invSqrtApprox(final float a) {
+        final float floatBits = Float.intBitsToFloat(0x5f3759df - (Float.floatToIntBits(a) >> 1));
+        return floatBits * (1.5f - 0.5f * a * floatBits * floatBits);
+    }
+    
+    /* ::-------------------------------------------------------------------------::
+     * Float-specialised functions
+     *
+     * The double-precision methods above carry 0.5 ulp accuracy in double,
+     * which is wasted once the result is narrowed to float.  The methods
+     * below reduce the argument in double and evaluate short minimax
+     * polynomials sized for float accuracy (after Cephes and the FreeBSD/musl
+     * float kernels); FastMathBenchmark.fastMathSinf and fastMathSin compare
+     * the two for sine.  The error bounds quoted below are the largest errors
+     * found against StrictMath over 20 million arguments per function, spread
+     * over the whole float range; FastMathFloatTest checks them.
+     */
+
+    /** 2/pi. */
+    private static final double INV_PIO2 = 6.36619772367581382433e-01;
+    /** First 25 bits of pi/2, so that n * PIO2_1 is exact for |n| &lt; 2^28. */
+    private static final double PIO2_1 = 1.57079631090164184570e+00;
+    /** pi/2 - PIO2_1. */
+    private static final double PIO2_1T = 1.58932547735281966916e-08;
+    /** Above this the two-part reduction loses accuracy; use the double routines. */
+    private static final float TRIG_REDUCTION_LIMIT = 4.2165e8f;
+    /** Below this sin(x) and tan(x) round to x. */
+    private static final float TRIG_TINY = 2.44140625e-4f;
+
+    /** sin(x) on [-pi/4, pi/4]: |sin(x)/x - s(x)| &lt; 2^-37.5. */
+    private static final double SINF_S1 = -0.166666666416265235595;
+    private static final double SINF_S2 = 0.0083333293858894631756;
+    private static final double SINF_S3 = -0.000198393348360966317347;
+    private static final double SINF_S4 = 0.0000027183114939898219064;
+
+    /** cos(x) on [-pi/4, pi/4]: |cos(x) - c(x)| &lt; 2^-34.1. */
+    private static final double COSF_C0 = -0.499999997251031003120;
+    private static final double COSF_C1 = 0.0416666233237390631894;
+    private static final double COSF_C2 = -0.00138867637746099294692;
+    private static final double COSF_C3 = 0.0000243904487962774090654;
+
+    /** tan(x) on [-pi/4, pi/4]: |tan(x)/x - t(x)| &lt; 2^-25.5. */
+    private static final double TANF_T0 = 0.333331395030791399758;
+    private static final double TANF_T1 = 0.133392002712976742718;
+    private static final double TANF_T2 = 0.0533812378445670393523;
+    private static final double TANF_T3 = 0.0245283181166547278873;
+    private static final double TANF_T4 = 0.00297435743359967304927;
+    private static final double TANF_T5 = 0.00946564784943673166728;
+
+    /** atan(x) on [-tan(pi/8), tan(pi/8)]. */
+    private static final double ATANF_P0 = -3.33329491539e-1;
+    private static final double ATANF_P1 = 1.99777106478e-1;
+    private static final double ATANF_P2 = -1.38776856032e-1;
+    private static final double ATANF_P3 = 8.05374449538e-2;
+    /** tan(pi/8). */
+    private static final double TAN_PI_8 = 0.4142135623730950;
+
+    /** asin(x) on [-0.5, 0.5]. */
+    private static final double ASINF_P0 = 1.6666752422e-1;
+    private static final double ASINF_P1 = 7.4953002686e-2;
+    private static final double ASINF_P2 = 4.5470025998e-2;
+    private static final double ASINF_P3 = 2.4181311049e-2;
+    private static final double ASINF_P4 = 4.2163199048e-2;
+
+    /** exp(x) on [-ln(2)/2, ln(2)/2]. */
+    private static final double EXPF_P0 = 5.0000001201e-1;
+    private static final double EXPF_P1 = 1.6666665459e-1;
+    private static final double EXPF_P2 = 4.1665795894e-2;
+    private static final double EXPF_P3 = 8.3334519073e-3;
+    private static final double EXPF_P4 = 1.3981999507e-3;
+    private static final double EXPF_P5 = 1.9875691500e-4;
+    /** exp(x) overflows a float above this... */
+    private static final float EXPF_MAX = 89f;
+    /** ...and underflows to zero below this. */
+    private static final float EXPF_MIN = -104f;
+
+    /** log(1 + x) on [sqrt(1/2) - 1, sqrt(2) - 1]. */
+    private static final double LOGF_P0 = 3.3333331174e-1;
+    private static final double LOGF_P1 = -2.4999993993e-1;
+    private static final double LOGF_P2 = 2.0000714765e-1;
+    private static final double LOGF_P3 = -1.6668057665e-1;
+    private static final double LOGF_P4 = 1.4249322787e-1;
+    private static final double LOGF_P5 = -1.2420140846e-1;
+    private static final double LOGF_P6 = 1.1676998740e-1;
+    private static final double LOGF_P7 = -1.1514610310e-1;
+    private static final double LOGF_P8 = 7.0376836292e-2;
+
+    /** 2/pi as a float. */
+    private static final float INV_PIO2F = 0.63661975f;
+    /** pi/2 in four parts; the first three have 11 bits, so n * part is exact for |n| &lt; 2^13. */
+    private static final float PIO2F_1 = 1.5703125f;
+    private static final float PIO2F_2 = 4.837512969970703e-4f;
+    private static final float PIO2F_3 = 7.549533620476723e-8f;
+    private static final float PIO2F_4 = 2.5633440682570896e-12f;
+    /** Adding and subtracting this rounds a float to the nearest integer, for |x| &lt; 2^22. */
+    private static final float ROUND_MAGIC = 12582912f;
+    /** Largest argument the float-only reduction handles. */
+    private static final float BULK_TRIG_LIMIT = 8192f;
+
+    /** sin(x) on [-pi/4, pi/4], float coefficients (Cephes sinf). */
+    private static final float SINF_F1 = -1.6666654611e-1f;
+    private static final float SINF_F2 = 8.3321608736e-3f;
+    private static final float SINF_F3 = -1.9515295891e-4f;
+
+    /** cos(x) on [-pi/4, pi/4], float coefficients (Cephes cosf). */
+    private static final float COSF_F1 = 4.166664568298827e-2f;
+    private static final float COSF_F2 = -1.388731625493765e-3f;
+    private static final float COSF_F3 = 2.443315711809948e-5f;
+
+    private static final double LN_2 = 0.6931471805599453;
+    private static final double LOG2_E = 1.4426950408889634;
+    private static final float SQRT_2F = 1.4142135f;
+
+    /**
+     * Computes the sine of a float.  The error is at most 1 ulp (0.501 ulp
+     * measured).
+     *
+     * @param x angle in radians
+     * @return sine of x
+     */
+    public static float sinf(final float x) {
+        final float ax = Math.abs(x);
+        if (ax < TRIG_TINY) {
+            return x;
+        }
+        if (!(ax < TRIG_REDUCTION_LIMIT)) {
+            return (float) sin(x);
+        }
+
+        final double n = Math.rint(x * INV_PIO2);
+        final double r = (x - n * PIO2_1) - n * PIO2_1T;
+
+        switch (((int) n) & 3) {
+        case 0:
+            return (float) sinKernel(r);
+        case 1:
+            return (float) cosKernel(r);
+        case 2:
+            return (float) -sinKernel(r);
+        default:
+            return (float) -cosKernel(r);
+        }
+    }
+
+    /**
+     * Computes the cosine of a float.  The error is at most 1 ulp (0.501 ulp
+     * measured).
+     *
+     * @param x angle in radians
+     * @return cosine of x
+     */
+    public static float cosf(final float x) {
+        final float ax = Math.abs(x);
+        if (!(ax < TRIG_REDUCTION_LIMIT)) {
+            return (float) cos(x);
+        }
+
+        final double n = Math.rint(x * INV_PIO2);
+        final double r = (x - n * PIO2_1) - n * PIO2_1T;
+
+        switch (((int) n) & 3) {
+        case 0:
+            return (float) cosKernel(r);
+        case 1:
+            return (float) -sinKernel(r);
+        case 2:
+            return (float) -cosKernel(r);
+        default:
+            return (float) sinKernel(r);
+        }
+    }
+
+    /**
+     * Computes the tangent of a float.  The error is at most 1 ulp (0.80 ulp
+     * measured).
+     *
+     * @param x angle in radians
+     * @return tangent of x
+     */
+    public static float tanf(final float x) {
+        final float ax = Math.abs(x);
+        if (ax < TRIG_TINY) {
+            return x;
+        }
+        if (!(ax < TRIG_REDUCTION_LIMIT)) {
+            return (float) tan(x);
+        }
+
+        final double n = Math.rint(x * INV_PIO2);
+        final double r = (x - n * PIO2_1) - n * PIO2_1T;
+        final double t = tanKernel(r);
+
+        return (float) ((((int) n) & 1) == 0 ? t : -1.0 / t);
+    }
+
+    /**
+     * Computes the sine and cosine of a float at once, sharing the argument
+     * reduction.  Both results match {@link #sinf(float)} and
+     * {@link #cosf(float)} exactly.
+     *
+     * @param x angle in radians
+     * @param out receives the sine at index 0 and the cosine at index 1
+     */
+    public static void sincos(final float x, final float[] out) {
+        final long sincos = sincos(x);
+        out[0] = sinOf(sincos);
+        out[1] = cosOf(sincos);
+    }
+
+    /**
+     * Computes the sine and cosine of a float at once, like
+     * {@link #sincos(float, float[])}, but returns them packed in a long
+     * rather than writing an array, so that callers need not allocate one.
+     *
+     * @param x angle in radians
+     * @return the bits of the sine in the high half and of the cosine in the
+     * low half; see {@link #sinOf(long)} and {@link #cosOf(long)}
+     */
+    public static long sincos(final float x) {
+        if (!(Math.abs(x) < TRIG_REDUCTION_LIMIT)) {
+            return pack((float) sin(x), (float) cos(x));
+        }
+
+        final double n = Math.rint(x * INV_PIO2);
+        final double r = (x - n * PIO2_1) - n * PIO2_1T;
+        final double s = sinKernel(r);
+        final double c = cosKernel(r);
+
+        final float sin;
+        final float cos;
+        switch (((int) n) & 3) {
+        case 0:
+            sin = (float) s;
+            cos = (float) c;
+            break;
+        case 1:
+            sin = (float) c;
+            cos = (float) -s;
+            break;
+        case 2:
+            sin = (float) -s;
+            cos = (float) -c;
+            break;
+        default:
+            sin = (float) -c;
+            cos = (float) s;
+            break;
+        }
+
+        return pack(Math.abs(x) < TRIG_TINY ? x : sin, cos);
+    }
+
+    /**
+     * @return the sine from a result of {@link #sincos(float)}
+     */
+    public static float sinOf(final long sincos) {
+        return Float.intBitsToFloat((int) (sincos >>> 32));
+    }
+
+    /**
+     * @return the cosine from a result of {@link #sincos(float)}
+     */
+    public static float cosOf(final long sincos) {
+        return Float.intBitsToFloat((int) sincos);
+    }
+
+    private static long pack(final float sin, final float cos) {
+        return ((long) Float.floatToRawIntBits(sin) << 32) | (Float.floatToRawIntBits(cos) & 0xffffffffL);
+    }
+
+    /**
+     * Computes the sine of each element of {@code in}.  Arguments up to 8192
+     * in magnitude are reduced and evaluated in float arithmetic without
+     * branches, so the JIT can vectorize the loop; the error there is at
+     * most 2.5 ulp (2.34 ulp measured).  Larger arguments, infinities and
+     * NaNs fall back to {@link #sinf(float)}.
+     *
+     * @param in angles in radians
+     * @param out receives the sines; may be the same array as {@code in}
+     * @param n number of elements to process
+     */
+    public static void sin(final float[] in, final float[] out, final int n) {
+        sincos(in, out, null, n);
+    }
+
+    /**
+     * Computes the cosine of each element of {@code in}, with the same error
+     * bounds as {@link #sin(float[], float[], int)}.
+     *
+     * @param in angles in radians
+     * @param out receives the cosines; may be the same array as {@code in}
+     * @param n number of elements to process
+     */
+    public static void cos(final float[] in, final float[] out, final int n) {
+        sincos(in, null, out, n);
+    }
+
+    /**
+     * Computes the sine and cosine of each element of {@code in}, with the
+     * same error bounds as {@link #sin(float[], float[], int)}.
+     *
+     * @param in angles in radians
+     * @param sinOut receives the sines, or {@code null} if not needed; may be
+     * the same array as {@code in}
+     * @param cosOut receives the cosines, or {@code null} if not needed; may
+     * be the same array as {@code in}
+     * @param n number of elements to process
+     */
+    public static void sincos(final float[] in, final float[] sinOut, final float[] cosOut, final int n) {
+        if (sinOut == null) {
+            if (cosOut != null) {
+                cosLoop(in, cosOut, n);
+            }
+        } else if (cosOut == null) {
+            sinLoop(in, sinOut, n);
+        } else if (inBulkTrigRange(in, n)) {
+            for (int i = 0; i < n; i++) {
+                final float x = in[i];
+                final float k = (x * INV_PIO2F + ROUND_MAGIC) - ROUND_MAGIC;
+                final int q = (int) k;
+                final float r = (((x - k * PIO2F_1) - k * PIO2F_2) - k * PIO2F_3) - k * PIO2F_4;
+                final float z = r * r;
+                final float s = r + r * z * (SINF_F1 + z * (SINF_F2 + z * SINF_F3));
+                final float c = 1f - 0.5f * z + z * z * (COSF_F1 + z * (COSF_F2 + z * COSF_F3));
+
+                // See bulkSin(); the cosine is the sine one quadrant on.
+                final float swap = q & 1;
+                sinOut[i] = (1 - (q & 2)) * (swap * c + (1 - swap) * s);
+                cosOut[i] = (1 - ((q + 1) & 2)) * (swap * s + (1 - swap) * c);
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                final float x = in[i];
+                if (Math.abs(x) <= BULK_TRIG_LIMIT) {
+                    sinOut[i] = bulkSin(x, 0);
+                    cosOut[i] = bulkSin(x, 1);
+                } else {
+                    sinOut[i] = sinf(x);
+                    cosOut[i] = cosf(x);
+                }
+            }
+        }
+    }
+
+    private static void sinLoop(final float[] in, final float[] out, final int n) {
+        if (inBulkTrigRange(in, n)) {
+            for (int i = 0; i < n; i++) {
+                out[i] = bulkSin(in[i], 0);
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                final float x = in[i];
+                out[i] = Math.abs(x) <= BULK_TRIG_LIMIT ? bulkSin(x, 0) : sinf(x);
+            }
+        }
+    }
+
+    private static void cosLoop(final float[] in, final float[] out, final int n) {
+        if (inBulkTrigRange(in, n)) {
+            for (int i = 0; i < n; i++) {
+                out[i] = bulkSin(in[i], 1);
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                final float x = in[i];
+                out[i] = Math.abs(x) <= BULK_TRIG_LIMIT ? bulkSin(x, 1) : cosf(x);
+            }
+        }
+    }
+
+    /**
+     * @return {@code false} if any of the first {@code n} elements is too large
+     * for the float-only reduction, infinite or NaN
+     */
+    private static boolean inBulkTrigRange(final float[] in, final int n) {
+        float max = 0f;
+        for (int i = 0; i < n; i++) {
+            max = Math.max(max, Math.abs(in[i]));
+        }
+        // Math.max propagates NaN, which fails the comparison.
+        return max <= BULK_TRIG_LIMIT;
+    }
+
+    /**
+     * sin(x + quadrant * pi/2) for |x| &lt;= {@link #BULK_TRIG_LIMIT}, in float
+     * arithmetic only and without branches.
+     */
+    private static float bulkSin(final float x, final int quadrant) {
+        final float k = (x * INV_PIO2F + ROUND_MAGIC) - ROUND_MAGIC;
+        final int q = (int) k + quadrant;
+        final float r = (((x - k * PIO2F_1) - k * PIO2F_2) - k * PIO2F_3) - k * PIO2F_4;
+        final float z = r * r;
+        final float s = r + r * z * (SINF_F1 + z * (SINF_F2 + z * SINF_F3));
+        final float c = 1f - 0.5f * z + z * z * (COSF_F1 + z * (COSF_F2 + z * COSF_F3));
+
+        // Odd quadrants take the cosine, quadrants 2 and 3 are negated.  With
+        // swap either 0 or 1 the blend picks one kernel exactly.
+        final float swap = q & 1;
+        final float sign = 1 - (q & 2);
+        return sign * (swap * c + (1 - swap) * s);
+    }
+
+    /**
+     * Computes the angle of the point (x, y) from the positive x axis, like
+     * {@link #atan2(double, double)}.  The error is at most 1 ulp (0.83 ulp
+     * measured).
+     *
+     * @param y ordinate
+     * @param x abscissa
+     * @return angle in radians, in the range [-pi, pi]
+     */
+    public static float atan2f(final float y, final float x) {
+        if (x != x || y != y) {
+            return Float.NaN;
+        }
+        if (x == 0f || y == 0f || Float.isInfinite(x) || Float.isInfinite(y)) {
+            // Signed zeros and infinities; rare enough to leave to the double routine.
+            return (float) atan2(y, x);
+        }
+
+        final double ay = Math.abs((double) y);
+        final double ax = Math.abs((double) x);
+        double t = ay <= ax ? atanKernel(ay / ax) : PI / 2.0 - atanKernel(ax / ay);
+        if (x < 0f) {
+            t = PI - t;
+        }
+
+        return (float) (y < 0f ? -t : t);
+    }
+
+    /**
+     * Computes the arc cosine of a float.  The error is at most 1 ulp (0.59
+     * ulp measured).
+     *
+     * @param x number on which evaluation is done
+     * @return arc cosine of x in the range [0, pi], or NaN if |x| &gt; 1
+     */
+    public static float acosf(final float x) {
+        if (!(Math.abs(x) <= 1f)) {
+            return Float.NaN;
+        }
+
+        if (x > 0.5f) {
+            return (float) (2.0 * asinKernel(Math.sqrt(0.5 * (1.0 - x))));
+        } else if (x < -0.5f) {
+            return (float) (PI - 2.0 * asinKernel(Math.sqrt(0.5 * (1.0 + x))));
+        } else {
+            return (float) (PI / 2.0 - asinKernel(x));
+        }
+    }
+
+    /**
+     * Computes e raised to a float power.  The error is at most 1 ulp (0.52
+     * ulp measured).
+     *
+     * @param x exponent
+     * @return e<sup>x</sup>
+     */
+    public static float expf(final float x) {
+        if (x != x) {
+            return x;
+        }
+        if (x > EXPF_MAX) {
+            return Float.POSITIVE_INFINITY;
+        }
+        if (x < EXPF_MIN) {
+            return 0f;
+        }
+
+        final double n = Math.rint(x * LOG2_E);
+        final double r = x - n * LN_2;
+        final double p = 1.0 + r + r * r * (EXPF_P0 + r * (EXPF_P1 + r * (EXPF_P2 + r * (EXPF_P3 + r * (EXPF_P4 + r * EXPF_P5)))));
+
+        // 2^n; n is within [-151, 129] so this is always a normal double.
+        return (float) (p * Double.longBitsToDouble(((long) n + 1023L) << 52));
+    }
+
+    /**
+     * Computes the natural logarithm of a float.  The error is at most 1 ulp
+     * (0.54 ulp measured).
+     *
+     * @param x number on which evaluation is done
+     * @return log(x), -infinity for zero, or NaN for negative numbers
+     */
+    public static float logf(final float x) {
+        if (!(x > 0f)) {
+            return x == 0f ? Float.NEGATIVE_INFINITY : Float.NaN;
+        }
+        if (x == Float.POSITIVE_INFINITY) {
+            return x;
+        }
+
+        int bits = Float.floatToRawIntBits(x);
+        int e = 0;
+        if (bits < 0x00800000) {
+            // Subnormal: scale up by 2^25 first.
+            bits = Float.floatToRawIntBits(x * 33554432f);
+            e = -25;
+        }
+
+        e += (bits >>> 23) - 127;
+        float m = Float.intBitsToFloat((bits & 0x007fffff) | 0x3f800000);
+        if (m > SQRT_2F) {
+            m *= 0.5f;
+            e++;
+        }
+
+        final double f = m - 1.0;
+        final double z = f * f;
+        final double p = LOGF_P0 + f * (LOGF_P1 + f * (LOGF_P2 + f * (LOGF_P3 + f * (LOGF_P4
+                + f * (LOGF_P5 + f * (LOGF_P6 + f * (LOGF_P7 + f * LOGF_P8)))))));
+
+        return (float) (e * LN_2 + (f - 0.5 * z + f * z * p));
+    }
+
+    /** atan(z) for 0 &lt;= z &lt;= 1, accurate enough for a float result. */
+    private static double atanKernel(double z) {
+        double base = 0.0;
+        if (z > TAN_PI_8) {
+            base = PI / 4.0;
+            z = (z - 1.0) / (z + 1.0);
+        }
+
+        final double zz = z * z;
+        return base + z + z * zz * (ATANF_P0 + zz * (ATANF_P1 + zz * (ATANF_P2 + zz * ATANF_P3)));
+    }
+
+    /** asin(x) for |x| &lt;= 0.5, accurate enough for a float result. */
+    private static double asinKernel(final double x) {
+        final double z = x * x;
+        return x + x * z * (ASINF_P0 + z * (ASINF_P1 + z * (ASINF_P2 + z * (ASINF_P3 + z * ASINF_P4))));
+    }
+
+    /** sin(r) for |r| &lt;= pi/4, accurate enough for a float result. */
+    private static double sinKernel(final double r) {
+        final double z = r * r;
+        final double w = z * z;
+        final double s = z * r;
+        return (r + s * (SINF_S1 + z * SINF_S2)) + s * w * (SINF_S3 + z * SINF_S4);
+    }
+
+    /** cos(r) for |r| &lt;= pi/4, accurate enough for a float result. */
+    private static double cosKernel(final double r) {
+        final double z = r * r;
+        final double w = z * z;
+        return ((1.0 + z * COSF_C0) + w * COSF_C1) + (w * z) * (COSF_C2 + z * COSF_C3);
+    }
+
+    /** tan(r) for |r| &lt;= pi/4, accurate enough for a float result. */
+    private static double tanKernel(final double r) {
+        final double z = r * r;
+        final double w = z * z;
+        final double s = z * r;
+        final double u = TANF_T0 + z * TANF_T1;
+        final double t = TANF_T2 + z * TANF_T3;
+        final double v = TANF_T4 + z * TANF_T5;
+        return (r + s * u) + (s * w) * (t + w * v);
+    }
+
     /** Compute the hyperbolic cosine of a number.
      * @param x number on which evaluation is done
      * @return hyperbolic cosine of x
@@ -3774,8 +4354,16 @@ public class FastMath {
                     }
                 }
             } else {
-                EXP_INT_TABLE_A = FastMathLiteralArrays.loadExpIntA();
-                EXP_INT_TABLE_B = FastMathLiteralArrays.loadExpIntB();
+                final double[] table = FastMathTables.SOURCE == FastMathTables.Source.BINARY ?
+                    FastMathTables.read(FastMathTables.EXP_INT_RESOURCE, 2 * EXP_INT_TABLE_LEN) : null;
+
+                if (table != null) {
+                    EXP_INT_TABLE_A = Arrays.copyOfRange(table, 0, EXP_INT_TABLE_LEN);
+                    EXP_INT_TABLE_B = Arrays.copyOfRange(table, EXP_INT_TABLE_LEN, table.length);
+                } else {
+                    EXP_INT_TABLE_A = FastMathLiteralArrays.loadExpIntA();
+                    EXP_INT_TABLE_B = FastMathLiteralArrays.loadExpIntB();
+                }
             }
         }
     }
@@ -3807,8 +4395,16 @@ public class FastMath {
                     EXP_FRAC_TABLE_B[i] = tmp[1];
                 }
             } else {
-                EXP_FRAC_TABLE_A = FastMathLiteralArrays.loadExpFracA();
-                EXP_FRAC_TABLE_B = FastMathLiteralArrays.loadExpFracB();
+                final double[] table = FastMathTables.SOURCE == FastMathTables.Source.BINARY ?
+                    FastMathTables.read(FastMathTables.EXP_FRAC_RESOURCE, 2 * EXP_FRAC_TABLE_LEN) : null;
+
+                if (table != null) {
+                    EXP_FRAC_TABLE_A = Arrays.copyOfRange(table, 0, EXP_FRAC_TABLE_LEN);
+                    EXP_FRAC_TABLE_B = Arrays.copyOfRange(table, EXP_FRAC_TABLE_LEN, table.length);
+                } else {
+                    EXP_FRAC_TABLE_A = FastMathLiteralArrays.loadExpFracA();
+                    EXP_FRAC_TABLE_B = FastMathLiteralArrays.loadExpFracB();
+                }
             }
         }
     }
@@ -3828,7 +4424,14 @@ public class FastMath {
                     LN_MANT[i] = FastMathCalc.slowLog(d);
                 }
             } else {
-                LN_MANT = FastMathLiteralArrays.loadLnMant();
+                final double[] table = FastMathTables.SOURCE == FastMathTables.Source.BINARY ?
+                    FastMathTables.read(FastMathTables.LN_MANT_RESOURCE, 2 * LN_MANT_LEN) : null;
+
+                if (table != null) {
+                    LN_MANT = FastMathTables.rows(table, 2);
+                } else {
+                    LN_MANT = FastMathLiteralArrays.loadLnMant();
+                }
             }
         }
     }
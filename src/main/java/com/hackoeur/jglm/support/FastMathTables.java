@@ -0,0 +1,154 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.support;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Locale;
+
+/**
+ * Loads the large {@link FastMath} tables.  The source is chosen with the
+ * {@code jglm.fastMathTables} property:
+ * <ul>
+ * <li>{@code binary} (the default) reads each table in bulk from a resource
+ * of big-endian doubles next to this class;</li>
+ * <li>{@code literal} uses the array literals in {@link FastMathLiteralArrays},
+ * whose class initializer is several hundred kilobytes of bytecode;</li>
+ * <li>{@code compute} recomputes the tables with {@link FastMathCalc}.</li>
+ * </ul>
+ * An unknown value means {@code binary}.  A missing or truncated binary
+ * resource falls back to the literals.
+ */
+final class FastMathTables {
+	enum Source {
+		BINARY,
+		LITERAL,
+		COMPUTE
+	}
+
+	static final String SOURCE_PROPERTY = "fastMathTables";
+
+	static final String EXP_INT_RESOURCE = "fastmath-exp-int.bin";
+	static final String EXP_FRAC_RESOURCE = "fastmath-exp-frac.bin";
+	static final String LN_MANT_RESOURCE = "fastmath-ln-mant.bin";
+
+	static final Source SOURCE = source(JglmConfig.getProperty(SOURCE_PROPERTY));
+
+	private FastMathTables() {
+	}
+
+	/**
+	 * @return the source named by {@code value}, ignoring case, or
+	 * {@link Source#BINARY} if it is {@code null} or names no source
+	 */
+	static Source source(final String value) {
+		if (value == null) {
+			return Source.BINARY;
+		}
+
+		try {
+			return Source.valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+		} catch (IllegalArgumentException e) {
+			return Source.BINARY;
+		}
+	}
+
+	/**
+	 * Reads a resource of {@code length} big-endian doubles.
+	 *
+	 * @return the table, or {@code null} if the resource is missing or has
+	 * the wrong length
+	 */
+	static double[] read(final String resource, final int length) {
+		final InputStream in = FastMathTables.class.getResourceAsStream(resource);
+		if (in == null) {
+			return null;
+		}
+
+		final byte[] bytes = new byte[length * 8];
+		try {
+			try {
+				int n = 0;
+				while (n < bytes.length) {
+					final int read = in.read(bytes, n, bytes.length - n);
+					if (read < 0) {
+						return null;
+					}
+					n += read;
+				}
+
+				if (in.read() >= 0) {
+					return null;
+				}
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			return null;
+		}
+
+		final double[] table = new double[length];
+		ByteBuffer.wrap(bytes).asDoubleBuffer().get(table);
+		return table;
+	}
+
+	/**
+	 * Splits a table read by {@link #read(String, int)} into rows of
+	 * {@code width} values.
+	 */
+	static double[][] rows(final double[] table, final int width) {
+		final double[][] rows = new double[table.length / width][width];
+		for (int i = 0; i < rows.length; i++) {
+			System.arraycopy(table, i * width, rows[i], 0, width);
+		}
+		return rows;
+	}
+
+	/**
+	 * Writes the binary resources from the literal arrays.
+	 *
+	 * @param args the directory to write to, normally
+	 * {@code src/main/resources/com/hackoeur/jglm/support}
+	 */
+	public static void main(final String[] args) throws IOException {
+		final File dir = new File(args[0]);
+
+		write(new File(dir, EXP_INT_RESOURCE),
+				FastMathLiteralArrays.loadExpIntA(),
+				FastMathLiteralArrays.loadExpIntB());
+		write(new File(dir, EXP_FRAC_RESOURCE),
+				FastMathLiteralArrays.loadExpFracA(),
+				FastMathLiteralArrays.loadExpFracB());
+		write(new File(dir, LN_MANT_RESOURCE),
+				FastMathLiteralArrays.loadLnMant());
+	}
+
+	private static void write(final File file, final double[]... tables) throws IOException {
+		final DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+		try {
+			for (final double[] table : tables) {
+				for (final double value : table) {
+					out.writeDouble(value);
+				}
+			}
+		} finally {
+			out.close();
+		}
+	}
+}
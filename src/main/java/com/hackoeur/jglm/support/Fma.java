@@ -0,0 +1,59 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.support;
+
+/**
+ * Multiply-add kernels for dot products and matrix products.  This is the
+ * Java 6 version, which always rounds the products and sums separately.  On
+ * Java 9 and later the multi-release jar replaces it with a version that uses
+ * {@code Math.fma}, a single fused instruction on current CPUs, unless
+ * {@code jglm.useFma} is {@code false}.
+ */
+public final class Fma {
+	private static final boolean ENABLED = false;
+
+	private Fma() {
+	}
+
+	/**
+	 * @return whether the kernels below round only once per multiply-add
+	 */
+	public static boolean isEnabled() {
+		return ENABLED;
+	}
+
+	/**
+	 * @return a * b + c
+	 */
+	public static float fma(final float a, final float b, final float c) {
+		return a * b + c;
+	}
+
+	/**
+	 * @return a0 * b0 + a1 * b1 + a2 * b2, summed left to right
+	 */
+	public static float dot3(final float a0, final float a1, final float a2,
+			final float b0, final float b1, final float b2) {
+		return a0 * b0 + a1 * b1 + a2 * b2;
+	}
+
+	/**
+	 * @return a0 * b0 + a1 * b1 + a2 * b2 + a3 * b3, summed left to right
+	 */
+	public static float dot4(final float a0, final float a1, final float a2, final float a3,
+			final float b0, final float b1, final float b2, final float b3) {
+		return a0 * b0 + a1 * b1 + a2 * b2 + a3 * b3;
+	}
+}
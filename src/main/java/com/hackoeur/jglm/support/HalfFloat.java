@@ -0,0 +1,118 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.support;
+
+/**
+ * Conversions between {@code float} and IEEE 754 binary16 ("half") values,
+ * held in the low 16 bits of a {@code short}.  Decoding is table driven and
+ * exact; encoding rounds to nearest even, overflows to infinity and keeps
+ * NaNs as NaNs (with a quiet, canonical payload).
+ */
+public final class HalfFloat {
+	/** Half bits of positive infinity. */
+	public static final short POSITIVE_INFINITY = (short) 0x7c00;
+	/** Half bits of negative infinity. */
+	public static final short NEGATIVE_INFINITY = (short) 0xfc00;
+	/** Half bits of the canonical NaN. */
+	public static final short NaN = (short) 0x7e00;
+	/** Largest finite half, 65504. */
+	public static final float MAX_VALUE = 65504f;
+
+	/** Float bits of 2^-14, the smallest normal half. */
+	private static final int MIN_NORMAL_BITS = 0x38800000;
+	/** Float bits of 65536; values from 65520 up overflow in the normal path already. */
+	private static final int OVERFLOW_BITS = 0x47800000;
+	/** Float bits of 0.5, whose ulp is the half subnormal spacing 2^-24. */
+	private static final int DENORMAL_MAGIC_BITS = ((127 - 15) + (23 - 10) + 1) << 23;
+	private static final float DENORMAL_MAGIC = Float.intBitsToFloat(DENORMAL_MAGIC_BITS);
+
+	/*
+	 * Decoding after J. van der Zijp, "Fast Half Float Conversions": the float
+	 * bits are MANTISSA[OFFSET[h >> 10] + (h & 0x3ff)] + EXPONENT[h >> 10].
+	 */
+	private static final int[] MANTISSA = new int[2048];
+	private static final int[] EXPONENT = new int[64];
+	private static final short[] OFFSET = new short[64];
+
+	static {
+		MANTISSA[0] = 0;
+		for (int i = 1; i < 1024; i++) {
+			// Subnormal halves: normalize the mantissa into the float exponent.
+			int m = i << 13;
+			int e = 0;
+			while ((m & 0x00800000) == 0) {
+				e -= 0x00800000;
+				m <<= 1;
+			}
+			m &= ~0x00800000;
+			e += 0x38800000;
+			MANTISSA[i] = m | e;
+		}
+		for (int i = 1024; i < 2048; i++) {
+			MANTISSA[i] = 0x38000000 + ((i - 1024) << 13);
+		}
+
+		EXPONENT[0] = 0;
+		for (int i = 1; i < 31; i++) {
+			EXPONENT[i] = i << 23;
+		}
+		EXPONENT[31] = 0x47800000;
+		EXPONENT[32] = 0x80000000;
+		for (int i = 33; i < 63; i++) {
+			EXPONENT[i] = 0x80000000 + ((i - 32) << 23);
+		}
+		EXPONENT[63] = 0xc7800000;
+
+		for (int i = 0; i < 64; i++) {
+			OFFSET[i] = (short) (i == 0 || i == 32 ? 0 : 1024);
+		}
+	}
+
+	private HalfFloat() {
+	}
+
+	/**
+	 * @return the half value nearest to {@code value}
+	 */
+	public static short toHalf(final float value) {
+		final int bits = Float.floatToRawIntBits(value);
+		final int sign = (bits >>> 16) & 0x8000;
+		int f = bits & 0x7fffffff;
+
+		final int half;
+		if (f >= OVERFLOW_BITS) {
+			half = f > 0x7f800000 ? 0x7e00 : 0x7c00;
+		} else if (f < MIN_NORMAL_BITS) {
+			// Adding 0.5 rounds the subnormal result to nearest even in hardware.
+			half = Float.floatToRawIntBits(Float.intBitsToFloat(f) + DENORMAL_MAGIC) - DENORMAL_MAGIC_BITS;
+		} else {
+			final int mantissaOdd = (f >> 13) & 1;
+			// Rebias the exponent and round to nearest even.
+			f += ((15 - 127) << 23) + 0xfff + mantissaOdd;
+			half = f >> 13;
+		}
+
+		return (short) (half | sign);
+	}
+
+	/**
+	 * @return the float equal to the given half value
+	 */
+	public static float toFloat(final short half) {
+		final int h = half & 0xffff;
+		final int e = h >> 10;
+		return Float.intBitsToFloat(MANTISSA[OFFSET[e] + (h & 0x3ff)] + EXPONENT[e]);
+	}
+}
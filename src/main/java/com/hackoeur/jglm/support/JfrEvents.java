@@ -0,0 +1,54 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.support;
+
+/**
+ * Flight Recorder events for {@link Telemetry}.  Flight Recorder has no API
+ * before Java 11, so this version records nothing; the multi-release jar
+ * holds the Java 11 version.
+ */
+final class JfrEvents {
+	private JfrEvents() {
+	}
+
+	/**
+	 * @return whether events are emitted.  A method rather than a constant,
+	 * which javac would copy into callers compiled against this version.
+	 */
+	static boolean isEnabled() {
+		return false;
+	}
+
+	/**
+	 * @return whether a running recording has events of the given kind enabled
+	 */
+	static boolean isRecording(final Telemetry.Kind kind) {
+		return false;
+	}
+
+	/**
+	 * @return an event begun for a call of the given kind
+	 */
+	static Object begin(final Telemetry.Kind kind) {
+		return null;
+	}
+
+	/**
+	 * Ends an event from {@link #begin(Telemetry.Kind)} and commits it if it
+	 * is being recorded.
+	 */
+	static void end(final Object event, final String operation, final int elements) {
+	}
+}
@@ -85,6 +85,16 @@ public class JglmConfig {
 		}
 	}
 	
+	public static final boolean getBooleanProperty(final String key, final boolean defaultValue) {
+		final String sValue = getProperty(key);
+		
+		if (sValue == null) {
+			return defaultValue;
+		} else {
+			return Boolean.parseBoolean(sValue.trim());
+		}
+	}
+	
 	public static final <T> T getInstanceProperty(final String key, final Class<T> type) {
 		final String className = PROPERTIES.getProperty(withNamespace(key));
 		
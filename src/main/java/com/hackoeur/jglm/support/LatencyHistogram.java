@@ -0,0 +1,249 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.support;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latencies in nanoseconds, counted in logarithmic buckets in the manner of
+ * HdrHistogram.  Values below 64 are exact; above that each power of two is
+ * split into 32 buckets, so percentiles are within 1/32 (about 3%) of the
+ * recorded value.
+ * <p>
+ * Recording is lock-free: each thread counts into its own buckets, which
+ * only that thread writes, and reads merge the buckets of all threads.
+ * {@link #reset()} does not clear the buckets but remembers the merged counts
+ * and subtracts them from later reads, so no recorded value is lost or
+ * counted twice however resets and recording interleave.
+ */
+public final class LatencyHistogram {
+	/** log2 of the buckets per power of two. */
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/** Values below this have a bucket each. */
+	private static final int EXACT_LIMIT = 2 * SUB_BUCKETS;
+
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	/* Counts, then the sum of the recorded values. */
+	private static final int SUM = BUCKETS;
+	private static final int SLOTS = BUCKETS + 1;
+
+	/** Buckets of one thread; only that thread writes them. */
+	private static final class Recorder {
+		final Thread owner = Thread.currentThread();
+		final AtomicLongArray slots = new AtomicLongArray(SLOTS);
+
+		void add(final int slot, final long value) {
+			// Single writer, so an ordered store is enough.
+			slots.lazySet(slot, slots.get(slot) + value);
+		}
+	}
+
+	/**
+	 * Immutable counts taken by {@link LatencyHistogram#snapshot()}.
+	 */
+	public static final class Snapshot {
+		private final long[] counts;
+		private final long count;
+		private final long sum;
+
+		private Snapshot(final long[] slots) {
+			long total = 0L;
+			for (int i = 0; i < BUCKETS; i++) {
+				total += slots[i];
+			}
+			this.counts = slots;
+			this.count = total;
+			this.sum = slots[SUM];
+		}
+
+		/**
+		 * @return number of recorded values
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * @return exact mean of the recorded values, or 0 if there are none
+		 */
+		public double getMean() {
+			return count == 0L ? 0.0 : (double) sum / count;
+		}
+
+		/**
+		 * @return lower bound of the smallest value's bucket, or 0 if there are
+		 * none
+		 */
+		public long getMin() {
+			for (int i = 0; i < BUCKETS; i++) {
+				if (counts[i] != 0L) {
+					return lowerBound(i);
+				}
+			}
+			return 0L;
+		}
+
+		/**
+		 * @return upper bound of the largest value's bucket, or 0 if there are
+		 * none
+		 */
+		public long getMax() {
+			for (int i = BUCKETS - 1; i >= 0; i--) {
+				if (counts[i] != 0L) {
+					return upperBound(i);
+				}
+			}
+			return 0L;
+		}
+
+		/**
+		 * @param percentile between 0 and 100, e.g. 99.9
+		 * @return upper bound of the bucket holding the value at the
+		 * percentile, or 0 if there are no values
+		 */
+		public long getValueAtPercentile(final double percentile) {
+			if (!(percentile >= 0.0 && percentile <= 100.0)) {
+				throw new IllegalArgumentException("Percentile must be between 0 and 100, got " + percentile);
+			}
+			if (count == 0L) {
+				return 0L;
+			}
+
+			final long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * count));
+			long seen = 0L;
+			for (int i = 0; i < BUCKETS; i++) {
+				seen += counts[i];
+				if (seen >= rank) {
+					return upperBound(i);
+				}
+			}
+			return getMax();
+		}
+
+		@Override
+		public String toString() {
+			return String.format(Locale.ROOT, "count=%d mean=%.1f p50=%d p99=%d p999=%d max=%d",
+					count, getMean(), getValueAtPercentile(50.0), getValueAtPercentile(99.0),
+					getValueAtPercentile(99.9), getMax());
+		}
+	}
+
+	private final ThreadLocal<Recorder> recorder = new ThreadLocal<Recorder>() {
+		@Override
+		protected Recorder initialValue() {
+			final Recorder result = new Recorder();
+			recorders.add(result);
+			return result;
+		}
+	};
+
+	private final List<Recorder> recorders = new CopyOnWriteArrayList<Recorder>();
+
+	/* Guarded by this: counts of threads that have ended, and the merged
+	 * counts at the last reset. */
+	private final long[] retired = new long[SLOTS];
+	private final long[] baseline = new long[SLOTS];
+
+	/**
+	 * Records a value; negative values count as zero.
+	 */
+	public void record(final long nanos) {
+		final long value = Math.max(nanos, 0L);
+		final Recorder r = recorder.get();
+		r.add(bucket(value), 1L);
+		r.add(SUM, value);
+	}
+
+	/**
+	 * @return counts since creation or the last reset
+	 */
+	public synchronized Snapshot snapshot() {
+		final long[] slots = merge();
+		for (int i = 0; i < SLOTS; i++) {
+			slots[i] -= baseline[i];
+		}
+		return new Snapshot(slots);
+	}
+
+	/**
+	 * Takes a snapshot and resets in one step, so that successive snapshots
+	 * cover consecutive intervals.
+	 */
+	public synchronized Snapshot snapshotAndReset() {
+		final long[] slots = merge();
+		for (int i = 0; i < SLOTS; i++) {
+			final long total = slots[i];
+			slots[i] -= baseline[i];
+			baseline[i] = total;
+		}
+		return new Snapshot(slots);
+	}
+
+	/**
+	 * Discards the counts so far.
+	 */
+	public synchronized void reset() {
+		System.arraycopy(merge(), 0, baseline, 0, SLOTS);
+	}
+
+	/**
+	 * @return totals of every thread since creation; folds in and drops the
+	 * buckets of threads that have ended
+	 */
+	private long[] merge() {
+		for (final Recorder r : recorders) {
+			if (!r.owner.isAlive()) {
+				for (int i = 0; i < SLOTS; i++) {
+					retired[i] += r.slots.get(i);
+				}
+				recorders.remove(r);
+			}
+		}
+
+		final long[] result = retired.clone();
+		for (final Recorder r : recorders) {
+			for (int i = 0; i < SLOTS; i++) {
+				result[i] += r.slots.get(i);
+			}
+		}
+		return result;
+	}
+
+	static int bucket(final long value) {
+		if (value < EXACT_LIMIT) {
+			return (int) value;
+		}
+		final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return shift * SUB_BUCKETS + (int) (value >>> shift);
+	}
+
+	static long lowerBound(final int bucket) {
+		if (bucket < EXACT_LIMIT) {
+			return bucket;
+		}
+		final int shift = bucket / SUB_BUCKETS - 1;
+		return (long) (bucket - shift * SUB_BUCKETS) << shift;
+	}
+
+	static long upperBound(final int bucket) {
+		return bucket == BUCKETS - 1 ? Long.MAX_VALUE : lowerBound(bucket + 1) - 1;
+	}
+}
@@ -0,0 +1,287 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.support;
+
+import java.nio.BufferOverflowException;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Equivalents of the GLSL packing functions, plus bulk versions that convert
+ * between NIO buffers.  As in GLSL, the first component goes into the least
+ * significant bits.  Normalized values are clamped, scaled and rounded half
+ * away from zero.
+ * 
+ * <p>The bulk methods read from the source's position to its limit and write
+ * at the destination's position, advancing both like relative {@code get}
+ * and {@code put}.  They throw {@link BufferOverflowException} without
+ * converting anything if the destination is too small.
+ */
+public final class Packing {
+	private Packing() {
+	}
+
+	public static int packUnorm2x16(final float x, final float y) {
+		return unorm16(x) | (unorm16(y) << 16);
+	}
+
+	public static int packSnorm2x16(final float x, final float y) {
+		return (snorm16(x) & 0xffff) | (snorm16(y) << 16);
+	}
+
+	public static int packUnorm4x8(final float x, final float y, final float z, final float w) {
+		return unorm8(x) | (unorm8(y) << 8) | (unorm8(z) << 16) | (unorm8(w) << 24);
+	}
+
+	public static int packSnorm4x8(final float x, final float y, final float z, final float w) {
+		return (snorm8(x) & 0xff) | ((snorm8(y) & 0xff) << 8) | ((snorm8(z) & 0xff) << 16) | (snorm8(w) << 24);
+	}
+
+	public static int packHalf2x16(final float x, final float y) {
+		return (HalfFloat.toHalf(x) & 0xffff) | (HalfFloat.toHalf(y) << 16);
+	}
+
+	/**
+	 * @param component 0 for the low 16 bits, 1 for the high 16 bits
+	 */
+	public static float unpackUnorm2x16(final int packed, final int component) {
+		return ((packed >>> (component << 4)) & 0xffff) / 65535f;
+	}
+
+	/**
+	 * @param component 0 for the low 16 bits, 1 for the high 16 bits
+	 */
+	public static float unpackSnorm2x16(final int packed, final int component) {
+		final short value = (short) (packed >>> (component << 4));
+		return Math.max(value / 32767f, -1f);
+	}
+
+	/**
+	 * @param component 0 for the lowest 8 bits through 3 for the highest
+	 */
+	public static float unpackUnorm4x8(final int packed, final int component) {
+		return ((packed >>> (component << 3)) & 0xff) / 255f;
+	}
+
+	/**
+	 * @param component 0 for the lowest 8 bits through 3 for the highest
+	 */
+	public static float unpackSnorm4x8(final int packed, final int component) {
+		final byte value = (byte) (packed >>> (component << 3));
+		return Math.max(value / 127f, -1f);
+	}
+
+	/**
+	 * @param component 0 for the low 16 bits, 1 for the high 16 bits
+	 */
+	public static float unpackHalf2x16(final int packed, final int component) {
+		return HalfFloat.toFloat((short) (packed >>> (component << 4)));
+	}
+
+	/**
+	 * Converts every remaining float to a half.
+	 */
+	public static void toHalf(final FloatBuffer src, final ShortBuffer dst) {
+		final int n = src.remaining();
+		checkRoom(dst.remaining(), n);
+
+		if (src.hasArray() && dst.hasArray()) {
+			final float[] in = src.array();
+			final short[] out = dst.array();
+			final int inOffset = src.arrayOffset() + src.position();
+			final int outOffset = dst.arrayOffset() + dst.position();
+			for (int i = 0; i < n; i++) {
+				out[outOffset + i] = HalfFloat.toHalf(in[inOffset + i]);
+			}
+			src.position(src.limit());
+			dst.position(dst.position() + n);
+		} else {
+			for (int i = 0; i < n; i++) {
+				dst.put(HalfFloat.toHalf(src.get()));
+			}
+		}
+	}
+
+	/**
+	 * Converts every remaining half to a float.
+	 */
+	public static void toFloat(final ShortBuffer src, final FloatBuffer dst) {
+		final int n = src.remaining();
+		checkRoom(dst.remaining(), n);
+
+		if (src.hasArray() && dst.hasArray()) {
+			final short[] in = src.array();
+			final float[] out = dst.array();
+			final int inOffset = src.arrayOffset() + src.position();
+			final int outOffset = dst.arrayOffset() + dst.position();
+			for (int i = 0; i < n; i++) {
+				out[outOffset + i] = HalfFloat.toFloat(in[inOffset + i]);
+			}
+			src.position(src.limit());
+			dst.position(dst.position() + n);
+		} else {
+			for (int i = 0; i < n; i++) {
+				dst.put(HalfFloat.toFloat(src.get()));
+			}
+		}
+	}
+
+	/**
+	 * Packs every remaining pair of floats with {@link #packHalf2x16(float, float)}.
+	 * 
+	 * @throws IllegalArgumentException if an odd number of floats remain
+	 */
+	public static void packHalf2x16(final FloatBuffer src, final IntBuffer dst) {
+		final int n = packedCount(src.remaining(), 2);
+		checkRoom(dst.remaining(), n);
+
+		for (int i = 0; i < n; i++) {
+			final float x = src.get();
+			dst.put(packHalf2x16(x, src.get()));
+		}
+	}
+
+	/**
+	 * Unpacks every remaining int with {@link #unpackHalf2x16(int, int)}.
+	 */
+	public static void unpackHalf2x16(final IntBuffer src, final FloatBuffer dst) {
+		final int n = src.remaining();
+		checkRoom(dst.remaining(), 2 * n);
+
+		for (int i = 0; i < n; i++) {
+			final int packed = src.get();
+			dst.put(HalfFloat.toFloat((short) packed));
+			dst.put(HalfFloat.toFloat((short) (packed >>> 16)));
+		}
+	}
+
+	/**
+	 * Packs every remaining pair of floats with {@link #packUnorm2x16(float, float)}.
+	 * 
+	 * @throws IllegalArgumentException if an odd number of floats remain
+	 */
+	public static void packUnorm2x16(final FloatBuffer src, final IntBuffer dst) {
+		final int n = packedCount(src.remaining(), 2);
+		checkRoom(dst.remaining(), n);
+
+		for (int i = 0; i < n; i++) {
+			final float x = src.get();
+			dst.put(packUnorm2x16(x, src.get()));
+		}
+	}
+
+	/**
+	 * Unpacks every remaining int with {@link #unpackUnorm2x16(int, int)}.
+	 */
+	public static void unpackUnorm2x16(final IntBuffer src, final FloatBuffer dst) {
+		final int n = src.remaining();
+		checkRoom(dst.remaining(), 2 * n);
+
+		for (int i = 0; i < n; i++) {
+			final int packed = src.get();
+			dst.put((packed & 0xffff) / 65535f);
+			dst.put((packed >>> 16) / 65535f);
+		}
+	}
+
+	/**
+	 * Packs every remaining group of four floats with
+	 * {@link #packSnorm4x8(float, float, float, float)}.
+	 * 
+	 * @throws IllegalArgumentException if the number of remaining floats is
+	 * not a multiple of four
+	 */
+	public static void packSnorm4x8(final FloatBuffer src, final IntBuffer dst) {
+		final int n = packedCount(src.remaining(), 4);
+		checkRoom(dst.remaining(), n);
+
+		for (int i = 0; i < n; i++) {
+			final float x = src.get();
+			final float y = src.get();
+			final float z = src.get();
+			dst.put(packSnorm4x8(x, y, z, src.get()));
+		}
+	}
+
+	/**
+	 * Unpacks every remaining int with {@link #unpackSnorm4x8(int, int)}.
+	 */
+	public static void unpackSnorm4x8(final IntBuffer src, final FloatBuffer dst) {
+		final int n = src.remaining();
+		checkRoom(dst.remaining(), 4 * n);
+
+		for (int i = 0; i < n; i++) {
+			final int packed = src.get();
+			for (int c = 0; c < 4; c++) {
+				dst.put(unpackSnorm4x8(packed, c));
+			}
+		}
+	}
+
+	private static int unorm16(final float value) {
+		return roundHalfAway(clamp(value, 0f, 1f) * 65535f);
+	}
+
+	private static int snorm16(final float value) {
+		return roundHalfAway(clamp(value, -1f, 1f) * 32767f);
+	}
+
+	private static int unorm8(final float value) {
+		return roundHalfAway(clamp(value, 0f, 1f) * 255f);
+	}
+
+	private static int snorm8(final float value) {
+		return roundHalfAway(clamp(value, -1f, 1f) * 127f);
+	}
+
+	/**
+	 * @return value clamped to [min, max]; NaN becomes 0
+	 */
+	private static float clamp(final float value, final float min, final float max) {
+		if (value >= max) {
+			return max;
+		} else if (value >= min) {
+			return value;
+		} else if (value < min) {
+			return min;
+		} else {
+			return 0f;
+		}
+	}
+
+	private static int roundHalfAway(final float value) {
+		final float magnitude = Math.abs(value);
+		int rounded = (int) magnitude;
+		// Exact, since rounded is the integer part of magnitude.
+		if (magnitude - rounded >= 0.5f) {
+			rounded++;
+		}
+		return value < 0f ? -rounded : rounded;
+	}
+
+	private static int packedCount(final int floats, final int perInt) {
+		if (floats % perInt != 0) {
+			throw new IllegalArgumentException(floats + " floats remain, which is not a multiple of " + perInt);
+		}
+		return floats / perInt;
+	}
+
+	private static void checkRoom(final int remaining, final int needed) {
+		if (remaining < needed) {
+			throw new BufferOverflowException();
+		}
+	}
+}
@@ -57,6 +57,21 @@ public class Precision {
     /** Offset to order signed double numbers lexicographically. */
     private static final int SGN_MASK_FLOAT = 0x80000000;
 
+    /** Exact powers of ten, 10<sup>0</sup> to 10<sup>22</sup>. */
+    private static final double[] POW10 = new double[23];
+
+    /**
+     * Above this the scaled value of {@link #round(double, int, int)} is too
+     * coarse to place the decimal value relative to the integers.
+     */
+    private static final double FAST_ROUND_LIMIT = 0x1.0p40;
+
+    /** Position of a scaled decimal value between two integers. */
+    private static final int FRACTION_ZERO = 0;
+    private static final int FRACTION_BELOW_HALF = 1;
+    private static final int FRACTION_HALF = 2;
+    private static final int FRACTION_ABOVE_HALF = 3;
+
     static {
         /*
          *  This was previously expressed as = 0x1.0p-53;
@@ -71,6 +86,11 @@ public class Precision {
          * constants: MATH-721
          */
         SAFE_MIN = Double.longBitsToDouble((EXPONENT_OFFSET - 1022l) << 52);
+
+        POW10[0] = 1.0;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10.0;
+        }
     }
 
     /**
@@ -407,6 +427,138 @@ public class Precision {
      * @since 1.1 (previously in {@code MathUtils}, moved as of version 3.0)
      */
     public static double round(double x, int scale, int roundingMethod) {
+        if (Double.isNaN(x) || Double.isInfinite(x)) {
+            return x;
+        }
+        if (scale >= 0 && scale < POW10.length) {
+            final double rounded = roundScaled(x, POW10[scale], roundingMethod);
+            if (!Double.isNaN(rounded)) {
+                return rounded;
+            }
+        }
+
+        return roundDecimal(x, scale, roundingMethod);
+    }
+
+    /**
+     * Rounds each of the first {@code n} values like
+     * {@link #round(double, int, int)}.
+     *
+     * @param in Values to round.
+     * @param out Receives the rounded values; may be the same array as {@code in}.
+     * @param n Number of values.
+     * @param scale Number of digits to the right of the decimal point.
+     * @param roundingMethod Rounding method as defined in {@link BigDecimal}.
+     */
+    public static void round(final double[] in, final double[] out, final int n,
+                             final int scale, final int roundingMethod) {
+        for (int i = 0; i < n; i++) {
+            out[i] = round(in[i], scale, roundingMethod);
+        }
+    }
+
+    /**
+     * Rounds the value {@code x} has as a decimal string, like
+     * {@link #roundDecimal(double, int, int)}, without building the string.
+     * {@code Double.toString(x)} is the shortest decimal that rounds to
+     * {@code x}, so it lies within half an ulp of {@code x}; scaled by
+     * {@code 10^scale} it lies within {@code eps} of {@code x * 10^scale}.
+     * That places it between two integers unless it is within {@code eps} of
+     * an integer or a half.  Then it is exactly that integer or half if the
+     * integer or half, scaled back, rounds to {@code x}; otherwise it lies on
+     * the same side of it as {@code x}.
+     *
+     * @param x Finite value to round.
+     * @param factor {@code 10^scale}, exact.
+     * @param roundingMethod Rounding method as defined in {@link BigDecimal}.
+     * @return the rounded value, or NaN if this method cannot decide.
+     */
+    private static double roundScaled(final double x, final double factor, final int roundingMethod) {
+        final double ax = FastMath.abs(x);
+        final double ay = ax * factor;
+        if (!(ay < FAST_ROUND_LIMIT)) {
+            return Double.NaN;
+        }
+
+        final double eps = FastMath.ulp(ax) * factor + FastMath.ulp(ay);
+        double n = FastMath.floor(ay);
+        final double f = ay - n;
+        final int fraction;
+
+        if (f <= eps) {
+            final double q = n / factor;
+            if (q == ax) {
+                fraction = FRACTION_ZERO;
+            } else if (ax > q) {
+                fraction = FRACTION_BELOW_HALF;
+            } else {
+                n -= 1.0;
+                fraction = FRACTION_ABOVE_HALF;
+            }
+        } else if (f >= 1.0 - eps) {
+            final double q = (n + 1.0) / factor;
+            if (q == ax) {
+                n += 1.0;
+                fraction = FRACTION_ZERO;
+            } else if (ax < q) {
+                fraction = FRACTION_ABOVE_HALF;
+            } else {
+                n += 1.0;
+                fraction = FRACTION_BELOW_HALF;
+            }
+        } else if (FastMath.abs(f - 0.5) <= eps) {
+            final double q = (n + 0.5) / factor;
+            if (q == ax) {
+                fraction = FRACTION_HALF;
+            } else if (ax < q) {
+                fraction = FRACTION_BELOW_HALF;
+            } else {
+                fraction = FRACTION_ABOVE_HALF;
+            }
+        } else {
+            fraction = f < 0.5 ? FRACTION_BELOW_HALF : FRACTION_ABOVE_HALF;
+        }
+
+        final boolean negative = x < 0.0;
+        final boolean awayFromZero;
+        switch (roundingMethod) {
+        case BigDecimal.ROUND_UP :
+            awayFromZero = fraction != FRACTION_ZERO;
+            break;
+        case BigDecimal.ROUND_DOWN :
+            awayFromZero = false;
+            break;
+        case BigDecimal.ROUND_CEILING :
+            awayFromZero = !negative && fraction != FRACTION_ZERO;
+            break;
+        case BigDecimal.ROUND_FLOOR :
+            awayFromZero = negative && fraction != FRACTION_ZERO;
+            break;
+        case BigDecimal.ROUND_HALF_UP :
+            awayFromZero = fraction >= FRACTION_HALF;
+            break;
+        case BigDecimal.ROUND_HALF_DOWN :
+            awayFromZero = fraction == FRACTION_ABOVE_HALF;
+            break;
+        case BigDecimal.ROUND_HALF_EVEN :
+            awayFromZero = fraction == FRACTION_ABOVE_HALF
+                || (fraction == FRACTION_HALF && n % 2.0 != 0.0);
+            break;
+        default :
+            // ROUND_UNNECESSARY and invalid methods throw from BigDecimal.
+            return Double.NaN;
+        }
+
+        final double magnitude = (awayFromZero ? n + 1.0 : n) / factor;
+        // BigDecimal has no negative zero.
+        return negative ? 0.0 - magnitude : magnitude;
+    }
+
+    /**
+     * Rounds {@code x} through {@link BigDecimal}, as
+     * {@link #round(double, int, int)} is specified.
+     */
+    private static double roundDecimal(double x, int scale, int roundingMethod) {
         try {
             return (new BigDecimal
                    (Double.toString(x))
@@ -454,6 +606,29 @@ public class Precision {
         return (float) roundUnscaled(x * factor, sign, roundingMethod) / factor;
     }
 
+    /**
+     * Rounds each of the first {@code n} values like
+     * {@link #round(float, int, int)}.
+     *
+     * @param in Values to round.
+     * @param out Receives the rounded values; may be the same array as {@code in}.
+     * @param n Number of values.
+     * @param scale Number of digits to the right of the decimal point.
+     * @param roundingMethod Rounding method as defined in {@link BigDecimal}.
+     * @throws ArithmeticException if an exact operation is required but result is not exact
+     * @throws IllegalArgumentException if {@code roundingMethod} is not a valid rounding method.
+     */
+    public static void round(final float[] in, final float[] out, final int n,
+                             final int scale, final int roundingMethod) {
+        final float power = (float) FastMath.pow(10.0f, scale);
+        for (int i = 0; i < n; i++) {
+            final float x = in[i];
+            final float sign = FastMath.copySign(1f, x);
+            final float factor = power * sign;
+            out[i] = (float) roundUnscaled(x * factor, sign, roundingMethod) / factor;
+        }
+    }
+
     /**
      * Rounds the given non-negative value to the "nearest" integer. Nearest is
      * determined by the rounding method specified. Rounding methods are defined
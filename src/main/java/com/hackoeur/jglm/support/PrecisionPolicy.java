@@ -0,0 +1,109 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.support;
+
+import java.util.Locale;
+
+/**
+ * How square roots are computed for vector lengths and normalization.  The
+ * default is read from the {@code jglm.precision} property and is
+ * {@link #FAST} when unset or unknown.  Relative errors below are the largest
+ * found over all normal floats.  Under every policy a zero vector normalizes
+ * to zero.
+ */
+public enum PrecisionPolicy {
+	/**
+	 * {@link Math#sqrt(double)}; correctly rounded.
+	 */
+	EXACT {
+		@Override
+		public float sqrt(final float a) {
+			return (float) Math.sqrt(a);
+		}
+
+		@Override
+		public float invSqrt(final float a) {
+			return (float) (1.0 / Math.sqrt(a));
+		}
+	},
+
+	/**
+	 * {@link FastMath#invSqrtFast(float)}, two Newton steps; relative error
+	 * below 5e-6.
+	 */
+	FAST {
+		@Override
+		public float sqrt(final float a) {
+			return FastMath.sqrtFast(a);
+		}
+
+		@Override
+		public float invSqrt(final float a) {
+			return FastMath.invSqrtFast(a);
+		}
+	},
+
+	/**
+	 * {@link FastMath#invSqrtApprox(float)}, one Newton step; relative error
+	 * below 2e-3.
+	 */
+	APPROX {
+		@Override
+		public float sqrt(final float a) {
+			return FastMath.sqrtApprox(a);
+		}
+
+		@Override
+		public float invSqrt(final float a) {
+			return FastMath.invSqrtApprox(a);
+		}
+	};
+
+	private static final PrecisionPolicy DEFAULT = policy(JglmConfig.getProperty("precision"));
+
+	/**
+	 * @return the policy used when none is given, as configured by
+	 * {@code jglm.precision}
+	 */
+	public static PrecisionPolicy getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * @return the policy named by {@code value}, ignoring case, or
+	 * {@link #FAST} if it is {@code null} or names no policy
+	 */
+	static PrecisionPolicy policy(final String value) {
+		if (value == null) {
+			return FAST;
+		}
+
+		try {
+			return valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+		} catch (IllegalArgumentException e) {
+			return FAST;
+		}
+	}
+
+	/**
+	 * @return square root of a
+	 */
+	public abstract float sqrt(float a);
+
+	/**
+	 * @return reciprocal of the square root of a
+	 */
+	public abstract float invSqrt(float a);
+}
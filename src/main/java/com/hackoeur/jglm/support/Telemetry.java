@@ -0,0 +1,206 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.support;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counters and Java Flight Recorder events for jglm's bulk kernels, culling,
+ * spatial structure builds and buffer allocations.  Each instrumented call
+ * counts once with the number of elements it processed and its duration.
+ * <p>
+ * Counters are off unless {@code jglm.counters} is {@code true}, and
+ * {@link LatencyHistogram}s of each kind's durations are off unless
+ * {@code jglm.histograms} is {@code true}.  Flight
+ * Recorder events are emitted on Java 11 and later, from the multi-release
+ * jar, when {@code jglm.jfr} is {@code true}; until a recording enables them
+ * a call only checks that they are off.  With all three off, instrumented
+ * calls compile to nothing.
+ */
+public final class Telemetry {
+	/** What an instrumented call does. */
+	public enum Kind {
+		/** Kernels over arrays of points, such as plane distances. */
+		BULK_TRANSFORM,
+
+		/** Visibility tests against a frustum or other set of planes. */
+		CULLING,
+
+		/** Building a spatial structure such as a k-d tree or convex hull. */
+		SPATIAL_REBUILD,
+
+		/** Range, k-nearest, ray and bulk queries of a spatial structure. */
+		SPATIAL_QUERY,
+
+		/** Buffers from the configured {@link com.hackoeur.jglm.buffer.BufferAllocator}. */
+		BUFFER_ALLOCATION
+	}
+
+	private static final boolean COUNTING = JglmConfig.getBooleanProperty("counters", false);
+	private static final boolean HISTOGRAMS = JglmConfig.getBooleanProperty("histograms", false);
+	private static final boolean TIMING = COUNTING || HISTOGRAMS;
+	private static final boolean RECORDING = JfrEvents.isEnabled();
+	private static final boolean ENABLED = TIMING || RECORDING;
+
+	/* Calls, elements and nanoseconds for each kind. */
+	private static final int CALLS = 0;
+	private static final int ELEMENTS = 1;
+	private static final int NANOS = 2;
+	private static final AtomicLongArray COUNTERS = new AtomicLongArray(3 * Kind.values().length);
+
+	private static final LatencyHistogram[] LATENCIES = new LatencyHistogram[Kind.values().length];
+
+	static {
+		for (int i = 0; i < LATENCIES.length; i++) {
+			LATENCIES[i] = new LatencyHistogram();
+		}
+	}
+
+	private static final Span NONE = new Span(null, null, 0L, null);
+
+	/**
+	 * An instrumented call in progress.
+	 */
+	public static final class Span {
+		private final Kind kind;
+		private final String operation;
+		private final long start;
+		private final Object event;
+
+		private Span(final Kind kind, final String operation, final long start, final Object event) {
+			this.kind = kind;
+			this.operation = operation;
+			this.start = start;
+			this.event = event;
+		}
+
+		/**
+		 * Ends the call.
+		 *
+		 * @param elements number of points, nodes or bytes processed
+		 */
+		public void end(final int elements) {
+			if (!ENABLED) {
+				return;
+			}
+
+			if (TIMING) {
+				final long nanos = System.nanoTime() - start;
+				if (COUNTING) {
+					final int c = 3 * kind.ordinal();
+					COUNTERS.incrementAndGet(c + CALLS);
+					COUNTERS.addAndGet(c + ELEMENTS, elements);
+					COUNTERS.addAndGet(c + NANOS, nanos);
+				}
+				if (HISTOGRAMS) {
+					LATENCIES[kind.ordinal()].record(nanos);
+				}
+			}
+			if (event != null) {
+				JfrEvents.end(event, operation, elements);
+			}
+		}
+	}
+
+	private Telemetry() {
+	}
+
+	/**
+	 * @return whether calls are counted or recorded at all
+	 */
+	public static boolean isEnabled() {
+		return ENABLED;
+	}
+
+	/**
+	 * @return whether calls may be recorded as Flight Recorder events; see
+	 * {@code jglm.jfr}
+	 */
+	public static boolean isRecordingEvents() {
+		return RECORDING;
+	}
+
+	/**
+	 * @return whether counters are on; see {@code jglm.counters}
+	 */
+	public static boolean isCounting() {
+		return COUNTING;
+	}
+
+	/**
+	 * @return whether durations go to histograms; see {@code jglm.histograms}
+	 */
+	public static boolean isRecordingLatencies() {
+		return HISTOGRAMS;
+	}
+
+	/**
+	 * Starts an instrumented call; jglm calls this around its own kernels.
+	 *
+	 * @param operation class and method, e.g. {@code "Plane.classify"}
+	 * @return the span to end when the call returns
+	 */
+	public static Span begin(final Kind kind, final String operation) {
+		if (!ENABLED) {
+			return NONE;
+		}
+
+		final boolean recording = RECORDING && JfrEvents.isRecording(kind);
+		if (!TIMING && !recording) {
+			return NONE;
+		}
+		return new Span(kind, operation,
+				TIMING ? System.nanoTime() : 0L,
+				recording ? JfrEvents.begin(kind) : null);
+	}
+
+	/**
+	 * @return calls counted since startup or the last reset
+	 */
+	public static long getCalls(final Kind kind) {
+		return COUNTERS.get(3 * kind.ordinal() + CALLS);
+	}
+
+	/**
+	 * @return elements processed by the counted calls
+	 */
+	public static long getElements(final Kind kind) {
+		return COUNTERS.get(3 * kind.ordinal() + ELEMENTS);
+	}
+
+	/**
+	 * @return nanoseconds spent in the counted calls
+	 */
+	public static long getNanos(final Kind kind) {
+		return COUNTERS.get(3 * kind.ordinal() + NANOS);
+	}
+
+	/**
+	 * @return durations of calls of the given kind; empty unless
+	 * {@code jglm.histograms} is set
+	 */
+	public static LatencyHistogram getLatencies(final Kind kind) {
+		return LATENCIES[kind.ordinal()];
+	}
+
+	/**
+	 * Sets every counter to zero.  Calls in progress are counted afterwards.
+	 */
+	public static void resetCounters() {
+		for (int i = 0; i < COUNTERS.length(); i++) {
+			COUNTERS.set(i, 0L);
+		}
+	}
+}
@@ -0,0 +1,145 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.support;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder events for {@link Telemetry}.  This is the Java 11 version
+ * from the multi-release jar.  Events are off unless {@code jglm.jfr} is
+ * {@code true}, and even then an instrumented call only creates an event
+ * while a recording has its type enabled.
+ * <p>
+ * By default recordings keep bulk transforms and culling that take 1 ms or
+ * more, spatial queries of 1 ms or more and every spatial rebuild; buffer
+ * allocations are frequent and must be enabled in the recording settings.
+ */
+final class JfrEvents {
+	private static final boolean ENABLED = JglmConfig.getBooleanProperty("jfr", false)
+			&& ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+	/* Indexed by Telemetry.Kind ordinal; registered only when enabled. */
+	private static final EventType[] TYPES = ENABLED ? new EventType[] {
+			EventType.getEventType(BulkTransform.class),
+			EventType.getEventType(Culling.class),
+			EventType.getEventType(SpatialRebuild.class),
+			EventType.getEventType(SpatialQuery.class),
+			EventType.getEventType(BufferAllocation.class)
+	} : null;
+
+	@Category("jglm")
+	abstract static class KernelEvent extends Event {
+		@Label("Operation")
+		String operation;
+
+		@Label("Elements")
+		@Description("Points, nodes or bytes processed")
+		int elements;
+	}
+
+	@Name("com.hackoeur.jglm.BulkTransform")
+	@Label("Bulk Transform")
+	@Threshold("1 ms")
+	static final class BulkTransform extends KernelEvent {
+	}
+
+	@Name("com.hackoeur.jglm.Culling")
+	@Label("Culling")
+	@Threshold("1 ms")
+	static final class Culling extends KernelEvent {
+	}
+
+	@Name("com.hackoeur.jglm.SpatialRebuild")
+	@Label("Spatial Rebuild")
+	static final class SpatialRebuild extends KernelEvent {
+	}
+
+	@Name("com.hackoeur.jglm.SpatialQuery")
+	@Label("Spatial Query")
+	@Threshold("1 ms")
+	static final class SpatialQuery extends KernelEvent {
+	}
+
+	@Name("com.hackoeur.jglm.BufferAllocation")
+	@Label("Buffer Allocation")
+	@Enabled(false)
+	static final class BufferAllocation extends KernelEvent {
+	}
+
+	private JfrEvents() {
+	}
+
+	/**
+	 * @return whether events are emitted
+	 */
+	static boolean isEnabled() {
+		return ENABLED;
+	}
+
+	/**
+	 * @return whether a running recording has events of the given kind enabled
+	 */
+	static boolean isRecording(final Telemetry.Kind kind) {
+		return ENABLED && TYPES[kind.ordinal()].isEnabled();
+	}
+
+	/**
+	 * @return an event begun for a call of the given kind
+	 */
+	static Object begin(final Telemetry.Kind kind) {
+		final KernelEvent event;
+		switch (kind) {
+		case BULK_TRANSFORM:
+			event = new BulkTransform();
+			break;
+		case CULLING:
+			event = new Culling();
+			break;
+		case SPATIAL_REBUILD:
+			event = new SpatialRebuild();
+			break;
+		case SPATIAL_QUERY:
+			event = new SpatialQuery();
+			break;
+		default:
+			event = new BufferAllocation();
+			break;
+		}
+
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * Ends an event from {@link #begin(Telemetry.Kind)} and commits it if it
+	 * is being recorded.
+	 */
+	static void end(final Object event, final String operation, final int elements) {
+		final KernelEvent kernelEvent = (KernelEvent) event;
+		kernelEvent.end();
+		if (kernelEvent.shouldCommit()) {
+			kernelEvent.operation = operation;
+			kernelEvent.elements = elements;
+			kernelEvent.commit();
+		}
+	}
+}
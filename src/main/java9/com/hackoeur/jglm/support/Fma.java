@@ -0,0 +1,98 @@
+/* Copyright (C) 2013 James L. Royalty
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hackoeur.jglm.support;
+
+import java.lang.management.ManagementFactory;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+/**
+ * Multiply-add kernels for dot products and matrix products.  This is the
+ * Java 9 version from the multi-release jar: each multiply-add is a single
+ * {@link Math#fma(float, float, float)}, which HotSpot compiles to one
+ * fused instruction where the CPU has one.
+ * <p>
+ * Without that instruction {@code Math.fma} falls back to a slow, allocating
+ * {@code BigDecimal} computation, so the kernels fuse only when the VM
+ * reports the {@code UseFMA} option as on.  Set {@code jglm.useFma} to
+ * override that either way.
+ */
+public final class Fma {
+	private static final boolean ENABLED = JglmConfig.hasProperty("useFma")
+			? JglmConfig.getBooleanProperty("useFma", false)
+			: isIntrinsic();
+
+	private Fma() {
+	}
+
+	/**
+	 * @return whether the VM compiles {@code Math.fma} to a fused
+	 * instruction, as reported by its {@code UseFMA} option; {@code false}
+	 * when the option is missing, as on VMs other than HotSpot
+	 */
+	static boolean isIntrinsic() {
+		try {
+			final HotSpotDiagnosticMXBean hotSpot = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+			return hotSpot != null && Boolean.parseBoolean(hotSpot.getVMOption("UseFMA").getValue());
+		} catch (RuntimeException e) {
+			// No such option, or no access to the VM's diagnostic bean.
+			return false;
+		} catch (LinkageError e) {
+			return false;
+		}
+	}
+
+	/**
+	 * @return whether the kernels below round only once per multiply-add
+	 */
+	public static boolean isEnabled() {
+		return ENABLED;
+	}
+
+	/**
+	 * @return a * b + c
+	 */
+	public static float fma(final float a, final float b, final float c) {
+		if (ENABLED) {
+			return Math.fma(a, b, c);
+		} else {
+			return a * b + c;
+		}
+	}
+
+	/**
+	 * @return a0 * b0 + a1 * b1 + a2 * b2, summed left to right
+	 */
+	public static float dot3(final float a0, final float a1, final float a2,
+			final float b0, final float b1, final float b2) {
+		if (ENABLED) {
+			return Math.fma(a2, b2, Math.fma(a1, b1, a0 * b0));
+		} else {
+			return a0 * b0 + a1 * b1 + a2 * b2;
+		}
+	}
+
+	/**
+	 * @return a0 * b0 + a1 * b1 + a2 * b2 + a3 * b3, summed left to right
+	 */
+	public static float dot4(final float a0, final float a1, final float a2, final float a3,
+			final float b0, final float b1, final float b2, final float b3) {
+		if (ENABLED) {
+			return Math.fma(a3, b3, Math.fma(a2, b2, Math.fma(a1, b1, a0 * b0)));
+		} else {
+			return a0 * b0 + a1 * b1 + a2 * b2 + a3 * b3;
+		}
+	}
+}
@@ -0,0 +1,195 @@
+package com.hackoeur.jglm;
+
+import java.nio.FloatBuffer;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hackoeur.jglm.AllocationBudgets.Operation;
+import com.hackoeur.jglm.support.Compare;
+import com.hackoeur.jglm.support.PrecisionPolicy;
+
+/**
+ * Bytes each public operation may allocate per call.  An operation that
+ * starts allocating more, or at all, fails the build; raise its budget here
+ * only on purpose.  {@code toString()} is not covered.
+ */
+public class AllocationBudgetTest {
+	/* Object sizes on 64-bit HotSpot with compressed oops. */
+	private static final long NONE = 0;
+	private static final long VEC3 = 24;
+	private static final long VEC4 = 32;
+	private static final long MAT3 = 72;
+	private static final long MAT4 = 104;
+	private static final long FLOATS_3 = 32;
+	private static final long FLOATS_4 = 32;
+	private static final long FLOATS_9 = 56;
+	private static final long FLOATS_16 = 80;
+	private static final long HEAP_FLOAT_BUFFER = 48;
+	private static final long ARRAY_LIST_OF_3 = 24 + 32;
+	private static final long ARRAY_LIST_OF_4 = 24 + 32;
+
+	private final Vec3 a3 = new Vec3(1.5f, -2.25f, 3.125f);
+	private final Vec3 b3 = new Vec3(-0.5f, 4f, 0.75f);
+	private final Vec4 a4 = new Vec4(1.5f, -2.25f, 3.125f, 1f);
+	private final Vec4 b4 = new Vec4(-0.5f, 4f, 0.75f, 0f);
+	private final Mat3 general3 = new Mat3(
+			1f, 2f, 3f,
+			4f, 5f, 6f,
+			7f, 8f, 10f);
+	private final Mat3 other3 = new Mat3(
+			2f, 0f, 1f,
+			0f, 3f, 0f,
+			1f, 0f, 4f);
+	private final Mat4 general4 = Matrices.perspective(60f, 1.5f, 0.1f, 100f);
+	private final Mat4 rigid4 = Matrices.lookAt(new Vec3(1f, 2f, 3f), new Vec3(0f, 0f, 0f), new Vec3(0f, 1f, 0f));
+	private final float[] floats = new float[64];
+	private final float[] otherFloats = new float[64];
+	private final FloatBuffer floatBuffer = FloatBuffer.wrap(floats);
+	private final FloatBuffer otherFloatBuffer = FloatBuffer.wrap(otherFloats);
+
+	@Before
+	public void setUp() {
+		Assume.assumeTrue(AllocationBudgets.isSupported());
+	}
+
+	@Test
+	public void testVec3() {
+		new AllocationBudgets()
+			.budget("Vec3.getDimensions", NONE, new Operation() { void run() { intResult = a3.getDimensions(); } })
+			.budget("Vec3.getLength", NONE, new Operation() { void run() { floatResult = a3.getLength(); } })
+			.budget("Vec3.getLength(PrecisionPolicy)", NONE, new Operation() { void run() { floatResult = a3.getLength(PrecisionPolicy.EXACT); } })
+			.budget("Vec3.getLengthSquared", NONE, new Operation() { void run() { floatResult = a3.getLengthSquared(); } })
+			.budget("Vec3.getUnitVector", VEC3, new Operation() { void run() { result = a3.getUnitVector(); } })
+			.budget("Vec3.getUnitVector(PrecisionPolicy)", VEC3, new Operation() { void run() { result = a3.getUnitVector(PrecisionPolicy.APPROX); } })
+			.budget("Vec3.getNegated", VEC3, new Operation() { void run() { result = a3.getNegated(); } })
+			.budget("Vec3.add", VEC3, new Operation() { void run() { result = a3.add(b3); } })
+			.budget("Vec3.subtract", VEC3, new Operation() { void run() { result = a3.subtract(b3); } })
+			.budget("Vec3.multiply(Mat3)", VEC3, new Operation() { void run() { result = a3.multiply(general3); } })
+			.budget("Vec3.multiply(float)", VEC3, new Operation() { void run() { result = a3.multiply(2.5f); } })
+			.budget("Vec3.scale(float)", VEC3, new Operation() { void run() { result = a3.scale(2.5f); } })
+			.budget("Vec3.scale(Vec3)", VEC3, new Operation() { void run() { result = a3.scale(b3); } })
+			.budget("Vec3.dot", NONE, new Operation() { void run() { floatResult = a3.dot(b3); } })
+			.budget("Vec3.cross", VEC3, new Operation() { void run() { result = a3.cross(b3); } })
+			.budget("Vec3.angleInRadians", NONE, new Operation() { void run() { floatResult = a3.angleInRadians(b3); } })
+			.budget("Vec3.lerp", VEC3, new Operation() { void run() { result = a3.lerp(b3, 0.25f); } })
+			.budget("Vec3.toDirection", VEC4, new Operation() { void run() { result = a3.toDirection(); } })
+			.budget("Vec3.toPoint", VEC4, new Operation() { void run() { result = a3.toPoint(); } })
+			.budget("Vec3.getBuffer", HEAP_FLOAT_BUFFER + FLOATS_3, new Operation() { void run() { result = a3.getBuffer(); } })
+			.budget("Vec3.getArray", FLOATS_3, new Operation() { void run() { result = a3.getArray(); } })
+			.budget("Vec3.getX", NONE, new Operation() { void run() { floatResult = a3.getX(); } })
+			.budget("Vec3.hashCode", NONE, new Operation() { void run() { intResult = a3.hashCode(); } })
+			.budget("Vec3.equals", NONE, new Operation() { void run() { booleanResult = a3.equals(b3); } })
+			.budget("Vec3.equalsWithEpsilon", NONE, new Operation() { void run() { booleanResult = a3.equalsWithEpsilon(b3); } })
+			.verify();
+	}
+
+	@Test
+	public void testVec4() {
+		new AllocationBudgets()
+			.budget("Vec4.getDimensions", NONE, new Operation() { void run() { intResult = a4.getDimensions(); } })
+			.budget("Vec4.getLength", NONE, new Operation() { void run() { floatResult = a4.getLength(); } })
+			.budget("Vec4.getLengthSquared", NONE, new Operation() { void run() { floatResult = a4.getLengthSquared(); } })
+			.budget("Vec4.getUnitVector", VEC4, new Operation() { void run() { result = a4.getUnitVector(); } })
+			.budget("Vec4.getUnitVector(PrecisionPolicy)", VEC4, new Operation() { void run() { result = a4.getUnitVector(PrecisionPolicy.APPROX); } })
+			.budget("Vec4.getNegated", VEC4, new Operation() { void run() { result = a4.getNegated(); } })
+			.budget("Vec4.add", VEC4, new Operation() { void run() { result = a4.add(b4); } })
+			.budget("Vec4.subtract", VEC4, new Operation() { void run() { result = a4.subtract(b4); } })
+			.budget("Vec4.multiply(float)", VEC4, new Operation() { void run() { result = a4.multiply(2.5f); } })
+			.budget("Vec4.scale(float)", VEC4, new Operation() { void run() { result = a4.scale(2.5f); } })
+			.budget("Vec4.scale(Vec4)", VEC4, new Operation() { void run() { result = a4.scale(b4); } })
+			.budget("Vec4.dot", NONE, new Operation() { void run() { floatResult = a4.dot(b4); } })
+			.budget("Vec4.getBuffer", HEAP_FLOAT_BUFFER + FLOATS_4, new Operation() { void run() { result = a4.getBuffer(); } })
+			.budget("Vec4.getW", NONE, new Operation() { void run() { floatResult = a4.getW(); } })
+			.budget("Vec4.hashCode", NONE, new Operation() { void run() { intResult = a4.hashCode(); } })
+			.budget("Vec4.equals", NONE, new Operation() { void run() { booleanResult = a4.equals(b4); } })
+			.budget("Vec4.equalsWithEpsilon", NONE, new Operation() { void run() { booleanResult = a4.equalsWithEpsilon(b4); } })
+			.verify();
+	}
+
+	@Test
+	public void testMat3() {
+		new AllocationBudgets()
+			.budget("Mat3.getNumRows", NONE, new Operation() { void run() { intResult = general3.getNumRows(); } })
+			.budget("Mat3.getColumn", VEC3, new Operation() { void run() { result = general3.getColumn(1); } })
+			.budget("Mat3.getColumns", ARRAY_LIST_OF_3 + 3 * VEC3, new Operation() { void run() { result = general3.getColumns(); } })
+			.budget("Mat3.getBuffer", HEAP_FLOAT_BUFFER + FLOATS_9, new Operation() { void run() { result = general3.getBuffer(); } })
+			.budget("Mat3.getFlags", NONE, new Operation() { void run() { intResult = general3.getFlags(); } })
+			.budget("Mat3.isIdentity", NONE, new Operation() { void run() { booleanResult = general3.isIdentity(); } })
+			.budget("Mat3.isZero", NONE, new Operation() { void run() { booleanResult = general3.isZero(); } })
+			.budget("Mat3.multiply(float)", MAT3, new Operation() { void run() { result = general3.multiply(2.5f); } })
+			.budget("Mat3.multiply(Mat3)", MAT3, new Operation() { void run() { result = general3.multiply(other3); } })
+			.budget("Mat3.multiply(Vec3)", VEC3, new Operation() { void run() { result = general3.multiply(a3); } })
+			.budget("Mat3.transpose (cached)", NONE, new Operation() { void run() { result = general3.transpose(); } })
+			.budget("Mat3.getInverse (cached)", NONE, new Operation() { void run() { result = general3.getInverse(); } })
+			.budget("Mat3.determinant (cached)", NONE, new Operation() { void run() { floatResult = general3.determinant(); } })
+			.budget("Mat3.hashCode (cached)", NONE, new Operation() { void run() { intResult = general3.hashCode(); } })
+			.budget("Mat3.equals", NONE, new Operation() { void run() { booleanResult = general3.equals(other3); } })
+			.budget("Mat3.equalsWithEpsilon", NONE, new Operation() { void run() { booleanResult = general3.equalsWithEpsilon(other3); } })
+			.verify();
+	}
+
+	@Test
+	public void testMat4() {
+		new AllocationBudgets()
+			.budget("Mat4.getNumRows", NONE, new Operation() { void run() { intResult = general4.getNumRows(); } })
+			.budget("Mat4.getColumn", VEC4, new Operation() { void run() { result = general4.getColumn(1); } })
+			.budget("Mat4.getColumns", ARRAY_LIST_OF_4 + 4 * VEC4, new Operation() { void run() { result = general4.getColumns(); } })
+			.budget("Mat4.getBuffer", HEAP_FLOAT_BUFFER + FLOATS_16, new Operation() { void run() { result = general4.getBuffer(); } })
+			.budget("Mat4.getFlags", NONE, new Operation() { void run() { intResult = general4.getFlags(); } })
+			.budget("Mat4.isIdentity", NONE, new Operation() { void run() { booleanResult = general4.isIdentity(); } })
+			.budget("Mat4.isZero", NONE, new Operation() { void run() { booleanResult = general4.isZero(); } })
+			.budget("Mat4.multiply(Mat4) general", MAT4, new Operation() { void run() { result = general4.multiply(rigid4); } })
+			.budget("Mat4.multiply(Mat4) affine", MAT4, new Operation() { void run() { result = rigid4.multiply(rigid4); } })
+			.budget("Mat4.multiply(Vec4)", VEC4, new Operation() { void run() { result = general4.multiply(a4); } })
+			.budget("Mat4.add", MAT4, new Operation() { void run() { result = general4.add(rigid4); } })
+			.budget("Mat4.subtract", MAT4, new Operation() { void run() { result = general4.subtract(rigid4); } })
+			.budget("Mat4.translate", 7 * VEC4 + MAT4, new Operation() { void run() { result = general4.translate(a3); } })
+			.budget("Mat4.transpose (cached)", NONE, new Operation() { void run() { result = general4.transpose(); } })
+			.budget("Mat4.getInverse (cached)", NONE, new Operation() { void run() { result = general4.getInverse(); } })
+			.budget("Mat4.getNormalMatrix (cached)", NONE, new Operation() { void run() { result = rigid4.getNormalMatrix(); } })
+			.budget("Mat4.determinant (cached)", NONE, new Operation() { void run() { floatResult = general4.determinant(); } })
+			.budget("Mat4.hashCode (cached)", NONE, new Operation() { void run() { intResult = general4.hashCode(); } })
+			.budget("Mat4.equals", NONE, new Operation() { void run() { booleanResult = general4.equals(rigid4); } })
+			.budget("Mat4.equalsWithEpsilon", NONE, new Operation() { void run() { booleanResult = general4.equalsWithEpsilon(rigid4); } })
+			.verify();
+	}
+
+	@Test
+	public void testMatrices() {
+		final Vec3 eye = new Vec3(1f, 2f, 3f);
+		final Vec3 center = new Vec3(0f, 0.5f, 0f);
+		final Vec3 up = new Vec3(0f, 1f, 0f);
+		final Vec3 axis = new Vec3(0f, 0.6f, 0.8f);
+
+		// Composite budgets are as measured; the uncached inversions include
+		// the copy that defeats the cache.
+		new AllocationBudgets()
+			.budget("Matrices.perspective", MAT4, new Operation() { void run() { result = Matrices.perspective(60f, 1.5f, 0.1f, 100f); } })
+			.budget("Matrices.frustum", MAT4, new Operation() { void run() { result = Matrices.frustum(-1f, 1f, -1f, 1f, 0.1f, 100f); } })
+			.budget("Matrices.lookAt", 248, new Operation() { void run() { result = Matrices.lookAt(eye, center, up); } })
+			.budget("Matrices.ortho", MAT4, new Operation() { void run() { result = Matrices.ortho(-1f, 1f, -1f, 1f, 0.1f, 100f); } })
+			.budget("Matrices.ortho2d", MAT4, new Operation() { void run() { result = Matrices.ortho2d(-1f, 1f, -1f, 1f); } })
+			.budget("Matrices.rotate", MAT4, new Operation() { void run() { result = Matrices.rotate(0.75f, axis); } })
+			.budget("Matrices.invert(Mat4) (cached)", NONE, new Operation() { void run() { result = Matrices.invert(general4); } })
+			.budget("Matrices.invert(Mat4) general", 768, new Operation() { void run() { result = Matrices.invert(new Mat4(general4)); } })
+			.budget("Matrices.invert(Mat4) rigid", 208, new Operation() { void run() { result = Matrices.invert(new Mat4(rigid4)); } })
+			.budget("Matrices.invert(Mat3) (cached)", NONE, new Operation() { void run() { result = Matrices.invert(general3); } })
+			.budget("Matrices.invert(Mat3) general", 592, new Operation() { void run() { result = Matrices.invert(new Mat3(general3)); } })
+			.verify();
+	}
+
+	@Test
+	public void testCompare() {
+		new AllocationBudgets()
+			.budget("Compare.equalsZero", NONE, new Operation() { void run() { booleanResult = Compare.equalsZero(1e-8f); } })
+			.budget("Compare.equals", NONE, new Operation() { void run() { booleanResult = Compare.equals(1f, 1.000001f, Compare.MAT_EPSILON); } })
+			.budget("Compare.equalsUlps", NONE, new Operation() { void run() { booleanResult = Compare.equalsUlps(1f, 1.000001f, 4); } })
+			.budget("Compare.mismatchCount(float[])", NONE, new Operation() { void run() { intResult = Compare.mismatchCount(floats, 0, otherFloats, 0, floats.length, 1, 0f, 0f); } })
+			.budget("Compare.firstMismatch(float[])", NONE, new Operation() { void run() { intResult = Compare.firstMismatch(floats, 0, otherFloats, 0, floats.length, 1, 0f, 0f); } })
+			.budget("Compare.mismatchCount(FloatBuffer)", NONE, new Operation() { void run() { intResult = Compare.mismatchCount(floatBuffer, otherFloatBuffer, 1, 0f, 0f); } })
+			.budget("Compare.firstMismatch(FloatBuffer)", NONE, new Operation() { void run() { intResult = Compare.firstMismatch(floatBuffer, otherFloatBuffer, 1, 0f, 0f); } })
+			.verify();
+	}
+}
@@ -0,0 +1,122 @@
+package com.hackoeur.jglm;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+/**
+ * Heap bytes allocated per call, checked against a budget per operation.
+ * Each operation is warmed up, then called repeatedly between two readings of
+ * {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}.
+ * <p>
+ * Budgets are object sizes on 64-bit HotSpot with compressed oops, the
+ * default below 32 GB of heap; see {@link #isSupported()}.  The JIT may remove
+ * temporaries, so budgets are upper bounds.
+ */
+final class AllocationBudgets {
+	/**
+	 * An operation to measure.  It should store its result in one of the
+	 * fields, which makes the result escape as callers' results do.
+	 */
+	static abstract class Operation {
+		Object result;
+		float floatResult;
+		int intResult;
+		boolean booleanResult;
+
+		abstract void run();
+	}
+
+	private static final int WARMUP_CALLS = 20000;
+	private static final int MEASURED_CALLS = 10000;
+	private static final int MEASURED_ROUNDS = 5;
+
+	private final List<String> names = new ArrayList<String>();
+	private final List<Long> budgets = new ArrayList<Long>();
+	private final List<Operation> operations = new ArrayList<Operation>();
+
+	/**
+	 * @return whether allocation can be measured on this JVM and matches the
+	 * object layout the budgets assume
+	 */
+	static boolean isSupported() {
+		final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+			return false;
+		}
+
+		final com.sun.management.ThreadMXBean hotSpotThreads = (com.sun.management.ThreadMXBean) threads;
+		if (!hotSpotThreads.isThreadAllocatedMemorySupported()) {
+			return false;
+		}
+		hotSpotThreads.setThreadAllocatedMemoryEnabled(true);
+
+		try {
+			final HotSpotDiagnosticMXBean diagnostic = ManagementFactory.newPlatformMXBeanProxy(
+					ManagementFactory.getPlatformMBeanServer(),
+					"com.sun.management:type=HotSpotDiagnostic",
+					HotSpotDiagnosticMXBean.class);
+			return Boolean.parseBoolean(diagnostic.getVMOption("UseCompressedOops").getValue());
+		} catch (Exception e) {
+			// Not HotSpot, or a 32-bit VM without the option.
+			return false;
+		}
+	}
+
+	/**
+	 * Declares the budget of an operation.
+	 *
+	 * @return this, to chain declarations
+	 */
+	AllocationBudgets budget(final String name, final long bytesPerCall, final Operation operation) {
+		names.add(name);
+		budgets.add(bytesPerCall);
+		operations.add(operation);
+		return this;
+	}
+
+	/**
+	 * Measures every declared operation and fails listing those over budget.
+	 */
+	void verify() {
+		final com.sun.management.ThreadMXBean threads =
+				(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		final long threadId = Thread.currentThread().getId();
+		final StringBuilder failures = new StringBuilder();
+
+		for (int i = 0; i < operations.size(); i++) {
+			final Operation operation = operations.get(i);
+			for (int n = 0; n < WARMUP_CALLS; n++) {
+				operation.run();
+			}
+
+			// The least of several rounds, as a garbage collection or compilation
+			// now and then adds to a round.
+			long bytesPerCall = Long.MAX_VALUE;
+			for (int round = 0; round < MEASURED_ROUNDS; round++) {
+				final long before = threads.getThreadAllocatedBytes(threadId);
+				for (int n = 0; n < MEASURED_CALLS; n++) {
+					operation.run();
+				}
+				// Rounds down the few bytes that reading the counter allocates.
+				bytesPerCall = Math.min(bytesPerCall,
+						(threads.getThreadAllocatedBytes(threadId) - before) / MEASURED_CALLS);
+			}
+
+			if (bytesPerCall > budgets.get(i)) {
+				failures.append("\n  ").append(names.get(i))
+						.append(": ").append(bytesPerCall)
+						.append(" bytes per call, budget ").append(budgets.get(i));
+			}
+		}
+
+		if (failures.length() > 0) {
+			Assert.fail("Allocation over budget:" + failures);
+		}
+	}
+}
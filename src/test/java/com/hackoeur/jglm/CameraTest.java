@@ -0,0 +1,94 @@
+package com.hackoeur.jglm;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.hackoeur.jglm.support.Compare;
+
+public class CameraTest {
+	private static final Vec3 EYE = new Vec3(1f, 2f, 5f);
+	private static final Vec3 TARGET = new Vec3(0f, 0.5f, 0f);
+	private static final Vec3 UP = new Vec3(0f, 1f, 0f);
+
+	@Test
+	public void testMatchesMatrices() {
+		final Camera camera = new Camera().setLookAt(EYE, TARGET, UP).setPerspective(60f, 1.5f, 0.1f, 100f);
+
+		final Mat4 view = Matrices.lookAt(EYE, TARGET, UP);
+		final Mat4 projection = Matrices.perspective(60f, 1.5f, 0.1f, 100f);
+		final Mat4 viewProjection = projection.multiply(view);
+
+		Assert.assertEquals(view, camera.getView());
+		Assert.assertEquals(projection, camera.getProjection());
+		Assert.assertEquals(viewProjection, camera.getViewProjection());
+		Assert.assertEquals(Matrices.invert(view), camera.getInverseView());
+		Assert.assertEquals(Matrices.invert(projection), camera.getInverseProjection());
+		// Computed differently, so compared with some room for rounding.
+		Assert.assertEquals(0, Compare.mismatchCount(Matrices.invert(viewProjection).getBuffer(),
+				camera.getInverseViewProjection().getBuffer(), 4, 1e-4f, 1e-4f));
+
+		Assert.assertTrue(camera.getFrustum().contains(TARGET));
+		Assert.assertFalse(camera.getFrustum().contains(new Vec3(1f, 2f, 6f)));
+
+		camera.setOrtho(-2f, 2f, -1f, 1f, 0.5f, 20f);
+		Assert.assertTrue(camera.isOrthographic());
+		Assert.assertEquals(Matrices.ortho(-2f, 2f, -1f, 1f, 0.5f, 20f), camera.getProjection());
+	}
+
+	@Test
+	public void testCachesUntilChanged() {
+		final Camera camera = new Camera().setLookAt(EYE, TARGET, UP);
+		final Mat4 view = camera.getView();
+		final Mat4 projection = camera.getProjection();
+		final Mat4 viewProjection = camera.getViewProjection();
+		final Mat4 inverseViewProjection = camera.getInverseViewProjection();
+		final Frustum frustum = camera.getFrustum();
+
+		// Equal values change nothing.
+		camera.setLookAt(new Vec3(1f, 2f, 5f), TARGET, UP).setPerspective(45f, 1f, 0.1f, 100f);
+		Assert.assertSame(view, camera.getView());
+		Assert.assertSame(projection, camera.getProjection());
+		Assert.assertSame(viewProjection, camera.getViewProjection());
+		Assert.assertSame(inverseViewProjection, camera.getInverseViewProjection());
+		Assert.assertSame(frustum, camera.getFrustum());
+	}
+
+	@Test
+	public void testInvalidatesOnlyAffectedValues() {
+		final Camera camera = new Camera().setLookAt(EYE, TARGET, UP);
+		Mat4 view = camera.getView();
+		Mat4 projection = camera.getProjection();
+		Mat4 viewProjection = camera.getViewProjection();
+		Frustum frustum = camera.getFrustum();
+
+		camera.setAspect(2f);
+		Assert.assertSame(view, camera.getView());
+		Assert.assertNotSame(projection, camera.getProjection());
+		Assert.assertNotSame(viewProjection, camera.getViewProjection());
+		Assert.assertNotSame(frustum, camera.getFrustum());
+		Assert.assertEquals(Matrices.perspective(45f, 2f, 0.1f, 100f), camera.getProjection());
+
+		projection = camera.getProjection();
+		viewProjection = camera.getViewProjection();
+		frustum = camera.getFrustum();
+
+		camera.setEye(new Vec3(3f, 2f, 1f));
+		Assert.assertNotSame(view, camera.getView());
+		Assert.assertSame(projection, camera.getProjection());
+		Assert.assertNotSame(viewProjection, camera.getViewProjection());
+		Assert.assertNotSame(frustum, camera.getFrustum());
+		Assert.assertEquals(camera.getProjection().multiply(camera.getView()), camera.getViewProjection());
+	}
+
+	@Test
+	public void testSharesMatricesThroughCache() {
+		final MatrixCache cache = new MatrixCache(16);
+		final Camera a = new Camera(cache).setLookAt(EYE, TARGET, UP);
+		final Camera b = new Camera(cache).setLookAt(EYE, TARGET, UP);
+
+		Assert.assertSame(a.getView(), b.getView());
+		Assert.assertSame(a.getProjection(), b.getProjection());
+		Assert.assertSame(a.getInverseView(), b.getInverseView());
+		Assert.assertEquals(2, cache.getHits());
+	}
+}
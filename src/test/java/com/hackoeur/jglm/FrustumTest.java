@@ -0,0 +1,53 @@
+package com.hackoeur.jglm;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FrustumTest {
+	private static Frustum lookingDownNegativeZ() {
+		final Mat4 projection = Matrices.perspective(90f, 1f, 1f, 100f);
+		final Mat4 view = Matrices.lookAt(new Vec3(0f, 0f, 0f), new Vec3(0f, 0f, -1f), new Vec3(0f, 1f, 0f));
+		return new Frustum(projection.multiply(view));
+	}
+	
+	@Test
+	public void testContainsPoint() {
+		final Frustum frustum = lookingDownNegativeZ();
+		
+		Assert.assertTrue(frustum.contains(new Vec3(0f, 0f, -5f)));
+		Assert.assertTrue(frustum.contains(new Vec3(4f, -4f, -5f)));
+		Assert.assertFalse(frustum.contains(new Vec3(0f, 0f, 5f)));
+		Assert.assertFalse(frustum.contains(new Vec3(6f, 0f, -5f)));
+		Assert.assertFalse(frustum.contains(new Vec3(0f, 0f, -0.5f)));
+		Assert.assertFalse(frustum.contains(new Vec3(0f, 0f, -101f)));
+	}
+	
+	@Test
+	public void testPlanesAreNormalized() {
+		final Frustum frustum = lookingDownNegativeZ();
+		
+		for (int i = Frustum.LEFT; i <= Frustum.FAR; i++) {
+			final Vec4 plane = frustum.getPlane(i);
+			final Vec3 normal = new Vec3(plane.getX(), plane.getY(), plane.getZ());
+			JglmTesting.assertFloatsEqualDefaultTol(1f, normal.getLengthSquared());
+		}
+		
+		// Near plane faces down -z and sits at z = -1.
+		final Vec4 near = frustum.getPlane(Frustum.NEAR);
+		Assert.assertEquals(-1f, near.getZ(), 0.0001f);
+		Assert.assertEquals(-1f, near.getW(), 0.0001f);
+	}
+	
+	@Test
+	public void testClassifyBox() {
+		final Frustum frustum = lookingDownNegativeZ();
+		
+		Assert.assertEquals(Frustum.Containment.INSIDE, frustum.classify(new AABB(-1f, -1f, -6f, 1f, 1f, -4f)));
+		Assert.assertEquals(Frustum.Containment.INTERSECTING, frustum.classify(new AABB(-1f, -1f, -2f, 1f, 1f, 2f)));
+		Assert.assertEquals(Frustum.Containment.OUTSIDE, frustum.classify(new AABB(-1f, -1f, 2f, 1f, 1f, 4f)));
+		Assert.assertEquals(Frustum.Containment.OUTSIDE, frustum.classify(new AABB(20f, -1f, -6f, 22f, 1f, -4f)));
+		
+		Assert.assertTrue(frustum.intersects(new AABB(4f, -1f, -6f, 8f, 1f, -4f)));
+		Assert.assertFalse(frustum.intersects(new AABB(-1f, -1f, -300f, 1f, 1f, -200f)));
+	}
+}
@@ -257,4 +257,29 @@ public class Mat3Test {
 		
 		JglmTesting.assertFloatsEqualDefaultTol(6f, m1.determinant());
 	}
+	
+	@Test
+	public void testFlags() {
+		final Mat3 rotation = new Mat3(
+				0f, 1f, 0f,
+				-1f, 0f, 0f,
+				0f, 0f, 1f);
+		final Mat3 scale = new Mat3(3f);
+		final Mat3 general = new Mat3(
+				-2f, 2f, 3f,
+				-1f, 1f, 3f,
+				2f, 0f, -1f);
+		
+		Assert.assertEquals(MatrixFlags.IDENTITY | MatrixFlags.UNIFORM_SCALE | MatrixFlags.RIGID
+				| MatrixFlags.AFFINE, Mat3.MAT3_IDENTITY.getFlags());
+		Assert.assertEquals(MatrixFlags.UNIFORM_SCALE | MatrixFlags.AFFINE, scale.getFlags());
+		Assert.assertEquals(MatrixFlags.RIGID | MatrixFlags.AFFINE, rotation.getFlags());
+		Assert.assertEquals(MatrixFlags.AFFINE, general.getFlags());
+		
+		Assert.assertSame(general, Mat3.MAT3_IDENTITY.multiply(general));
+		Assert.assertEquals(new Mat3(6f), scale.multiply(new Mat3(2f)));
+		Assert.assertEquals(new Vec3(3f, -6f, 9f), scale.multiply(new Vec3(1f, -2f, 3f)));
+		Assert.assertTrue(Matrices.invert(rotation).multiply(rotation).isIdentity());
+		Assert.assertEquals(new Mat3(1f / 3f), Matrices.invert(scale));
+	}
 }
@@ -297,4 +297,178 @@ public class Mat4Test {
 		Mat4 m1T_T = m1T.transpose();
 		Assert.assertEquals(m1, m1T_T);
 	}
+	
+	@Test
+	public void testFlags() {
+		final Mat4 translation = Mat4.MAT4_IDENTITY.translate(new Vec3(1f, 2f, 3f));
+		final Mat4 scale = new Mat4(
+				2f, 0f, 0f, 0f,
+				0f, 2f, 0f, 0f,
+				0f, 0f, 2f, 0f,
+				1f, 2f, 3f, 1f);
+		final Mat4 rotation = Matrices.rotate(0.5f, new Vec3(0f, 0.6f, 0.8f));
+		final Mat4 affine = new Mat4(
+				1f, 2f, 3f, 0f,
+				4f, 5f, 6f, 0f,
+				7f, 8f, 10f, 0f,
+				1f, 2f, 3f, 1f);
+		
+		Assert.assertEquals(MatrixFlags.IDENTITY | MatrixFlags.TRANSLATION | MatrixFlags.UNIFORM_SCALE
+				| MatrixFlags.RIGID | MatrixFlags.AFFINE, Mat4.MAT4_IDENTITY.getFlags());
+		Assert.assertEquals(MatrixFlags.TRANSLATION | MatrixFlags.UNIFORM_SCALE | MatrixFlags.RIGID
+				| MatrixFlags.AFFINE, translation.getFlags());
+		Assert.assertEquals(MatrixFlags.UNIFORM_SCALE | MatrixFlags.AFFINE, scale.getFlags());
+		Assert.assertEquals(MatrixFlags.RIGID | MatrixFlags.AFFINE, rotation.getFlags());
+		Assert.assertEquals(MatrixFlags.AFFINE, affine.getFlags());
+		Assert.assertEquals(MatrixFlags.GENERAL, Matrices.perspective(60f, 1.5f, 1f, 100f).getFlags());
+		Assert.assertEquals(MatrixFlags.GENERAL, Mat4.MAT4_ZERO.getFlags());
+		
+		// Multiplying leaves RIGID to be found later; products of
+		// translations and copies carry their flags.
+		final Mat4 fresh = Matrices.rotate(0.5f, new Vec3(0f, 0.6f, 0.8f));
+		fresh.multiply(affine);
+		Assert.assertEquals(MatrixFlags.RIGID | MatrixFlags.AFFINE, fresh.getFlags());
+		Assert.assertEquals(translation.getFlags(), translation.multiply(translation).getFlags());
+		Assert.assertEquals(Mat4.MAT4_IDENTITY.getFlags(), translation.multiply(
+				Mat4.MAT4_IDENTITY.translate(new Vec3(-1f, -2f, -3f))).getFlags());
+		Assert.assertEquals(rotation.getFlags(), new Mat4(rotation).getFlags());
+	}
+	
+	@Test
+	public void testClassifiedMultiplication() {
+		final Mat4[] matrices = {
+				Mat4.MAT4_IDENTITY,
+				Mat4.MAT4_IDENTITY.translate(new Vec3(1f, -2f, 3f)),
+				new Mat4(
+						0.5f, 0f, 0f, 0f,
+						0f, 0.5f, 0f, 0f,
+						0f, 0f, 0.5f, 0f,
+						4f, 5f, -6f, 1f),
+				Matrices.rotate(1.2f, new Vec3(0.6f, 0f, 0.8f)).translate(new Vec3(-1f, 0.5f, 2f)),
+				new Mat4(
+						1f, 2f, 3f, 0f,
+						4f, 5f, 6f, 0f,
+						7f, 8f, 10f, 0f,
+						1f, 2f, 3f, 1f),
+				Matrices.perspective(60f, 1.5f, 1f, 100f)
+		};
+		final Vec4 vector = new Vec4(1.5f, -2f, 0.25f, 1f);
+		
+		for (final Mat4 left : matrices) {
+			for (final Mat4 right : matrices) {
+				final Mat4 expected = multiplyGeneral(left, right);
+				Assert.assertTrue(expected.equalsWithEpsilon(left.multiply(right)));
+			}
+			final Mat4 expected = multiplyGeneral(left, new Mat4(vector, vector, vector, vector));
+			Assert.assertTrue(expected.getColumn(0).equalsWithEpsilon(left.multiply(vector)));
+		}
+		
+		Assert.assertSame(matrices[3], Mat4.MAT4_IDENTITY.multiply(matrices[3]));
+		Assert.assertSame(matrices[3], matrices[3].multiply(Mat4.MAT4_IDENTITY));
+		Assert.assertSame(vector, Mat4.MAT4_IDENTITY.multiply(vector));
+	}
+	
+	@Test
+	public void testDerivedValues() {
+		final Mat4 m1 = new Mat4(
+				49.f, 50.f, 29.f, 12.f,
+				23.f, 90.f, 45.f, 32.f,
+				5.f, 47.f, 46.f, 89.f,
+				86.f, 88.f, 20.f, 58.f
+		);
+		JglmTesting.assertFloatsEqualDefaultTol(9990956f, m1.determinant());
+		JglmTesting.assertFloatsEqualDefaultTol(24f, new Mat4(
+				1f, 0f, 0f, 0f,
+				0f, 2f, 0f, 0f,
+				0f, 0f, 3f, 0f,
+				5f, 6f, 7f, 4f).determinant());
+		JglmTesting.assertFloatsEqualDefaultTol(-12f, new Mat4(
+				1f, 0f, 0f, 0f,
+				0f, -3f, 0f, 0f,
+				0f, 0f, 4f, 0f,
+				5f, 6f, 7f, 1f).determinant());
+		
+		// Computed once, and linked both ways.
+		final Mat4 inverse = m1.getInverse();
+		Assert.assertSame(inverse, m1.getInverse());
+		Assert.assertSame(inverse, Matrices.invert(m1));
+		Assert.assertSame(m1, inverse.getInverse());
+		Assert.assertSame(m1.transpose(), m1.transpose());
+		Assert.assertSame(m1, m1.transpose().transpose());
+		Assert.assertEquals(new Mat4(m1).hashCode(), m1.hashCode());
+		
+		final Mat4 rotation = Matrices.rotate(0.5f, new Vec3(0f, 0.6f, 0.8f)).translate(new Vec3(1f, 2f, 3f));
+		final Mat3 upper = new Mat3(
+				rotation.m00, rotation.m01, rotation.m02,
+				rotation.m10, rotation.m11, rotation.m12,
+				rotation.m20, rotation.m21, rotation.m22);
+		Assert.assertEquals(upper, rotation.getNormalMatrix());
+		Assert.assertSame(rotation.getNormalMatrix(), rotation.getNormalMatrix());
+		
+		final Mat4 scale = new Mat4(
+				2f, 0f, 0f, 0f,
+				0f, 4f, 0f, 0f,
+				0f, 0f, 8f, 0f,
+				1f, 2f, 3f, 1f);
+		Assert.assertTrue(new Mat3(
+				0.5f, 0f, 0f,
+				0f, 0.25f, 0f,
+				0f, 0f, 0.125f).equalsWithEpsilon(scale.getNormalMatrix()));
+	}
+	
+	@Test
+	public void testDerivedValuesAcrossThreads() throws InterruptedException {
+		final Mat4[] matrices = new Mat4[1000];
+		final Mat4[] inverses = new Mat4[matrices.length];
+		final float[] determinants = new float[matrices.length];
+		for (int i = 0; i < matrices.length; i++) {
+			matrices[i] = Matrices.rotate(i * 0.01f, new Vec3(0f, 0.6f, 0.8f)).translate(new Vec3(i, 1f, 2f));
+			// Computed on copies so that the threads below race on the originals.
+			inverses[i] = new Mat4(matrices[i]).getInverse();
+			determinants[i] = new Mat4(matrices[i]).determinant();
+		}
+		
+		final Throwable[] failure = new Throwable[1];
+		final Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						for (int i = 0; i < matrices.length; i++) {
+							Assert.assertEquals(inverses[i], matrices[i].getInverse());
+							Assert.assertEquals(matrices[i], matrices[i].transpose().transpose());
+							Assert.assertEquals(determinants[i], matrices[i].determinant(), 0f);
+						}
+					} catch (Throwable e) {
+						failure[0] = e;
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (final Thread thread : threads) {
+			thread.join();
+		}
+		if (failure[0] != null) {
+			throw new AssertionError(failure[0]);
+		}
+	}
+	
+	private static Mat4 multiplyGeneral(final Mat4 left, final Mat4 right) {
+		final float[] a = new float[16];
+		final float[] b = new float[16];
+		left.getBuffer().get(a);
+		right.getBuffer().get(b);
+		
+		final float[] product = new float[16];
+		for (int col = 0; col < 4; col++) {
+			for (int row = 0; row < 4; row++) {
+				for (int k = 0; k < 4; k++) {
+					product[col * 4 + row] += a[k * 4 + row] * b[col * 4 + k];
+				}
+			}
+		}
+		return new Mat4(product);
+	}
 }
@@ -217,4 +217,30 @@ public class MatricesTest {
 		got = matrix.multiply(invert);
 		Assert.assertTrue(expected.equalsWithEpsilon(got, 1f));
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testInverseClassifiedMat4(){
+		final Mat4[] matrices = {
+				Mat4.MAT4_IDENTITY,
+				Mat4.MAT4_IDENTITY.translate(new Vec3(1f, -2f, 3f)),
+				new Mat4(
+						0.5f, 0f, 0f, 0f,
+						0f, 0.5f, 0f, 0f,
+						0f, 0f, 0.5f, 0f,
+						4f, 5f, -6f, 1f),
+				Matrices.rotate(1.2f, new Vec3(0.6f, 0f, 0.8f)).translate(new Vec3(-1f, 0.5f, 2f)),
+				new Mat4(
+						1f, 2f, 3f, 0f,
+						4f, 5f, 6f, 0f,
+						7f, 8f, 10f, 0f,
+						1f, 2f, 3f, 1f)
+		};
+
+		for (final Mat4 matrix : matrices) {
+			final Mat4 invert = Matrices.invert(matrix);
+			Assert.assertTrue(matrix.multiply(invert).isIdentity());
+			Assert.assertTrue(invert.multiply(matrix).isIdentity());
+		}
+		Assert.assertSame(Mat4.MAT4_IDENTITY, Matrices.invert(Mat4.MAT4_IDENTITY));
+	}
+}
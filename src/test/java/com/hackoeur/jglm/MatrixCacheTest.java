@@ -0,0 +1,122 @@
+package com.hackoeur.jglm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MatrixCacheTest {
+	@Test
+	public void testMatchesMatrices() {
+		final MatrixCache cache = new MatrixCache(16);
+		final Vec3 eye = new Vec3(1f, 2f, 3f);
+		final Vec3 up = new Vec3(0f, 1f, 0f);
+
+		for (int round = 0; round < 2; round++) {
+			Assert.assertEquals(Matrices.perspective(60f, 1.5f, 0.1f, 100f), cache.perspective(60f, 1.5f, 0.1f, 100f));
+			Assert.assertEquals(Matrices.ortho(-1f, 1f, -2f, 2f, 0.5f, 10f), cache.ortho(-1f, 1f, -2f, 2f, 0.5f, 10f));
+			Assert.assertEquals(Matrices.lookAt(eye, Vec3.VEC3_ZERO, up), cache.lookAt(eye, Vec3.VEC3_ZERO, up));
+		}
+
+		Assert.assertEquals(3, cache.getSize());
+		Assert.assertEquals(3, cache.getHits());
+		Assert.assertEquals(3, cache.getMisses());
+		Assert.assertEquals(0.5, cache.getHitRate(), 0.0);
+	}
+
+	@Test
+	public void testSharesInstances() {
+		final MatrixCache cache = new MatrixCache(16);
+		Assert.assertTrue(Double.isNaN(cache.getHitRate()));
+
+		final Mat4 first = cache.perspective(45f, 1f, 1f, 10f);
+		Assert.assertSame(first, cache.perspective(45f, 1f, 1f, 10f));
+		Assert.assertNotSame(first, cache.perspective(45f, 1f, 1f, 11f));
+
+		// Keyed by bits, and by the method as well as the arguments.
+		final Mat4 positive = cache.lookAt(new Vec3(0f, 0f, 1f), Vec3.VEC3_ZERO, new Vec3(0f, 1f, 0f));
+		Assert.assertNotSame(positive, cache.lookAt(new Vec3(-0f, 0f, 1f), Vec3.VEC3_ZERO, new Vec3(0f, 1f, 0f)));
+		Assert.assertNotSame(cache.ortho(1f, 2f, 3f, 4f, 0f, 0f), cache.perspective(1f, 2f, 3f, 4f));
+	}
+
+	@Test
+	public void testCapacity() {
+		Assert.assertEquals(MatrixCache.WAYS, new MatrixCache(1).getCapacity());
+		Assert.assertEquals(64, new MatrixCache(33).getCapacity());
+
+		final MatrixCache cache = new MatrixCache(32);
+		for (int i = 0; i < 1000; i++) {
+			cache.perspective(i, 1f, 1f, 10f);
+		}
+		Assert.assertTrue(cache.getSize() <= 32);
+		Assert.assertEquals(1000, cache.getMisses());
+
+		cache.clear();
+		Assert.assertEquals(0, cache.getSize());
+		Assert.assertEquals(1000, cache.getMisses());
+	}
+
+	@Test
+	public void testEvictsLeastRecentlyUsed() {
+		// A single set.
+		final MatrixCache cache = new MatrixCache(MatrixCache.WAYS);
+		final Mat4[] matrices = new Mat4[MatrixCache.WAYS];
+		for (int i = 0; i < matrices.length; i++) {
+			matrices[i] = cache.perspective(10f + i, 1f, 1f, 10f);
+		}
+
+		// Use all but the second, then add one more.
+		for (int i = 0; i < matrices.length; i++) {
+			if (i != 1) {
+				Assert.assertSame(matrices[i], cache.perspective(10f + i, 1f, 1f, 10f));
+			}
+		}
+		cache.perspective(99f, 1f, 1f, 10f);
+
+		for (int i = 0; i < matrices.length; i++) {
+			if (i != 1) {
+				Assert.assertSame(matrices[i], cache.perspective(10f + i, 1f, 1f, 10f));
+			}
+		}
+		Assert.assertNotSame(matrices[1], cache.perspective(11f, 1f, 1f, 10f));
+	}
+
+	@Test
+	public void testConcurrentLookups() throws Exception {
+		final MatrixCache cache = new MatrixCache(8);
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		final List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+
+		try {
+			for (int t = 0; t < 4; t++) {
+				final int seed = t;
+				results.add(executor.submit(new Callable<Integer>() {
+					@Override
+					public Integer call() {
+						int wrong = 0;
+						// More keys than entries, so entries are replaced while others read them.
+						for (int i = 0; i < 20000; i++) {
+							final float fovy = 30f + (i * 7 + seed) % 20;
+							wrong += cache.perspective(fovy, 1.25f, 0.1f, 50f)
+									.equals(Matrices.perspective(fovy, 1.25f, 0.1f, 50f)) ? 0 : 1;
+						}
+						return wrong;
+					}
+				}));
+			}
+
+			for (final Future<Integer> result : results) {
+				Assert.assertEquals(0, result.get().intValue());
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		Assert.assertEquals(80000, cache.getHits() + cache.getMisses());
+	}
+}
@@ -0,0 +1,170 @@
+package com.hackoeur.jglm;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PlaneTest {
+	@Test
+	public void testFromPoints() {
+		final Plane plane = Plane.fromPoints(new Vec3(0f, 2f, 0f), new Vec3(1f, 2f, 0f), new Vec3(0f, 2f, -1f));
+		
+		Assert.assertTrue(plane.getNormal().equalsWithEpsilon(new Vec3(0f, 1f, 0f)));
+		JglmTesting.assertFloatsEqualDefaultTol(-2f, plane.getD());
+		JglmTesting.assertFloatsEqualDefaultTol(3f, plane.signedDistance(new Vec3(7f, 5f, 9f)));
+		JglmTesting.assertFloatsEqualDefaultTol(-2f, plane.signedDistance(new Vec3(0f, 0f, 0f)));
+	}
+	
+	@Test
+	public void testFromPointNormalNormalizes() {
+		final Plane plane = Plane.fromPointNormal(new Vec3(1f, 0f, 0f), new Vec3(10f, 0f, 0f));
+		
+		Assert.assertTrue(plane.equalsWithEpsilon(new Plane(1f, 0f, 0f, -1f), 1e-6f));
+		Assert.assertTrue(new Plane(0f, 0f, 4f, 8f).getNormalized().equalsWithEpsilon(new Plane(0f, 0f, 1f, 2f), 1e-6f));
+	}
+	
+	@Test
+	public void testFromPointsRejectsCollinearPoints() {
+		try {
+			Plane.fromPoints(new Vec3(0f, 0f, 0f), new Vec3(1f, 1f, 1f), new Vec3(2f, 2f, 2f));
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+			// Expected.
+		}
+		try {
+			Plane.fromPoints(new Vec3(1f, 2f, 3f), new Vec3(1f, 2f, 3f), new Vec3(4f, 5f, 7f));
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+			// Expected.
+		}
+	}
+	
+	@Test
+	public void testFromPointNormalRejectsZeroNormal() {
+		try {
+			Plane.fromPointNormal(new Vec3(1f, 0f, 0f), Vec3.VEC3_ZERO);
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+			// Expected.
+		}
+		try {
+			// Non-zero, but the squared length underflows.
+			Plane.fromPointNormal(new Vec3(1f, 0f, 0f), new Vec3(1e-30f, 0f, 0f));
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+			// Expected.
+		}
+	}
+	
+	@Test
+	public void testClassifyAndProject() {
+		final Plane plane = new Plane(new Vec3(0f, 0f, 1f), -1f);
+		
+		Assert.assertEquals(Plane.IN_FRONT, plane.classify(new Vec3(0f, 0f, 2f), 1e-4f));
+		Assert.assertEquals(Plane.BEHIND, plane.classify(new Vec3(0f, 0f, 0f), 1e-4f));
+		Assert.assertEquals(Plane.ON_PLANE, plane.classify(new Vec3(5f, 5f, 1f), 1e-4f));
+		Assert.assertTrue(plane.project(new Vec3(3f, 4f, 7f)).equalsWithEpsilon(new Vec3(3f, 4f, 1f)));
+		Assert.assertEquals(Plane.BEHIND, plane.getFlipped().classify(new Vec3(0f, 0f, 2f), 1e-4f));
+	}
+	
+	@Test
+	public void testBulkMatchesScalar() {
+		final int count = 1000;
+		final float[] xs = new float[count], ys = new float[count], zs = new float[count];
+		final Random random = new Random(28);
+		for (int i = 0; i < count; i++) {
+			xs[i] = random.nextFloat() * 20f - 10f;
+			ys[i] = random.nextFloat() * 20f - 10f;
+			zs[i] = random.nextFloat() * 20f - 10f;
+		}
+		
+		final Plane plane = Plane.fromPointNormal(new Vec3(1f, 2f, 3f), new Vec3(1f, -1f, 0.5f));
+		final float[] dist = new float[count];
+		final int[] classes = new int[count];
+		plane.signedDistances(xs, ys, zs, dist, count);
+		final int notBehind = plane.classify(xs, ys, zs, classes, count, 0.5f);
+		
+		int expectedNotBehind = 0;
+		for (int i = 0; i < count; i++) {
+			final Vec3 p = new Vec3(xs[i], ys[i], zs[i]);
+			Assert.assertEquals(plane.signedDistance(p), dist[i], 0f);
+			Assert.assertEquals(plane.classify(p, 0.5f), classes[i]);
+			expectedNotBehind += classes[i] != Plane.BEHIND ? 1 : 0;
+		}
+		Assert.assertEquals(expectedNotBehind, notBehind);
+	}
+	
+	@Test
+	public void testBulkAgainstPlaneSet() {
+		// The unit cube as six inward-facing planes.
+		final Plane[] planes = new Plane[] {
+				new Plane(1f, 0f, 0f, 0f), new Plane(-1f, 0f, 0f, 1f),
+				new Plane(0f, 1f, 0f, 0f), new Plane(0f, -1f, 0f, 1f),
+				new Plane(0f, 0f, 1f, 0f), new Plane(0f, 0f, -1f, 1f)
+		};
+		final float[] xs = { 0.5f, 2f, 0.5f, -1f };
+		final float[] ys = { 0.5f, 0.5f, 0.9f, -1f };
+		final float[] zs = { 0.5f, 0.5f, 0.5f, 0.5f };
+		final int[] masks = new int[4];
+		final float[] dist = new float[4];
+		
+		Assert.assertEquals(2, Plane.classify(planes, xs, ys, zs, masks, 4));
+		Assert.assertArrayEquals(new int[] { 0, 1 << 1, 0, (1 << 0) | (1 << 2) }, masks);
+		
+		Plane.minSignedDistances(planes, xs, ys, zs, dist, 4);
+		Assert.assertArrayEquals(new float[] { 0.5f, -1f, 0.1f, -1f }, dist, 1e-6f);
+	}
+	
+	@Test
+	public void testFrustumBulkContains() {
+		final Mat4 projection = Matrices.perspective(90f, 1f, 1f, 100f);
+		final Mat4 view = Matrices.lookAt(new Vec3(0f, 0f, 0f), new Vec3(0f, 0f, -1f), new Vec3(0f, 1f, 0f));
+		final Frustum frustum = new Frustum(projection.multiply(view));
+		
+		final float[] xs = { 0f, 4f, 0f, 6f };
+		final float[] ys = { 0f, -4f, 0f, 0f };
+		final float[] zs = { -5f, -5f, 5f, -5f };
+		final int[] masks = new int[4];
+		
+		Assert.assertEquals(2, frustum.contains(xs, ys, zs, masks, 4));
+		for (int i = 0; i < 4; i++) {
+			Assert.assertEquals(frustum.contains(new Vec3(xs[i], ys[i], zs[i])), masks[i] == 0);
+		}
+		Assert.assertTrue(frustum.intersects(new Sphere(6f, 0f, -5f, 1.5f)));
+		Assert.assertFalse(frustum.intersects(new Sphere(0f, 0f, 5f, 1f)));
+	}
+	
+	@Test
+	public void testSphere() {
+		final Sphere sphere = new Sphere(new Vec3(1f, 1f, 1f), 2f);
+		
+		Assert.assertTrue(sphere.contains(new Vec3(2f, 2f, 2f)));
+		Assert.assertFalse(sphere.contains(new Vec3(3f, 3f, 3f)));
+		JglmTesting.assertFloatsEqualDefaultTol(1f, sphere.signedDistance(new Vec3(4f, 1f, 1f)));
+		Assert.assertTrue(sphere.intersects(new Sphere(4.5f, 1f, 1f, 1.5f)));
+		Assert.assertFalse(sphere.intersects(new Sphere(4.5f, 1f, 1f, 1f)));
+		Assert.assertTrue(sphere.intersects(new AABB(2.5f, 0f, 0f, 4f, 2f, 2f)));
+		Assert.assertFalse(sphere.intersects(new AABB(3f, 3f, 3f, 4f, 4f, 4f)));
+		Assert.assertEquals(new AABB(-1f, -1f, -1f, 3f, 3f, 3f), sphere.getBounds());
+		
+		final float[] out = new float[2];
+		sphere.signedDistances(new float[] { 1f, 1f }, new float[] { 1f, 5f }, new float[] { 1f, 1f }, out, 2);
+		Assert.assertArrayEquals(new float[] { -2f, 2f }, out, 1e-6f);
+		
+		final Random random = new Random(3);
+		final float[] xs = new float[100];
+		final float[] ys = new float[xs.length];
+		final float[] zs = new float[xs.length];
+		final float[] dist = new float[xs.length];
+		for (int i = 0; i < xs.length; i++) {
+			xs[i] = random.nextFloat() * 20f - 10f;
+			ys[i] = random.nextFloat() * 20f - 10f;
+			zs[i] = random.nextFloat() * 20f - 10f;
+		}
+		sphere.signedDistances(xs, ys, zs, dist, xs.length);
+		for (int i = 0; i < xs.length; i++) {
+			Assert.assertEquals(sphere.signedDistance(new Vec3(xs[i], ys[i], zs[i])), dist[i], 0f);
+		}
+	}
+}
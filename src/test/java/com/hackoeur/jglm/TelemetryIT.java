@@ -0,0 +1,120 @@
+package com.hackoeur.jglm;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.hackoeur.jglm.AllocationBudgets.Operation;
+import com.hackoeur.jglm.buffer.BufferAllocatorFactory;
+import com.hackoeur.jglm.support.Telemetry;
+
+/**
+ * Checks that instrumented calls cost nothing unless telemetry is turned on,
+ * with the Flight Recorder classes of the multi-release jar.  Run by
+ * failsafe against the packaged jar; see the java9 profile.
+ */
+public class TelemetryIT {
+	private static final int CALLS = 10;
+
+	/**
+	 * With {@code jglm.jfr} set, checks the cost of an instrumented call
+	 * without a recording, then returns the number of culling events a
+	 * recording gets from {@link #CALLS} calls.  Runs in its own class loader,
+	 * as telemetry is configured once per loader.
+	 */
+	public static class RecordingWorkload implements Callable<Integer> {
+		@Override
+		public Integer call() throws Exception {
+			Assert.assertTrue(Telemetry.isRecordingEvents());
+			Assert.assertEquals("TelemetryBufferAllocator", BufferAllocatorFactory.getInstance().getClass().getSimpleName());
+			verifyContainsAllocatesNothing();
+
+			final Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+			final Object recording = recordingClass.newInstance();
+			final Object settings = recordingClass.getMethod("enable", String.class).invoke(recording, "com.hackoeur.jglm.Culling");
+			Class.forName("jdk.jfr.EventSettings").getMethod("withoutThreshold").invoke(settings);
+
+			final File file = File.createTempFile("jglm", ".jfr");
+			try {
+				recordingClass.getMethod("start").invoke(recording);
+				final float[] coordinates = new float[1];
+				final int[] masks = new int[1];
+				final Frustum frustum = new Frustum(Matrices.perspective(60f, 1.5f, 0.1f, 100f));
+				for (int i = 0; i < CALLS; i++) {
+					frustum.contains(coordinates, coordinates, coordinates, masks, 1);
+				}
+				recordingClass.getMethod("stop").invoke(recording);
+
+				final Class<?> pathClass = Class.forName("java.nio.file.Path");
+				final Object path = File.class.getMethod("toPath").invoke(file);
+				recordingClass.getMethod("dump", pathClass).invoke(recording, path);
+				recordingClass.getMethod("close").invoke(recording);
+
+				final List<?> events = (List<?>) Class.forName("jdk.jfr.consumer.RecordingFile")
+						.getMethod("readAllEvents", pathClass).invoke(null, path);
+				final Method getEventType = Class.forName("jdk.jfr.consumer.RecordedEvent").getMethod("getEventType");
+				final Method getName = Class.forName("jdk.jfr.EventType").getMethod("getName");
+
+				int culling = 0;
+				for (final Object event : events) {
+					culling += "com.hackoeur.jglm.Culling".equals(getName.invoke(getEventType.invoke(event))) ? 1 : 0;
+				}
+				return culling;
+			} finally {
+				file.delete();
+			}
+		}
+	}
+
+	@Test
+	public void testOffByDefault() {
+		Assert.assertFalse(Telemetry.isEnabled());
+		Assert.assertFalse(Telemetry.isRecordingEvents());
+		Assert.assertEquals("DefaultBufferAllocator", BufferAllocatorFactory.getInstance().getClass().getSimpleName());
+		verifyContainsAllocatesNothing();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testEventsOnlyWhileRecording() throws Exception {
+		Assume.assumeTrue(Integer.parseInt(System.getProperty("java.specification.version").replaceFirst("^1\\.", "").split("\\.")[0]) >= 11);
+
+		final URL[] classpath = {
+				Telemetry.class.getProtectionDomain().getCodeSource().getLocation(),
+				TelemetryIT.class.getProtectionDomain().getCodeSource().getLocation(),
+				Assert.class.getProtectionDomain().getCodeSource().getLocation()
+		};
+
+		final int events;
+		System.setProperty("jglm.jfr", "true");
+		try {
+			// The system loader's parent sees the JDK's modules but not the classpath.
+			final ClassLoader loader = new URLClassLoader(classpath, ClassLoader.getSystemClassLoader().getParent());
+			events = ((Callable<Integer>) Class.forName(RecordingWorkload.class.getName(), true, loader).newInstance()).call();
+		} finally {
+			System.clearProperty("jglm.jfr");
+		}
+
+		Assert.assertEquals(CALLS, events);
+	}
+
+	private static void verifyContainsAllocatesNothing() {
+		if (!AllocationBudgets.isSupported()) {
+			return;
+		}
+
+		final float[] coordinates = new float[16];
+		final int[] masks = new int[16];
+		final Frustum frustum = new Frustum(Matrices.perspective(60f, 1.5f, 0.1f, 100f));
+		new AllocationBudgets()
+			.budget("Frustum.contains", 0, new Operation() { void run() { intResult = frustum.contains(coordinates, coordinates, coordinates, masks, 16); } })
+			.verify();
+	}
+}
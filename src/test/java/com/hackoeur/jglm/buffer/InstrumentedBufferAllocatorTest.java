@@ -0,0 +1,137 @@
+package com.hackoeur.jglm.buffer;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class InstrumentedBufferAllocatorTest {
+	/** Direct byte buffers, heap float buffers and a pool that hits every other time. */
+	private static class TestAllocator implements PooledBufferAllocator {
+		private long lookups;
+
+		@Override
+		public ByteBuffer allocateByteBuffer(final int sizeInBytes) {
+			lookups++;
+			return ByteBuffer.allocateDirect(sizeInBytes);
+		}
+
+		@Override
+		public FloatBuffer allocateFloatBuffer(final int sizeInFloats) {
+			lookups++;
+			return FloatBuffer.allocate(sizeInFloats);
+		}
+
+		@Override
+		public long getPoolHits() {
+			return lookups / 2;
+		}
+
+		@Override
+		public long getPoolMisses() {
+			return lookups - lookups / 2;
+		}
+	}
+
+	@Test
+	public void testCounts() {
+		final InstrumentedBufferAllocator allocator = new InstrumentedBufferAllocator(new TestAllocator());
+		Assert.assertTrue(Double.isNaN(allocator.getPoolHitRate()));
+
+		final ByteBuffer bytes = allocator.allocateByteBuffer(100);
+		final FloatBuffer floats = allocator.allocateFloatBuffer(16);
+		Assert.assertEquals(100, bytes.capacity());
+		Assert.assertEquals(16, floats.capacity());
+
+		Assert.assertEquals(TestAllocator.class.getName(), allocator.getAllocatorClass());
+		Assert.assertEquals(2, allocator.getBuffersAllocated());
+		Assert.assertEquals(164, allocator.getBytesAllocated());
+		Assert.assertEquals(1, allocator.getDirectBuffersAllocated());
+		Assert.assertEquals(1, allocator.getLiveDirectBuffers());
+		Assert.assertEquals(100, allocator.getLiveDirectBytes());
+		Assert.assertEquals(100, allocator.getLargestAllocation());
+		Assert.assertEquals(1, allocator.getPoolHits());
+		Assert.assertEquals(1, allocator.getPoolMisses());
+		Assert.assertEquals(0.5, allocator.getPoolHitRate(), 0.0);
+
+		allocator.allocateByteBuffer(10);
+		allocator.resetPeaks();
+		Assert.assertEquals(0, allocator.getLargestAllocation());
+		Assert.assertTrue(allocator.getPeakLiveDirectBuffers() >= 1);
+	}
+
+	@Test
+	public void testLiveDirectBuffersDropAfterCollection() throws InterruptedException {
+		final InstrumentedBufferAllocator allocator = new InstrumentedBufferAllocator(new TestAllocator());
+		List<ByteBuffer> buffers = new ArrayList<ByteBuffer>();
+		for (int i = 0; i < 10; i++) {
+			buffers.add(allocator.allocateByteBuffer(64));
+		}
+		Assert.assertEquals(10, allocator.getLiveDirectBuffers());
+		Assert.assertEquals(640, allocator.getLiveDirectBytes());
+
+		buffers = null;
+		for (int attempt = 0; attempt < 50 && allocator.getLiveDirectBuffers() > 0; attempt++) {
+			System.gc();
+			Thread.sleep(20);
+		}
+
+		Assert.assertEquals(0, allocator.getLiveDirectBuffers());
+		Assert.assertEquals(0, allocator.getLiveDirectBytes());
+		Assert.assertEquals(10, allocator.getPeakLiveDirectBuffers());
+		Assert.assertEquals(640, allocator.getPeakLiveDirectBytes());
+
+		allocator.resetPeaks();
+		Assert.assertEquals(0, allocator.getPeakLiveDirectBuffers());
+		Assert.assertEquals(0, allocator.getPeakLiveDirectBytes());
+	}
+
+	@Test
+	public void testPoolHitsCountedOnce() {
+		final ByteBuffer pooled = ByteBuffer.allocateDirect(32);
+		final InstrumentedBufferAllocator allocator = new InstrumentedBufferAllocator(new TestAllocator() {
+			@Override
+			public ByteBuffer allocateByteBuffer(final int sizeInBytes) {
+				super.allocateByteBuffer(sizeInBytes);
+				return pooled;
+			}
+		});
+
+		Assert.assertSame(pooled, allocator.allocateByteBuffer(32));
+		Assert.assertSame(pooled, allocator.allocateByteBuffer(32));
+
+		Assert.assertEquals(2, allocator.getBuffersAllocated());
+		Assert.assertEquals(2, allocator.getDirectBuffersAllocated());
+		Assert.assertEquals(1, allocator.getLiveDirectBuffers());
+		Assert.assertEquals(32, allocator.getLiveDirectBytes());
+		Assert.assertEquals(1, allocator.getPeakLiveDirectBuffers());
+		Assert.assertEquals(32, allocator.getPeakLiveDirectBytes());
+	}
+
+	@Test
+	public void testMBean() throws Exception {
+		final InstrumentedBufferAllocator allocator = new InstrumentedBufferAllocator(new TestAllocator());
+		final MBeanServer server = MBeanServerFactory.newMBeanServer();
+		allocator.register(server, InstrumentedBufferAllocator.OBJECT_NAME);
+		allocator.allocateFloatBuffer(4);
+
+		final ObjectName name = new ObjectName(InstrumentedBufferAllocator.OBJECT_NAME);
+		Assert.assertEquals(1L, server.getAttribute(name, "BuffersAllocated"));
+		Assert.assertEquals(16L, server.getAttribute(name, "LargestAllocation"));
+		server.invoke(name, "resetPeaks", null, null);
+		Assert.assertEquals(0L, server.getAttribute(name, "LargestAllocation"));
+	}
+
+	@Test
+	public void testFactoryWithoutMetrics() {
+		Assert.assertNull(BufferAllocatorFactory.getMetrics());
+		Assert.assertFalse(BufferAllocatorFactory.getInstance() instanceof InstrumentedBufferAllocator);
+	}
+}
@@ -0,0 +1,221 @@
+package com.hackoeur.jglm.collision;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.hackoeur.jglm.AABB;
+import com.hackoeur.jglm.Mat3;
+import com.hackoeur.jglm.Sphere;
+import com.hackoeur.jglm.Vec3;
+
+public class GjkTest {
+	private static final float TOL = 1e-4f;
+	
+	@Test
+	public void testSphereDistance() {
+		final ConvexShape a = new SphereShape(new Vec3(0f, 0f, 0f), 1f);
+		final ConvexShape b = new SphereShape(new Vec3(5f, 0f, 0f), 1f);
+		final float[] pa = new float[3], pb = new float[3];
+		
+		Assert.assertEquals(3f, Gjk.distance(a, b, pa, pb), 1e-3f);
+		Assert.assertArrayEquals(new float[] { 1f, 0f, 0f }, pa, 1e-2f);
+		Assert.assertArrayEquals(new float[] { 4f, 0f, 0f }, pb, 1e-2f);
+		Assert.assertFalse(Gjk.intersects(a, b));
+	}
+	
+	@Test
+	public void testBoxDistance() {
+		final ConvexShape a = new BoxShape(new Vec3(0f, 0f, 0f), new Vec3(1f, 1f, 1f));
+		final ConvexShape b = new BoxShape(new Vec3(4f, 3f, 0f), new Vec3(1f, 1f, 1f));
+		final float[] pa = new float[3], pb = new float[3];
+		
+		// Corner-to-corner in x/y: (1, 1) to (3, 2).
+		Assert.assertEquals((float) Math.sqrt(5.0), Gjk.distance(a, b, pa, pb), TOL);
+		Assert.assertEquals(1f, pa[0], TOL);
+		Assert.assertEquals(1f, pa[1], TOL);
+		Assert.assertEquals(3f, pb[0], TOL);
+		Assert.assertEquals(2f, pb[1], TOL);
+	}
+	
+	@Test
+	public void testRotatedBoxAndCapsule() {
+		final float c = (float) Math.cos(Math.PI / 4.0), s = (float) Math.sin(Math.PI / 4.0);
+		final Mat3 rotation = new Mat3(new Vec3(c, s, 0f), new Vec3(-s, c, 0f), new Vec3(0f, 0f, 1f));
+		final ConvexShape box = new BoxShape(new Vec3(0f, 0f, 0f), new Vec3(1f, 1f, 1f), rotation);
+		final ConvexShape sphere = new SphereShape(new Vec3(2f, 0f, 0f), 0.5f);
+		Assert.assertEquals(1.5f - (float) Math.sqrt(2.0), Gjk.distance(box, sphere, null, null), 1e-3f);
+		
+		final ConvexShape capsule = new CapsuleShape(new Vec3(0f, 0f, 0f), new Vec3(0f, 4f, 0f), 0.5f);
+		final ConvexShape other = new SphereShape(new Vec3(3f, 2f, 0f), 1f);
+		Assert.assertEquals(1.5f, Gjk.distance(capsule, other, null, null), 1e-3f);
+	}
+	
+	@Test
+	public void testHullAgainstBox() {
+		final Vec3[] cube = new Vec3[8];
+		for (int i = 0; i < 8; i++) {
+			cube[i] = new Vec3((i & 1) == 0 ? -1f : 1f, (i & 2) == 0 ? -1f : 1f, (i & 4) == 0 ? -1f : 1f);
+		}
+		final ConvexShape hull = new HullShape(new QuickHull().build(cube));
+		final ConvexShape box = new BoxShape(new Vec3(3.5f, 0f, 0f), new Vec3(1f, 1f, 1f));
+		
+		Assert.assertEquals(1.5f, Gjk.distance(hull, box, null, null), TOL);
+		
+		final ConvexShape overlapping = new BoxShape(new Vec3(1.75f, 0.2f, 0f), new Vec3(1f, 1f, 1f));
+		final float[] vector = new float[3];
+		Assert.assertTrue(Gjk.intersects(hull, overlapping));
+		Assert.assertEquals(0.25f, Epa.penetration(hull, overlapping, vector), TOL);
+		Assert.assertArrayEquals(new float[] { 0.25f, 0f, 0f }, vector, TOL);
+	}
+	
+	@Test
+	public void testPenetration() {
+		final ConvexShape a = new BoxShape(new Vec3(0f, 0f, 0f), new Vec3(1f, 1f, 1f));
+		final ConvexShape b = new BoxShape(new Vec3(0.2f, -1.7f, 0.1f), new Vec3(1f, 1f, 1f));
+		final float[] vector = new float[3];
+		
+		Assert.assertEquals(0.3f, Epa.penetration(a, b, vector), TOL);
+		Assert.assertArrayEquals(new float[] { 0f, -0.3f, 0f }, vector, TOL);
+		
+		final ConvexShape s0 = new SphereShape(new Vec3(0f, 0f, 0f), 1f);
+		final ConvexShape s1 = new SphereShape(new Vec3(0f, 0f, 1.5f), 1f);
+		Assert.assertEquals(0.5f, Epa.penetration(s0, s1, vector), 1e-2f);
+		Assert.assertEquals(0f, vector[0], 1e-2f);
+		Assert.assertEquals(0f, vector[1], 1e-2f);
+		Assert.assertEquals(0.5f, vector[2], 1e-2f);
+		
+		// Separated shapes have no penetration.
+		Assert.assertEquals(0f, Epa.penetration(s0, new SphereShape(new Vec3(3f, 0f, 0f), 1f), vector), 0f);
+		Assert.assertArrayEquals(new float[] { 0f, 0f, 0f }, vector, 0f);
+	}
+	
+	@Test
+	public void testPenetrationOfRandomBoxes() {
+		final Random random = new Random(31);
+		final float[] vector = new float[3];
+		
+		for (int i = 0; i < 1000; i++) {
+			final Vec3 half = new Vec3(random.nextFloat() + 0.5f, random.nextFloat() + 0.5f, random.nextFloat() + 0.5f);
+			final Vec3 center = new Vec3(random.nextFloat() * 2f - 1f, random.nextFloat() * 2f - 1f, random.nextFloat() * 2f - 1f);
+			final ConvexShape a = new BoxShape(new Vec3(0f, 0f, 0f), new Vec3(1f, 1f, 1f));
+			final ConvexShape b = new BoxShape(center, half);
+			
+			final float ox = 1f + half.getX() - Math.abs(center.getX());
+			final float oy = 1f + half.getY() - Math.abs(center.getY());
+			final float oz = 1f + half.getZ() - Math.abs(center.getZ());
+			final float expected = Math.min(ox, Math.min(oy, oz));
+			
+			final float depth = Epa.penetration(a, b, vector);
+			Assert.assertEquals(expected, depth, 1e-3f);
+			Assert.assertEquals(depth, (float) Math.sqrt(vector[0] * vector[0] + vector[1] * vector[1] + vector[2] * vector[2]), 1e-4f);
+			
+			// Moving b by the vector (and a little more) separates the shapes.
+			final float scale = 1f + 1e-3f / depth;
+			final ConvexShape moved = new BoxShape(center.add(new Vec3(vector[0] * scale, vector[1] * scale, vector[2] * scale)), half);
+			Assert.assertFalse(Gjk.intersects(a, moved));
+		}
+	}
+	
+	@Test
+	public void testAgainstAnalyticSphereBox() {
+		final Random random = new Random(30);
+		final GjkCache cache = new GjkCache();
+		
+		for (int i = 0; i < 2000; i++) {
+			final Vec3 center = new Vec3(random.nextFloat() * 6f - 3f, random.nextFloat() * 6f - 3f, random.nextFloat() * 6f - 3f);
+			final Vec3 half = new Vec3(random.nextFloat() + 0.1f, random.nextFloat() + 0.1f, random.nextFloat() + 0.1f);
+			final float radius = random.nextFloat() + 0.1f;
+			
+			final Sphere sphere = new Sphere(center, radius);
+			final AABB box = new AABB(half.getNegated(), half);
+			final ConvexShape sphereShape = new SphereShape(center, radius);
+			final ConvexShape boxShape = new BoxShape(new Vec3(0f, 0f, 0f), half);
+			
+			final float dx = Math.max(Math.abs(center.getX()) - half.getX(), 0f);
+			final float dy = Math.max(Math.abs(center.getY()) - half.getY(), 0f);
+			final float dz = Math.max(Math.abs(center.getZ()) - half.getZ(), 0f);
+			final float expected = (float) Math.sqrt(dx * dx + dy * dy + dz * dz) - radius;
+			
+			if (Math.abs(expected) < 1e-3f) {
+				continue;
+			}
+			
+			Assert.assertEquals(sphere.intersects(box), Gjk.intersects(boxShape, sphereShape));
+			Assert.assertEquals(sphere.intersects(box), Gjk.intersects(boxShape, sphereShape, cache));
+			Assert.assertEquals(Math.max(expected, 0f), Gjk.distance(boxShape, sphereShape, null, null), 1e-3f);
+		}
+	}
+	
+	/** Counts support queries, to measure the effect of a {@link GjkCache}. */
+	private static final class CountingShape implements ConvexShape {
+		private final ConvexShape shape;
+		int calls;
+		
+		CountingShape(final ConvexShape shape) {
+			this.shape = shape;
+		}
+		
+		@Override
+		public void support(final float dx, final float dy, final float dz, final float[] out) {
+			calls++;
+			shape.support(dx, dy, dz, out);
+		}
+	}
+	
+	@Test
+	public void testWarmStartedDistance() {
+		final CountingShape a = new CountingShape(new BoxShape(new Vec3(0f, 0f, 0f), new Vec3(1f, 1f, 1f)));
+		final GjkCache cache = new GjkCache();
+		int cold = 0, warm = 0;
+		
+		for (int frame = 0; frame < 50; frame++) {
+			final ConvexShape b = new SphereShape(new Vec3(2.5f - frame * 0.005f, 1.2f + frame * 0.01f, 0.3f), 1f);
+			
+			a.calls = 0;
+			final float distance = Gjk.distance(a, b, null, null);
+			cold += a.calls;
+			
+			a.calls = 0;
+			Assert.assertEquals(distance, Gjk.distance(a, b, null, null, cache), 1e-5f);
+			warm += a.calls;
+		}
+		
+		// The rebuilt simplex starts next to the closest points.
+		Assert.assertTrue("cold " + cold + ", warm " + warm, warm < cold);
+	}
+	
+	@Test
+	public void testWarmStartWhileOverlapping() {
+		final ConvexShape a = new BoxShape(new Vec3(0f, 0f, 0f), new Vec3(1f, 1f, 1f));
+		final GjkCache intersectsCache = new GjkCache(), penetrationCache = new GjkCache();
+		final float[] vector = new float[3], cachedVector = new float[3];
+		
+		for (int frame = 0; frame < 50; frame++) {
+			final ConvexShape b = new SphereShape(new Vec3(1.5f - frame * 0.02f, 0.3f, 0.2f), 1f);
+			
+			Assert.assertTrue(Gjk.intersects(a, b, intersectsCache));
+			Assert.assertEquals(Epa.penetration(a, b, vector), Epa.penetration(a, b, cachedVector, penetrationCache), 1e-3f);
+			Assert.assertArrayEquals(vector, cachedVector, 1e-3f);
+		}
+	}
+	
+	@Test
+	public void testWarmStart() {
+		final ConvexShape a = new BoxShape(new Vec3(0f, 0f, 0f), new Vec3(1f, 1f, 1f));
+		final GjkCache cache = new GjkCache();
+		Assert.assertFalse(cache.isValid());
+		
+		for (int frame = 0; frame < 100; frame++) {
+			final float x = 3f - frame * 0.02f;
+			final ConvexShape b = new SphereShape(new Vec3(x, 0.5f, 0f), 1f);
+			Assert.assertEquals(x <= 2f, Gjk.intersects(a, b, cache));
+			Assert.assertEquals(Math.max(x - 2f, 0f), Gjk.distance(a, b, null, null, cache), 1e-3f);
+			Assert.assertTrue(cache.isValid());
+		}
+		
+		cache.reset();
+		Assert.assertFalse(cache.isValid());
+	}
+}
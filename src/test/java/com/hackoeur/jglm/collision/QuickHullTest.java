@@ -0,0 +1,131 @@
+package com.hackoeur.jglm.collision;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.hackoeur.jglm.Vec3;
+
+public class QuickHullTest {
+	/**
+	 * Every directed edge must appear once, with its reverse in another triangle.
+	 */
+	private static void assertClosedManifold(final ConvexHull hull) {
+		final int[] indices = hull.getIndices();
+		final Set<Long> edges = new HashSet<Long>();
+		
+		for (int i = 0; i < indices.length; i += 3) {
+			for (int k = 0; k < 3; k++) {
+				final long from = indices[i + k];
+				final long to = indices[i + (k + 1) % 3];
+				Assert.assertTrue("Duplicate edge", edges.add((from << 32) | to));
+			}
+		}
+		
+		for (final Long edge : edges) {
+			final long from = edge >>> 32;
+			final long to = edge & 0xffffffffL;
+			Assert.assertTrue("Unpaired edge", edges.contains((to << 32) | from));
+		}
+		
+		// Euler's formula for a closed triangulated sphere.
+		Assert.assertEquals(2 * hull.getVertexCount() - 4, hull.getTriangleCount());
+	}
+	
+	@Test
+	public void testTetrahedron() {
+		final Vec3[] points = {
+				new Vec3(0f, 0f, 0f), new Vec3(1f, 0f, 0f), new Vec3(0f, 1f, 0f), new Vec3(0f, 0f, 1f),
+				new Vec3(0.1f, 0.1f, 0.1f)
+		};
+		final ConvexHull hull = new QuickHull().build(points);
+		
+		Assert.assertEquals(4, hull.getVertexCount());
+		Assert.assertEquals(4, hull.getTriangleCount());
+		assertClosedManifold(hull);
+		
+		// Normals point outwards.
+		for (int t = 0; t < hull.getTriangleCount(); t++) {
+			Assert.assertTrue(hull.getPlane(t).signedDistance(new Vec3(0.1f, 0.1f, 0.1f)) < 0f);
+		}
+	}
+	
+	@Test
+	public void testCubeWithCoplanarPoints() {
+		// A 5x5x5 lattice: most points lie on the faces or edges of the cube.
+		final Vec3[] points = new Vec3[125];
+		int n = 0;
+		for (int x = 0; x < 5; x++) {
+			for (int y = 0; y < 5; y++) {
+				for (int z = 0; z < 5; z++) {
+					points[n++] = new Vec3(x * 0.25f - 0.5f, y * 0.25f - 0.5f, z * 0.25f - 0.5f);
+				}
+			}
+		}
+		
+		final ConvexHull hull = new QuickHull().build(points);
+		
+		Assert.assertEquals(8, hull.getVertexCount());
+		Assert.assertEquals(12, hull.getTriangleCount());
+		assertClosedManifold(hull);
+		for (int i = 0; i < hull.getVertexCount(); i++) {
+			final Vec3 v = hull.getVertex(i);
+			Assert.assertEquals(0.5f, Math.abs(v.getX()), 0f);
+			Assert.assertEquals(0.5f, Math.abs(v.getY()), 0f);
+			Assert.assertEquals(0.5f, Math.abs(v.getZ()), 0f);
+			Assert.assertEquals(v, points[hull.getOriginalIndices()[i]]);
+		}
+	}
+	
+	@Test
+	public void testRandomPointsAreContained() {
+		final Random random = new Random(29);
+		final int count = 20000;
+		final float[] xs = new float[count], ys = new float[count], zs = new float[count];
+		for (int i = 0; i < count; i++) {
+			xs[i] = (float) random.nextGaussian() * 10f;
+			ys[i] = (float) random.nextGaussian() * 10f;
+			zs[i] = (float) random.nextGaussian() * 10f + 100f;
+		}
+		
+		final QuickHull builder = new QuickHull();
+		final ConvexHull hull = builder.build(xs, ys, zs, count);
+		assertClosedManifold(hull);
+		
+		final float tolerance = (float) builder.getEpsilon() * 4f;
+		for (int i = 0; i < count; i++) {
+			Assert.assertTrue(hull.contains(new Vec3(xs[i], ys[i], zs[i]), tolerance));
+		}
+	}
+	
+	@Test
+	public void testPointsOnSphere() {
+		final Random random = new Random(30);
+		final int count = 20000;
+		final float[] xs = new float[count], ys = new float[count], zs = new float[count];
+		for (int i = 0; i < count; i++) {
+			final Vec3 v = new Vec3((float) random.nextGaussian(), (float) random.nextGaussian(), (float) random.nextGaussian()).getUnitVector();
+			xs[i] = v.getX();
+			ys[i] = v.getY();
+			zs[i] = v.getZ();
+		}
+		
+		final QuickHull builder = new QuickHull();
+		// The second build reuses the pooled storage.
+		builder.build(xs, ys, zs, count);
+		final ConvexHull hull = builder.build(xs, ys, zs, count);
+		
+		assertClosedManifold(hull);
+		Assert.assertTrue(hull.getVertexCount() > count / 2);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testCoplanarInputIsRejected() {
+		new QuickHull().build(new Vec3[] {
+				new Vec3(0f, 0f, 0f), new Vec3(1f, 0f, 0f), new Vec3(0f, 1f, 0f), new Vec3(1f, 1f, 0f)
+		});
+	}
+}
@@ -0,0 +1,267 @@
+package com.hackoeur.jglm.compute;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.hackoeur.jglm.Mat4;
+import com.hackoeur.jglm.Plane;
+import com.hackoeur.jglm.Vec3;
+import com.hackoeur.jglm.Vec4;
+import com.hackoeur.jglm.support.PrecisionPolicy;
+
+public class ComputeBackendTest {
+	/** Normalizes zero vectors to NaNs, as a plain reciprocal square root does. */
+	private static class NaNForZeroBackend extends ScalarComputeBackend {
+		@Override
+		public void normalize(final float[] xs, final float[] ys, final float[] zs,
+				final float[] outXs, final float[] outYs, final float[] outZs, final int count) {
+			for (int i = 0; i < count; i++) {
+				final float invLength = (float) (1.0 / Math.sqrt(xs[i] * xs[i] + ys[i] * ys[i] + zs[i] * zs[i]));
+				outXs[i] = xs[i] * invLength;
+				outYs[i] = ys[i] * invLength;
+				outZs[i] = zs[i] * invLength;
+			}
+		}
+	}
+
+	private static class UnavailableBackend extends ScalarComputeBackend {
+		@Override
+		public boolean isAvailable() {
+			return false;
+		}
+	}
+
+	private static class ThrowingBackend extends ScalarComputeBackend {
+		@Override
+		public void multiply(final float[] left, final float[] right, final float[] out, final int count) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	private static final int COUNT = 100;
+
+	private final Random random = new Random(42);
+
+	@Test
+	public void testScalarMatchesObjects() {
+		final ComputeBackend backend = new ScalarComputeBackend();
+		final float[] xs = randomFloats(COUNT), ys = randomFloats(COUNT), zs = randomFloats(COUNT);
+		final float[] outXs = new float[COUNT], outYs = new float[COUNT], outZs = new float[COUNT];
+
+		final float[] matrix = randomFloats(16);
+		backend.transformPoints(matrix, xs, ys, zs, outXs, outYs, outZs, COUNT);
+		for (int i = 0; i < COUNT; i++) {
+			final Vec4 expected = new Mat4(matrix).multiply(new Vec4(xs[i], ys[i], zs[i], 1f));
+			Assert.assertEquals(expected.getX(), outXs[i], 0f);
+			Assert.assertEquals(expected.getY(), outYs[i], 0f);
+			Assert.assertEquals(expected.getZ(), outZs[i], 0f);
+		}
+
+		backend.normalize(xs, ys, zs, outXs, outYs, outZs, COUNT);
+		for (int i = 0; i < COUNT; i++) {
+			final Vec3 expected = new Vec3(xs[i], ys[i], zs[i]).getUnitVector(PrecisionPolicy.EXACT);
+			Assert.assertEquals(expected.getX(), outXs[i], 1e-6f);
+			Assert.assertEquals(expected.getY(), outYs[i], 1e-6f);
+			Assert.assertEquals(expected.getZ(), outZs[i], 1e-6f);
+		}
+
+		final float[] planes = randomFloats(12);
+		final Plane[] planeObjects = new Plane[3];
+		for (int p = 0; p < planeObjects.length; p++) {
+			planeObjects[p] = new Plane(planes[4 * p], planes[4 * p + 1], planes[4 * p + 2], planes[4 * p + 3]);
+		}
+		final int[] masks = new int[COUNT];
+		final float[] dist = new float[COUNT];
+		int inside = 0;
+		Assert.assertEquals(COUNT - countBehind(planeObjects[0], xs, ys, zs),
+				backend.classify(Arrays.copyOf(planes, 4), xs, ys, zs, masks, COUNT, 0.1f));
+		for (int i = 0; i < COUNT; i++) {
+			Assert.assertEquals(planeObjects[0].classify(new Vec3(xs[i], ys[i], zs[i]), 0.1f), masks[i]);
+		}
+		final int insideAll = backend.classify(planes, xs, ys, zs, masks, COUNT);
+		backend.signedDistances(planes, xs, ys, zs, dist, COUNT);
+		for (int i = 0; i < COUNT; i++) {
+			int expectedMask = 0;
+			float expectedDist = Float.POSITIVE_INFINITY;
+			for (int p = 0; p < planeObjects.length; p++) {
+				final float d = planeObjects[p].signedDistance(xs[i], ys[i], zs[i]);
+				expectedMask |= d < 0f ? 1 << p : 0;
+				expectedDist = Math.min(expectedDist, d);
+			}
+			Assert.assertEquals(expectedMask, masks[i]);
+			Assert.assertEquals(expectedDist, dist[i], 0f);
+			inside += expectedMask == 0 ? 1 : 0;
+		}
+		Assert.assertEquals(inside, insideAll);
+
+		final float[] left = randomFloats(16 * COUNT), right = randomFloats(16 * COUNT);
+		final float[] products = new float[16 * COUNT];
+		backend.multiply(left, right, products, COUNT);
+		for (int m = 0; m < COUNT; m++) {
+			final Mat4 expected = new Mat4(Arrays.copyOfRange(left, 16 * m, 16 * m + 16))
+					.multiply(new Mat4(Arrays.copyOfRange(right, 16 * m, 16 * m + 16)));
+			Assert.assertEquals(expected, new Mat4(Arrays.copyOfRange(products, 16 * m, 16 * m + 16)));
+		}
+	}
+
+	@Test
+	public void testZeroVectorNormalizesToZero() {
+		final float[] vector = { 0f };
+		new ScalarComputeBackend().normalize(vector, vector, vector, vector, vector, vector, 1);
+		Assert.assertEquals(0f, vector[0], 0f);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testClassifyRejectsTooManyPlanes() {
+		new ScalarComputeBackend().classify(new float[33 * 4], new float[1], new float[1], new float[1], new int[1], 1);
+	}
+
+	@Test
+	public void testParallelMatchesScalar() {
+		final ComputeBackend scalar = new ScalarComputeBackend();
+		final ComputeBackend parallel = new ParallelComputeBackend(4);
+		Assert.assertTrue(parallel.isAvailable());
+		Assert.assertFalse(new ParallelComputeBackend(1).isAvailable());
+
+		// Split four ways, with ranges of unequal lengths.
+		final int count = 4 * ParallelComputeBackend.MIN_POINTS_PER_THREAD + 3;
+		final float[] xs = randomFloats(count), ys = randomFloats(count), zs = randomFloats(count);
+		final float[][] expected = new float[3][count], actual = new float[3][count];
+
+		final float[] matrix = randomFloats(16);
+		scalar.transformPoints(matrix, xs, ys, zs, expected[0], expected[1], expected[2], count);
+		parallel.transformPoints(matrix, xs, ys, zs, actual[0], actual[1], actual[2], count);
+		assertArraysEqual(expected, actual);
+
+		scalar.normalize(xs, ys, zs, expected[0], expected[1], expected[2], count);
+		parallel.normalize(xs, ys, zs, actual[0], actual[1], actual[2], count);
+		assertArraysEqual(expected, actual);
+
+		final float[] planes = randomFloats(24);
+		final int[] expectedMasks = new int[count], masks = new int[count];
+		Assert.assertEquals(scalar.classify(planes, xs, ys, zs, expectedMasks, count),
+				parallel.classify(planes, xs, ys, zs, masks, count));
+		Assert.assertArrayEquals(expectedMasks, masks);
+		Assert.assertEquals(scalar.classify(planes, xs, ys, zs, expectedMasks, count, 0.1f),
+				parallel.classify(planes, xs, ys, zs, masks, count, 0.1f));
+		Assert.assertArrayEquals(expectedMasks, masks);
+
+		scalar.signedDistances(planes, xs, ys, zs, expected[0], count);
+		parallel.signedDistances(planes, xs, ys, zs, actual[0], count);
+		assertArraysEqual(expected, actual);
+
+		final int matrices = 4 * ParallelComputeBackend.MIN_MATRICES_PER_THREAD + 3;
+		final float[] left = randomFloats(16 * matrices), right = randomFloats(16 * matrices);
+		final float[][] expectedProducts = { new float[16 * matrices] }, products = { new float[16 * matrices] };
+		scalar.multiply(left, right, expectedProducts[0], matrices);
+		parallel.multiply(left, right, products[0], matrices);
+		assertArraysEqual(expectedProducts, products);
+	}
+
+	@Test
+	public void testSignedDistancesRejectsNoPlanes() {
+		try {
+			new ScalarComputeBackend().signedDistances(new float[0], new float[1], new float[1], new float[1], new float[1], 1);
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+			// Expected.
+		}
+		try {
+			new ParallelComputeBackend(2).signedDistances(new float[6], new float[1], new float[1], new float[1], new float[1], 1);
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+			// Expected.
+		}
+	}
+
+	@Test
+	public void testBulkMethodsRunOnSelectedBackend() {
+		final ComputeBackend backend = ComputeBackendFactory.getInstance();
+		final float[] xs = randomFloats(COUNT), ys = randomFloats(COUNT), zs = randomFloats(COUNT);
+		final float[][] expected = new float[3][COUNT], actual = new float[3][COUNT];
+
+		final float[] matrix = randomFloats(16);
+		backend.transformPoints(matrix, xs, ys, zs, expected[0], expected[1], expected[2], COUNT);
+		new Mat4(matrix).transformPoints(xs, ys, zs, actual[0], actual[1], actual[2], COUNT);
+		assertArraysEqual(expected, actual);
+
+		backend.normalize(xs, ys, zs, expected[0], expected[1], expected[2], COUNT);
+		Vec3.normalize(xs, ys, zs, actual[0], actual[1], actual[2], COUNT);
+		assertArraysEqual(expected, actual);
+
+		final float[] left = randomFloats(16 * COUNT), right = randomFloats(16 * COUNT);
+		final float[][] expectedProducts = { new float[16 * COUNT] }, products = { new float[16 * COUNT] };
+		backend.multiply(left, right, expectedProducts[0], COUNT);
+		Mat4.multiply(left, right, products[0], COUNT);
+		assertArraysEqual(expectedProducts, products);
+	}
+
+	@Test
+	public void testParallelRethrowsFailures() {
+		final ComputeBackend parallel = new ParallelComputeBackend(4);
+		final int count = 4 * ParallelComputeBackend.MIN_POINTS_PER_THREAD;
+		final float[] shortArray = new float[count / 2];
+
+		try {
+			// The last ranges run past the end of the short array.
+			parallel.normalize(new float[count], new float[count], new float[count], shortArray, shortArray, shortArray, count);
+			Assert.fail();
+		} catch (ArrayIndexOutOfBoundsException e) {
+			// Expected.
+		}
+	}
+
+	@Test
+	public void testSelfTest() {
+		Assert.assertTrue(ComputeBackendFactory.selfTest(new ScalarComputeBackend()));
+		Assert.assertTrue(ComputeBackendFactory.selfTest(new ParallelComputeBackend(3)));
+		Assert.assertFalse(ComputeBackendFactory.selfTest(new NaNForZeroBackend()));
+		Assert.assertFalse(ComputeBackendFactory.selfTest(new ThrowingBackend()));
+	}
+
+	@Test
+	public void testSelect() {
+		final Iterable<ComputeBackend> none = Collections.emptyList();
+		Assert.assertSame(ScalarComputeBackend.class, ComputeBackendFactory.getInstance().getClass());
+		Assert.assertSame(ScalarComputeBackend.class, ComputeBackendFactory.select(null, none).getClass());
+
+		final ComputeBackend parallel = new ParallelComputeBackend(2);
+		Assert.assertSame(parallel, ComputeBackendFactory.select(parallel, none));
+
+		// The configured backend comes first, if usable.
+		final ComputeBackend discovered = new ParallelComputeBackend(3);
+		Assert.assertSame(parallel, ComputeBackendFactory.select(parallel, Collections.singletonList(discovered)));
+		Assert.assertSame(discovered, ComputeBackendFactory.select(new UnavailableBackend(),
+				Collections.singletonList(discovered)));
+		Assert.assertSame(discovered, ComputeBackendFactory.select(new NaNForZeroBackend(),
+				Arrays.<ComputeBackend> asList(new ThrowingBackend(), discovered)));
+		Assert.assertSame(ScalarComputeBackend.class, ComputeBackendFactory.select(new UnavailableBackend(),
+				Collections.<ComputeBackend> singletonList(new NaNForZeroBackend())).getClass());
+	}
+
+	private static int countBehind(final Plane plane, final float[] xs, final float[] ys, final float[] zs) {
+		int behind = 0;
+		for (int i = 0; i < COUNT; i++) {
+			behind += plane.classify(new Vec3(xs[i], ys[i], zs[i]), 0.1f) == Plane.BEHIND ? 1 : 0;
+		}
+		return behind;
+	}
+
+	private float[] randomFloats(final int count) {
+		final float[] result = new float[count];
+		for (int i = 0; i < count; i++) {
+			result[i] = random.nextFloat() * 2f - 1f;
+		}
+		return result;
+	}
+
+	private static void assertArraysEqual(final float[][] expected, final float[][] actual) {
+		for (int i = 0; i < expected.length; i++) {
+			Assert.assertArrayEquals(expected[i], actual[i], 0f);
+		}
+	}
+}
@@ -0,0 +1,211 @@
+package com.hackoeur.jglm.spatial;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.hackoeur.jglm.Vec3;
+
+public class KdTreeTest {
+	private static final int NUM_POINTS = 20000;
+	
+	private final Random rand = new Random(2024L);
+	private final float[] xs = new float[NUM_POINTS];
+	private final float[] ys = new float[NUM_POINTS];
+	private final float[] zs = new float[NUM_POINTS];
+	
+	public KdTreeTest() {
+		for (int i = 0; i < NUM_POINTS; i++) {
+			// Clustered and uneven, like a scanned surface.
+			xs[i] = (float) rand.nextGaussian() * 10f;
+			ys[i] = rand.nextFloat() * 100f;
+			zs[i] = (i % 7) * 0.25f;
+		}
+	}
+	
+	private float distSq(final int i, final float x, final float y, final float z) {
+		final float dx = xs[i] - x;
+		final float dy = ys[i] - y;
+		final float dz = zs[i] - z;
+		return dx * dx + dy * dy + dz * dz;
+	}
+	
+	private float[] sortedDistances(final float x, final float y, final float z) {
+		final float[] d = new float[NUM_POINTS];
+		for (int i = 0; i < NUM_POINTS; i++) {
+			d[i] = distSq(i, x, y, z);
+		}
+		Arrays.sort(d);
+		return d;
+	}
+	
+	@Test
+	public void testNearestMatchesBruteForce() {
+		final KdTree tree = new KdTree(xs, ys, zs, NUM_POINTS);
+		Assert.assertEquals(NUM_POINTS, tree.size());
+		
+		for (int q = 0; q < 500; q++) {
+			final float x = rand.nextFloat() * 60f - 30f;
+			final float y = rand.nextFloat() * 120f - 10f;
+			final float z = rand.nextFloat() * 4f - 1f;
+			
+			final int found = tree.nearest(x, y, z);
+			Assert.assertEquals(sortedDistances(x, y, z)[0], distSq(found, x, y, z), 0f);
+		}
+	}
+	
+	@Test
+	public void testKNearestMatchesBruteForce() {
+		final KdTree tree = new KdTree(xs, ys, zs, NUM_POINTS);
+		final int k = 12;
+		final int[] indices = new int[k];
+		final float[] distances = new float[k];
+		
+		for (int q = 0; q < 200; q++) {
+			final float x = rand.nextFloat() * 60f - 30f;
+			final float y = rand.nextFloat() * 120f - 10f;
+			final float z = rand.nextFloat() * 4f - 1f;
+			
+			Assert.assertEquals(k, tree.nearest(x, y, z, k, indices, distances));
+			
+			final float[] expected = sortedDistances(x, y, z);
+			for (int i = 0; i < k; i++) {
+				Assert.assertEquals(expected[i], distances[i], 0f);
+				Assert.assertEquals(distances[i], distSq(indices[i], x, y, z), 0f);
+			}
+		}
+	}
+	
+	@Test
+	public void testKNearestWithFewPoints() {
+		final KdTree tree = new KdTree(new Vec3[] {
+				new Vec3(0f, 0f, 0f), new Vec3(3f, 0f, 0f), new Vec3(1f, 0f, 0f)
+		});
+		final int[] indices = new int[5];
+		final float[] distances = new float[5];
+		
+		Assert.assertEquals(3, tree.nearest(0f, 0f, 0f, 5, indices, distances));
+		Assert.assertArrayEquals(new int[] { 0, 2, 1 }, Arrays.copyOf(indices, 3));
+		Assert.assertArrayEquals(new float[] { 0f, 1f, 9f }, Arrays.copyOf(distances, 3), 0f);
+	}
+	
+	@Test
+	public void testWithinRadiusMatchesBruteForce() {
+		final KdTree tree = new KdTree(xs, ys, zs, NUM_POINTS);
+		final int[] indices = new int[NUM_POINTS];
+		final float[] distances = new float[NUM_POINTS];
+		final float radius = 2.5f;
+		
+		for (int q = 0; q < 100; q++) {
+			final float x = rand.nextFloat() * 30f - 15f;
+			final float y = rand.nextFloat() * 100f;
+			final float z = rand.nextFloat() * 2f;
+			
+			final int count = tree.withinRadius(x, y, z, radius, indices, distances);
+			
+			final Set<Integer> expected = new HashSet<Integer>();
+			for (int i = 0; i < NUM_POINTS; i++) {
+				if (distSq(i, x, y, z) <= radius * radius) {
+					expected.add(Integer.valueOf(i));
+				}
+			}
+			
+			final Set<Integer> got = new HashSet<Integer>();
+			for (int i = 0; i < count; i++) {
+				got.add(Integer.valueOf(indices[i]));
+				Assert.assertEquals(distSq(indices[i], x, y, z), distances[i], 0f);
+			}
+			
+			Assert.assertEquals(expected, got);
+		}
+	}
+	
+	@Test
+	public void testWithinRadiusTruncatesOutput() {
+		final KdTree tree = new KdTree(xs, ys, zs, NUM_POINTS);
+		final int[] indices = new int[4];
+		
+		final int total = tree.withinRadius(0f, 50f, 0f, 20f, indices, null);
+		Assert.assertTrue(total > indices.length);
+	}
+	
+	@Test
+	public void testBulkQueriesMatchSingleQueries() throws InterruptedException {
+		final KdTree tree = new KdTree(xs, ys, zs, NUM_POINTS);
+		final int count = 10000;
+		final int k = 4;
+		final float[] qx = new float[count];
+		final float[] qy = new float[count];
+		final float[] qz = new float[count];
+		
+		for (int i = 0; i < count; i++) {
+			qx[i] = rand.nextFloat() * 60f - 30f;
+			qy[i] = rand.nextFloat() * 100f;
+			qz[i] = rand.nextFloat() * 2f;
+		}
+		
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			final int[] nearest = new int[count];
+			final float[] nearestDist = new float[count];
+			tree.nearest(qx, qy, qz, count, nearest, nearestDist, executor);
+			
+			final int[] knn = new int[count * k];
+			final float[] knnDist = new float[count * k];
+			tree.nearest(qx, qy, qz, count, k, knn, knnDist, executor);
+			
+			final int[] single = new int[k];
+			final float[] singleDist = new float[k];
+			for (int i = 0; i < count; i++) {
+				Assert.assertEquals(tree.nearest(qx[i], qy[i], qz[i]), nearest[i]);
+				Assert.assertEquals(distSq(nearest[i], qx[i], qy[i], qz[i]), nearestDist[i], 0f);
+				
+				tree.nearest(qx[i], qy[i], qz[i], k, single, singleDist);
+				for (int j = 0; j < k; j++) {
+					Assert.assertEquals(singleDist[j], knnDist[i * k + j], 0f);
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void testDuplicatePoints() {
+		final int n = 1000;
+		final float[] same = new float[n];
+		Arrays.fill(same, 1f);
+		
+		final KdTree tree = new KdTree(same, same, same, n);
+		final int[] indices = new int[n];
+		Assert.assertEquals(n, tree.withinRadius(1f, 1f, 1f, 0f, indices, null));
+		Assert.assertTrue(tree.nearest(0f, 0f, 0f) >= 0);
+	}
+	
+	@Test
+	public void testFarAwayAndNaNQueries() {
+		final KdTree tree = new KdTree(xs, ys, zs, NUM_POINTS);
+		
+		// Every squared distance overflows to infinity, or is NaN.
+		final int far = tree.nearest(3e19f, -3e19f, 3e19f);
+		Assert.assertTrue(far >= 0 && far < NUM_POINTS);
+		Assert.assertEquals(Float.POSITIVE_INFINITY, distSq(far, 3e19f, -3e19f, 3e19f), 0f);
+		
+		final int nan = tree.nearest(Float.NaN, 0f, 0f);
+		Assert.assertTrue(nan >= 0 && nan < NUM_POINTS);
+	}
+	
+	@Test
+	public void testEmptyTree() {
+		final KdTree tree = new KdTree(new float[0], new float[0], new float[0], 0);
+		Assert.assertEquals(-1, tree.nearest(1f, 2f, 3f));
+		Assert.assertEquals(0, tree.nearest(1f, 2f, 3f, 3, new int[3], new float[3]));
+		Assert.assertEquals(0, tree.withinRadius(1f, 2f, 3f, 10f, new int[3], null));
+	}
+}
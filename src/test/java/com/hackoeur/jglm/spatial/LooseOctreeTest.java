@@ -0,0 +1,211 @@
+package com.hackoeur.jglm.spatial;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.hackoeur.jglm.AABB;
+import com.hackoeur.jglm.Frustum;
+import com.hackoeur.jglm.Mat4;
+import com.hackoeur.jglm.Matrices;
+import com.hackoeur.jglm.Vec3;
+
+public class LooseOctreeTest {
+	private static final AABB WORLD = new AABB(-100f, -100f, -100f, 100f, 100f, 100f);
+	
+	private static AABB randomBox(final Random rand, final float maxSize) {
+		final float x = rand.nextFloat() * 220f - 110f;
+		final float y = rand.nextFloat() * 220f - 110f;
+		final float z = rand.nextFloat() * 220f - 110f;
+		final float size = rand.nextFloat() * maxSize;
+		return new AABB(x, y, z, x + size, y + size * 0.5f, z + size * 2f);
+	}
+	
+	private static Frustum randomFrustum(final Random rand) {
+		final Mat4 projection = Matrices.perspective(60f, 1.5f, 0.5f, 150f);
+		final Vec3 eye = new Vec3(rand.nextFloat() * 40f - 20f, rand.nextFloat() * 40f - 20f, rand.nextFloat() * 40f - 20f);
+		final Vec3 center = new Vec3(rand.nextFloat() * 40f - 20f, rand.nextFloat() * 40f - 20f, 50f);
+		return new Frustum(projection.multiply(Matrices.lookAt(eye, center, new Vec3(0f, 1f, 0f))));
+	}
+	
+	private static class Collector implements LooseOctree.Visitor<Integer> {
+		final Set<Integer> found = new HashSet<Integer>();
+		
+		@Override
+		public boolean visit(final Integer object) {
+			Assert.assertTrue("Visited twice: " + object, found.add(object));
+			return true;
+		}
+	}
+	
+	@Test
+	public void testFrustumQueryMatchesBruteForce() {
+		final Random rand = new Random(1234L);
+		final LooseOctree<Integer> tree = new LooseOctree<Integer>(WORLD, 6);
+		final List<AABB> boxes = new ArrayList<AABB>();
+		
+		for (int i = 0; i < 2000; i++) {
+			final AABB box = randomBox(rand, i % 50 == 0 ? 80f : 4f);
+			boxes.add(box);
+			tree.insert(Integer.valueOf(i), box);
+		}
+		
+		for (int q = 0; q < 20; q++) {
+			final Frustum frustum = randomFrustum(rand);
+			final Collector collector = new Collector();
+			final int visited = tree.query(frustum, collector);
+			
+			final Set<Integer> expected = new HashSet<Integer>();
+			for (int i = 0; i < boxes.size(); i++) {
+				if (frustum.intersects(boxes.get(i))) {
+					expected.add(Integer.valueOf(i));
+				}
+			}
+			
+			Assert.assertEquals(expected, collector.found);
+			Assert.assertEquals(expected.size(), visited);
+		}
+	}
+	
+	@Test
+	public void testBoxQueryMatchesBruteForce() {
+		final Random rand = new Random(42L);
+		final LooseOctree<Integer> tree = new LooseOctree<Integer>(WORLD, 5);
+		final List<AABB> boxes = new ArrayList<AABB>();
+		
+		for (int i = 0; i < 1000; i++) {
+			final AABB box = randomBox(rand, 10f);
+			boxes.add(box);
+			tree.insert(Integer.valueOf(i), box);
+		}
+		
+		final AABB region = new AABB(-30f, -20f, -10f, 25f, 40f, 35f);
+		final Collector collector = new Collector();
+		tree.query(region, collector);
+		
+		final Set<Integer> expected = new HashSet<Integer>();
+		for (int i = 0; i < boxes.size(); i++) {
+			if (region.intersects(boxes.get(i))) {
+				expected.add(Integer.valueOf(i));
+			}
+		}
+		
+		Assert.assertEquals(expected, collector.found);
+	}
+	
+	@Test
+	public void testRaycastIsFrontToBack() {
+		final Random rand = new Random(7L);
+		final LooseOctree<Integer> tree = new LooseOctree<Integer>(WORLD, 6);
+		final List<AABB> boxes = new ArrayList<AABB>();
+		
+		for (int i = 0; i < 3000; i++) {
+			final AABB box = randomBox(rand, 6f);
+			boxes.add(box);
+			tree.insert(Integer.valueOf(i), box);
+		}
+		
+		final Vec3 origin = new Vec3(-90f, -3f, 2f);
+		final Vec3 direction = new Vec3(1f, 0.05f, 0f).getUnitVector();
+		final List<Float> distances = new ArrayList<Float>();
+		final Set<Integer> hits = new HashSet<Integer>();
+		
+		tree.raycast(origin, direction, 500f, new LooseOctree.RayVisitor<Integer>() {
+			@Override
+			public boolean visit(final Integer object, final float distance) {
+				hits.add(object);
+				distances.add(Float.valueOf(distance));
+				return true;
+			}
+		});
+		
+		Assert.assertFalse(hits.isEmpty());
+		for (int i = 1; i < distances.size(); i++) {
+			Assert.assertTrue(distances.get(i - 1) <= distances.get(i));
+		}
+		
+		// Every box the ray passes through must be reported.
+		for (int i = 0; i < boxes.size(); i++) {
+			final AABB box = boxes.get(i);
+			boolean hit = false;
+			for (float t = 0f; t < 500f && !hit; t += 0.01f) {
+				hit = box.contains(origin.add(direction.multiply(t)));
+			}
+			if (hit) {
+				Assert.assertTrue("Missed " + i, hits.contains(Integer.valueOf(i)));
+			}
+		}
+	}
+	
+	@Test
+	public void testRaycastStopsEarly() {
+		final LooseOctree<Integer> tree = new LooseOctree<Integer>(WORLD, 4);
+		for (int i = 0; i < 10; i++) {
+			tree.insert(Integer.valueOf(i), new AABB(i * 10f, -1f, -1f, i * 10f + 1f, 1f, 1f));
+		}
+		
+		final List<Integer> hits = new ArrayList<Integer>();
+		final int visited = tree.raycast(new Vec3(-5f, 0f, 0f), new Vec3(1f, 0f, 0f), 1000f, new LooseOctree.RayVisitor<Integer>() {
+			@Override
+			public boolean visit(final Integer object, final float distance) {
+				hits.add(object);
+				return hits.size() < 3;
+			}
+		});
+		
+		Assert.assertEquals(3, visited);
+		Assert.assertEquals(Integer.valueOf(0), hits.get(0));
+		Assert.assertEquals(Integer.valueOf(1), hits.get(1));
+		Assert.assertEquals(Integer.valueOf(2), hits.get(2));
+	}
+	
+	@Test
+	public void testRemoveAndUpdate() {
+		final Random rand = new Random(99L);
+		final LooseOctree<Integer> tree = new LooseOctree<Integer>(WORLD, 6);
+		final int[] handles = new int[500];
+		
+		for (int i = 0; i < handles.length; i++) {
+			handles[i] = tree.insert(Integer.valueOf(i), randomBox(rand, 2f));
+		}
+		Assert.assertEquals(handles.length, tree.size());
+		Assert.assertTrue(tree.getNodeCount() > 1);
+		
+		// Move everything into one corner; handles must stay valid.
+		for (int i = 0; i < handles.length; i++) {
+			final AABB box = new AABB(90f, 90f, 90f, 91f, 91f, 91f);
+			tree.update(handles[i], box);
+			Assert.assertEquals(box, tree.getBounds(handles[i]));
+			Assert.assertEquals(Integer.valueOf(i), tree.get(handles[i]));
+		}
+		Assert.assertEquals(1 + 6, tree.getNodeCount());
+		
+		for (int i = 0; i < handles.length; i++) {
+			Assert.assertEquals(Integer.valueOf(i), tree.remove(handles[i]));
+		}
+		Assert.assertEquals(0, tree.size());
+		Assert.assertEquals(1, tree.getNodeCount());
+		
+		// Pools are recycled rather than grown.
+		final int capacity = tree.getNodeCapacity();
+		final long footprint = tree.getMemoryFootprint();
+		for (int i = 0; i < handles.length; i++) {
+			handles[i] = tree.insert(Integer.valueOf(i), randomBox(rand, 2f));
+		}
+		Assert.assertEquals(capacity, tree.getNodeCapacity());
+		Assert.assertEquals(footprint, tree.getMemoryFootprint());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testStaleHandle() {
+		final LooseOctree<String> tree = new LooseOctree<String>(WORLD, 3);
+		final int handle = tree.insert("a", new AABB(0f, 0f, 0f, 1f, 1f, 1f));
+		tree.remove(handle);
+		tree.remove(handle);
+	}
+}
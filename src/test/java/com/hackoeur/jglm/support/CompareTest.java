@@ -0,0 +1,108 @@
+package com.hackoeur.jglm.support;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CompareTest {
+	@Test
+	public void testEqualsMatchesShortCircuitForm() {
+		final Random random = new Random(40L);
+		final float[] specials = { 0f, -0f, Float.NaN, Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY,
+				Float.MIN_VALUE, -Float.MIN_VALUE, Float.MAX_VALUE, 1e-8f, -1e-8f };
+
+		for (int i = 0; i < 100000; i++) {
+			final float a = i % 10 == 0 ? specials[random.nextInt(specials.length)] : (random.nextFloat() - 0.5f) * 4f;
+			final float b;
+			switch (i % 3) {
+			case 0:
+				b = Float.intBitsToFloat(Float.floatToRawIntBits(a) + random.nextInt(5) - 2);
+				break;
+			case 1:
+				b = a * (1f + (random.nextFloat() - 0.5f) * 1e-4f);
+				break;
+			default:
+				b = (random.nextFloat() - 0.5f) * 4f;
+				break;
+			}
+
+			Assert.assertEquals(a + " " + b, shortCircuitEquals(a, b, Compare.ABS_EPSILON, Compare.MAT_EPSILON),
+					Compare.equals(a, b, Compare.MAT_EPSILON));
+			Assert.assertEquals(a + " " + b, shortCircuitEquals(a, 0f, Compare.ABS_EPSILON, 0f),
+					Compare.equalsZero(a));
+		}
+	}
+
+	@Test
+	public void testMismatch() {
+		final float[] a = new float[103];
+		final float[] b = new float[a.length + 2];
+		for (int i = 0; i < a.length; i++) {
+			a[i] = i * 0.25f;
+			b[i + 2] = a[i];
+		}
+		b[2 + 40] += 1e-5f;
+		b[2 + 41] = Math.nextUp(b[2 + 41]);
+		b[2 + 60] += 1f;
+		b[2 + 99] = Float.NaN;
+
+		Assert.assertEquals(3, Compare.mismatchCount(a, 0, b, 2, a.length, 1, 0f, 0f));
+		Assert.assertEquals(40, Compare.firstMismatch(a, 0, b, 2, a.length, 1, 0f, 0f));
+		Assert.assertEquals(2, Compare.mismatchCount(a, 0, b, 2, a.length, 1, Compare.ABS_EPSILON, Compare.MAT_EPSILON));
+		Assert.assertEquals(60, Compare.firstMismatch(a, 0, b, 2, a.length, 1, Compare.ABS_EPSILON, Compare.MAT_EPSILON));
+		Assert.assertEquals(-1, Compare.firstMismatch(a, 0, b, 2, 40, 1, 0f, 0f));
+		Assert.assertEquals(0, Compare.mismatchCount(a, 0, b, 2, 0, 1, 0f, 0f));
+
+		final FloatBuffer heap = FloatBuffer.wrap(b);
+		heap.position(2);
+		final FloatBuffer direct = ByteBuffer.allocateDirect(4 * a.length).order(ByteOrder.nativeOrder()).asFloatBuffer();
+		direct.put(a).flip();
+		for (final FloatBuffer other : new FloatBuffer[] { heap, direct.duplicate() }) {
+			Assert.assertEquals(other == heap ? 2 : 0,
+					Compare.mismatchCount(direct, other, 1, Compare.ABS_EPSILON, Compare.MAT_EPSILON));
+			Assert.assertEquals(other == heap ? 60 : -1,
+					Compare.firstMismatch(other, direct, 1, Compare.ABS_EPSILON, Compare.MAT_EPSILON));
+		}
+		Assert.assertEquals(2, heap.position());
+		Assert.assertEquals(0, direct.position());
+	}
+
+	@Test(expected = ArrayIndexOutOfBoundsException.class)
+	public void testMismatchOutOfRange() {
+		Compare.mismatchCount(new float[4], 1, new float[4], 0, 4, 1, 0f, 0f);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMismatchRemaining() {
+		Compare.firstMismatch(FloatBuffer.allocate(4), FloatBuffer.allocate(3), 1, 0f, 0f);
+	}
+
+	/**
+	 * The original implementation of {@link Compare#equals(float, float, float, float)}.
+	 */
+	private static boolean shortCircuitEquals(final float a, final float b, final float absoluteEpsilon, final float relativeEpsilon) {
+		int xInt = Float.floatToIntBits(a);
+		int yInt = Float.floatToIntBits(b);
+		if (xInt < 0) {
+			xInt = 0x80000000 - xInt;
+		}
+		if (yInt < 0) {
+			yInt = 0x80000000 - yInt;
+		}
+		if (Math.abs(xInt - yInt) <= 1 && !Float.isNaN(a) && !Float.isNaN(b)) {
+			return true;
+		}
+
+		final float diff = Math.abs(a - b);
+		if (diff <= absoluteEpsilon) {
+			return true;
+		}
+
+		final float largest = Math.max(Math.abs(a), Math.abs(b));
+		return diff <= largest * relativeEpsilon;
+	}
+}
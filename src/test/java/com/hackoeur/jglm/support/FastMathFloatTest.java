@@ -0,0 +1,213 @@
+package com.hackoeur.jglm.support;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FastMathFloatTest {
+	private static final int SAMPLES = 500000;
+	
+	private interface Function {
+		float compute(float x);
+		double reference(double x);
+	}
+	
+	/**
+	 * @return error of {@code actual} in ulps of the correctly rounded result
+	 */
+	private static double ulpError(final float actual, final double exact) {
+		final float rounded = (float) exact;
+		if (Float.isNaN(rounded) || Float.isInfinite(rounded) || Float.isInfinite(actual)) {
+			return Float.compare(actual, rounded) == 0 ? 0.0 : Double.POSITIVE_INFINITY;
+		}
+		
+		final double ulp = rounded == 0f ? Float.MIN_VALUE : Math.ulp(rounded);
+		return Math.abs(actual - exact) / ulp;
+	}
+	
+	/**
+	 * Half the samples are uniform in [lo, hi], the rest are random bit
+	 * patterns that fall in the range, which covers every exponent.
+	 */
+	private static void assertMaxUlps(final Function f, final float lo, final float hi, final double maxUlps) {
+		final Random random = new Random(31);
+		
+		for (int i = 0; i < SAMPLES; i++) {
+			float x = lo + (hi - lo) * random.nextFloat();
+			if ((i & 1) == 1) {
+				x = Float.intBitsToFloat(random.nextInt());
+				if (!(x >= lo && x <= hi)) {
+					continue;
+				}
+			}
+			
+			final double error = ulpError(f.compute(x), f.reference(x));
+			if (error > maxUlps) {
+				Assert.fail("Error of " + error + " ulp at x = " + x);
+			}
+		}
+	}
+	
+	@Test
+	public void testSinCosTan() {
+		final Function sin = new Function() {
+			public float compute(final float x) { return FastMath.sinf(x); }
+			public double reference(final double x) { return StrictMath.sin(x); }
+		};
+		final Function cos = new Function() {
+			public float compute(final float x) { return FastMath.cosf(x); }
+			public double reference(final double x) { return StrictMath.cos(x); }
+		};
+		final Function tan = new Function() {
+			public float compute(final float x) { return FastMath.tanf(x); }
+			public double reference(final double x) { return StrictMath.tan(x); }
+		};
+		
+		for (final float range : new float[] { 10f, 1e6f, Float.MAX_VALUE }) {
+			assertMaxUlps(sin, -range, range, 0.51);
+			assertMaxUlps(cos, -range, range, 0.51);
+			assertMaxUlps(tan, -range, range, 0.81);
+		}
+		
+		Assert.assertEquals(Float.floatToIntBits(-0f), Float.floatToIntBits(FastMath.sinf(-0f)));
+		Assert.assertEquals(1f, FastMath.cosf(0f), 0f);
+		Assert.assertTrue(Float.isNaN(FastMath.sinf(Float.POSITIVE_INFINITY)));
+		Assert.assertTrue(Float.isNaN(FastMath.cosf(Float.NaN)));
+		Assert.assertTrue(Float.isNaN(FastMath.tanf(Float.NEGATIVE_INFINITY)));
+	}
+	
+	@Test
+	public void testAcos() {
+		assertMaxUlps(new Function() {
+			public float compute(final float x) { return FastMath.acosf(x); }
+			public double reference(final double x) { return StrictMath.acos(x); }
+		}, -1f, 1f, 0.6);
+		
+		Assert.assertEquals(0f, FastMath.acosf(1f), 0f);
+		Assert.assertEquals((float) Math.PI, FastMath.acosf(-1f), 0f);
+		Assert.assertTrue(Float.isNaN(FastMath.acosf(1.0000001f)));
+		Assert.assertTrue(Float.isNaN(FastMath.acosf(Float.NaN)));
+	}
+	
+	@Test
+	public void testExpLog() {
+		assertMaxUlps(new Function() {
+			public float compute(final float x) { return FastMath.expf(x); }
+			public double reference(final double x) { return StrictMath.exp(x); }
+		}, -110f, 100f, 0.53);
+		assertMaxUlps(new Function() {
+			public float compute(final float x) { return FastMath.logf(x); }
+			public double reference(final double x) { return StrictMath.log(x); }
+		}, 0f, Float.MAX_VALUE, 0.55);
+		
+		Assert.assertEquals(1f, FastMath.expf(0f), 0f);
+		Assert.assertEquals(Float.POSITIVE_INFINITY, FastMath.expf(89f), 0f);
+		Assert.assertEquals(0f, FastMath.expf(-104f), 0f);
+		Assert.assertTrue(Float.isNaN(FastMath.expf(Float.NaN)));
+		Assert.assertEquals(0f, FastMath.logf(1f), 0f);
+		Assert.assertEquals(Float.NEGATIVE_INFINITY, FastMath.logf(0f), 0f);
+		Assert.assertEquals(Float.POSITIVE_INFINITY, FastMath.logf(Float.POSITIVE_INFINITY), 0f);
+		Assert.assertEquals((float) StrictMath.log(Float.MIN_VALUE), FastMath.logf(Float.MIN_VALUE), 0f);
+		Assert.assertTrue(Float.isNaN(FastMath.logf(-1f)));
+	}
+	
+	@Test
+	public void testAtan2() {
+		final Random random = new Random(32);
+		
+		for (int i = 0; i < SAMPLES; i++) {
+			float y = random.nextFloat() * 20f - 10f;
+			float x = random.nextFloat() * 20f - 10f;
+			if ((i & 1) == 1) {
+				y = Float.intBitsToFloat(random.nextInt());
+				x = Float.intBitsToFloat(random.nextInt());
+			}
+			
+			final double error = ulpError(FastMath.atan2f(y, x), StrictMath.atan2(y, x));
+			if (error > 0.84) {
+				Assert.fail("Error of " + error + " ulp at y = " + y + ", x = " + x);
+			}
+		}
+		
+		final float[] specials = { 0f, -0f, 1f, -1f, Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NaN };
+		for (final float y : specials) {
+			for (final float x : specials) {
+				Assert.assertEquals(Float.floatToIntBits((float) StrictMath.atan2(y, x)), Float.floatToIntBits(FastMath.atan2f(y, x)));
+			}
+		}
+	}
+	
+	@Test
+	public void testSincos() {
+		final Random random = new Random(33);
+		final float[] out = new float[2];
+		
+		for (int i = 0; i < SAMPLES; i++) {
+			float x = random.nextFloat() * 20f - 10f;
+			if ((i & 1) == 1) {
+				x = Float.intBitsToFloat(random.nextInt());
+			}
+			
+			FastMath.sincos(x, out);
+			Assert.assertEquals(Float.floatToIntBits(FastMath.sinf(x)), Float.floatToIntBits(out[0]));
+			Assert.assertEquals(Float.floatToIntBits(FastMath.cosf(x)), Float.floatToIntBits(out[1]));
+			
+			final long sincos = FastMath.sincos(x);
+			Assert.assertEquals(Float.floatToIntBits(out[0]), Float.floatToIntBits(FastMath.sinOf(sincos)));
+			Assert.assertEquals(Float.floatToIntBits(out[1]), Float.floatToIntBits(FastMath.cosOf(sincos)));
+		}
+	}
+	
+	@Test
+	public void testBulkSinCos() {
+		final Random random = new Random(34);
+		final int n = 100000;
+		final float[] in = new float[n + 1];
+		final float[] sin = new float[n + 1];
+		final float[] cos = new float[n + 1];
+		final float[] sinOnly = new float[n + 1];
+		final float[] cosOnly = new float[n + 1];
+		
+		for (int i = 0; i < n; i++) {
+			in[i] = (random.nextFloat() * 2f - 1f) * ((i & 1) == 0 ? 10f : 8192f);
+		}
+		in[n] = 1f;
+		sin[n] = 42f;
+		
+		FastMath.sincos(in, sin, cos, n);
+		FastMath.sin(in, sinOnly, n);
+		FastMath.cos(in, cosOnly, n);
+		for (int i = 0; i < n; i++) {
+			final double sinError = ulpError(sin[i], StrictMath.sin(in[i]));
+			final double cosError = ulpError(cos[i], StrictMath.cos(in[i]));
+			if (sinError > 2.5 || cosError > 2.5) {
+				Assert.fail("Error of " + Math.max(sinError, cosError) + " ulp at x = " + in[i]);
+			}
+			Assert.assertEquals(sin[i], sinOnly[i], 0f);
+			Assert.assertEquals(cos[i], cosOnly[i], 0f);
+		}
+		Assert.assertEquals(42f, sin[n], 0f);
+		
+		// Out of range elements fall back to the scalar methods.
+		in[7] = 1e6f;
+		in[8] = Float.NaN;
+		in[9] = Float.NEGATIVE_INFINITY;
+		FastMath.sincos(in, sin, cos, n);
+		for (int i = 7; i <= 9; i++) {
+			Assert.assertEquals(FastMath.sinf(in[i]), sin[i], 0f);
+			Assert.assertEquals(FastMath.cosf(in[i]), cos[i], 0f);
+		}
+		Assert.assertEquals(sinOnly[6], sin[6], 0f);
+		
+		// In place.
+		final float[] copy = in.clone();
+		final float[] cosCopy = new float[n];
+		FastMath.sincos(copy, copy, cosCopy, n);
+		Assert.assertEquals(sin[0], copy[0], 0f);
+		Assert.assertEquals(sin[8], copy[8], 0f);
+		Assert.assertEquals(cos[0], cosCopy[0], 0f);
+		FastMath.cos(in, in, n);
+		Assert.assertEquals(cos[0], in[0], 0f);
+	}
+}
@@ -0,0 +1,55 @@
+package com.hackoeur.jglm.support;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FastMathTablesTest {
+	@Test
+	public void testBinaryMatchesLiterals() {
+		final double[] expInt = FastMathTables.read(FastMathTables.EXP_INT_RESOURCE, 2 * FastMath.EXP_INT_TABLE_LEN);
+		final double[] expFrac = FastMathTables.read(FastMathTables.EXP_FRAC_RESOURCE, 2 * FastMath.EXP_FRAC_TABLE_LEN);
+		final double[] lnMant = FastMathTables.read(FastMathTables.LN_MANT_RESOURCE, 2 * FastMath.LN_MANT_LEN);
+
+		assertSame(concat(FastMathLiteralArrays.loadExpIntA(), FastMathLiteralArrays.loadExpIntB()), expInt);
+		assertSame(concat(FastMathLiteralArrays.loadExpFracA(), FastMathLiteralArrays.loadExpFracB()), expFrac);
+
+		final double[][] rows = FastMathTables.rows(lnMant, 2);
+		final double[][] literal = FastMathLiteralArrays.loadLnMant();
+		Assert.assertEquals(literal.length, rows.length);
+		for (int i = 0; i < rows.length; i++) {
+			assertSame(literal[i], rows[i]);
+		}
+	}
+
+	@Test
+	public void testReadRejectsBadResources() {
+		Assert.assertNull(FastMathTables.read("no-such-table.bin", 4));
+		// Wrong lengths in either direction.
+		Assert.assertNull(FastMathTables.read(FastMathTables.LN_MANT_RESOURCE, 2 * FastMath.LN_MANT_LEN + 1));
+		Assert.assertNull(FastMathTables.read(FastMathTables.LN_MANT_RESOURCE, 2 * FastMath.LN_MANT_LEN - 1));
+	}
+
+	@Test
+	public void testSource() {
+		Assert.assertEquals(FastMathTables.Source.BINARY, FastMathTables.source(null));
+		Assert.assertEquals(FastMathTables.Source.LITERAL, FastMathTables.source(" Literal "));
+		Assert.assertEquals(FastMathTables.Source.COMPUTE, FastMathTables.source("compute"));
+		// A misspelling must not fail FastMath's class initialization.
+		Assert.assertEquals(FastMathTables.Source.BINARY, FastMathTables.source("binray"));
+	}
+
+	private static double[] concat(final double[] a, final double[] b) {
+		final double[] result = new double[a.length + b.length];
+		System.arraycopy(a, 0, result, 0, a.length);
+		System.arraycopy(b, 0, result, a.length, b.length);
+		return result;
+	}
+
+	private static void assertSame(final double[] expected, final double[] actual) {
+		Assert.assertNotNull(actual);
+		Assert.assertEquals(expected.length, actual.length);
+		for (int i = 0; i < expected.length; i++) {
+			Assert.assertEquals(Double.doubleToRawLongBits(expected[i]), Double.doubleToRawLongBits(actual[i]));
+		}
+	}
+}
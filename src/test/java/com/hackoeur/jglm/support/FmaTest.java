@@ -0,0 +1,80 @@
+package com.hackoeur.jglm.support;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.hackoeur.jglm.Mat4;
+import com.hackoeur.jglm.Vec4;
+
+public class FmaTest {
+	@Test
+	public void testFusedRounding() {
+		// (1 + 2^-12)^2 = 1 + 2^-11 + 2^-24, whose last term a float product drops.
+		final float a = 1f + 1f / 4096f;
+		final float c = -(1f + 1f / 2048f);
+		Assert.assertEquals(Fma.isEnabled() ? 1f / (1 << 24) : 0f, Fma.fma(a, a, c), 0f);
+	}
+
+	@Test
+	public void testDotAccuracy() {
+		final Random random = new Random(51);
+
+		for (int i = 0; i < 100000; i++) {
+			final float[] v = new float[8];
+			for (int k = 0; k < v.length; k++) {
+				v[k] = random.nextFloat() * 2f - 1f;
+			}
+
+			final double exact3 = (double) v[0] * v[4] + (double) v[1] * v[5] + (double) v[2] * v[6];
+			final double exact4 = exact3 + (double) v[3] * v[7];
+			// Three and four roundings of values below 4 in magnitude.
+			Assert.assertEquals(exact3, Fma.dot3(v[0], v[1], v[2], v[4], v[5], v[6]), 3 * Math.ulp(4f));
+			Assert.assertEquals(exact4, Fma.dot4(v[0], v[1], v[2], v[3], v[4], v[5], v[6], v[7]), 4 * Math.ulp(4f));
+		}
+	}
+
+	@Test
+	public void testMultiplyUsesKernel() {
+		final Mat4 m = new Mat4(
+				1f, 2f, 3f, 4f,
+				5f, 6f, 7f, 8f,
+				9f, 10f, 11f, 12f,
+				13f, 14f, 15f, 16f);
+		final Vec4 v = new Vec4(1f, -1f, 2f, 0.5f);
+
+		final Vec4 product = m.multiply(v);
+		Assert.assertEquals(Fma.dot4(1f, 5f, 9f, 13f, 1f, -1f, 2f, 0.5f), product.getX(), 0f);
+		Assert.assertEquals(Fma.dot4(4f, 8f, 12f, 16f, 1f, -1f, 2f, 0.5f), product.getW(), 0f);
+		Assert.assertEquals(new Vec4(20.5f, 23f, 25.5f, 28f), product);
+	}
+
+	/**
+	 * Fused multiply-adds round once per term instead of twice, so they must
+	 * be closer to a double reference on average; see FmaBenchmark for the
+	 * speed with and without them.
+	 */
+	@Test
+	public void testFusedAccuracy() {
+		final Random random = new Random(52);
+		double fusedError = 0.0;
+		double plainError = 0.0;
+		for (int i = 0; i < 200000; i++) {
+			final float[] v = new float[8];
+			for (int k = 0; k < v.length; k++) {
+				v[k] = random.nextFloat() * 2f - 1f;
+			}
+
+			final double exact = (double) v[0] * v[4] + (double) v[1] * v[5] + (double) v[2] * v[6] + (double) v[3] * v[7];
+			fusedError += Math.abs(Fma.dot4(v[0], v[1], v[2], v[3], v[4], v[5], v[6], v[7]) - exact);
+			plainError += Math.abs(v[0] * v[4] + v[1] * v[5] + v[2] * v[6] + v[3] * v[7] - exact);
+		}
+
+		if (Fma.isEnabled()) {
+			Assert.assertTrue(fusedError < plainError);
+		} else {
+			Assert.assertEquals(plainError, fusedError, 0.0);
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package com.hackoeur.jglm.support;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HalfFloatTest {
+	@Test
+	public void testDecodeRoundTrip() {
+		for (int h = 0; h < 65536; h++) {
+			final float f = HalfFloat.toFloat((short) h);
+			if ((h & 0x7c00) == 0x7c00 && (h & 0x3ff) != 0) {
+				Assert.assertTrue(Float.isNaN(f));
+				continue;
+			}
+			Assert.assertEquals(h, HalfFloat.toHalf(f) & 0xffff);
+		}
+
+		Assert.assertEquals(1f, HalfFloat.toFloat((short) 0x3c00), 0f);
+		Assert.assertEquals(-2f, HalfFloat.toFloat((short) 0xc000), 0f);
+		Assert.assertEquals(HalfFloat.MAX_VALUE, HalfFloat.toFloat((short) 0x7bff), 0f);
+		Assert.assertEquals((float) Math.pow(2, -24), HalfFloat.toFloat((short) 0x0001), 0f);
+		Assert.assertEquals(Float.NEGATIVE_INFINITY, HalfFloat.toFloat(HalfFloat.NEGATIVE_INFINITY), 0f);
+	}
+
+	@Test
+	public void testEncodeRounding() {
+		// Halfway between 1 and the next half rounds to even, just above rounds up.
+		final float ulp = (float) Math.pow(2, -10);
+		Assert.assertEquals(0x3c00, HalfFloat.toHalf(1f + ulp / 2));
+		Assert.assertEquals(0x3c01, HalfFloat.toHalf(Math.nextUp(1f + ulp / 2)));
+		Assert.assertEquals(0x3c02, HalfFloat.toHalf(1f + 3 * ulp / 2));
+
+		Assert.assertEquals(0x7bff, HalfFloat.toHalf(65519f));
+		Assert.assertEquals(HalfFloat.POSITIVE_INFINITY, HalfFloat.toHalf(65520f));
+		Assert.assertEquals(HalfFloat.NEGATIVE_INFINITY, HalfFloat.toHalf(-1e10f));
+		Assert.assertEquals(HalfFloat.NaN, HalfFloat.toHalf(Float.NaN));
+		Assert.assertEquals((short) 0x8000, HalfFloat.toHalf(-0f));
+		Assert.assertEquals(0, HalfFloat.toHalf(Float.MIN_VALUE));
+		Assert.assertEquals(1, HalfFloat.toHalf((float) Math.pow(2, -24) * 0.75f));
+		Assert.assertEquals(0x0400, HalfFloat.toHalf((float) Math.pow(2, -14) * 0.99999f));
+
+		final Random random = new Random(61);
+		for (int i = 0; i < 100000; i++) {
+			final float f = (random.nextFloat() * 2f - 1f) * 70000f;
+			final float decoded = HalfFloat.toFloat(HalfFloat.toHalf(f));
+			if (Math.abs(f) < 65520f) {
+				Assert.assertEquals(f, decoded, Math.max(Math.abs(f) / 2048f, (float) Math.pow(2, -25)));
+			} else {
+				Assert.assertTrue(Float.isInfinite(decoded));
+			}
+		}
+	}
+
+	@Test
+	public void testPacking() {
+		Assert.assertEquals(0xffff0000, Packing.packUnorm2x16(0f, 1f));
+		Assert.assertEquals(0xffff8000, Packing.packUnorm2x16(0.5f, 2f));
+		Assert.assertEquals(0x7fff8001, Packing.packSnorm2x16(-1f, 1f));
+		Assert.assertEquals(0x81817f00, Packing.packSnorm4x8(0f, 1f, -1.5f, -1f));
+		Assert.assertEquals(0x3c00c000, Packing.packHalf2x16(-2f, 1f));
+		Assert.assertEquals(0x000000ff, Packing.packUnorm4x8(1f, 0f, Float.NaN, -3f));
+
+		Assert.assertEquals(1f, Packing.unpackUnorm2x16(0xffff0000, 1), 0f);
+		Assert.assertEquals(-1f, Packing.unpackSnorm2x16(0x00008000, 0), 0f);
+		Assert.assertEquals(-1f, Packing.unpackSnorm4x8(0x81000000, 3), 0f);
+		Assert.assertEquals(1f, Packing.unpackUnorm4x8(0x00ff0000, 2), 0f);
+		Assert.assertEquals(-2f, Packing.unpackHalf2x16(0x3c00c000, 0), 0f);
+
+		// Round half away from zero.
+		Assert.assertEquals(64, Packing.packSnorm4x8(0.5f, 0f, 0f, 0f) & 0xff);
+		Assert.assertEquals(-64, (byte) Packing.packSnorm4x8(-0.5f, 0f, 0f, 0f));
+
+		final Random random = new Random(62);
+		for (int i = 0; i < 10000; i++) {
+			final float x = random.nextFloat();
+			final float y = random.nextFloat() * 2f - 1f;
+			Assert.assertEquals(x, Packing.unpackUnorm2x16(Packing.packUnorm2x16(x, 0f), 0), 0.5f / 65535f);
+			Assert.assertEquals(y, Packing.unpackSnorm2x16(Packing.packSnorm2x16(0f, y), 1), 0.5f / 32767f);
+			Assert.assertEquals(y, Packing.unpackSnorm4x8(Packing.packSnorm4x8(0f, 0f, y, 0f), 2), 0.5f / 127f);
+		}
+	}
+
+	@Test
+	public void testBulk() {
+		final float[] values = { 1f, -2f, 0.5f, 65504f, -0.25f, 0.75f, 1f, 0f };
+
+		final FloatBuffer src = FloatBuffer.wrap(values);
+		final ShortBuffer halves = ShortBuffer.allocate(values.length);
+		Packing.toHalf(src, halves);
+		Assert.assertEquals(0, src.remaining());
+		Assert.assertEquals(0, halves.remaining());
+
+		halves.flip();
+		final FloatBuffer decoded = FloatBuffer.allocate(values.length + 1);
+		decoded.put(42f);
+		Packing.toFloat(halves, decoded);
+		Assert.assertEquals(42f, decoded.get(0), 0f);
+		for (int i = 0; i < values.length; i++) {
+			Assert.assertEquals(values[i], decoded.get(i + 1), 0f);
+		}
+
+		// Non-array buffers take the element-wise path.
+		final FloatBuffer direct = ByteBuffer.allocateDirect(4 * values.length).asFloatBuffer();
+		direct.put(values).flip();
+		final ShortBuffer directHalves = ByteBuffer.allocateDirect(2 * values.length).asShortBuffer();
+		Packing.toHalf(direct, directHalves);
+		halves.rewind();
+		directHalves.flip();
+		Assert.assertEquals(halves, directHalves);
+
+		final IntBuffer packed = IntBuffer.allocate(4);
+		Packing.packHalf2x16(FloatBuffer.wrap(values), packed);
+		Assert.assertEquals(Packing.packHalf2x16(1f, -2f), packed.get(0));
+		packed.flip();
+		final FloatBuffer unpacked = FloatBuffer.allocate(values.length);
+		Packing.unpackHalf2x16(packed, unpacked);
+		Assert.assertArrayEquals(values, unpacked.array(), 0f);
+
+		final IntBuffer snorm = IntBuffer.allocate(2);
+		Packing.packSnorm4x8(FloatBuffer.wrap(values), snorm);
+		Assert.assertEquals(Packing.packSnorm4x8(-0.25f, 0.75f, 1f, 0f), snorm.get(1));
+		snorm.flip();
+		final FloatBuffer snormOut = FloatBuffer.allocate(values.length);
+		Packing.unpackSnorm4x8(snorm, snormOut);
+		Assert.assertEquals(-1f, snormOut.get(1), 0f);
+		Assert.assertEquals(-0.25f, snormOut.get(4), 0.5f / 127f);
+
+		final IntBuffer unorm = IntBuffer.allocate(4);
+		Packing.packUnorm2x16(FloatBuffer.wrap(values), unorm);
+		unorm.flip();
+		final FloatBuffer unormOut = FloatBuffer.allocate(values.length);
+		Packing.unpackUnorm2x16(unorm, unormOut);
+		Assert.assertEquals(0f, unormOut.get(1), 0f);
+		Assert.assertEquals(0.75f, unormOut.get(5), 0.5f / 65535f);
+	}
+
+	@Test(expected = BufferOverflowException.class)
+	public void testBulkOverflow() {
+		Packing.toHalf(FloatBuffer.wrap(new float[3]), ShortBuffer.allocate(2));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBulkOddCount() {
+		Packing.packHalf2x16(FloatBuffer.wrap(new float[3]), IntBuffer.allocate(2));
+	}
+}
@@ -0,0 +1,111 @@
+package com.hackoeur.jglm.support;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+	@Test
+	public void testBuckets() {
+		for (long value = 0; value < 64; value++) {
+			Assert.assertEquals(value, LatencyHistogram.lowerBound(LatencyHistogram.bucket(value)));
+			Assert.assertEquals(value, LatencyHistogram.upperBound(LatencyHistogram.bucket(value)));
+		}
+
+		final Random random = new Random(7);
+		for (int i = 0; i < 100000; i++) {
+			final long value = (random.nextLong() >>> 1) >>> random.nextInt(63);
+			final int bucket = LatencyHistogram.bucket(value);
+			Assert.assertTrue(LatencyHistogram.lowerBound(bucket) <= value);
+			Assert.assertTrue(value <= LatencyHistogram.upperBound(bucket));
+			Assert.assertTrue(LatencyHistogram.upperBound(bucket) - LatencyHistogram.lowerBound(bucket) <= value / 32);
+		}
+
+		// Consecutive buckets tile the whole range.
+		final int last = LatencyHistogram.bucket(Long.MAX_VALUE);
+		for (int bucket = 0; bucket < last; bucket++) {
+			Assert.assertEquals(LatencyHistogram.upperBound(bucket) + 1, LatencyHistogram.lowerBound(bucket + 1));
+		}
+		Assert.assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBound(last));
+	}
+
+	@Test
+	public void testPercentiles() {
+		final LatencyHistogram histogram = new LatencyHistogram();
+		Assert.assertEquals(0L, histogram.snapshot().getValueAtPercentile(99.0));
+
+		for (long value = 1; value <= 100000; value++) {
+			histogram.record(value);
+		}
+
+		final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		Assert.assertEquals(100000L, snapshot.getCount());
+		Assert.assertEquals(50000.5, snapshot.getMean(), 0.0);
+		Assert.assertEquals(1L, snapshot.getMin());
+		assertWithin(100000L, snapshot.getMax());
+		assertWithin(50000L, snapshot.getValueAtPercentile(50.0));
+		assertWithin(99000L, snapshot.getValueAtPercentile(99.0));
+		assertWithin(99900L, snapshot.getValueAtPercentile(99.9));
+		Assert.assertEquals(1L, snapshot.getValueAtPercentile(0.0));
+	}
+
+	@Test
+	public void testReset() {
+		final LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(10L);
+		histogram.record(-5L);
+
+		final LatencyHistogram.Snapshot first = histogram.snapshotAndReset();
+		Assert.assertEquals(2L, first.getCount());
+		Assert.assertEquals(0L, first.getMin());
+		Assert.assertEquals(0L, histogram.snapshot().getCount());
+
+		histogram.record(20L);
+		Assert.assertEquals(1L, histogram.snapshot().getCount());
+		Assert.assertEquals(20.0, histogram.snapshot().getMean(), 0.0);
+
+		histogram.reset();
+		Assert.assertEquals(0L, histogram.snapshot().getCount());
+		Assert.assertEquals(0.0, histogram.snapshot().getMean(), 0.0);
+	}
+
+	@Test
+	public void testThreadsMergeWithoutLoss() throws InterruptedException {
+		final LatencyHistogram histogram = new LatencyHistogram();
+		final Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					for (int i = 0; i < 100000; i++) {
+						histogram.record(i % 1000);
+					}
+				}
+			};
+			threads[t].start();
+		}
+
+		// Intervals taken while threads record add up to the total.
+		long total = 0L;
+		for (int i = 0; i < 20; i++) {
+			total += histogram.snapshotAndReset().getCount();
+			Thread.sleep(1);
+		}
+		for (final Thread thread : threads) {
+			thread.join();
+		}
+		total += histogram.snapshotAndReset().getCount();
+
+		Assert.assertEquals(400000L, total);
+
+		// Counts of ended threads survive.
+		histogram.record(5L);
+		Assert.assertEquals(1L, histogram.snapshot().getCount());
+	}
+
+	private static void assertWithin(final long expected, final long actual) {
+		Assert.assertTrue("expected about " + expected + ", got " + actual,
+				Math.abs(actual - expected) <= expected / 32 + 1);
+	}
+}
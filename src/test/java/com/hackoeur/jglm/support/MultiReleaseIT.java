@@ -0,0 +1,49 @@
+package com.hackoeur.jglm.support;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+/**
+ * Checks the versioned classes of the multi-release jar.  Run by failsafe
+ * against the packaged jar; see the java9 profile.
+ */
+public class MultiReleaseIT {
+	@Test
+	public void testRunsFromJar() {
+		Assert.assertEquals("jar", Fma.class.getResource("Fma.class").getProtocol());
+	}
+
+	@Test
+	public void testFmaLayer() throws IOException {
+		Assume.assumeTrue(javaVersion() >= 9);
+		Assert.assertTrue(Fma.class.getResource("Fma.class").getPath().contains("META-INF/versions/9/"));
+		// On only where the VM compiles Math.fma to an instruction; failsafe
+		// also runs this class with -XX:-UseFMA.
+		Assert.assertEquals(useFma(), Fma.isEnabled());
+
+		// (1 + 2^-12)^2 = 1 + 2^-11 + 2^-24; only a fused multiply-add keeps the last term.
+		final float a = 1f + 1f / 4096f;
+		Assert.assertEquals(Fma.isEnabled() ? 1f / (1 << 24) : 0f, Fma.fma(a, a, -(1f + 1f / 2048f)), 0f);
+	}
+
+	private static boolean useFma() throws IOException {
+		final HotSpotDiagnosticMXBean hotSpot = ManagementFactory.newPlatformMXBeanProxy(
+				ManagementFactory.getPlatformMBeanServer(), "com.sun.management:type=HotSpotDiagnostic",
+				HotSpotDiagnosticMXBean.class);
+		return Boolean.parseBoolean(hotSpot.getVMOption("UseFMA").getValue());
+	}
+
+	/**
+	 * @return the feature release, such as 8 for "1.8" and 11 for "11"
+	 */
+	static int javaVersion() {
+		final String[] parts = System.getProperty("java.specification.version").split("\\.");
+		return Integer.parseInt(parts[0].equals("1") ? parts[1] : parts[0]);
+	}
+}
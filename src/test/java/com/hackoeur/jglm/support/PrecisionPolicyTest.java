@@ -0,0 +1,97 @@
+package com.hackoeur.jglm.support;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.hackoeur.jglm.Vec3;
+import com.hackoeur.jglm.Vec4;
+
+public class PrecisionPolicyTest {
+	private static final int SAMPLES = 200000;
+
+	/**
+	 * @return largest relative error of sqrt and invSqrt over random normal floats
+	 */
+	private static double maxRelativeError(final PrecisionPolicy precision) {
+		final Random random = new Random(41);
+		double max = 0.0;
+
+		for (int i = 0; i < SAMPLES; i++) {
+			final float a = Float.intBitsToFloat(0x00800000 + random.nextInt(0x7f000000 - 0x00800000));
+			final double sqrt = Math.sqrt(a);
+			max = Math.max(max, Math.abs(precision.sqrt(a) - sqrt) / sqrt);
+			max = Math.max(max, Math.abs(precision.invSqrt(a) - 1.0 / sqrt) * sqrt);
+		}
+
+		return max;
+	}
+
+	@Test
+	public void testAccuracy() {
+		Assert.assertTrue(maxRelativeError(PrecisionPolicy.EXACT) <= 6e-8);
+		Assert.assertTrue(maxRelativeError(PrecisionPolicy.FAST) < 5e-6);
+		Assert.assertTrue(maxRelativeError(PrecisionPolicy.APPROX) < 2e-3);
+	}
+
+	@Test
+	public void testDefault() {
+		Assert.assertEquals(PrecisionPolicy.FAST, PrecisionPolicy.getDefault());
+
+		final Vec3 v = new Vec3(3f, -4f, 12f);
+		Assert.assertEquals(v.getLength(PrecisionPolicy.FAST), v.getLength(), 0f);
+		Assert.assertEquals(v.getUnitVector(PrecisionPolicy.FAST), v.getUnitVector());
+
+		Assert.assertEquals(PrecisionPolicy.EXACT, PrecisionPolicy.policy(" Exact "));
+		Assert.assertEquals(PrecisionPolicy.FAST, PrecisionPolicy.policy(null));
+		Assert.assertEquals(PrecisionPolicy.FAST, PrecisionPolicy.policy("exakt"));
+	}
+
+	@Test
+	public void testVectors() {
+		final Vec3 v3 = new Vec3(3f, -4f, 12f);
+		Assert.assertEquals(13f, v3.getLength(PrecisionPolicy.EXACT), 0f);
+		final float inv = (float) (1.0 / 13.0);
+		Assert.assertEquals(new Vec3(3f * inv, -4f * inv, 12f * inv), v3.getUnitVector(PrecisionPolicy.EXACT));
+		Assert.assertEquals(13f, v3.getLength(PrecisionPolicy.APPROX), 13f * 2e-3f);
+
+		final Vec4 v4 = new Vec4(2f, 4f, 5f, 6f);
+		Assert.assertEquals(9f, v4.getLength(PrecisionPolicy.EXACT), 0f);
+		for (final PrecisionPolicy precision : PrecisionPolicy.values()) {
+			final Vec4 unit = v4.getUnitVector(precision);
+			Assert.assertEquals(1f, unit.getLength(PrecisionPolicy.EXACT), 4e-3f);
+		}
+
+		Assert.assertEquals(Vec3.VEC3_ZERO, Vec3.VEC3_ZERO.getUnitVector(PrecisionPolicy.FAST));
+		Assert.assertEquals(Vec3.VEC3_ZERO, Vec3.VEC3_ZERO.getUnitVector(PrecisionPolicy.APPROX));
+		Assert.assertEquals(Vec3.VEC3_ZERO, Vec3.VEC3_ZERO.getUnitVector(PrecisionPolicy.EXACT));
+		Assert.assertEquals(Vec4.VEC4_ZERO, Vec4.VEC4_ZERO.getUnitVector(PrecisionPolicy.EXACT));
+	}
+
+	@Test
+	@Ignore
+	public void testPerformance() {
+		final Random random = new Random(42);
+		final Vec3[] vectors = new Vec3[4096];
+		for (int i = 0; i < vectors.length; i++) {
+			vectors[i] = new Vec3(random.nextFloat() - 0.5f, random.nextFloat() - 0.5f, random.nextFloat() - 0.5f);
+		}
+
+		for (int round = 0; round < 5; round++) {
+			for (final PrecisionPolicy precision : PrecisionPolicy.values()) {
+				float sum = 0f;
+				final long start = System.nanoTime();
+				for (int n = 0; n < 2000; n++) {
+					for (final Vec3 v : vectors) {
+						sum += v.getLength(precision) + v.getUnitVector(precision).getX();
+					}
+				}
+				final long elapsed = System.nanoTime() - start;
+
+				System.out.println(precision + ": " + (elapsed / (2000.0 * vectors.length)) + " ns per length + normalize (" + sum + ")");
+			}
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package com.hackoeur.jglm.support;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+public class PrecisionTest {
+	private static final int[] MODES = {
+		BigDecimal.ROUND_UP, BigDecimal.ROUND_DOWN, BigDecimal.ROUND_CEILING, BigDecimal.ROUND_FLOOR,
+		BigDecimal.ROUND_HALF_UP, BigDecimal.ROUND_HALF_DOWN, BigDecimal.ROUND_HALF_EVEN
+	};
+
+	@Test
+	public void testRoundMatchesBigDecimal() {
+		final Random random = new Random(37L);
+		for (int i = 0; i < 200000; i++) {
+			final int scale = random.nextInt(12);
+			final double x;
+			switch (i % 4) {
+			case 0:
+				// Arbitrary doubles.
+				x = (random.nextDouble() - 0.5) * Math.pow(10.0, random.nextInt(12) - 4);
+				break;
+			case 1:
+				// Decimals with exactly one digit more than the scale; many ties.
+				x = (random.nextInt(2000001) - 1000000) * 0.5 / Math.pow(10.0, scale);
+				break;
+			case 2:
+				// Decimals with at most the scale's digits.
+				x = (random.nextInt(2000001) - 1000000) / Math.pow(10.0, scale);
+				break;
+			default:
+				// Neighbours of short decimals.
+				final double d = Double.parseDouble((random.nextInt(20001) - 10000) + "." + random.nextInt(1000));
+				x = random.nextBoolean() ? Math.nextUp(d) : Math.nextAfter(d, Double.NEGATIVE_INFINITY);
+				break;
+			}
+
+			for (final int mode : MODES) {
+				assertRound(x, scale, mode);
+			}
+		}
+	}
+
+	@Test
+	public void testRoundEdgeCases() {
+		final double[] values = {
+			0.0, -0.0, 2.675, -2.675, 1.005, 0.125, -0.125, 0.5, -0.5, 1.5, 2.5, -2.5,
+			0.1 + 0.2, 1e-300, -1e-300, 4.9e-324, 1099511627775.5, 1099511627776.5, 1e15, -1e17,
+			Double.MAX_VALUE, -Double.MAX_VALUE
+		};
+		for (final double x : values) {
+			for (int scale = -2; scale < 25; scale++) {
+				for (final int mode : MODES) {
+					assertRound(x, scale, mode);
+				}
+			}
+		}
+
+		Assert.assertTrue(Double.isNaN(Precision.round(Double.NaN, 2, BigDecimal.ROUND_HALF_UP)));
+		Assert.assertEquals(Double.NEGATIVE_INFINITY, Precision.round(Double.NEGATIVE_INFINITY, 2), 0.0);
+		Assert.assertEquals(1.25, Precision.round(1.25, 2, BigDecimal.ROUND_UNNECESSARY), 0.0);
+	}
+
+	@Test(expected = ArithmeticException.class)
+	public void testRoundUnnecessaryInexact() {
+		Precision.round(1.255, 2, BigDecimal.ROUND_UNNECESSARY);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRoundInvalidMethod() {
+		Precision.round(1.255, 2, -1);
+	}
+
+	@Test
+	public void testBulkRound() {
+		final Random random = new Random(38L);
+		final double[] doubles = new double[1000];
+		final float[] floats = new float[doubles.length];
+		for (int i = 0; i < doubles.length; i++) {
+			doubles[i] = (random.nextDouble() - 0.5) * 2000.0;
+			floats[i] = (float) doubles[i];
+		}
+
+		for (final int mode : MODES) {
+			final double[] roundedDoubles = new double[doubles.length];
+			final float[] roundedFloats = floats.clone();
+			Precision.round(doubles, roundedDoubles, doubles.length - 1, 3, mode);
+			// In place.
+			Precision.round(roundedFloats, roundedFloats, floats.length - 1, 3, mode);
+
+			for (int i = 0; i < doubles.length - 1; i++) {
+				Assert.assertEquals(Precision.round(doubles[i], 3, mode), roundedDoubles[i], 0.0);
+				Assert.assertEquals(Precision.round(floats[i], 3, mode), roundedFloats[i], 0.0f);
+			}
+			Assert.assertEquals(0.0, roundedDoubles[doubles.length - 1], 0.0);
+			Assert.assertEquals(floats[floats.length - 1], roundedFloats[floats.length - 1], 0.0f);
+		}
+	}
+
+	@Test
+	@Ignore
+	public void testRoundPerformance() {
+		final Random random = new Random(39L);
+		final double[] values = new double[100000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = (random.nextDouble() - 0.5) * 2000.0;
+		}
+
+		double sink = 0.0;
+		for (int round = 0; round < 10; round++) {
+			long t0 = System.nanoTime();
+			for (final double x : values) {
+				sink += Precision.round(x, 4, BigDecimal.ROUND_HALF_UP);
+			}
+			long t1 = System.nanoTime();
+			for (final double x : values) {
+				sink += new BigDecimal(Double.toString(x)).setScale(4, BigDecimal.ROUND_HALF_UP).doubleValue();
+			}
+			long t2 = System.nanoTime();
+			System.out.println("round: " + (t1 - t0) / values.length + " ns, BigDecimal: "
+					+ (t2 - t1) / values.length + " ns");
+		}
+		System.out.println(sink);
+	}
+
+	private static void assertRound(final double x, final int scale, final int mode) {
+		final double expected;
+		try {
+			expected = new BigDecimal(Double.toString(x)).setScale(scale, mode).doubleValue();
+		} catch (ArithmeticException e) {
+			return;
+		}
+		final double actual = Precision.round(x, scale, mode);
+		Assert.assertEquals(x + " scale " + scale + " mode " + mode,
+				Double.doubleToLongBits(expected), Double.doubleToLongBits(actual));
+	}
+}
@@ -0,0 +1,112 @@
+package com.hackoeur.jglm.support;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.concurrent.Callable;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.hackoeur.jglm.Frustum;
+import com.hackoeur.jglm.Matrices;
+import com.hackoeur.jglm.Plane;
+import com.hackoeur.jglm.Vec3;
+import com.hackoeur.jglm.spatial.KdTree;
+
+public class TelemetryTest {
+	/**
+	 * Runs instrumented calls and returns calls, elements and latencies
+	 * recorded per kind.  Runs in its own class loader, as telemetry is
+	 * configured once per loader.
+	 */
+	public static class Workload implements Callable<long[]> {
+		@Override
+		public long[] call() {
+			final float[] xs = new float[10];
+			final float[] ys = new float[10];
+			final float[] zs = new float[10];
+			for (int i = 0; i < 10; i++) {
+				xs[i] = i;
+				ys[i] = 2 * i % 7;
+				zs[i] = -i;
+			}
+			final float[] distances = new float[10];
+			final int[] masks = new int[10];
+			final Plane plane = new Plane(0f, 1f, 0f, -1f);
+			final Frustum frustum = new Frustum(Matrices.perspective(60f, 1.5f, 0.1f, 100f));
+
+			// Counts from loading classes are not part of the workload.
+			Telemetry.resetCounters();
+			for (final Telemetry.Kind kind : Telemetry.Kind.values()) {
+				Telemetry.getLatencies(kind).reset();
+			}
+
+			plane.signedDistances(xs, ys, zs, distances, 10);
+			// Nested kernels count once.
+			Plane.minSignedDistances(new Plane[] { plane, plane }, xs, ys, zs, distances, 10);
+			frustum.contains(xs, ys, zs, masks, 10);
+			Plane.classify(frustum.getPlanes(), xs, ys, zs, masks, 10);
+			final KdTree tree = new KdTree(xs, ys, zs, 10);
+			tree.nearest(xs, ys, zs, 10, masks, distances, null);
+			tree.withinRadius(0f, 0f, 0f, 3f, masks, null);
+			new Vec3(1f, 2f, 3f).getBuffer();
+
+			final Telemetry.Kind[] kinds = Telemetry.Kind.values();
+			final long[] result = new long[3 * kinds.length + 1];
+			for (int k = 0; k < kinds.length; k++) {
+				result[3 * k] = Telemetry.getCalls(kinds[k]);
+				result[3 * k + 1] = Telemetry.getElements(kinds[k]);
+				result[3 * k + 2] = Telemetry.getLatencies(kinds[k]).snapshotAndReset().getCount();
+				Assert.assertTrue(Telemetry.getNanos(kinds[k]) >= 0L);
+			}
+
+			Telemetry.resetCounters();
+			result[3 * kinds.length] = Telemetry.getCalls(Telemetry.Kind.CULLING);
+			return result;
+		}
+	}
+
+	@Test
+	public void testDisabledByDefault() {
+		Assert.assertFalse(Telemetry.isCounting());
+		Assert.assertFalse(Telemetry.isRecordingLatencies());
+
+		final long before = Telemetry.getCalls(Telemetry.Kind.BULK_TRANSFORM);
+		new Plane(0f, 1f, 0f, 0f).signedDistances(new float[1], new float[1], new float[1], new float[1], 1);
+		Assert.assertEquals(before, Telemetry.getCalls(Telemetry.Kind.BULK_TRANSFORM));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testCounters() throws Exception {
+		final URL[] classpath = {
+				Telemetry.class.getProtectionDomain().getCodeSource().getLocation(),
+				TelemetryTest.class.getProtectionDomain().getCodeSource().getLocation(),
+				Assert.class.getProtectionDomain().getCodeSource().getLocation()
+		};
+
+		final long[] counts;
+		System.setProperty("jglm.counters", "true");
+		System.setProperty("jglm.histograms", "true");
+		try {
+			final ClassLoader loader = new URLClassLoader(classpath, null);
+			counts = ((Callable<long[]>) Class.forName(Workload.class.getName(), true, loader).newInstance()).call();
+		} finally {
+			System.clearProperty("jglm.counters");
+			System.clearProperty("jglm.histograms");
+		}
+
+		// Calls, elements and latencies of each kind, then culling calls after
+		// a reset.
+		final long withinRadius = counts[10] - 10;
+		Assert.assertTrue(withinRadius > 0);
+		Assert.assertArrayEquals(new long[] {
+				2, 20, 2,
+				2, 20, 2,
+				1, 10, 1,
+				2, 10 + withinRadius, 2,
+				1, 12, 1,
+				0
+		}, counts);
+	}
+}